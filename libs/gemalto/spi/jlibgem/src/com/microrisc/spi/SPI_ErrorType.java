@@ -42,4 +42,7 @@ public final class SPI_ErrorType {
     
     /** Bad data was received.  */
     public static final SPI_ErrorType BAD_DATA = new SPI_ErrorType();
+    
+    /** No complete response was received in timeout.  */
+    public static final SPI_ErrorType RESPONSE_TIMEOUT = new SPI_ErrorType();
 }
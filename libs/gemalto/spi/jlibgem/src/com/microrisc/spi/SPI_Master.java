@@ -35,6 +35,20 @@ public interface SPI_Master
      */
     BaudRate getBaudRate();
     
+    /**
+     * Sets maximal number of byte transfers sent to slave before receiving 
+     * their responses. Depth of 1 means no pipelining.
+     * @param pipelineDepth pipeline depth
+     */
+    void setPipelineDepth(int pipelineDepth);
+    
+    /**
+     * Returns maximal number of byte transfers sent to slave before receiving
+     * their responses.
+     * @return pipeline depth
+     */
+    int getPipelineDepth();
+    
     /**
      * Returns SPI status information of slave. Waits for a response for default 
      * timeout. If an error has occured, {@code null} is returned.
@@ -18,10 +18,8 @@ package com.microrisc.spi;
 
 import com.cinterion.io.SpiConnection;
 import com.microrisc.spi.cinterion_protocol.AbstractResponseMessage;
-import com.microrisc.spi.cinterion_protocol.MessageProcessor;
 import com.microrisc.spi.cinterion_protocol.ProtocolErrorResponseMessage;
 import com.microrisc.spi.cinterion_protocol.ReadingOkResponseMessage;
-import com.microrisc.spi.cinterion_protocol.ResponseDataParsingResult;
 import com.microrisc.spi.cinterion_protocol.WriteOkResponseMessage;
 import com.microrisc.spi.iqrf_protocol.AbstractResponsePacket;
 import com.microrisc.spi.iqrf_protocol.CheckSPI_StatusRequest;
@@ -38,6 +36,11 @@ import javax.microedition.io.Connector;
 
 /**
  * Simple SPI Master implementation.
+ * <p>
+ * Transfers are performed by {@link TransferEngine}. Because of Gemalto x Microrisc 
+ * SPI limitation, data are transfered byte by byte. Transfers of the following
+ * bytes can be sent before responses of the previous ones are received, up to
+ * the pipeline depth.
  * 
  * @author Michal Konopa
  */
@@ -58,15 +61,8 @@ final class SimpleSPI_Master implements SPI_Master {
     private final InputStream inStream;
     private final OutputStream outStream;
     
-    
-    // starting value of message ID
-    private static final char MESSAGE_ID_START_VALUE = 0x00; 
-    
-    // ending value of message ID
-    private static final char MESSAGE_ID_END_VALUE = 0x7F;
-    
-    // current value of message ID
-    private char messageId = MESSAGE_ID_START_VALUE;
+    // engine of transfers
+    private final TransferEngine transferEngine;
     
     
     /** Default response timeout. */
@@ -123,18 +119,6 @@ final class SimpleSPI_Master implements SPI_Master {
     private SPI_Error lastError = null;
     
     
-    // combines read data with a result of a reading 
-    private class ReadResult {
-        ResponseDataParsingResult result;
-        SPI_Error error;
-        
-        public ReadResult(ResponseDataParsingResult result, SPI_Error error) {
-            this.result = result;
-            this.error = error;
-        }
-    }
-    
-    
     // creates and returns GCF String for usage of specified SPI connection parameters
     // inside Connector factory open() method
     private String getGCF_String(String devId, BaudRate baudRate) {
@@ -147,7 +131,6 @@ final class SimpleSPI_Master implements SPI_Master {
         strBuffer.append(baudRate.getValue());
         strBuffer.append(PARAM_SEPARATOR);
         strBuffer.append("clockMode=0");
-        System.out.println("CFG srting = " + strBuffer.toString());
         return strBuffer.toString();
     }
     
@@ -167,100 +150,10 @@ final class SimpleSPI_Master implements SPI_Master {
         updateBaudRate();
     }
     
-    // increments current value of message ID
-    private void incrementMessageId() {
-        if ( messageId == MESSAGE_ID_END_VALUE ) {
-            messageId = MESSAGE_ID_START_VALUE;
-        } else {
-            messageId++;
-        }
-    }
-    
-    // transfers specified byte to the connected SPI device
-    private void transferByte(byte data, int readOffset, int readLength) throws IOException {
-        incrementMessageId();
-        lastError = null;
-        
-        byte[] transferMessage = MessageProcessor.createTransferMessage(
-                messageId, data, readOffset, readLength
-        );
-        
-        outStream.write(transferMessage, 0, transferMessage.length);
-        outStream.flush();
-    }
-    
-    // transfers specified data to the connected SPI device
-    private void transferData(byte[] data, int readOffset, int readLength) 
-            throws IOException 
-    {
-        incrementMessageId();
-        lastError = null;
-        
-        byte[] transferMessage = MessageProcessor.createTransferMessage(
-                messageId, data, readOffset, readLength
-        );
-                
-        outStream.write(transferMessage, 0, transferMessage.length);
-        outStream.flush();
-    }
-    
-    // reads a response data
-    private ReadResult readResponseData(long responseTimeout, int bufferLength) {
-        byte[] responseBuffer = new byte[bufferLength];
-        int buffPos = 0;
-        
-        long startWaitingTime = System.currentTimeMillis();
-        long elapsedTime = 0;
-        ResponseDataParsingResult result = null;
-        SPI_Error readError = null;
-        
-        while ( elapsedTime < responseTimeout ) {
-            try {
-                if ( inStream.available() <= 0 ) {
-                    elapsedTime = System.currentTimeMillis() - startWaitingTime;
-                    continue;
-                }
-            } catch ( IOException ex ) {
-                readError = new SPI_Error(
-                        SPI_ErrorType.IO_ERROR, 
-                        "Could not discover available data. Response data: " + responseBuffer,
-                        ex
-                );
-                break;
-            }
-            
-            if ( buffPos >= responseBuffer.length ) {
-                readError = new SPI_Error(
-                        SPI_ErrorType.IO_ERROR, 
-                        "Response buffer overflowed. Response data: " + responseBuffer
-                );
-                break;
-            }
-            
-            int readBytes = 0;
-            try {
-                readBytes = inStream.read(responseBuffer, buffPos, responseBuffer.length - buffPos);
-            } catch ( IOException ex ) {
-                readError = new SPI_Error(
-                        SPI_ErrorType.IO_ERROR, 
-                        "Reading response data failed. Response data: " + responseBuffer,
-                        ex
-                );
-                break;
-            }
-            
-            result = MessageProcessor.parseResponseData(responseBuffer);
-            if ( result.getResult() != ResponseDataParsingResult.ParsingResultType.INCOMPLETE ) {
-                break;
-            }
-            
-            buffPos += readBytes;
-            System.out.print("buffer position: " + buffPos);
-            
-            elapsedTime = System.currentTimeMillis() - startWaitingTime; 
-        }
-        
-        return new ReadResult(result, readError);
+    // sets specified error as the last one and drops all pending transfers
+    private void setError(SPI_Error error) {
+        lastError = error;
+        transferEngine.cancelPending();
     }
     
     /**
@@ -279,7 +172,7 @@ final class SimpleSPI_Master implements SPI_Master {
         updateConnectionParameters();
         this.inStream  = spiConnection.openInputStream();
         this.outStream = spiConnection.openOutputStream();
-        this.messageId = MESSAGE_ID_START_VALUE;
+        this.transferEngine = new TransferEngine(inStream, outStream);
     }
     
     public BaudRate getBaudRate() {
@@ -297,6 +190,18 @@ final class SimpleSPI_Master implements SPI_Master {
         return responseTimeout;
     }
     
+    /**
+     * @throws IllegalArgumentException if {@code pipelineDepth} is not in 
+     *         interval [1, {@link TransferEngine#MAX_PIPELINE_DEPTH}]
+     */
+    public void setPipelineDepth(int pipelineDepth) {
+        transferEngine.setPipelineDepth(pipelineDepth);
+    }
+    
+    public int getPipelineDepth() {
+        return transferEngine.getPipelineDepth();
+    }
+    
     public SPI_Status getSlaveStatus() {
         return getSlaveStatus(responseTimeout);
     }
@@ -306,44 +211,22 @@ final class SimpleSPI_Master implements SPI_Master {
      */
     public SPI_Status getSlaveStatus(long responseTimeout) {
         checkResponseTimeout(responseTimeout);
+        lastError = null;
         
         try {
-            transferData( 
+            transferEngine.send( 
                     new CheckSPI_StatusRequest().serialize(), 0, 
                     CheckSPI_StatusResponse.LENGTH 
             );
         } catch ( IOException ex ) {
-            lastError = new SPI_Error(SPI_ErrorType.IO_ERROR, "Getting slave status failed", ex);
+            setError( new SPI_Error(SPI_ErrorType.IO_ERROR, "Getting slave status failed", ex) );
             return null;
         }
         
         // get a response
-        ReadResult readResult = readResponseData(
-                responseTimeout, WriteOkResponseMessage.LENGTH + CheckSPI_StatusResponse.LENGTH * 2
-        );
- 
-        if ( readResult.error != null ) {
-            lastError = readResult.error;
-            return null;
-        }
-        
-        ResponseDataParsingResult parsingResult = readResult.result;
-        if ( parsingResult.getResult() == ResponseDataParsingResult.ParsingResultType.FORMAT_ERROR 
-             || parsingResult.getResult() == ResponseDataParsingResult.ParsingResultType.INCOMPLETE   
-        ) {
-            lastError = new SPI_Error(SPI_ErrorType.FORMAT_ERROR);
-            return null;
-        }
-        
-        // parsing of read data was OK
-        AbstractResponseMessage response = parsingResult.getResponse();
-        
-        // checking of message ID
-        if ( response.getId() != messageId ) {
-            lastError = new SPI_Error(
-                    SPI_ErrorType.INCORRECT_MESSAGE_ID, 
-                    "Incomming message ID: " + response.getId() + ", expected: " + messageId  
-            );
+        AbstractResponseMessage response = transferEngine.receive(responseTimeout);
+        if ( response == null ) {
+            lastError = transferEngine.getLastError();
             return null;
         }
         
@@ -399,58 +282,45 @@ final class SimpleSPI_Master implements SPI_Master {
                 data
         ).serialize(); 
         
+        lastError = null;
+        int sentCount = 0;
+        
         // because of Gemalto x Microrisc SPI limitation, bytes to write must be transfered one by one
         for ( int i = 0; i < dataToWrite.length; i++ ) {
-            try {
-                transferByte( dataToWrite[i], 0, 0 );
-            } 
-            catch ( IOException ex ) {
-                lastError = new SPI_Error(
-                        SPI_ErrorType.IO_ERROR, "Writing of data: " + dataToWrite + " failed", ex
-                );
-                return null;
+            // sending of following bytes up to the pipeline depth
+            while ( (sentCount < dataToWrite.length) && transferEngine.canSend() ) {
+                try {
+                    transferEngine.send( dataToWrite[sentCount], 0, 0 );
+                } 
+                catch ( IOException ex ) {
+                    setError( new SPI_Error(
+                            SPI_ErrorType.IO_ERROR, "Writing of data: " + dataToWrite + " failed", ex
+                    ));
+                    return null;
+                }
+                sentCount++;
             }
 
             // get a response
-            ReadResult readResult = readResponseData(responseTimeout, WriteOkResponseMessage.LENGTH);
-            if ( readResult.error != null ) {
-                lastError = readResult.error;
-                return null;
-            }
-
-            ResponseDataParsingResult parsingResult = readResult.result;
-            if ( parsingResult.getResult() == ResponseDataParsingResult.ParsingResultType.FORMAT_ERROR
-                 || parsingResult.getResult() == ResponseDataParsingResult.ParsingResultType.INCOMPLETE
-            ) {
-                lastError = new SPI_Error(SPI_ErrorType.FORMAT_ERROR);
-                return null;
-            }
-
-            // parsing of read data was OK
-            AbstractResponseMessage response = parsingResult.getResponse();
-
-            // checking of message ID
-            if ( response.getId() != messageId ) {
-                lastError = new SPI_Error(
-                        SPI_ErrorType.INCORRECT_MESSAGE_ID,
-                        "Incomming message ID: " + response.getId() + ", expected: " + messageId
-                );
+            AbstractResponseMessage response = transferEngine.receive(responseTimeout);
+            if ( response == null ) {
+                lastError = transferEngine.getLastError();
                 return null;
             }
 
             if ( response instanceof ProtocolErrorResponseMessage ) {
-                lastError = new SPI_Error(
+                setError( new SPI_Error(
                         SPI_ErrorType.PROTOCOL_ERROR,
                         "Faulty byte: " + ((ProtocolErrorResponseMessage) response).getFaultyByte()
-                );
+                ));
                 return null;
             }
 
             if ( response instanceof ReadingOkResponseMessage ) {
-                lastError = new SPI_Error(
+                setError( new SPI_Error(
                         SPI_ErrorType.BAD_DATA,
                         "Unexpected bytes read: " + ((ReadingOkResponseMessage) response).getReadData()
-                );
+                ));
                 return null;
             }
         }
@@ -481,55 +351,42 @@ final class SimpleSPI_Master implements SPI_Master {
         
         short[] userDataComplete = new short[dataToRead.length];
         
+        lastError = null;
+        int sentCount = 0;
+        
         // because of Gemalto x Microrisc SPI limitation, bytes to read must be transfered one by one
         for ( int i = 0; i < dataToRead.length; i++ ) {
-            try {
-                transferByte(dataToRead[i], 0, 1);
-            } catch ( IOException ex ) {
-                lastError = new SPI_Error(SPI_ErrorType.IO_ERROR, "Reading of data failed", ex);
-                return null;
+            // sending of following bytes up to the pipeline depth
+            while ( (sentCount < dataToRead.length) && transferEngine.canSend() ) {
+                try {
+                    transferEngine.send(dataToRead[sentCount], 0, 1);
+                } catch ( IOException ex ) {
+                    setError( new SPI_Error(SPI_ErrorType.IO_ERROR, "Reading of data failed", ex) );
+                    return null;
+                }
+                sentCount++;
             }
 
             // get a response
             // reading 6B {0+two_ascii_bytes_as_one_hex_number}
-            ReadResult readResult = readResponseData(responseTimeout, 6);
-            if ( readResult.error != null ) {
-                lastError = readResult.error;
-                return null;
-            }
-
-            ResponseDataParsingResult parsingResult = readResult.result;
-            if ( parsingResult.getResult() == ResponseDataParsingResult.ParsingResultType.FORMAT_ERROR
-                 || parsingResult.getResult() == ResponseDataParsingResult.ParsingResultType.INCOMPLETE
-            ) {
-                lastError = new SPI_Error(SPI_ErrorType.FORMAT_ERROR);
-                return null;
-            }
-
-            // parsing of read data was OK
-            AbstractResponseMessage response = parsingResult.getResponse();
-
-            // checking of message ID
-            if ( response.getId() != messageId ) {
-                lastError = new SPI_Error(
-                        SPI_ErrorType.INCORRECT_MESSAGE_ID,
-                        "Incomming message ID: " + response.getId() + ", expected: " + messageId
-                );
+            AbstractResponseMessage response = transferEngine.receive(responseTimeout);
+            if ( response == null ) {
+                lastError = transferEngine.getLastError();
                 return null;
             }
 
             if ( response instanceof ProtocolErrorResponseMessage ) {
-                lastError = new SPI_Error(
+                setError( new SPI_Error(
                         SPI_ErrorType.PROTOCOL_ERROR,
                         "Faulty byte: " + ((ProtocolErrorResponseMessage) response).getFaultyByte()
-                );
+                ));
                 return null;
             }
 
             if ( response instanceof WriteOkResponseMessage ) {
-                lastError = new SPI_Error(
+                setError( new SPI_Error(
                         SPI_ErrorType.BAD_DATA, "No data read"
-                );
+                ));
                 return null;
             }
 
@@ -0,0 +1,387 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.spi;
+
+import com.microrisc.spi.cinterion_protocol.AbstractResponseMessage;
+import com.microrisc.spi.cinterion_protocol.MessageProcessor;
+import com.microrisc.spi.cinterion_protocol.ResponseDataParsingResult;
+import com.microrisc.spi.cinterion_protocol.ResponseMessageParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Engine of transfers of messages over streams of SPI connection.
+ * <p>
+ * Each transfer message gets next message ID. Responses are matched to sent 
+ * transfers in order of sending, by their message IDs. Up to maximal
+ * pipeline depth of transfers can be sent before their responses are received.
+ * <p>
+ * Streams of CLDC connections offer no read timeout, so the engine waits for 
+ * data by short sleeps between checks of available data, until deadline of
+ * the response. All available bytes are then read at once into reused buffer 
+ * and fed into incremental parser.
+ * <p>
+ * Not thread safe.
+ * 
+ * @author Michal Konopa
+ */
+final class TransferEngine {
+    // starting value of message ID
+    private static final char MESSAGE_ID_START_VALUE = 0x00; 
+    
+    // ending value of message ID
+    private static final char MESSAGE_ID_END_VALUE = 0x7F;
+    
+    // number of different message IDs
+    private static final int MESSAGE_IDS_NUM = MESSAGE_ID_END_VALUE - MESSAGE_ID_START_VALUE + 1;
+    
+    /** Maximal pipeline depth. */
+    public static final int MAX_PIPELINE_DEPTH = MESSAGE_IDS_NUM / 2;
+    
+    // minimal pause between checks of available data [in ms]
+    private static final long MIN_WAITING_PAUSE = 1;
+    
+    // maximal pause between checks of available data [in ms]
+    private static final long MAX_WAITING_PAUSE = 8;
+    
+    // size of read buffer
+    private static final int READ_BUFFER_SIZE = 64;
+    
+    
+    // streams used to I/O operations
+    private final InputStream inStream;
+    private final OutputStream outStream;
+    
+    // current value of message ID
+    private char messageId = MESSAGE_ID_START_VALUE;
+    
+    // IDs of sent transfers waiting for response, in order of sending
+    private final char[] pendingIds = new char[MAX_PIPELINE_DEPTH];
+    
+    // position of the oldest pending ID
+    private int pendingHead = 0;
+    
+    // number of pending IDs
+    private int pendingCount = 0;
+    
+    // maximal number of pending transfers
+    private int pipelineDepth = 1;
+    
+    // buffer for reading from input stream
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    
+    // position of next unparsed byte in the read buffer
+    private int readPos = 0;
+    
+    // number of bytes in the read buffer
+    private int readLimit = 0;
+    
+    // parser of responses
+    private final ResponseMessageParser parser;
+    
+    // error of last operation
+    private SPI_Error lastError = null;
+    
+    
+    private static InputStream checkInStream(InputStream inStream) {
+        if ( inStream == null ) {
+            throw new IllegalArgumentException("Input stream cannot be null.");
+        }
+        return inStream;
+    }
+    
+    private static OutputStream checkOutStream(OutputStream outStream) {
+        if ( outStream == null ) {
+            throw new IllegalArgumentException("Output stream cannot be null.");
+        }
+        return outStream;
+    }
+    
+    private static int checkPipelineDepth(int pipelineDepth) {
+        if ( (pipelineDepth < 1) || (pipelineDepth > MAX_PIPELINE_DEPTH) ) {
+            throw new IllegalArgumentException(
+                    "Pipeline depth must be in interval [1, " + MAX_PIPELINE_DEPTH + "]."
+            );
+        }
+        return pipelineDepth;
+    }
+    
+    // increments current value of message ID
+    private void incrementMessageId() {
+        if ( messageId == MESSAGE_ID_END_VALUE ) {
+            messageId = MESSAGE_ID_START_VALUE;
+        } else {
+            messageId++;
+        }
+    }
+    
+    // writes specified transfer message and registers its ID as pending
+    private char write(byte[] transferMessage) throws IOException {
+        outStream.write(transferMessage, 0, transferMessage.length);
+        outStream.flush();
+        
+        pendingIds[(pendingHead + pendingCount) % pendingIds.length] = messageId;
+        pendingCount++;
+        return messageId;
+    }
+    
+    // returns ID of the oldest pending transfer and removes it
+    private char removeOldestPending() {
+        char id = pendingIds[pendingHead];
+        pendingHead = (pendingHead + 1) % pendingIds.length;
+        pendingCount--;
+        return id;
+    }
+    
+    // waits for available data until specified deadline
+    // returns number of available bytes, 0 if the deadline has expired
+    private int waitForData(long deadline) throws IOException {
+        long pause = MIN_WAITING_PAUSE;
+        while ( true ) {
+            int available = inStream.available();
+            if ( available > 0 ) {
+                return available;
+            }
+            
+            long remaining = deadline - System.currentTimeMillis();
+            if ( remaining <= 0 ) {
+                return 0;
+            }
+            
+            try {
+                Thread.sleep( (pause < remaining)? pause : remaining );
+            } catch ( InterruptedException ex ) {
+                return 0;
+            }
+            
+            if ( pause < MAX_WAITING_PAUSE ) {
+                pause *= 2;
+            }
+        }
+    }
+    
+    // fills the read buffer with available data
+    // returns false, if no data is available until specified deadline
+    private boolean fillReadBuffer(long deadline) throws IOException {
+        int available = waitForData(deadline);
+        if ( available == 0 ) {
+            return false;
+        }
+        
+        int toRead = ( available < readBuffer.length )? available : readBuffer.length;
+        int readBytes = inStream.read(readBuffer, 0, toRead);
+        if ( readBytes < 0 ) {
+            throw new IOException("End of input stream.");
+        }
+        
+        readPos = 0;
+        readLimit = readBytes;
+        return true;
+    }
+    
+    // drops all pending transfers and all received, but not yet parsed data
+    private void resynchronize() {
+        pendingCount = 0;
+        pendingHead = 0;
+        readPos = 0;
+        readLimit = 0;
+        parser.reset();
+        
+        try {
+            int available = inStream.available();
+            while ( available > 0 ) {
+                long skipped = inStream.skip(available);
+                if ( skipped <= 0 ) {
+                    break;
+                }
+                available = inStream.available();
+            }
+        } catch ( IOException ex ) {
+            // the next transfer will fail too
+        }
+    }
+    
+    
+    /**
+     * Creates new transfer engine working over specified streams.
+     * @param inStream input stream of SPI connection
+     * @param outStream output stream of SPI connection
+     * @param maxResponseLength maximal length of response message
+     * @throws IllegalArgumentException if some of the streams is {@code null}
+     */
+    TransferEngine(InputStream inStream, OutputStream outStream, int maxResponseLength) {
+        this.inStream = checkInStream(inStream);
+        this.outStream = checkOutStream(outStream);
+        this.parser = new ResponseMessageParser(maxResponseLength);
+    }
+    
+    /**
+     * Creates new transfer engine working over specified streams with default 
+     * maximal length of response messages.
+     * @param inStream input stream of SPI connection
+     * @param outStream output stream of SPI connection
+     * @throws IllegalArgumentException if some of the streams is {@code null}
+     */
+    TransferEngine(InputStream inStream, OutputStream outStream) {
+        this(inStream, outStream, ResponseMessageParser.DEFAULT_MAX_MESSAGE_LENGTH);
+    }
+    
+    /**
+     * Sets maximal number of transfers sent before receiving their responses.
+     * @param pipelineDepth pipeline depth
+     * @throws IllegalArgumentException if {@code pipelineDepth} is not in 
+     *         interval [1, {@link #MAX_PIPELINE_DEPTH}]
+     */
+    void setPipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = checkPipelineDepth(pipelineDepth);
+    }
+    
+    /**
+     * @return maximal number of transfers sent before receiving their responses
+     */
+    int getPipelineDepth() {
+        return pipelineDepth;
+    }
+    
+    /**
+     * @return number of sent transfers waiting for their responses
+     */
+    int getPendingCount() {
+        return pendingCount;
+    }
+    
+    /**
+     * Indicates, whether next transfer can be sent without exceeding 
+     * the pipeline depth.
+     * @return {@code true} if next transfer can be sent <br>
+     *         {@code false} otherwise
+     */
+    boolean canSend() {
+        return ( pendingCount < pipelineDepth );
+    }
+    
+    /**
+     * Sends transfer message with specified data under next message ID.
+     * @param data data to transfer
+     * @param readOffset read offset
+     * @param readLength length of data to read
+     * @return message ID of the transfer
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if the pipeline is full
+     */
+    char send(byte[] data, int readOffset, int readLength) throws IOException {
+        if ( !canSend() ) {
+            throw new IllegalStateException("Pipeline is full.");
+        }
+        incrementMessageId();
+        return write( MessageProcessor.createTransferMessage(messageId, data, readOffset, readLength) );
+    }
+    
+    /**
+     * Sends transfer message with specified byte under next message ID.
+     * @param data byte to transfer
+     * @param readOffset read offset
+     * @param readLength length of data to read
+     * @return message ID of the transfer
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if the pipeline is full
+     */
+    char send(byte data, int readOffset, int readLength) throws IOException {
+        if ( !canSend() ) {
+            throw new IllegalStateException("Pipeline is full.");
+        }
+        incrementMessageId();
+        return write( MessageProcessor.createTransferMessage(messageId, data, readOffset, readLength) );
+    }
+    
+    /**
+     * Receives response of the oldest pending transfer. If an error occurs, 
+     * all pending transfers are dropped and {@code null} is returned.
+     * @param responseTimeout timeout for waiting for the response (in ms)
+     * @return response of the oldest pending transfer <br>
+     *         {@code null}, if an error has occured
+     * @throws IllegalStateException if there is no pending transfer
+     */
+    AbstractResponseMessage receive(long responseTimeout) {
+        if ( pendingCount == 0 ) {
+            throw new IllegalStateException("No transfer is waiting for response.");
+        }
+        lastError = null;
+        
+        long deadline = System.currentTimeMillis() + responseTimeout;
+        while ( !parser.isCompleted() ) {
+            if ( readPos == readLimit ) {
+                try {
+                    if ( !fillReadBuffer(deadline) ) {
+                        lastError = new SPI_Error(
+                                SPI_ErrorType.RESPONSE_TIMEOUT,
+                                "Received bytes of response: " + parser.getMessageLength()
+                        );
+                        resynchronize();
+                        return null;
+                    }
+                } catch ( IOException ex ) {
+                    lastError = new SPI_Error(
+                            SPI_ErrorType.IO_ERROR, "Reading response data failed.", ex
+                    );
+                    resynchronize();
+                    return null;
+                }
+            }
+            readPos += parser.feed(readBuffer, readPos, readLimit - readPos);
+        }
+        
+        ResponseDataParsingResult parsingResult = parser.getResult();
+        parser.reset();
+        
+        if ( parsingResult.getResult() != ResponseDataParsingResult.ParsingResultType.OK ) {
+            lastError = new SPI_Error(SPI_ErrorType.FORMAT_ERROR);
+            resynchronize();
+            return null;
+        }
+        
+        AbstractResponseMessage response = parsingResult.getResponse();
+        char expectedId = removeOldestPending();
+        if ( response.getId() != expectedId ) {
+            lastError = new SPI_Error(
+                    SPI_ErrorType.INCORRECT_MESSAGE_ID, 
+                    "Incomming message ID: " + (int)response.getId() + ", expected: " + (int)expectedId  
+            );
+            resynchronize();
+            return null;
+        }
+        
+        return response;
+    }
+    
+    /**
+     * Drops all pending transfers. Responses of them, which come later, are 
+     * reported as incorrect message IDs.
+     */
+    void cancelPending() {
+        resynchronize();
+    }
+    
+    /**
+     * @return error of the last call of {@link #receive(long)}, or {@code null} 
+     */
+    SPI_Error getLastError() {
+        return lastError;
+    }
+}
@@ -97,11 +97,11 @@ public final class MessageProcessor {
         throw new IllegalArgumentException("Invalid hex character: " + hex);
     }
     
-    // returns user data from specified response data
+    // returns user data from specified response data of specified length
     // input data are in hex string format - see documentation of com.cinterion.io.SpiConnection interface
-    private static short[] getUserData(byte[] responseData) {
+    private static short[] getUserData(byte[] responseData, int length) {
         // checking of user data length
-        int userDataLen = responseData.length - READ_DATA_POS - 1;
+        int userDataLen = length - READ_DATA_POS - 1;
         if ( userDataLen % 2 != 0 ) {
             throw new IllegalArgumentException(
                     "Number of characteres, which represent data must be even. "
@@ -109,7 +109,7 @@ public final class MessageProcessor {
             );
         }
         
-        short[] userData = new short[ ( responseData.length - READ_DATA_POS - 1 ) / 2];
+        short[] userData = new short[ ( length - READ_DATA_POS - 1 ) / 2];
         for ( int dataId = 0, respPos = READ_DATA_POS; dataId < userData.length; dataId++, respPos +=2 ) 
         {
             userData[dataId] = (short) (16 * computeValueFromHex(responseData[respPos]) 
@@ -123,6 +123,26 @@ public final class MessageProcessor {
         return  ((spiData[FAULTY_BYTE_POS+1] & 0xFF) + ((spiData[FAULTY_BYTE_POS] & 0xFF) << 8)) ;
     }
     
+    /**
+     * Indicates, whether specified byte starts a response message.
+     * @param data byte to check
+     * @return {@code true} if {@code data} starts a response message <br>
+     *         {@code false} otherwise
+     */
+    public static boolean isResponseStart(byte data) {
+        return ( (data & 0xFF) == START_REPONSE_MESSAGE );
+    }
+    
+    /**
+     * Indicates, whether specified byte ends a response message.
+     * @param data byte to check
+     * @return {@code true} if {@code data} ends a response message <br>
+     *         {@code false} otherwise
+     */
+    public static boolean isResponseEnd(byte data) {
+        return ( (data & 0xFF) == STOP_RESPONSE_MESSAGE );
+    }
+    
     /**
      * Creates and returns transfer message.
      * @param msgId message ID
@@ -190,33 +210,40 @@ public final class MessageProcessor {
      * @return result of parsing of {@code responseData}
      */
     public static ResponseDataParsingResult parseResponseData(byte[] responseData) {
-        if ( responseData.length < WriteOkResponseMessage.LENGTH ) {
+        return parseResponseData(responseData, responseData.length);
+    }
+    
+    /**
+     * Parses first {@code length} bytes of specified SPI response data and 
+     * returns a result of this parsing process.
+     * @param responseData response data to parse
+     * @param length length of the response data
+     * @return result of parsing of {@code responseData}
+     */
+    public static ResponseDataParsingResult parseResponseData(byte[] responseData, int length) {
+        if ( length < WriteOkResponseMessage.LENGTH ) {
             
             return new ResponseDataParsingResult(
                     ResponseDataParsingResult.ParsingResultType.INCOMPLETE, null
             );
         }
         
-        int[] dataInt = new int[ responseData.length ];
-        for ( int dataId = 0; dataId < dataInt.length; dataId++) {
-            dataInt[dataId] = responseData[dataId] & 0xFF;
-        }
-        
-        if ( dataInt[START_MESSAGE_POS] != START_REPONSE_MESSAGE ) {
+        if ( (responseData[START_MESSAGE_POS] & 0xFF) != START_REPONSE_MESSAGE ) {
             
             return new ResponseDataParsingResult(
                     ResponseDataParsingResult.ParsingResultType.FORMAT_ERROR, null
             );
         }
         
-        if ( dataInt[dataInt.length-1] != STOP_RESPONSE_MESSAGE ) {
+        if ( (responseData[length-1] & 0xFF) != STOP_RESPONSE_MESSAGE ) {
             
             return new ResponseDataParsingResult(
                     ResponseDataParsingResult.ParsingResultType.INCOMPLETE, null
             );
         }
         
-        if ( (dataInt[OPER_RESULT_POS] != TRANSMISSION_OK) && (dataInt[OPER_RESULT_POS] != PROTOCOL_ERROR) ) {
+        int operResult = responseData[OPER_RESULT_POS] & 0xFF;
+        if ( (operResult != TRANSMISSION_OK) && (operResult != PROTOCOL_ERROR) ) {
             
             return new ResponseDataParsingResult(
                     ResponseDataParsingResult.ParsingResultType.FORMAT_ERROR, null
@@ -226,8 +253,8 @@ public final class MessageProcessor {
         char msgId = (char)responseData[MESSAGE_ID_POS];
         
         // transfer OK
-        if ( dataInt[OPER_RESULT_POS] == TRANSMISSION_OK ) {
-            if ( dataInt.length == WriteOkResponseMessage.LENGTH ) {
+        if ( operResult == TRANSMISSION_OK ) {
+            if ( length == WriteOkResponseMessage.LENGTH ) {
                 
                 return new ResponseDataParsingResult(
                     ResponseDataParsingResult.ParsingResultType.OK,
@@ -238,7 +265,7 @@ public final class MessageProcessor {
             
             short[] userData = null;
             try {
-                userData = getUserData(responseData);
+                userData = getUserData(responseData, length);
             } catch ( Exception e ) {
                 
                 return new ResponseDataParsingResult(
@@ -253,7 +280,7 @@ public final class MessageProcessor {
         }
         
         // transfer error
-        if ( dataInt.length != (WriteOkResponseMessage.LENGTH + FAULTY_BYTE_LENGTH) ) {
+        if ( length != (WriteOkResponseMessage.LENGTH + FAULTY_BYTE_LENGTH) ) {
             
             // missing 16 bit code of error byte or some other bytes are present
             return new ResponseDataParsingResult(
@@ -0,0 +1,147 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.spi.cinterion_protocol;
+
+/**
+ * Incremental parser of response messages. 
+ * <p>
+ * Bytes are fed into the parser as they arrive. The parser collects bytes of
+ * one response message into reused buffer and parses the message, as soon as
+ * its ending character arrives. Bytes following the end of the message are
+ * not consumed, so they can be fed as beginning of the next message.
+ * 
+ * @author Michal Konopa
+ */
+public final class ResponseMessageParser {
+    /** Default maximal length of response message. */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 
+            WriteOkResponseMessage.LENGTH + 2 * 256;
+    
+    // buffer of the message
+    private final byte[] messageBuffer;
+    
+    // length of the message in the buffer
+    private int messageLength = 0;
+    
+    // result of parsing of the completed message, null if not yet completed
+    private ResponseDataParsingResult result = null;
+    
+    
+    private static int checkMaxMessageLength(int maxMessageLength) {
+        if ( maxMessageLength < WriteOkResponseMessage.LENGTH ) {
+            throw new IllegalArgumentException(
+                    "Maximal message length cannot be less then " + WriteOkResponseMessage.LENGTH
+            );
+        }
+        return maxMessageLength;
+    }
+    
+    // completes the message with specified result
+    private void complete(ResponseDataParsingResult.ParsingResultType resultType) {
+        result = new ResponseDataParsingResult(resultType, null);
+    }
+    
+    
+    /**
+     * Creates new parser with specified maximal length of response messages.
+     * @param maxMessageLength maximal length of response message
+     * @throws IllegalArgumentException if {@code maxMessageLength} is less then 
+     *         length of the shortest message
+     */
+    public ResponseMessageParser(int maxMessageLength) {
+        this.messageBuffer = new byte[checkMaxMessageLength(maxMessageLength)];
+    }
+    
+    /**
+     * Creates new parser with default maximal length of response messages.
+     */
+    public ResponseMessageParser() {
+        this(DEFAULT_MAX_MESSAGE_LENGTH);
+    }
+    
+    /**
+     * Feeds specified bytes into the parser. Bytes are consumed until the 
+     * current message is completed.
+     * @param data source of bytes
+     * @param offset offset of the first byte to feed
+     * @param length number of bytes to feed
+     * @return number of consumed bytes
+     * @throws IllegalStateException if the current message is already completed
+     */
+    public int feed(byte[] data, int offset, int length) {
+        if ( result != null ) {
+            throw new IllegalStateException("Message already completed. Reset the parser.");
+        }
+        
+        for ( int i = 0; i < length; i++ ) {
+            byte dataByte = data[offset + i];
+            
+            if ( (messageLength == 0) && !MessageProcessor.isResponseStart(dataByte) ) {
+                complete(ResponseDataParsingResult.ParsingResultType.FORMAT_ERROR);
+                return i + 1;
+            }
+            
+            if ( messageLength == messageBuffer.length ) {
+                complete(ResponseDataParsingResult.ParsingResultType.FORMAT_ERROR);
+                return i;
+            }
+            
+            messageBuffer[messageLength++] = dataByte;
+            
+            if ( MessageProcessor.isResponseEnd(dataByte) ) {
+                result = MessageProcessor.parseResponseData(messageBuffer, messageLength);
+                return i + 1;
+            }
+        }
+        return length;
+    }
+    
+    /**
+     * Indicates, whether the current message is completed.
+     * @return {@code true} if the current message is completed <br>
+     *         {@code false} otherwise
+     */
+    public boolean isCompleted() {
+        return ( result != null );
+    }
+    
+    /**
+     * Returns result of parsing of the completed message.
+     * @return result of parsing <br>
+     *         {@code null}, if the current message is not yet completed
+     */
+    public ResponseDataParsingResult getResult() {
+        return result;
+    }
+    
+    /**
+     * Returns number of bytes of the current message received so far.
+     * @return number of bytes of the current message
+     */
+    public int getMessageLength() {
+        return messageLength;
+    }
+    
+    /**
+     * Prepares the parser for the next message.
+     */
+    public void reset() {
+        messageLength = 0;
+        result = null;
+    }
+}
@@ -0,0 +1,46 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.cdc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface for receiving asynchronous messages from connected USB device 
+ * into buffers. When asynchronous message comes, <code>onGetMessage</code> 
+ * will be called. 
+ * <p>
+ * The buffer is owned by the caller and it is reused for next messages. 
+ * Its content is valid only during the call, so the listener must copy 
+ * the data, if it needs them later. The call should return as soon as possible, 
+ * as it blocks reception of next messages.
+ * 
+ * @version     1.0
+ */
+public interface J_AsyncBufferListener {
+    /**
+     * Will be called if asynchronous message comes. <br> 
+     * Data of the message are between position and limit of <code>data</code>.
+     * Length of the data can exceed {@link J_CDCImpl#MAX_MESSAGE_LENGTH}, 
+     * if too long message has been received.
+     * If any error in the asynchronous message is discovered, <code>data</code> 
+     * will be set to <code>null</code>.
+     * @param data data of asynchronous message.
+     */
+    public void onGetMessage(ByteBuffer data);
+    
+}
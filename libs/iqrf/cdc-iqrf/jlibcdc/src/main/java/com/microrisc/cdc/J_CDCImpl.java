@@ -16,9 +16,17 @@
 
 package com.microrisc.cdc;
 
+import java.nio.ByteBuffer;
+
 /**
  * Wrapper class for accessing CDCLib static library (originally written in C++) 
  * from within Java code.
+ * <p>
+ * Data can be sent and received either as <code>short[]</code> or in direct
+ * <code>ByteBuffer</code> objects. Buffer variants pass the data across JNI 
+ * without allocation, if supported by the Java Stub library. With older versions 
+ * of the library, the buffer variants are converted to and from 
+ * <code>short[]</code> on the Java side.
  * 
  * @version     1.0
  */
@@ -33,6 +41,27 @@ public class J_CDCImpl {
      */
     private J_AsyncMsgListener msgListener;
     
+    /**
+     * Listener of asynchronous message reception into buffers.
+     */
+    private J_AsyncBufferListener bufferListener;
+    
+    /**
+     * Maximal length of data of asynchronous message [in bytes].
+     */
+    public static final int MAX_MESSAGE_LENGTH = 128;
+    
+    /**
+     * Buffer for data of asynchronous messages received through 
+     * <code>short[]</code> callback. Used only with older Java Stub library.
+     */
+    private ByteBuffer messageBuffer = null;
+    
+    /**
+     * Indicates, whether the Java Stub library supports buffer variants.
+     */
+    private boolean buffersSupported = true;
+    
     
     /**
      * Creates object of CDCImpl class and returns reference to it.
@@ -69,6 +98,8 @@ public class J_CDCImpl {
     
     private native int stub_sendData(long cdcRef, short[] data);
     
+    private native int stub_sendDataBuffer(long cdcRef, ByteBuffer data, int offset, int length);
+    
     private native void stub_switchToCustomlong(long cdcRef);
     
     
@@ -76,6 +107,9 @@ public class J_CDCImpl {
     
     private native void stub_unregisterAsyncListener(long cdcRef);
     
+    // native side calls bufferListener with direct buffer of native memory
+    private native void stub_registerAsyncBufferListener(long cdcRef);
+    
     
     private native boolean stub_isReceptionStopped(long cdcRef);
     
@@ -222,6 +256,54 @@ public class J_CDCImpl {
     public J_DSResponse sendData(short[] data) throws J_CDCSendException, J_CDCReceiveException,
             Exception {
        int respVal = stub_sendData(cdcImpl, data);
+       return toDSResponse(respVal);
+    }
+    
+    /**
+     * Sends data between position and limit of specified buffer to module and 
+     * returns response. Position of the buffer is set to its limit.
+     * @param data direct buffer with data to send
+     * @return response on sending specified data to module 
+     * @throws IllegalArgumentException if <code>data</code> is <code>null</code>,
+     *         is not direct or has no remaining data
+     * @throws J_CDCSendException if some error occurs during sending command
+     * @throws J_CDCReceiveException if some error occurs during response reception
+     * @throws Exception if other error occurs
+     */
+    public J_DSResponse sendData(ByteBuffer data) throws J_CDCSendException, J_CDCReceiveException,
+            Exception {
+       checkBufferToSend(data);
+       
+       if (buffersSupported) {
+           try {
+               int respVal = stub_sendDataBuffer(cdcImpl, data, data.position(), data.remaining());
+               data.position(data.limit());
+               return toDSResponse(respVal);
+           } catch (UnsatisfiedLinkError e) {
+               buffersSupported = false;
+           }
+       }
+       
+       short[] shortData = new short[data.remaining()];
+       for (int i = 0; i < shortData.length; i++) {
+           shortData[i] = (short)(data.get() & 0xFF);
+       }
+       return sendData(shortData);
+    }
+    
+    private static void checkBufferToSend(ByteBuffer data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        if (!data.isDirect()) {
+            throw new IllegalArgumentException("Data buffer must be direct");
+        }
+        if (!data.hasRemaining()) {
+            throw new IllegalArgumentException("Data cannot be of zero size");
+        }
+    }
+    
+    private static J_DSResponse toDSResponse(int respVal) throws Exception {
        for (J_DSResponse jResp : J_DSResponse.values()) {
            if (jResp.getRespValue() == respVal) {
                return jResp;
@@ -247,15 +329,70 @@ public class J_CDCImpl {
      * @param asyncListener listener to register
      */
     public void registerAsyncListener(J_AsyncMsgListener asyncListener) {
+        bufferListener = null;
         msgListener = asyncListener;
         stub_registerAsyncListener(cdcImpl);
     }
     
+    /**
+     * Registers listener of asynchronous messages reception into buffers.
+     * Replaces listener registered by 
+     * {@link #registerAsyncListener(J_AsyncMsgListener)}.
+     * @param asyncListener listener to register
+     */
+    public void registerAsyncListener(J_AsyncBufferListener asyncListener) {
+        bufferListener = asyncListener;
+        
+        if (buffersSupported) {
+            try {
+                msgListener = null;
+                stub_registerAsyncBufferListener(cdcImpl);
+                return;
+            } catch (UnsatisfiedLinkError e) {
+                buffersSupported = false;
+            }
+        }
+        
+        messageBuffer = ByteBuffer.allocateDirect(MAX_MESSAGE_LENGTH);
+        msgListener = new J_AsyncMsgListener() {
+            @Override
+            public void onGetMessage(short[] data) {
+                deliverToBufferListener(data);
+            }
+        };
+        stub_registerAsyncListener(cdcImpl);
+    }
+    
+    // copies data into message buffer and passes it to buffer listener
+    private void deliverToBufferListener(short[] data) {
+        J_AsyncBufferListener listener = bufferListener;
+        if (listener == null) {
+            return;
+        }
+        
+        if (data == null) {
+            listener.onGetMessage(null);
+            return;
+        }
+        
+        // over-length message is passed in its own buffer, so that the listener 
+        // can recognize it by its length
+        ByteBuffer buffer = (data.length > MAX_MESSAGE_LENGTH)? 
+                ByteBuffer.allocate(data.length) : messageBuffer;
+        buffer.clear();
+        for (short dataByte : data) {
+            buffer.put((byte)dataByte);
+        }
+        buffer.flip();
+        listener.onGetMessage(buffer);
+    }
+    
     /**
      * Unregisters listener of asynchronous messages reception.
      */
     public void unregisterAsyncListener() {
         msgListener = null;
+        bufferListener = null;
         stub_unregisterAsyncListener(cdcImpl);
     }
     
@@ -0,0 +1,206 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.hdlcframing.v1;
+
+/**
+ * Fixed size ring buffer of received bytes, which passes complete HDLC frames 
+ * to a decoder.
+ * <p>
+ * Received bytes are written into the ring by one producer thread. One consumer 
+ * thread scans the written bytes in place for the last flag sequence and passes 
+ * all bytes up to it to the decoder directly from the ring, without copying. 
+ * Bytes of an incomplete frame remain in the ring until its closing flag 
+ * sequence arrives.
+ * <p>
+ * If the ring is full, newly received bytes are dropped. If the ring is full 
+ * and it contains no flag sequence, its content can never form a frame, so 
+ * it is discarded.
+ * <p>
+ * Safe for one producer and one consumer thread.
+ *
+ * @author Michal Konopa
+ */
+public final class HDLC_ReceptionRing {
+    private static final int FLAG_SEQUENCE = 0x7e;
+    
+    /** Default capacity of the ring. */
+    public static final int CAPACITY_DEFAULT = 4096;
+    
+    
+    /** Received bytes. */
+    private final byte[] ring;
+    
+    /** Total number of bytes written into the ring. */
+    private volatile long writeCount = 0;
+    
+    /** Total number of bytes consumed from the ring. */
+    private volatile long readCount = 0;
+    
+    /** Number of bytes after the read position already scanned for flag sequence. */
+    private int scannedLength = 0;
+    
+    /** Total number of discarded bytes. */
+    private volatile long discardedCount = 0;
+    
+    
+    private static int checkCapacity(int capacity) {
+        if ( capacity <= 0 ) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        return capacity;
+    }
+    
+    private static void checkRegion(byte[] data, int offset, int length) {
+        if ( data == null ) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        if ( (offset < 0) || (length < 0) || (offset > data.length - length) ) {
+            throw new IllegalArgumentException(
+                    "Invalid region: offset=" + offset + ", length=" + length
+            );
+        }
+    }
+    
+    private static HDLC_FrameDecoder checkDecoder(HDLC_FrameDecoder decoder) {
+        if ( decoder == null ) {
+            throw new IllegalArgumentException("Decoder cannot be null");
+        }
+        return decoder;
+    }
+    
+    // passes specified number of bytes from the read position to the decoder
+    // and consumes them
+    private void consume(int length, HDLC_FrameDecoder decoder) {
+        int start = (int)(readCount % ring.length);
+        int firstPart = Math.min(length, ring.length - start);
+        
+        // the bytes must not be overwritten by the producer during decoding, 
+        // but failure of decoding of one frame cannot block the ring
+        try {
+            decoder.decode(ring, start, firstPart);
+            if ( firstPart < length ) {
+                decoder.decode(ring, 0, length - firstPart);
+            }
+        } finally {
+            readCount += length;
+            scannedLength = 0;
+        }
+    }
+    
+    
+    /**
+     * Creates new ring of specified capacity.
+     * @param capacity capacity of the ring
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public HDLC_ReceptionRing(int capacity) {
+        this.ring = new byte[checkCapacity(capacity)];
+    }
+    
+    /**
+     * Creates new ring of default capacity.
+     */
+    public HDLC_ReceptionRing() {
+        this(CAPACITY_DEFAULT);
+    }
+    
+    /**
+     * Writes specified received bytes into the ring. Called by the producer thread.
+     * @param data received data
+     * @param offset offset of the bytes in {@code data}
+     * @param length number of bytes
+     * @return number of written bytes, less then {@code length}, if the ring 
+     *         has not enough free space
+     * @throws IllegalArgumentException if specified region is invalid
+     */
+    public int write(byte[] data, int offset, int length) {
+        checkRegion(data, offset, length);
+        
+        long currWriteCount = writeCount;
+        int free = ring.length - (int)(currWriteCount - readCount);
+        int toWrite = Math.min(length, free);
+        
+        int start = (int)(currWriteCount % ring.length);
+        int firstPart = Math.min(toWrite, ring.length - start);
+        System.arraycopy(data, offset, ring, start, firstPart);
+        if ( firstPart < toWrite ) {
+            System.arraycopy(data, offset + firstPart, ring, 0, toWrite - firstPart);
+        }
+        
+        writeCount = currWriteCount + toWrite;
+        return toWrite;
+    }
+    
+    /**
+     * Passes all complete frames from the ring to specified decoder. 
+     * Called by the consumer thread.
+     * @param decoder decoder of frames
+     * @return number of bytes passed to the decoder or discarded
+     * @throws IllegalArgumentException if {@code decoder} is {@code null}
+     */
+    public int decodeFrames(HDLC_FrameDecoder decoder) {
+        checkDecoder(decoder);
+        
+        int available = (int)(writeCount - readCount);
+        int lastFlagEnd = 0;
+        for ( int i = scannedLength; i < available; i++ ) {
+            if ( (ring[(int)((readCount + i) % ring.length)] & 0xFF) == FLAG_SEQUENCE ) {
+                lastFlagEnd = i + 1;
+            }
+        }
+        
+        if ( lastFlagEnd > 0 ) {
+            consume(lastFlagEnd, decoder);
+            return lastFlagEnd;
+        }
+        
+        // no flag sequence in the full ring - the content cannot form a frame
+        if ( available == ring.length ) {
+            discardedCount += available;
+            readCount += available;
+            scannedLength = 0;
+            decoder.reset();
+            return available;
+        }
+        
+        scannedLength = available;
+        return 0;
+    }
+    
+    /**
+     * @return number of bytes in the ring
+     */
+    public int getLength() {
+        return (int)(writeCount - readCount);
+    }
+    
+    /**
+     * @return total number of bytes discarded, because the full ring contained
+     *         no flag sequence
+     */
+    public long getDiscardedCount() {
+        return discardedCount;
+    }
+    
+    /**
+     * @return capacity of the ring
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+}
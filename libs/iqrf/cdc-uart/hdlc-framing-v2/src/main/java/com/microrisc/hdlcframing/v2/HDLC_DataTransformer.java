@@ -16,12 +16,14 @@
 
 package com.microrisc.hdlcframing.v2;
 
-import java.util.LinkedList;
-import java.util.List;
-import org.apache.commons.lang.ArrayUtils;
+import java.util.Arrays;
 
 /**
  * Transforms data to and reads data from HDLC stuffing protocol.
+ * <p>
+ * Besides methods working on whole {@code short[]} frames, the class provides
+ * methods for encoding of frames into caller-supplied byte buffers. For
+ * incremental decoding of received data use {@link HDLC_FrameDecoder}.
  * 
  * @author Michal Konopa
  */
@@ -30,6 +32,12 @@ public final class HDLC_DataTransformer {
     private static final short CONTROL_ESCAPE = 0x7d;
     private static final short ESCAPE_BIT = 0x20;
     
+    /** Initial value of CRC. */
+    static final int CRC_INIT = 0xFF;
+    
+    /** Table of CRC values of all bytes. */
+    private static final short[] CRC_TABLE = createCRCTable();
+    
     
     /** Checks specified request to be sent to HDLC. */
     private static void checkRequestData(short[] dataToTransform) {
@@ -45,13 +53,44 @@ public final class HDLC_DataTransformer {
         }
     }
     
+    /** Checks specified region of specified array. */
+    private static void checkRegion(byte[] data, int offset, int length) {
+        if ( data == null ) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        if ( (offset < 0) || (length < 0) || (offset > data.length - length) ) {
+            throw new IllegalArgumentException(
+                    "Invalid region: offset=" + offset + ", length=" + length
+            );
+        }
+    }
+    
+    /** Indicates, wheather specified byte must be escaped. */
+    private static boolean mustBeEscaped(int dataItem) {
+        return ( ( dataItem == FLAG_SEQUENCE ) || ( dataItem == CONTROL_ESCAPE ) );
+    }
+    
     /**
-     * Returns new value of CRC.
+     * Writes specified byte in escaped form into specified buffer.
+     * @return position in the buffer after the written byte
+     */
+    private static int writeByte(int dataItem, byte[] dest, int pos) {
+        if ( mustBeEscaped(dataItem) ) {
+            dest[pos++] = (byte)CONTROL_ESCAPE;
+            dest[pos++] = (byte)( dataItem ^ ESCAPE_BIT );
+        } else {
+            dest[pos++] = (byte)dataItem;
+        }
+        return pos;
+    }
+    
+    /**
+     * Returns new value of CRC computed bit by bit.
      * @param crc current value of CRC
      * @param value input data byte
      * @return updated value of CRC
      */
-    private static short updateCRC(short crc, short value) {
+    private static short updateCRCBitwise(short crc, short value) {
         for ( int bitLoop = 8; bitLoop != 0; --bitLoop, value >>= 1 ) { 
             if ( ( ( crc ^ value ) & 0x01 ) != 0 ) {
                 crc = (short)( ( crc >> 1 ) ^ 0x8C );
@@ -62,50 +101,136 @@ public final class HDLC_DataTransformer {
         return crc;
     }
     
+    /** Creates table of CRC values of all bytes. */
+    private static short[] createCRCTable() {
+        short[] table = new short[256];
+        for ( int value = 0; value < table.length; value++ ) {
+            table[value] = updateCRCBitwise((short)value, (short)0);
+        }
+        return table;
+    }
+    
     /**
-     * Converts and adds the converted value of specified byte into specified list. 
-     * @param dataItem data item to convert to HDLC protocol
-     * @param resultList target list to add the converted value into
+     * Returns new value of CRC.
+     * @param crc current value of CRC
+     * @param value input data byte
+     * @return updated value of CRC
      */
-    private static void convertAndAddByte(short dataItem, List<Short> resultList) {
-        if ( ( dataItem == FLAG_SEQUENCE ) || ( dataItem == CONTROL_ESCAPE ) ) {
-            resultList.add( CONTROL_ESCAPE );
-            Short secByte = (short) ( dataItem ^ ESCAPE_BIT );
-            resultList.add(secByte);
-        } else {
-            resultList.add( dataItem );
+    static int updateCRC(int crc, int value) {
+        return CRC_TABLE[( crc ^ value ) & 0xFF];
+    }
+    
+    /**
+     * Returns CRC of specified data.
+     */
+    private static int computeCRC(byte[] data, int offset, int length) {
+        int crc = CRC_INIT;
+        for ( int pos = offset; pos < offset + length; pos++ ) {
+            crc = updateCRC(crc, data[pos] & 0xFF);
         }
+        return crc;
+    }
+    
+    /**
+     * Returns length of HDLC frame of specified data.
+     */
+    private static int getFrameLength(byte[] data, int offset, int length, int crc) {
+        int frameLength = length + 3;
+        for ( int pos = offset; pos < offset + length; pos++ ) {
+            if ( mustBeEscaped(data[pos] & 0xFF) ) {
+                frameLength++;
+            }
+        }
+        if ( mustBeEscaped(crc) ) {
+            frameLength++;
+        }
+        return frameLength;
+    }
+    
+    
+    /**
+     * Returns maximal length of HDLC frame of data of specified length, i.e.
+     * length of the frame, if all of the data and CRC must be escaped.
+     * @param dataLength length of data
+     * @return maximal length of HDLC frame
+     */
+    public static int getMaxFrameLength(int dataLength) {
+        return 2 + 2 * ( dataLength + 1 );
+    }
+    
+    /**
+     * Encodes specified data into HDLC frame and writes the frame into 
+     * specified buffer.
+     * @param data source data
+     * @param offset offset of the first byte of source data
+     * @param length length of source data
+     * @param dest destination buffer
+     * @param destOffset position in the destination buffer to start writing at
+     * @return number of bytes written into the destination buffer
+     * @throws IllegalArgumentException if source region is invalid or 
+     *         if the destination buffer has not enough space for the frame
+     */
+    public static int encodeFrame(
+            byte[] data, int offset, int length, byte[] dest, int destOffset
+    ) {
+        checkRegion(data, offset, length);
+        int crc = computeCRC(data, offset, length);
+        checkRegion(dest, destOffset, getFrameLength(data, offset, length, crc));
+        
+        int pos = destOffset;
+        dest[pos++] = (byte)FLAG_SEQUENCE;
+        for ( int dataPos = offset; dataPos < offset + length; dataPos++ ) {
+            pos = writeByte(data[dataPos] & 0xFF, dest, pos);
+        }
+        pos = writeByte(crc, dest, pos);
+        dest[pos++] = (byte)FLAG_SEQUENCE;
+        
+        return pos - destOffset;
+    }
+    
+    /**
+     * Encodes specified data into HDLC frame.
+     * @param data source data
+     * @param offset offset of the first byte of source data
+     * @param length length of source data
+     * @return HDLC frame
+     * @throws IllegalArgumentException if source region is invalid
+     */
+    public static byte[] encodeFrame(byte[] data, int offset, int length) {
+        checkRegion(data, offset, length);
+        int crc = computeCRC(data, offset, length);
+        byte[] frame = new byte[getFrameLength(data, offset, length, crc)];
+        encodeFrame(data, offset, length, frame, 0);
+        return frame;
     }
 
     public static short[] transformToHLDCFormat(short[] dataToTransform) {
         checkRequestData(dataToTransform);
-        List<Short> convertedDataList = new LinkedList<>();
-        
-        // begining byte
-        convertedDataList.add( FLAG_SEQUENCE );
-        
-        // data and computing checksum
-        short crc = 0xFF;
         
+        byte[] data = new byte[dataToTransform.length];
         for ( int dataId = 0; dataId < dataToTransform.length; dataId++ ) {
-            crc = updateCRC(crc, dataToTransform[dataId]);
-            convertAndAddByte(dataToTransform[dataId], convertedDataList);
+            data[dataId] = (byte)dataToTransform[dataId];
         }
         
-        // adding checksum
-        convertAndAddByte(crc, convertedDataList);
-        
-        // ending byte
-        convertedDataList.add( FLAG_SEQUENCE ); 
-        
-        Short[] transformedData = convertedDataList.toArray( new Short[] {});
-        return ArrayUtils.toPrimitive(transformedData);
+        byte[] frame = encodeFrame(data, 0, data.length);
+        short[] transformedData = new short[frame.length];
+        for ( int frameId = 0; frameId < frame.length; frameId++ ) {
+            transformedData[frameId] = (short)( frame[frameId] & 0xFF );
+        }
+        return transformedData;
     }
     
+    /**
+     * Retrieves and returns data from specified HDLC data frame.
+     * @param uartDataFrame HDLC data frame, which the data to retrive from
+     * @return data from specified HDLC data frame
+     * @throws HDLC_FormatException if specified data frame has incorrect format
+     */
     public static short[] getDataFromFrame(short[] uartDataFrame) 
             throws HDLC_FormatException {
         checkUartDataFrame(uartDataFrame);
-        List<Short> dataList = new LinkedList<>();
+        short[] data = new short[uartDataFrame.length];
+        int dataLength = 0;
         
         if ( uartDataFrame[0] != FLAG_SEQUENCE ) {
             throw new HDLC_FormatException("First byte must be 0x7e");
@@ -142,9 +267,9 @@ public final class HDLC_DataTransformer {
                 escapedByte = false;
             }
             
-            countedCRC = updateCRC(countedCRC, dataItem);
+            countedCRC = (short)updateCRC(countedCRC, dataItem);
             
-            dataList.add(dataItem);
+            data[dataLength++] = dataItem;
         }
         
         short packetCRC = uartDataFrame[ uartDataFrame.length-2 ];
@@ -164,7 +289,6 @@ public final class HDLC_DataTransformer {
             );
         }
         
-        Short[] data = dataList.toArray( new Short[] {} );
-        return ArrayUtils.toPrimitive(data);
+        return Arrays.copyOf(data, dataLength);
     }
 }
@@ -0,0 +1,241 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.hdlcframing.v2;
+
+/**
+ * Incremental decoder of HDLC frames.
+ * <p>
+ * Received data can be passed to the decoder in chunks of arbitrary size. The
+ * decoder unescapes the data into its internal buffer and checks the CRC
+ * of each frame at the moment, when the closing flag sequence of the frame
+ * arrives. Data of correct frames are passed to the registered listener.
+ * Data preceding the first flag sequence are discarded. Two consecutive flag
+ * sequences are not considered to be an empty frame, i.e. the closing flag
+ * sequence of one frame can be the opening flag sequence of the next frame.
+ * <p>
+ * Decoding doesn't allocate any memory except of reporting of errors.
+ * Decoder is NOT thread safe.
+ *
+ * @author Michal Konopa
+ */
+public final class HDLC_FrameDecoder {
+    
+    /**
+     * Listener of decoded frames.
+     */
+    public static interface FrameListener {
+        /**
+         * Called, when new correct frame has been decoded. Frame data are
+         * valid only during the call - the buffer is reused for next frames.
+         * @param frameData buffer containing frame data
+         * @param offset offset of frame data in the buffer
+         * @param length length of frame data
+         */
+        void onFrame(byte[] frameData, int offset, int length);
+        
+        /**
+         * Called, when incorrect frame has been received.
+         * @param error description of the error
+         */
+        void onFrameError(HDLC_FormatException error);
+    }
+    
+    
+    private static final int FLAG_SEQUENCE = 0x7e;
+    private static final int CONTROL_ESCAPE = 0x7d;
+    private static final int ESCAPE_BIT = 0x20;
+    
+    /** Default maximal length of frame data. */
+    public static final int MAX_FRAME_LENGTH_DEFAULT = 1024;
+    
+    
+    /** Listener of decoded frames. */
+    private final FrameListener listener;
+    
+    /** Buffer for data of currently decoded frame, including CRC. */
+    private final byte[] frameBuffer;
+    
+    /** Number of bytes in the frame buffer. */
+    private int frameLength = 0;
+    
+    /** Indicates, wheather opening flag sequence has been received. */
+    private boolean inFrame = false;
+    
+    /** Indicates, wheather previous byte was control escape. */
+    private boolean escaped = false;
+    
+    /** Indicates, wheather current frame exceeded the frame buffer. */
+    private boolean overflowed = false;
+    
+    
+    private static FrameListener checkListener(FrameListener listener) {
+        if ( listener == null ) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        return listener;
+    }
+    
+    private static int checkMaxFrameLength(int maxFrameLength) {
+        if ( maxFrameLength <= 0 ) {
+            throw new IllegalArgumentException("Maximal frame length must be positive");
+        }
+        return maxFrameLength;
+    }
+    
+    private static void checkRegion(byte[] data, int offset, int length) {
+        if ( data == null ) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        if ( (offset < 0) || (length < 0) || (offset > data.length - length) ) {
+            throw new IllegalArgumentException(
+                    "Invalid region: offset=" + offset + ", length=" + length
+            );
+        }
+    }
+    
+    // starts decoding of new frame
+    private void startFrame() {
+        inFrame = true;
+        frameLength = 0;
+        escaped = false;
+        overflowed = false;
+    }
+    
+    // finishes decoding of current frame
+    private void finishFrame() {
+        if ( overflowed ) {
+            listener.onFrameError(new HDLC_FormatException(
+                    "Frame too long. Maximal length: " + (frameBuffer.length - 1)
+            ));
+            return;
+        }
+        
+        if ( escaped ) {
+            listener.onFrameError(new HDLC_FormatException(
+                    "Frame ends with control escape"
+            ));
+            return;
+        }
+        
+        int dataLength = frameLength - 1;
+        int countedCRC = HDLC_DataTransformer.CRC_INIT;
+        for ( int pos = 0; pos < dataLength; pos++ ) {
+            countedCRC = HDLC_DataTransformer.updateCRC(
+                    countedCRC, frameBuffer[pos] & 0xFF
+            );
+        }
+        
+        int packetCRC = frameBuffer[dataLength] & 0xFF;
+        if ( countedCRC != packetCRC ) {
+            listener.onFrameError(new HDLC_FormatException(
+                    "CRC mismatch. "
+                    + "Counted: " + countedCRC + " Get: " + packetCRC
+            ));
+            return;
+        }
+        
+        listener.onFrame(frameBuffer, 0, dataLength);
+    }
+    
+    
+    /**
+     * Creates new decoder.
+     * @param maxFrameLength maximal length of data of one frame
+     * @param listener listener of decoded frames
+     * @throws IllegalArgumentException if {@code maxFrameLength} is not positive
+     *         or if {@code listener} is {@code null}
+     */
+    public HDLC_FrameDecoder(int maxFrameLength, FrameListener listener) {
+        // one more byte for CRC
+        this.frameBuffer = new byte[checkMaxFrameLength(maxFrameLength) + 1];
+        this.listener = checkListener(listener);
+    }
+    
+    /**
+     * Creates new decoder with default maximal length of frame data.
+     * @param listener listener of decoded frames
+     * @throws IllegalArgumentException if {@code listener} is {@code null}
+     */
+    public HDLC_FrameDecoder(FrameListener listener) {
+        this(MAX_FRAME_LENGTH_DEFAULT, listener);
+    }
+    
+    /**
+     * Decodes specified chunk of received data. Listener is called for each
+     * frame, which has been completed by the chunk.
+     * @param data received data
+     * @param offset offset of the chunk in {@code data}
+     * @param length length of the chunk
+     * @throws IllegalArgumentException if specified region is invalid
+     */
+    public void decode(byte[] data, int offset, int length) {
+        checkRegion(data, offset, length);
+        
+        for ( int pos = offset; pos < offset + length; pos++ ) {
+            int dataItem = data[pos] & 0xFF;
+            
+            if ( dataItem == FLAG_SEQUENCE ) {
+                if ( inFrame && ( frameLength > 0 || escaped || overflowed ) ) {
+                    finishFrame();
+                }
+                startFrame();
+                continue;
+            }
+            
+            // data outside of frames are discarded
+            if ( !inFrame ) {
+                continue;
+            }
+            
+            if ( dataItem == CONTROL_ESCAPE ) {
+                escaped = true;
+                continue;
+            }
+            
+            if ( escaped ) {
+                dataItem ^= ESCAPE_BIT;
+                escaped = false;
+            }
+            
+            if ( frameLength < frameBuffer.length ) {
+                frameBuffer[frameLength++] = (byte)dataItem;
+            } else {
+                overflowed = true;
+            }
+        }
+    }
+    
+    /**
+     * Decodes specified chunk of received data.
+     * @param data received data
+     * @throws IllegalArgumentException if {@code data} is {@code null}
+     */
+    public void decode(byte[] data) {
+        checkRegion(data, 0, ( data == null )? 0 : data.length);
+        decode(data, 0, data.length);
+    }
+    
+    /**
+     * Discards currently decoded frame. Decoder will wait for next flag sequence.
+     */
+    public void reset() {
+        inFrame = false;
+        frameLength = 0;
+        escaped = false;
+        overflowed = false;
+    }
+}
@@ -34,6 +34,9 @@ public final class SPI_Status {
     public static final int READY_DEBUG_MODE        = 0x82;
     public static final int NOT_ACTIVE_HW_ERROR     = 0xFF;        
     
+    /** Maximal length of data, which can be read from slave [in bytes]. */
+    public static final int MAX_DATA_LENGTH         = 64;
+    
     /** Status value. */
     private final int value;
     
@@ -42,11 +45,12 @@ public final class SPI_Status {
     
     
     /**
-     * Creates new SPI Status object. 
+     * Creates new SPI Status object. Public to enable implementations of 
+     * {@link SPI_Master} outside of this package, e.g. fakes for testing.
      * @param value integer value of the SPI status
      * @param dataReady SPI data ready indication
      */
-    SPI_Status(int value, boolean dataReady) {
+    public SPI_Status(int value, boolean dataReady) {
         this.value = value;
         this.dataReady = dataReady;
     }
@@ -68,4 +72,19 @@ public final class SPI_Status {
     public boolean isDataReady() {
         return dataReady;
     }
+    
+    /**
+     * Returns length of data ready to read.
+     * @return length of data ready to read [in bytes] <br>
+     *         0, if the status is not SPI data ready
+     */
+    public int getDataLength() {
+        if ( !dataReady ) {
+            return 0;
+        }
+        if ( value == 0x40 ) {
+            return MAX_DATA_LENGTH;
+        }
+        return value - 0x40;
+    }
 }
@@ -0,0 +1,46 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.rpi.spi.iqrf;
+
+import com.microrisc.rpi.spi.SPI_Exception;
+import java.nio.ByteBuffer;
+
+/**
+ * SPI Master, which is able to check status of slave and read its data in 
+ * one transaction into caller provided buffer. 
+ * <p>
+ * Intended for polling of slave without allocation of status and data objects
+ * on each poll. Implementations other than {@link SimpleSPI_Master} can
+ * be used as fakes for testing.
+ * 
+ * @author Michal Konopa
+ */
+public interface SPI_Transport extends SPI_Master {
+    /**
+     * Checks status of slave and if the slave has data ready, reads the data
+     * into specified buffer. The data is stored starting at the current 
+     * position of the buffer and the position is advanced by the number of 
+     * read bytes.
+     * @param buffer direct buffer with at least {@link SPI_Status#MAX_DATA_LENGTH}
+     *        remaining bytes
+     * @return number of read bytes <br>
+     *         0, if the slave has no data ready
+     * @throws SPI_Exception, if an communication error has encountered
+     */
+    int readIfReady(ByteBuffer buffer) throws SPI_Exception;
+}
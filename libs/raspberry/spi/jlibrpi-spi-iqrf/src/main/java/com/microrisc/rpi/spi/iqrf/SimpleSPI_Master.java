@@ -17,20 +17,33 @@
 package com.microrisc.rpi.spi.iqrf;
 
 import com.microrisc.rpi.spi.SPI_Exception;
+import java.nio.ByteBuffer;
 
 /**
  * Simple SPI Master implementation.
+ * <p>
+ * {@link #readIfReady(ByteBuffer)} uses one native call per poll, if supported
+ * by the Java Stub library. With older versions of the library, it falls back 
+ * to separate native calls for getting the status and reading the data.
  * 
  * @author Michal Konopa
  */
-public final class SimpleSPI_Master implements SPI_Master {
+public final class SimpleSPI_Master implements SPI_Transport {
     // native methods
     private native void stub_initialize(String masterId);
     private native SPI_Status stub_getSlaveStatus();
     private native void stub_sendData(short[] data);
     private native short[] stub_readData(int dataLen);
+    
+    // gets status and, if data is ready, reads the data into the direct buffer 
+    // starting at specified offset, returns length of read data or 0
+    private native int stub_readIfReady(ByteBuffer buffer, int offset);
+    
     private native void stub_destroy();
     
+    // indicates, whether the Java Stub library supports stub_readIfReady
+    private boolean readIfReadySupported = true;
+    
     /**
      * Loads supporting Java Stub .so library.
      */
@@ -56,6 +69,22 @@ public final class SimpleSPI_Master implements SPI_Master {
         return dataToSend;
     }
     
+    private ByteBuffer checkBufferToRead(ByteBuffer buffer) {
+        if ( buffer == null ) {
+            throw new IllegalArgumentException("Buffer cannot be null");
+        }
+        if ( !buffer.isDirect() ) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        if ( buffer.remaining() < SPI_Status.MAX_DATA_LENGTH ) {
+            throw new IllegalArgumentException(
+                    "Buffer must have at least " + SPI_Status.MAX_DATA_LENGTH 
+                    + " remaining bytes"
+            );
+        }
+        return buffer;
+    }
+    
     private int checkLengthOfDataToRead(int dataLen) {
         if ( dataLen <= 0 ) {
             throw new IllegalArgumentException("Length of data to read cannot be <= 0 ");
@@ -97,6 +126,42 @@ public final class SimpleSPI_Master implements SPI_Master {
         return stub_readData( checkLengthOfDataToRead(dataLen) );
     }
     
+    // reads by separate native calls for status and data
+    private int readIfReadyBySeparateCalls(ByteBuffer buffer) throws SPI_Exception {
+        SPI_Status spiStatus = stub_getSlaveStatus();
+        if ( !spiStatus.isDataReady() ) {
+            return 0;
+        }
+        
+        short[] data = stub_readData(spiStatus.getDataLength());
+        for ( short dataByte : data ) {
+            buffer.put((byte)dataByte);
+        }
+        return data.length;
+    }
+    
+    /**
+     * @throws IllegalArgumentException if {@code buffer} is {@code null}, is 
+     *         not direct or has less then {@link SPI_Status#MAX_DATA_LENGTH}
+     *         remaining bytes
+     */
+    @Override
+    public int readIfReady(ByteBuffer buffer) throws SPI_Exception {
+        checkBufferToRead(buffer);
+        
+        if ( readIfReadySupported ) {
+            try {
+                int position = buffer.position();
+                int dataLen = stub_readIfReady(buffer, position);
+                buffer.position(position + dataLen);
+                return dataLen;
+            } catch ( UnsatisfiedLinkError e ) {
+                readIfReadySupported = false;
+            }
+        }
+        return readIfReadyBySeparateCalls(buffer);
+    }
+    
     @Override
     public void destroy() {
         try {
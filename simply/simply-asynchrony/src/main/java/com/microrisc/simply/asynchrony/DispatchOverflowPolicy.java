@@ -0,0 +1,38 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.asynchrony;
+
+/**
+ * What to do with new asynchronous message, if the queue of a listener is full.
+ *
+ * @author Michal Konopa
+ */
+public enum DispatchOverflowPolicy {
+    /** New message is dropped. */
+    DROP_NEWEST,
+    
+    /** The oldest message in the queue is dropped to make room for the new one. */
+    DROP_OLDEST,
+    
+    /**
+     * Source of messages is blocked until there is room in the queue.
+     * Listener must not wait for results of requests sent into the same
+     * network, otherwise deadlock can occur. Until the delivery is started,
+     * the queue cannot be drained, so new message is dropped instead.
+     */
+    BLOCK
+}
@@ -0,0 +1,120 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.asynchrony;
+
+/**
+ * Configuration of {@link DispatchingAsynchronousMessagingManager}.
+ *
+ * @author Michal Konopa
+ */
+public final class DispatcherConfiguration {
+    /** Default number of threads delivering messages to listeners. */
+    public static final int DEFAULT_THREADS_NUM = 1;
+    
+    /** Default capacity of queue of each listener. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    
+    /** Default overflow policy. */
+    public static final DispatchOverflowPolicy DEFAULT_OVERFLOW_POLICY
+            = DispatchOverflowPolicy.DROP_OLDEST;
+    
+    
+    // number of threads
+    private final int threadsNum;
+    
+    // capacity of queue of each listener
+    private final int queueCapacity;
+    
+    // overflow policy
+    private final DispatchOverflowPolicy overflowPolicy;
+    
+    
+    public static class Builder {
+        private int threadsNum = DEFAULT_THREADS_NUM;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private DispatchOverflowPolicy overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+        
+        public Builder threadsNum(int threadsNum) {
+            this.threadsNum = threadsNum;
+            return this;
+        }
+        
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+        
+        public Builder overflowPolicy(DispatchOverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+        
+        public DispatcherConfiguration build() {
+            return new DispatcherConfiguration(this);
+        }
+    }
+    
+    
+    private static int checkThreadsNum(int threadsNum) {
+        if ( threadsNum <= 0 ) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        return threadsNum;
+    }
+    
+    private static int checkQueueCapacity(int queueCapacity) {
+        if ( queueCapacity <= 0 ) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        return queueCapacity;
+    }
+    
+    private static DispatchOverflowPolicy checkOverflowPolicy(DispatchOverflowPolicy overflowPolicy) {
+        if ( overflowPolicy == null ) {
+            throw new IllegalArgumentException("Overflow policy cannot be null");
+        }
+        return overflowPolicy;
+    }
+    
+    
+    private DispatcherConfiguration(Builder builder) {
+        this.threadsNum = checkThreadsNum(builder.threadsNum);
+        this.queueCapacity = checkQueueCapacity(builder.queueCapacity);
+        this.overflowPolicy = checkOverflowPolicy(builder.overflowPolicy);
+    }
+    
+    /**
+     * @return number of threads delivering messages to listeners
+     */
+    public int getThreadsNum() {
+        return threadsNum;
+    }
+    
+    /**
+     * @return capacity of queue of each listener
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    /**
+     * @return policy used when queue of a listener is full
+     */
+    public DispatchOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+}
@@ -0,0 +1,487 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.asynchrony;
+
+import com.microrisc.simply.AbstractMessage.MessageSource;
+import com.microrisc.simply.ManageableObject;
+import com.microrisc.simply.metrics.Counter;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.StandardMetrics;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@code AsynchronousMessagingManager}, which delivers
+ * messages to listeners off the thread of the source of messages.
+ * <p>
+ * Listeners are indexed by network, node and peripheral of their required
+ * properties, so only listeners, which can be interested in a message, are
+ * checked by properties checker. Each listener has its own bounded queue of
+ * messages, which is drained by a shared pool of threads. Messages are
+ * delivered to each listener in the order of their arrival, one at a time.
+ * Slow listener therefore delays only its own messages. If the queue of
+ * a listener is full, configured {@link DispatchOverflowPolicy} is applied.
+ * Messages arriving before {@link #start} are queued and delivered after 
+ * the start, the source of messages is never blocked before it.
+ *
+ * @param <T> type of asynchronous message
+ * @param <V> type of required properties of asynchronous messages
+ *
+ * @author Michal Konopa
+ */
+public final class DispatchingAsynchronousMessagingManager
+<T extends BaseAsynchronousMessage, V extends AsynchronousMessageProperties>
+extends AbstractAsynchronousMessagingManager<T, V>
+implements ManageableObject
+{
+    /** Logger. */
+    private static final Logger logger
+            = LoggerFactory.getLogger(DispatchingAsynchronousMessagingManager.class);
+    
+    // maximal number of messages delivered to one listener at once, after that
+    // the thread is released for other listeners
+    private static final int MAX_DELIVERY_BATCH = 32;
+    
+    // timeout to wait for delivery threads to terminate [in ms]
+    private static final long TERMINATION_TIMEOUT = 2000;
+    
+    
+    /**
+     * Key of index of subscriptions. {@code null} fields mean any value.
+     */
+    private static final class SubscriptionKey {
+        private final String networkId;
+        private final String nodeId;
+        private final Object peripheralKey;
+        private final int hashCode;
+        
+        SubscriptionKey(String networkId, String nodeId, Object peripheralKey) {
+            this.networkId = networkId;
+            this.nodeId = nodeId;
+            this.peripheralKey = peripheralKey;
+            
+            int hash = ( networkId == null )? 0 : networkId.hashCode();
+            hash = 31 * hash + (( nodeId == null )? 0 : nodeId.hashCode());
+            hash = 31 * hash + (( peripheralKey == null )? 0 : peripheralKey.hashCode());
+            this.hashCode = hash;
+        }
+        
+        private static boolean equalOrBothNull(Object obj1, Object obj2) {
+            return ( obj1 == null )? ( obj2 == null ) : obj1.equals(obj2);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if ( !(obj instanceof SubscriptionKey) ) {
+                return false;
+            }
+            SubscriptionKey key = (SubscriptionKey) obj;
+            return ( hashCode == key.hashCode )
+                    && equalOrBothNull(networkId, key.networkId)
+                    && equalOrBothNull(nodeId, key.nodeId)
+                    && equalOrBothNull(peripheralKey, key.peripheralKey);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+    
+    /**
+     * Registered listener together with its required properties and queue
+     * of messages to deliver.
+     */
+    private final class Subscription implements Runnable {
+        final AsynchronousMessagesListener<T> listener;
+        final V props;
+        final SubscriptionKey key;
+        final BlockingQueue<T> queue;
+        final Counter droppedCounter;
+        
+        // indicates, wheather draining of the queue is scheduled
+        final AtomicBoolean scheduled = new AtomicBoolean(false);
+        
+        // indicates, wheather the listener is still registered
+        volatile boolean active = true;
+        
+        Subscription(AsynchronousMessagesListener<T> listener, V props, SubscriptionKey key) {
+            this.listener = listener;
+            this.props = props;
+            this.key = key;
+            this.queue = new ArrayBlockingQueue<>(configuration.getQueueCapacity());
+            this.droppedCounter = MetricsRegistry.getDefault().counter(
+                    new MetricName(
+                        StandardMetrics.ASYNCHRONY_DROPPED_MESSAGES,
+                        StandardMetrics.TAG_LISTENER, getListenerTag(listener)
+                    )
+            );
+        }
+        
+        // puts specified message into the queue according to the overflow policy
+        void offer(T message) {
+            switch ( configuration.getOverflowPolicy() ) {
+                case DROP_NEWEST:
+                    if ( !queue.offer(message) ) {
+                        droppedCounter.inc();
+                        logger.warn("Queue of listener {} full, message dropped", listener);
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while ( !queue.offer(message) ) {
+                        if ( queue.poll() != null ) {
+                            droppedCounter.inc();
+                            logger.warn("Queue of listener {} full, oldest message dropped", listener);
+                        }
+                    }
+                    break;
+                case BLOCK:
+                    // without delivery threads nobody would drain the queue
+                    if ( executor == null ) {
+                        if ( !queue.offer(message) ) {
+                            droppedCounter.inc();
+                            logger.warn(
+                                    "Queue of listener {} full before start of delivery, "
+                                    + "message dropped", listener
+                            );
+                        }
+                        return;
+                    }
+                    
+                    // the queue must be drained while waiting
+                    schedule();
+                    try {
+                        queue.put(message);
+                    } catch ( InterruptedException ex ) {
+                        Thread.currentThread().interrupt();
+                        droppedCounter.inc();
+                        logger.warn("Interrupted while waiting for queue of listener {}", listener);
+                        return;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(
+                            "Overflow policy not supported: " + configuration.getOverflowPolicy()
+                    );
+            }
+            schedule();
+        }
+        
+        // schedules draining of the queue, if not already scheduled
+        void schedule() {
+            ExecutorService actualExecutor = executor;
+            if ( actualExecutor == null ) {
+                return;
+            }
+            
+            if ( scheduled.compareAndSet(false, true) ) {
+                try {
+                    actualExecutor.execute(this);
+                } catch ( RejectedExecutionException ex ) {
+                    scheduled.set(false);
+                }
+            }
+        }
+        
+        @Override
+        public void run() {
+            int deliveredNum = 0;
+            T message = null;
+            while ( active && (deliveredNum < MAX_DELIVERY_BATCH)
+                    && ((message = queue.poll()) != null)
+            ) {
+                try {
+                    listener.onAsynchronousMessage(message);
+                } catch ( RuntimeException ex ) {
+                    logger.error("Listener " + listener + " failed to process message " + message, ex);
+                }
+                deliveredNum++;
+            }
+            
+            scheduled.set(false);
+            
+            // messages could arrive after the last poll
+            if ( active && !queue.isEmpty() ) {
+                schedule();
+            }
+        }
+    }
+    
+    
+    // configuration
+    private final DispatcherConfiguration configuration;
+    
+    // resolver of peripherals
+    private final PeripheralKeyResolver<T, V> peripheralResolver;
+    
+    // index of subscriptions, replaced as a whole on each change
+    private volatile Map<SubscriptionKey, List<Subscription>> subscriptionsIndex
+            = new HashMap<>();
+    
+    // synchronization of changes of the index
+    private final Object subscriptionsIndexSynchro = new Object();
+    
+    // executor delivering messages to listeners
+    private volatile ExecutorService executor = null;
+    
+    
+    private static DispatcherConfiguration checkConfiguration(
+            DispatcherConfiguration configuration
+    ) {
+        if ( configuration == null ) {
+            throw new IllegalArgumentException("Configuration cannot be null");
+        }
+        return configuration;
+    }
+    
+    private static <T extends BaseAsynchronousMessage, V extends AsynchronousMessageProperties>
+    PeripheralKeyResolver<T, V> checkPeripheralResolver(PeripheralKeyResolver<T, V> resolver) {
+        if ( resolver == null ) {
+            throw new IllegalArgumentException("Peripheral key resolver cannot be null");
+        }
+        return resolver;
+    }
+    
+    // returns value of listener tag of metrics
+    private static String getListenerTag(Object listener) {
+        String simpleName = listener.getClass().getSimpleName();
+        return ( simpleName.isEmpty() )? listener.getClass().getName() : simpleName;
+    }
+    
+    // returns values to look up in the index for specified value of a message
+    private static Object[] getLookupValues(Object msgValue) {
+        if ( msgValue == null ) {
+            return new Object[] { null };
+        }
+        return new Object[] { msgValue, null };
+    }
+    
+    // creates key of the index for specified required properties
+    private SubscriptionKey createSubscriptionKey(V props) {
+        if ( props == null ) {
+            return new SubscriptionKey(null, null, null);
+        }
+        
+        MessageSource source = props.getMessageSource();
+        return new SubscriptionKey(
+                ( source == null )? null : source.getNetworkId(),
+                ( source == null )? null : source.getNodeId(),
+                peripheralResolver.getRequiredPeripheralKey(props)
+        );
+    }
+    
+    // returns subscription of specified listener, null if there is no one
+    private Subscription findSubscription(AsynchronousMessagesListener<T> listener) {
+        for ( List<Subscription> subscriptions : subscriptionsIndex.values() ) {
+            for ( Subscription subscription : subscriptions ) {
+                if ( subscription.listener == listener ) {
+                    return subscription;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void addSubscription(AsynchronousMessagesListener<T> listener, V props) {
+        synchronized ( subscriptionsIndexSynchro ) {
+            if ( findSubscription(listener) != null ) {
+                return;
+            }
+            
+            SubscriptionKey key = createSubscriptionKey(props);
+            Map<SubscriptionKey, List<Subscription>> newIndex = new HashMap<>(subscriptionsIndex);
+            List<Subscription> subscriptions = newIndex.get(key);
+            List<Subscription> newSubscriptions = ( subscriptions == null )
+                    ? new ArrayList<Subscription>(1)
+                    : new ArrayList<>(subscriptions);
+            newSubscriptions.add(new Subscription(listener, props, key));
+            newIndex.put(key, newSubscriptions);
+            subscriptionsIndex = newIndex;
+        }
+    }
+    
+    
+    /**
+     * Creates new dispatching asynchronous messaging manager.
+     * @param propChecker asynchronous messages checker to use
+     * @param peripheralResolver resolver of peripherals of messages
+     * @param configuration configuration of dispatching
+     * @throws IllegalArgumentException if {@code peripheralResolver} or
+     *         {@code configuration} is {@code null}
+     */
+    public DispatchingAsynchronousMessagingManager(
+            AsynchronousMessagePropertiesChecker<T, V> propChecker,
+            PeripheralKeyResolver<T, V> peripheralResolver,
+            DispatcherConfiguration configuration
+    ) {
+        super(propChecker);
+        this.peripheralResolver = checkPeripheralResolver(peripheralResolver);
+        this.configuration = checkConfiguration(configuration);
+    }
+    
+    @Override
+    public void start() {
+        logger.debug("start - start:");
+        
+        final AtomicInteger threadsCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(
+            configuration.getThreadsNum(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(
+                            runnable, "Async-dispatcher-" + threadsCounter.incrementAndGet()
+                    );
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+        
+        // messages could arrive before start
+        for ( List<Subscription> subscriptions : subscriptionsIndex.values() ) {
+            for ( Subscription subscription : subscriptions ) {
+                if ( !subscription.queue.isEmpty() ) {
+                    subscription.schedule();
+                }
+            }
+        }
+        
+        logger.info("Started");
+        logger.debug("start - end");
+    }
+    
+    @Override
+    public void registerAsyncMsgListener(AsynchronousMessagesListener<T> listener) {
+        addSubscription(listener, null);
+    }
+    
+    @Override
+    public void registerAsyncMsgListener(AsynchronousMessagesListener<T> listener, V msgProps) {
+        addSubscription(listener, msgProps);
+    }
+    
+    @Override
+    public void unregisterAsyncMsgListener(AsynchronousMessagesListener<T> listener) {
+        synchronized ( subscriptionsIndexSynchro ) {
+            Subscription subscription = findSubscription(listener);
+            if ( subscription == null ) {
+                return;
+            }
+            
+            Map<SubscriptionKey, List<Subscription>> newIndex = new HashMap<>(subscriptionsIndex);
+            List<Subscription> newSubscriptions = new ArrayList<>(newIndex.get(subscription.key));
+            newSubscriptions.remove(subscription);
+            if ( newSubscriptions.isEmpty() ) {
+                newIndex.remove(subscription.key);
+            } else {
+                newIndex.put(subscription.key, newSubscriptions);
+            }
+            subscriptionsIndex = newIndex;
+            
+            subscription.active = false;
+            subscription.queue.clear();
+        }
+    }
+    
+    /**
+     * Puts specified message into queues of all listeners, whose required
+     * properties the message has.
+     * @param message arrived message
+     */
+    @Override
+    public void onAsynchronousMessage(T message) {
+        Map<SubscriptionKey, List<Subscription>> actualIndex = subscriptionsIndex;
+        if ( actualIndex.isEmpty() ) {
+            return;
+        }
+        
+        MessageSource source = message.getMessageSource();
+        Object[] networkIds = getLookupValues(( source == null )? null : source.getNetworkId());
+        Object[] nodeIds = getLookupValues(( source == null )? null : source.getNodeId());
+        Object[] peripheralKeys = getLookupValues(peripheralResolver.getPeripheralKey(message));
+        
+        for ( Object networkId : networkIds ) {
+            for ( Object nodeId : nodeIds ) {
+                for ( Object peripheralKey : peripheralKeys ) {
+                    List<Subscription> subscriptions = actualIndex.get(
+                            new SubscriptionKey((String) networkId, (String) nodeId, peripheralKey)
+                    );
+                    if ( subscriptions == null ) {
+                        continue;
+                    }
+                    
+                    for ( Subscription subscription : subscriptions ) {
+                        if ( propChecker.messageHasRequiredProperties(message, subscription.props) ) {
+                            subscription.offer(message);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stops delivering of messages. Messages not yet delivered are discarded.
+     */
+    @Override
+    public void destroy() {
+        logger.debug("destroy - start:");
+        
+        ExecutorService actualExecutor = executor;
+        executor = null;
+        
+        synchronized ( subscriptionsIndexSynchro ) {
+            for ( List<Subscription> subscriptions : subscriptionsIndex.values() ) {
+                for ( Subscription subscription : subscriptions ) {
+                    subscription.active = false;
+                    subscription.queue.clear();
+                }
+            }
+            subscriptionsIndex = new HashMap<>();
+        }
+        
+        if ( actualExecutor != null ) {
+            actualExecutor.shutdown();
+            try {
+                if ( !actualExecutor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS) ) {
+                    actualExecutor.shutdownNow();
+                }
+            } catch ( InterruptedException ex ) {
+                actualExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        logger.info("Destroyed");
+        logger.debug("destroy - end");
+    }
+}
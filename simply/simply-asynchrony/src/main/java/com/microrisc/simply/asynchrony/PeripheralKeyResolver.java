@@ -0,0 +1,48 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.asynchrony;
+
+/**
+ * Resolves protocol specific peripheral of asynchronous messages and of
+ * required properties. Used for indexing of listeners by peripheral.
+ * <p>
+ * Returned keys must have consistent {@code equals} and {@code hashCode}.
+ *
+ * @param <T> type of asynchronous message
+ * @param <V> type of required properties of asynchronous messages
+ *
+ * @author Michal Konopa
+ */
+public interface PeripheralKeyResolver
+<T extends BaseAsynchronousMessage, V extends AsynchronousMessageProperties>
+{
+    /**
+     * Returns key of peripheral, which specified message comes from.
+     * @param message message
+     * @return key of peripheral of {@code message} <br>
+     *         {@code null}, if the peripheral is not known
+     */
+    Object getPeripheralKey(T message);
+    
+    /**
+     * Returns key of peripheral required by specified properties.
+     * @param props required properties of messages
+     * @return key of required peripheral <br>
+     *         {@code null}, if messages from all peripherals are required
+     */
+    Object getRequiredPeripheralKey(V props);
+}
@@ -0,0 +1,57 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks of Simply framework.
+ * <p>
+ * Each benchmark is measured in the throughput mode and in the sample time
+ * mode, which reports latency percentiles. Allocation rate is reported by
+ * the GC profiler. Results are also written into the {@code benchmarks.json}
+ * file.
+ * <p>
+ * Usage: {@code java -jar target/benchmarks.jar [regexp of benchmarks to run]}
+ *
+ * @author Michal Konopa
+ */
+public final class BenchmarksRunner {
+    /** File for results. */
+    private static final String RESULTS_FILE = "benchmarks.json";
+    
+    private BenchmarksRunner() {}
+    
+    public static void main(String[] args) throws RunnerException {
+        String include = ( args.length > 0 )?
+                args[0] : BenchmarksRunner.class.getPackage().getName() + ".*";
+        
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTS_FILE)
+                .build();
+        
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,108 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import com.microrisc.simply.HashMapCallRequestProcessingInfoContainer;
+import com.microrisc.simply.iqrf.dpa.connector.DPA_Connector;
+import com.microrisc.simply.iqrf.dpa.v210.devices.LEDR;
+import com.microrisc.simply.iqrf.dpa.v210.devices.impl.SimpleLEDR;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_MessageConvertor;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolLayer;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_StandardPerProtocolMappingFactory;
+import com.microrisc.simply.iqrf.dpa.v210.types.LED_State;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full round trip of a call - from {@code callMethod} of {@link DPA_Connector}
+ * through {@link DPA_ProtocolLayer} and in-memory network layer up to
+ * {@code getCallResult} of the Device Object.
+ * <p>
+ * Calls are directed to the coordinator, so no confirmations are involved.
+ * Throughput is limited by the waiting of the protocol state machine after
+ * each response, which is given by DPA timing. Latency percentiles show the
+ * time from the call to its result.
+ *
+ * @author Michal Konopa
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectorRoundTripBenchmark {
+    /** Timeout [in ms] of waiting for the result of a call. */
+    private static final long RESULT_TIMEOUT = 5000;
+    
+    private InMemoryNetworkLayer networkLayer;
+    private DPA_ProtocolLayer protocolLayer;
+    private DPA_Connector connector;
+    private SimpleLEDR ledr;
+    
+    @Setup
+    public void setup() throws Exception {
+        networkLayer = new InMemoryNetworkLayer(new byte[] { 0x01 });
+        protocolLayer = new DPA_ProtocolLayer(
+                networkLayer,
+                new DPA_MessageConvertor(
+                        new DPA_StandardPerProtocolMappingFactory().createProtocolMapping()
+                )
+        );
+        connector = new DPA_Connector(protocolLayer);
+        
+        networkLayer.start();
+        protocolLayer.start();
+        connector.start();
+        
+        ledr = new SimpleLEDR(
+                DPA_Packets.NETWORK_ID, DPA_Packets.COORDINATOR_ID, connector,
+                new HashMapCallRequestProcessingInfoContainer()
+        );
+    }
+    
+    @TearDown
+    public void tearDown() {
+        connector.destroy();
+        protocolLayer.destroy();
+        networkLayer.destroy();
+    }
+    
+    @Benchmark
+    public LED_State callMethodAndGetResult() {
+        UUID callId = connector.callMethod(
+                ledr, LEDR.class, DPA_Packets.LEDR_GET_METHOD_ID,
+                new Object[] { DPA_Packets.HWPID }, RESULT_TIMEOUT
+        );
+        LED_State state = ledr.getCallResult(callId, LED_State.class, RESULT_TIMEOUT);
+        if ( state == null ) {
+            throw new IllegalStateException("Call result not received: " + callId);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,78 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import com.microrisc.simply.AbstractMessage;
+import com.microrisc.simply.CallRequest;
+import com.microrisc.simply.NetworkData;
+import com.microrisc.simply.SimplyException;
+import com.microrisc.simply.iqrf.dpa.v210.devices.LEDR;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_MessageConvertor;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_StandardPerProtocolMappingFactory;
+import com.microrisc.simply.network.BaseNetworkData;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding of call requests into DPA packets and decoding of DPA responses
+ * by {@link DPA_MessageConvertor}.
+ *
+ * @author Michal Konopa
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DPA_MessageConvertorBenchmark {
+    private DPA_MessageConvertor convertor;
+    private CallRequest request;
+    private NetworkData response;
+    
+    @Setup
+    public void setup() throws Exception {
+        convertor = new DPA_MessageConvertor(
+                new DPA_StandardPerProtocolMappingFactory().createProtocolMapping()
+        );
+        request = new CallRequest(
+                UUID.randomUUID(), DPA_Packets.NETWORK_ID, DPA_Packets.COORDINATOR_ID,
+                LEDR.class, DPA_Packets.LEDR_GET_METHOD_ID, new Object[] { DPA_Packets.HWPID }
+        );
+        response = new BaseNetworkData(DPA_Packets.ledrGetResponse(), DPA_Packets.NETWORK_ID);
+    }
+    
+    @Benchmark
+    public short[] encode() throws SimplyException {
+        return convertor.convertToProtoFormat(request);
+    }
+    
+    @Benchmark
+    public AbstractMessage decode() throws SimplyException {
+        return convertor.convertToDOFormat(response);
+    }
+}
@@ -0,0 +1,88 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import com.microrisc.simply.BytePacket;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
+
+/**
+ * DPA packets used by benchmarks.
+ *
+ * @author Michal Konopa
+ */
+final class DPA_Packets {
+    /** ID of the network used by benchmarks. */
+    static final String NETWORK_ID = "1";
+    
+    /** ID of the coordinator node. */
+    static final String COORDINATOR_ID = "0";
+    
+    /** Method ID of the LEDR get method. */
+    static final String LEDR_GET_METHOD_ID = "2";
+    
+    /** Value of HW profile, which is not checked. */
+    static final int HWPID = DPA_ProtocolProperties.HWPID_Properties.DO_NOT_CHECK;
+    
+    // mask of PCMD of responses
+    private static final int RESPONSE_PCMD_MASK = 0x80;
+    
+    // response code of a response without an error
+    private static final int RESPONSE_CODE_OK = 0x00;
+    
+    
+    private DPA_Packets() {}
+    
+    /**
+     * Returns request of the LEDR get method of the coordinator.
+     * @return request packet
+     */
+    static BytePacket ledrGetRequest() {
+        return BytePacket.wrap(new byte[] {
+            0x00, 0x00,
+            (byte)DPA_ProtocolProperties.PNUM_Properties.LEDR,
+            0x02,
+            (byte)HWPID, (byte)(HWPID >> 8)
+        });
+    }
+    
+    /**
+     * Creates response to specified request with specified response data.
+     * @param request source request
+     * @param responseData data of the response
+     * @return response packet
+     */
+    static BytePacket createResponse(BytePacket request, byte[] responseData) {
+        byte[] response = new byte[DPA_ProtocolProperties.RESPONSE_DATA_START + responseData.length];
+        request.slice(0, DPA_ProtocolProperties.PDATA_START).copyTo(response, 0);
+        response[DPA_ProtocolProperties.PCMD_START] |= RESPONSE_PCMD_MASK;
+        response[DPA_ProtocolProperties.RESPONSE_CODE_START] = RESPONSE_CODE_OK;
+        response[DPA_ProtocolProperties.DPA_VALUE_START] = 0;
+        System.arraycopy(
+                responseData, 0, response, DPA_ProtocolProperties.RESPONSE_DATA_START,
+                responseData.length
+        );
+        return BytePacket.wrap(response);
+    }
+    
+    /**
+     * Returns response to the LEDR get method of the coordinator.
+     * @return response packet
+     */
+    static BytePacket ledrGetResponse() {
+        return createResponse(ledrGetRequest(), new byte[] { 0x01 });
+    }
+}
@@ -0,0 +1,107 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_Prebonding;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_ResultParser;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_ReturnValue;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of FRC results by {@link FRC_ResultParser} - both directly and
+ * through the standard FRC commands.
+ *
+ * @author Michal Konopa
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FRC_ResultParserBenchmark {
+    /** Length of FRC data. */
+    private static final int FRC_DATA_LENGTH = 64;
+    
+    /**
+     * Result of one node for collected bits.
+     */
+    public static final class BitsResult {
+        private final byte bit0;
+        private final byte bit1;
+        
+        public BitsResult(byte bit0, byte bit1) {
+            this.bit0 = bit0;
+            this.bit1 = bit1;
+        }
+    }
+    
+    /**
+     * Result of one node for collected bytes.
+     */
+    public static final class BytesResult {
+        private final short value;
+        
+        public BytesResult(short value) {
+            this.value = value;
+        }
+    }
+    
+    
+    private short[] frcData;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        frcData = new short[FRC_DATA_LENGTH];
+        for ( int i = 0; i < frcData.length; i++ ) {
+            frcData[i] = (short)random.nextInt(0x100);
+        }
+    }
+    
+    @Benchmark
+    public Map<String, BitsResult> parseAsCollectedBits() throws Exception {
+        return FRC_ResultParser.parseAsCollectedBits(frcData, BitsResult.class);
+    }
+    
+    @Benchmark
+    public Map<String, BytesResult> parseAsCollectedBytes() throws Exception {
+        return FRC_ResultParser.parseAsCollectedBytes(frcData, BytesResult.class);
+    }
+    
+    @Benchmark
+    public Map<String, FRC_Prebonding.Result> parsePrebonding() throws Exception {
+        return FRC_Prebonding.parse(frcData);
+    }
+    
+    @Benchmark
+    public Map<String, FRC_ReturnValue.Result> parseReturnValue() throws Exception {
+        return FRC_ReturnValue.parse(frcData);
+    }
+}
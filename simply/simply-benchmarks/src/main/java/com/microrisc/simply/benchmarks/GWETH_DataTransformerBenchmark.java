@@ -0,0 +1,87 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import com.microrisc.simply.BytePacket;
+import com.microrisc.simply.network.udp.gweth.GWETH_DataTransformer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CRC computation of {@link GWETH_DataTransformer}. The CRC is computed during
+ * transformation of requests into GW-ETH messages and checked during
+ * extraction of data from messages received from GW-ETH.
+ *
+ * @author Michal Konopa
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GWETH_DataTransformerBenchmark {
+    @Param({ "8", "64" })
+    public int dataLength;
+    
+    private BytePacket data;
+    private short[] shortData;
+    private BytePacket message;
+    private short[] shortMessage;
+    
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[dataLength];
+        new Random(0).nextBytes(bytes);
+        data = BytePacket.wrap(bytes);
+        shortData = data.toShortArray();
+        
+        message = BytePacket.wrap(GWETH_DataTransformer.transformRequestData(data));
+        shortMessage = message.toShortArray();
+    }
+    
+    @Benchmark
+    public byte[] transformRequest() {
+        return GWETH_DataTransformer.transformRequestData(data);
+    }
+    
+    @Benchmark
+    public short[] transformRequestShort() {
+        return GWETH_DataTransformer.transformRequestData(shortData);
+    }
+    
+    @Benchmark
+    public BytePacket checkAndGetData() {
+        return GWETH_DataTransformer.getDataFromMessage(message);
+    }
+    
+    @Benchmark
+    public short[] checkAndGetDataShort() {
+        return GWETH_DataTransformer.getDataFromMessage(shortMessage);
+    }
+}
@@ -0,0 +1,153 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HDLC framing of both versions - encoding of frames, decoding of frames by
+ * the original {@code short[]} interface and by the streaming decoder.
+ *
+ * @author Michal Konopa
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HDLC_FramingBenchmark {
+    @Param({ "8", "64" })
+    public int dataLength;
+    
+    private byte[] data;
+    private short[] shortData;
+    
+    private byte[] frameV1;
+    private short[] shortFrameV1;
+    private byte[] frameV2;
+    private short[] shortFrameV2;
+    
+    private com.microrisc.hdlcframing.v1.HDLC_FrameDecoder decoderV1;
+    private com.microrisc.hdlcframing.v2.HDLC_FrameDecoder decoderV2;
+    
+    // number of decoded bytes - consumed by the benchmarks
+    private int decodedLength;
+    
+    
+    private static short[] toShortArray(byte[] bytes) {
+        short[] shorts = new short[bytes.length];
+        for ( int i = 0; i < bytes.length; i++ ) {
+            shorts[i] = (short)(bytes[i] & 0xFF);
+        }
+        return shorts;
+    }
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        data = new byte[dataLength];
+        random.nextBytes(data);
+        shortData = toShortArray(data);
+        
+        frameV1 = com.microrisc.hdlcframing.v1.HDLC_DataTransformer.encodeFrame(data, 0, data.length);
+        shortFrameV1 = toShortArray(frameV1);
+        frameV2 = com.microrisc.hdlcframing.v2.HDLC_DataTransformer.encodeFrame(data, 0, data.length);
+        shortFrameV2 = toShortArray(frameV2);
+        
+        decoderV1 = new com.microrisc.hdlcframing.v1.HDLC_FrameDecoder(
+                new com.microrisc.hdlcframing.v1.HDLC_FrameDecoder.FrameListener() {
+                    @Override
+                    public void onFrame(byte[] frameData, int offset, int length) {
+                        decodedLength += length;
+                    }
+                    
+                    @Override
+                    public void onFrameError(com.microrisc.hdlcframing.v1.HDLC_FormatException error) {
+                        throw new IllegalStateException(error);
+                    }
+                }
+        );
+        decoderV2 = new com.microrisc.hdlcframing.v2.HDLC_FrameDecoder(
+                new com.microrisc.hdlcframing.v2.HDLC_FrameDecoder.FrameListener() {
+                    @Override
+                    public void onFrame(byte[] frameData, int offset, int length) {
+                        decodedLength += length;
+                    }
+                    
+                    @Override
+                    public void onFrameError(com.microrisc.hdlcframing.v2.HDLC_FormatException error) {
+                        throw new IllegalStateException(error);
+                    }
+                }
+        );
+    }
+    
+    @Benchmark
+    public byte[] encodeV1() {
+        return com.microrisc.hdlcframing.v1.HDLC_DataTransformer.encodeFrame(data, 0, data.length);
+    }
+    
+    @Benchmark
+    public short[] encodeShortV1() {
+        return com.microrisc.hdlcframing.v1.HDLC_DataTransformer.transformToHLDCFormat(shortData);
+    }
+    
+    @Benchmark
+    public short[] decodeShortV1() throws Exception {
+        return com.microrisc.hdlcframing.v1.HDLC_DataTransformer.getDataFromFrame(shortFrameV1);
+    }
+    
+    @Benchmark
+    public int decodeStreamV1() {
+        decoderV1.decode(frameV1, 0, frameV1.length);
+        return decodedLength;
+    }
+    
+    @Benchmark
+    public byte[] encodeV2() {
+        return com.microrisc.hdlcframing.v2.HDLC_DataTransformer.encodeFrame(data, 0, data.length);
+    }
+    
+    @Benchmark
+    public short[] encodeShortV2() {
+        return com.microrisc.hdlcframing.v2.HDLC_DataTransformer.transformToHLDCFormat(shortData);
+    }
+    
+    @Benchmark
+    public short[] decodeShortV2() throws Exception {
+        return com.microrisc.hdlcframing.v2.HDLC_DataTransformer.getDataFromFrame(shortFrameV2);
+    }
+    
+    @Benchmark
+    public int decodeStreamV2() {
+        decoderV2.decode(frameV2, 0, frameV2.length);
+        return decodedLength;
+    }
+}
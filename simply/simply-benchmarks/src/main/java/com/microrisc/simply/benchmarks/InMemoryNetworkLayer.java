@@ -0,0 +1,115 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import com.microrisc.simply.NetworkData;
+import com.microrisc.simply.NetworkLayerListener;
+import com.microrisc.simply.SimplyException;
+import com.microrisc.simply.network.BaseNetworkData;
+import com.microrisc.simply.network.NetworkLayer;
+import com.microrisc.simply.network.NetworkLayerException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Network layer, which answers each request by a DPA response with constant
+ * response data. Responses are delivered to the listener from a separate
+ * thread - as from a real network.
+ *
+ * @author Michal Konopa
+ */
+final class InMemoryNetworkLayer implements NetworkLayer {
+    /** Response data of all responses. */
+    private final byte[] responseData;
+    
+    /** Requests waiting for the response. */
+    private final BlockingQueue<NetworkData> requests = new LinkedBlockingQueue<>();
+    
+    /** Registered listener. */
+    private volatile NetworkLayerListener listener = null;
+    
+    /** Thread delivering responses. */
+    private Thread responder = null;
+    
+    
+    /**
+     * Delivers responses to the listener.
+     */
+    private class Responder extends Thread {
+        @Override
+        public void run() {
+            while ( true ) {
+                NetworkData request = null;
+                try {
+                    request = requests.take();
+                } catch ( InterruptedException ex ) {
+                    return;
+                }
+                
+                NetworkLayerListener actualListener = listener;
+                if ( actualListener != null ) {
+                    actualListener.onGetData(new BaseNetworkData(
+                            DPA_Packets.createResponse(request.getPacket(), responseData),
+                            request.getNetworkId()
+                    ));
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Creates new network layer.
+     * @param responseData response data of all responses
+     */
+    InMemoryNetworkLayer(byte[] responseData) {
+        this.responseData = responseData;
+    }
+    
+    @Override
+    public void registerListener(NetworkLayerListener listener) {
+        this.listener = listener;
+    }
+    
+    @Override
+    public void unregisterListener() {
+        this.listener = null;
+    }
+    
+    @Override
+    public void sendData(NetworkData data) throws NetworkLayerException {
+        requests.add(data);
+    }
+    
+    @Override
+    public void start() throws SimplyException {
+        responder = new Responder();
+        responder.setDaemon(true);
+        responder.start();
+    }
+    
+    @Override
+    public void destroy() {
+        responder.interrupt();
+        try {
+            responder.join();
+        } catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+        }
+        requests.clear();
+    }
+}
@@ -0,0 +1,92 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.benchmarks;
+
+import com.microrisc.simply.BytePacket;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_StandardPerProtocolMappingFactory;
+import com.microrisc.simply.protocol.mapping.CompiledPacketToCallResponseMapping;
+import com.microrisc.simply.protocol.mapping.PacketToCallResponseMapping;
+import com.microrisc.simply.protocol.mapping.SimplePacketToCallResponseMapping;
+import com.microrisc.simply.typeconvertors.ValueConversionException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup of Device Interface, method and method result of a response packet
+ * in {@link SimplePacketToCallResponseMapping} and in the same mapping
+ * compiled into {@link CompiledPacketToCallResponseMapping}.
+ *
+ * @author Michal Konopa
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PacketToCallResponseMappingBenchmark {
+    @Param({ "simple", "compiled" })
+    public String mappingType;
+    
+    private PacketToCallResponseMapping mapping;
+    private BytePacket response;
+    
+    @Setup
+    public void setup() throws Exception {
+        SimplePacketToCallResponseMapping simpleMapping = (SimplePacketToCallResponseMapping)
+                new DPA_StandardPerProtocolMappingFactory().createProtocolMapping()
+                        .getPacketToCallResponseMapping();
+        if ( mappingType.equals("compiled") ) {
+            mapping = CompiledPacketToCallResponseMapping.compile(
+                    new SimplePacketToCallResponseMapping[] { simpleMapping },
+                    DPA_ProtocolProperties.PNUM_START,
+                    DPA_ProtocolProperties.PCMD_START
+            );
+        } else {
+            mapping = simpleMapping;
+        }
+        response = DPA_Packets.ledrGetResponse();
+    }
+    
+    @Benchmark
+    public Class lookupDeviceInterface() throws ValueConversionException {
+        return mapping.getDeviceInterface(response);
+    }
+    
+    @Benchmark
+    public String lookupMethod() throws ValueConversionException {
+        return mapping.getMethodId(mapping.getDeviceInterface(response), response);
+    }
+    
+    @Benchmark
+    public Object lookupMethodResult() throws ValueConversionException {
+        Class devInterface = mapping.getDeviceInterface(response);
+        String methodId = mapping.getMethodId(devInterface, response);
+        return mapping.getMethodResult(devInterface, methodId, response);
+    }
+}
@@ -103,6 +103,9 @@ public class BaseSimply implements Simply {
     public void destroy() {
         logger.debug("destroy - start: ");
         
+        // release results containers shared by device objects
+        SimpleDeviceObjectFactory.releaseSharedResultsContainers(connStack.getConnector());
+        
         // destroy the stack
         connStack.destroy();
         
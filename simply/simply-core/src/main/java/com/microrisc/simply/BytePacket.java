@@ -0,0 +1,263 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view of a region of a byte array holding packet data.
+ * <p>
+ * Packet stores each byte in one byte of memory, while the {@code short[]}
+ * representation used by older interfaces needs two bytes for each byte of
+ * the packet. Views of parts of a packet are created by the {@link #slice(int, int) }
+ * method without copying of underlaying data. Values of bytes are returned
+ * as unsigned numbers, i.e. in the same form as in {@code short[]} packets.
+ * <p>
+ * Underlaying array must not be modified after the packet has been created.
+ *
+ * @author Michal Konopa
+ */
+public final class BytePacket {
+    /** Empty packet. */
+    public static final BytePacket EMPTY = new BytePacket(new byte[0], 0, 0);
+    
+    /** Underlaying data. */
+    private final byte[] data;
+    
+    /** Offset of the first byte of this packet in underlaying data. */
+    private final int offset;
+    
+    /** Length of this packet. */
+    private final int length;
+    
+    
+    private static void checkRegion(byte[] data, int offset, int length) {
+        if ( data == null ) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        if ( (offset < 0) || (length < 0) || (offset > data.length - length) ) {
+            throw new IllegalArgumentException(
+                    "Invalid region: offset=" + offset + ", length=" + length
+                    + ", data length=" + data.length
+            );
+        }
+    }
+    
+    private void checkIndex(int index) {
+        if ( (index < 0) || (index >= length) ) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", packet length: " + length
+            );
+        }
+    }
+    
+    private BytePacket(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+    
+    /**
+     * Creates packet, which is a view of specified data. Data are not copied.
+     * @param data source data
+     * @return packet viewing specified data
+     * @throws IllegalArgumentException if {@code data} is {@code null}
+     */
+    public static BytePacket wrap(byte[] data) {
+        checkRegion(data, 0, ( data == null )? 0 : data.length);
+        return new BytePacket(data, 0, data.length);
+    }
+    
+    /**
+     * Creates packet, which is a view of specified region of data. Data are
+     * not copied.
+     * @param data source data
+     * @param offset offset of the first byte of the packet in {@code data}
+     * @param length length of the packet
+     * @return packet viewing specified region of data
+     * @throws IllegalArgumentException if {@code data} is {@code null} or
+     *         the region doesn't lie inside {@code data}
+     */
+    public static BytePacket wrap(byte[] data, int offset, int length) {
+        checkRegion(data, offset, length);
+        return new BytePacket(data, offset, length);
+    }
+    
+    /**
+     * Creates packet, which is a copy of specified region of data.
+     * @param data source data
+     * @param offset offset of the first byte to copy
+     * @param length number of bytes to copy
+     * @return packet holding copy of specified region of data
+     * @throws IllegalArgumentException if {@code data} is {@code null} or
+     *         the region doesn't lie inside {@code data}
+     */
+    public static BytePacket copyOf(byte[] data, int offset, int length) {
+        checkRegion(data, offset, length);
+        byte[] copy = new byte[length];
+        System.arraycopy(data, offset, copy, 0, length);
+        return new BytePacket(copy, 0, length);
+    }
+    
+    /**
+     * Creates packet from specified {@code short[]} packet. Only lower bytes
+     * of items of {@code data} are taken.
+     * @param data source data
+     * @return packet holding converted data
+     * @throws IllegalArgumentException if {@code data} is {@code null}
+     */
+    public static BytePacket fromShortArray(short[] data) {
+        if ( data == null ) {
+            throw new IllegalArgumentException("Data cannot be null");
+        }
+        byte[] bytes = new byte[data.length];
+        for ( int i = 0; i < data.length; i++ ) {
+            bytes[i] = (byte)data[i];
+        }
+        return new BytePacket(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Returns length of this packet.
+     * @return length of this packet
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * Returns unsigned value of the byte at specified index.
+     * @param index index of the byte
+     * @return unsigned value of the byte at specified index
+     * @throws IndexOutOfBoundsException if {@code index} is out of this packet
+     */
+    public short get(int index) {
+        checkIndex(index);
+        return (short)(data[offset + index] & 0xFF);
+    }
+    
+    /**
+     * Returns packet, which is a view of specified part of this packet. Data
+     * are not copied.
+     * @param start index of the first byte of the part
+     * @param partLength length of the part
+     * @return view of specified part of this packet
+     * @throws IllegalArgumentException if specified part doesn't lie inside
+     *         this packet
+     */
+    public BytePacket slice(int start, int partLength) {
+        if ( (start < 0) || (partLength < 0) || (start > length - partLength) ) {
+            throw new IllegalArgumentException(
+                    "Invalid part: start=" + start + ", length=" + partLength
+                    + ", packet length=" + length
+            );
+        }
+        return new BytePacket(data, offset + start, partLength);
+    }
+    
+    /**
+     * Returns packet, which is a view of the part of this packet starting at
+     * specified index and spanning up to the end of this packet.
+     * @param start index of the first byte of the part
+     * @return view of specified part of this packet
+     * @throws IllegalArgumentException if {@code start} is out of this packet
+     */
+    public BytePacket slice(int start) {
+        return slice(start, length - start);
+    }
+    
+    /**
+     * Copies bytes of this packet into specified array.
+     * @param dest destination array
+     * @param destPos starting position in {@code dest}
+     */
+    public void copyTo(byte[] dest, int destPos) {
+        System.arraycopy(data, offset, dest, destPos, length);
+    }
+    
+    /**
+     * Returns copy of bytes of this packet.
+     * @return copy of bytes of this packet
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        System.arraycopy(data, offset, bytes, 0, length);
+        return bytes;
+    }
+    
+    /**
+     * Returns this packet in the {@code short[]} representation.
+     * @return this packet in the {@code short[]} representation
+     */
+    public short[] toShortArray() {
+        short[] shorts = new short[length];
+        for ( int i = 0; i < length; i++ ) {
+            shorts[i] = (short)(data[offset + i] & 0xFF);
+        }
+        return shorts;
+    }
+    
+    /**
+     * Returns read-only byte buffer viewing this packet. Data are not copied.
+     * @return read-only byte buffer viewing this packet
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(data, offset, length).slice().asReadOnlyBuffer();
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( !(obj instanceof BytePacket) ) {
+            return false;
+        }
+        BytePacket other = (BytePacket)obj;
+        if ( length != other.length ) {
+            return false;
+        }
+        for ( int i = 0; i < length; i++ ) {
+            if ( data[offset + i] != other.data[other.offset + i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for ( int i = 0; i < length; i++ ) {
+            hash = 31 * hash + data[offset + i];
+        }
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for ( int i = 0; i < length; i++ ) {
+            if ( i > 0 ) {
+                sb.append(", ");
+            }
+            sb.append(data[offset + i] & 0xFF);
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
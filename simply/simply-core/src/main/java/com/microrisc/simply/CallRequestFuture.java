@@ -0,0 +1,224 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Completion handle of one call request.
+ * <p>
+ * The handle is completed by the final processing info of the call request
+ * at the moment, when the connector delivers that info. Clients can either
+ * block on the handle by means of {@code get} methods or register listeners,
+ * which will be called at the moment of completion. Each call request has its
+ * own handle, so waiting clients are not woken up by results of other requests.
+ *
+ * @author Michal Konopa
+ */
+public final class CallRequestFuture implements Future<CallRequestProcessingInfo> {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(CallRequestFuture.class);
+    
+    /** ID of the call request. */
+    private final UUID requestId;
+    
+    /** Signals completion. */
+    private final CountDownLatch completionSignal = new CountDownLatch(1);
+    
+    /** Final processing info. */
+    private volatile CallRequestProcessingInfo procInfo = null;
+    
+    /** Indicates, wheather the handle has been cancelled. */
+    private volatile boolean cancelled = false;
+    
+    /** Listeners, which to call at the moment of completion. */
+    private List<ConnectorListener> listeners = new LinkedList<>();
+    
+    /** Synchronization object for completion and listeners. */
+    private final Object synchroCompletion = new Object();
+    
+    
+    private static UUID checkRequestId(UUID requestId) {
+        if ( requestId == null ) {
+            throw new IllegalArgumentException("Request ID cannot be null");
+        }
+        return requestId;
+    }
+    
+    private static CallRequestProcessingInfo checkProcInfo(CallRequestProcessingInfo procInfo) {
+        if ( procInfo == null ) {
+            throw new IllegalArgumentException("Processing info cannot be null");
+        }
+        return procInfo;
+    }
+    
+    private static ConnectorListener checkListener(ConnectorListener listener) {
+        if ( listener == null ) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        return listener;
+    }
+    
+    // calls specified listener and logs its failure
+    private void callListener(ConnectorListener listener, CallRequestProcessingInfo info) {
+        try {
+            listener.onCallRequestProcessingInfo(info, requestId);
+        } catch ( RuntimeException e ) {
+            logger.error("Listener of request {} failed", requestId, e);
+        }
+    }
+    
+    
+    /**
+     * Creates new, not completed handle of specified call request.
+     * @param requestId ID of call request
+     * @throws IllegalArgumentException if {@code requestId} is {@code null}
+     */
+    public CallRequestFuture(UUID requestId) {
+        this.requestId = checkRequestId(requestId);
+    }
+    
+    /**
+     * Returns ID of the call request.
+     * @return ID of the call request
+     */
+    public UUID getRequestId() {
+        return requestId;
+    }
+    
+    /**
+     * Completes this handle with specified processing info and calls all
+     * registered listeners. If the handle is already completed or cancelled,
+     * does nothing.
+     * @param procInfo final processing info of the call request
+     * @return {@code true} if this call completed the handle <br>
+     *         {@code false} if the handle was already completed or cancelled
+     * @throws IllegalArgumentException if {@code procInfo} is {@code null}
+     */
+    public boolean complete(CallRequestProcessingInfo procInfo) {
+        checkProcInfo(procInfo);
+        List<ConnectorListener> listenersToCall = null;
+        synchronized ( synchroCompletion ) {
+            if ( isDone() ) {
+                return false;
+            }
+            this.procInfo = procInfo;
+            listenersToCall = listeners;
+            listeners = null;
+        }
+        completionSignal.countDown();
+        
+        for ( ConnectorListener listener : listenersToCall ) {
+            callListener(listener, procInfo);
+        }
+        return true;
+    }
+    
+    /**
+     * Registers specified listener, which will be called at the moment of
+     * completion of this handle. If the handle is already completed, the
+     * listener is called immediately in the calling thread. Listeners are not
+     * called for cancelled handles.
+     * @param listener listener to register
+     * @throws IllegalArgumentException if {@code listener} is {@code null}
+     */
+    public void addListener(ConnectorListener listener) {
+        checkListener(listener);
+        synchronized ( synchroCompletion ) {
+            if ( !isDone() ) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        
+        if ( !cancelled ) {
+            callListener(listener, procInfo);
+        }
+    }
+    
+    /**
+     * Returns processing info, if the handle is completed. Doesn't block.
+     * @return final processing info <br>
+     *         {@code null}, if the handle is not completed yet or was cancelled
+     */
+    public CallRequestProcessingInfo getNow() {
+        return procInfo;
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized ( synchroCompletion ) {
+            if ( isDone() ) {
+                return false;
+            }
+            cancelled = true;
+            listeners = null;
+        }
+        completionSignal.countDown();
+        return true;
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    @Override
+    public boolean isDone() {
+        return ( cancelled || (procInfo != null) );
+    }
+    
+    @Override
+    public CallRequestProcessingInfo get() throws InterruptedException {
+        completionSignal.await();
+        if ( cancelled ) {
+            throw new CancellationException("Call request " + requestId + " cancelled");
+        }
+        return procInfo;
+    }
+    
+    @Override
+    public CallRequestProcessingInfo get(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException
+    {
+        if ( !completionSignal.await(timeout, unit) ) {
+            throw new TimeoutException("Waiting on call request " + requestId + " timeouted");
+        }
+        if ( cancelled ) {
+            throw new CancellationException("Call request " + requestId + " cancelled");
+        }
+        return procInfo;
+    }
+    
+    @Override
+    public String toString() {
+        return ("{ " +
+                "request ID=" + requestId +
+                ", done=" + isDone() +
+                ", cancelled=" + cancelled +
+                " }");
+    }
+}
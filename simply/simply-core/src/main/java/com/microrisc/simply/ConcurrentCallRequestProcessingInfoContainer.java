@@ -0,0 +1,94 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply;
+
+import java.util.UUID;
+
+/**
+ * Concurrent implementation of {@code CallRequestProcessingInfoContainer} interface.
+ * <p>
+ * This implementation is based on 
+ * {@link com.microrisc.simply.ConcurrentResultsContainer ConcurrentResultsContainer} 
+ * class. One container can be shared by more device objects.
+ * 
+ * @author Michal Konopa
+ */
+public class ConcurrentCallRequestProcessingInfoContainer 
+implements CallRequestProcessingInfoContainer {
+    /** Worker container to use. */
+    private final ConcurrentResultsContainer<CallRequestProcessingInfo> container;
+    
+    
+    /**
+     * Creates new results container with default values of parameters: <br>
+     * - capacity = 1000 <br>
+     * - max time duration = not used
+     */
+    public ConcurrentCallRequestProcessingInfoContainer() {
+        container = new ConcurrentResultsContainer<>();
+    }
+    
+    /**
+     * Creates new result container with parameters set to specified values.
+     * @param capacity capacity of container ( in number of results ). Must be
+     *                 > 0
+     * @param maxTimeDuration maximal time duration of existence of each 
+     *        call result in container. 0 means that this capability is not used
+     *        Must be >= 0.
+     */
+    public ConcurrentCallRequestProcessingInfoContainer(int capacity, long maxTimeDuration) {
+        container = new ConcurrentResultsContainer<>(capacity, maxTimeDuration);
+    }
+    
+    @Override
+    public CallRequestProcessingInfo get(UUID uid) {
+        return container.get(uid);
+    }
+    
+    /**
+     * Returns processing info associated with specified identifier. If the info 
+     * is not present in the container, waits for it at most specified time.
+     * @param uid identifier of processing info to return
+     * @param timeout maximal time [in ms] to wait for the info, 0 means not
+     *        to wait
+     * @return processing info associated with specified identifier <br>
+     *         {@code null}, if the info has not been put into the container
+     *         in specified time
+     * @throws InterruptedException if the waiting thread has been interrupted
+     * @throws IllegalArgumentException if {@code timeout} is less then 0
+     */
+    public CallRequestProcessingInfo get(UUID uid, long timeout) throws InterruptedException {
+        return container.get(uid, timeout);
+    }
+    
+    @Override
+    public void put(UUID uid, CallRequestProcessingInfo callResult) {
+        container.put(uid, callResult);
+    }
+
+    @Override
+    public void remove(UUID uid) {
+        container.remove(uid);
+    }
+    
+    /**
+     * @return number of processing infos in the container
+     */
+    public int size() {
+        return container.size();
+    }
+}
@@ -0,0 +1,393 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply;
+
+import com.microrisc.simply.metrics.Counter;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.StandardMetrics;
+import com.microrisc.simply.utilities.HashedTimerWheel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Concurrent implementation of {@code ResultsContainer} interface.
+ * <p>
+ * Getting of results doesn't block putting of results and vice versa. 
+ * Results are kept in the order they were put into the container. If the 
+ * number of results exceeds the capacity, the oldest result, which has 
+ * already been got, is removed. Result, which has not been got yet, is removed 
+ * only if there is no such result - in that case, warning is logged and the 
+ * {@link StandardMetrics#RESULTS_EVICTED} counter is incremented.
+ * <p>
+ * If maximal time duration is used, expiration of results is tracked by 
+ * hashed timer wheel. Expired results are never returned and they are removed 
+ * from the container at the next putting or removing of a result.
+ * <p>
+ * Threads can wait for a result with specified identifier, see 
+ * {@link #get(java.util.UUID, long) }. Putting of a result wakes up only 
+ * the threads waiting for that result. Because results are identified by 
+ * unique identifiers, one container can be shared by more device objects. 
+ * 
+ * @author Michal Konopa
+ * @param <T> type of results in the container
+ */
+public final class ConcurrentResultsContainer<T extends Object> 
+implements ResultsContainer<T> {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentResultsContainer.class);
+    
+    
+    // result with time, when it was put into
+    private class TimedResult {
+        final T result;
+        final long time;
+        
+        // indicates, wheather the result has already been got
+        volatile boolean got = false;
+        
+        // expiration of the result, null if maximal time duration is not used
+        HashedTimerWheel.Timeout<UUID> expiration = null;
+        
+        TimedResult(T result, long time) {
+            this.result = result;
+            this.time = time;
+        }
+    }
+    
+    // threads waiting for one result
+    private static class ResultWaiters {
+        // number of waiting threads
+        int count = 0;
+        
+        // indicates, wheather this object has been removed from waiters
+        boolean removed = false;
+    }
+    
+    
+    /** Default capacity. */
+    public static final int DEFAULT_CAPACITY = 1000;
+    
+    /** 
+     * Default maximal time[in ms] of existence each item in the container. After
+     * that will be that item disposed from container. 
+     * 0 means not usage of this property
+     */ 
+    public static final long DEFAULT_MAX_TIME_DURATION = 0;
+    
+    /** results capacity */
+    private final int capacity;
+    
+    /** maximal time duration of existence of each item in items */ 
+    private final long maxTimeDuration;
+    
+    
+    // results indexed by identifiers
+    private final ConcurrentMap<UUID, TimedResult> items = new ConcurrentHashMap<>();
+    
+    // results in the order of putting, used for removing of results over capacity
+    private final Map<UUID, TimedResult> itemsOrder = new LinkedHashMap<>();
+    
+    // expirations of results
+    private final HashedTimerWheel<UUID> expirations = new HashedTimerWheel<>();
+    
+    // synchronization object for itemsOrder and expirations
+    private final Object syncItemsOrder = new Object();
+    
+    // threads waiting for results indexed by identifiers of the results
+    private final ConcurrentMap<UUID, ResultWaiters> waiters = new ConcurrentHashMap<>();
+    
+    // number of results removed before they were got
+    private final Counter evictedCounter = MetricsRegistry.getDefault().counter(
+            new MetricName(StandardMetrics.RESULTS_EVICTED)
+    );
+    
+    
+    // checking of construction parameters
+    private static int checkCapacity(int capacity) {
+        if ( capacity <= 0 ) {
+            throw new IllegalArgumentException("Capacity must be > 0");
+        }
+        return capacity;
+    } 
+    
+    private static long checkMaxTimeResultDuration(long maxTimeResultDuration) {
+        if ( maxTimeResultDuration < 0 ) {
+            throw new IllegalArgumentException("Max time result duration cannot be < 0");
+        }
+        return maxTimeResultDuration;
+    } 
+    
+    private static long checkTimeout(long timeout) {
+        if ( timeout < 0 ) {
+            throw new IllegalArgumentException("Timeout cannot be < 0");
+        }
+        return timeout;
+    }
+    
+    
+    // indicates, wheather specified result has exceeded maximal time duration
+    private boolean isExpired(TimedResult timedResult, long actualTime) {
+        return ( (maxTimeDuration != 0) && ((actualTime - timedResult.time) > maxTimeDuration) );
+    }
+    
+    // returns not expired result with specified ID or null
+    private TimedResult getValidItem(UUID uid) {
+        TimedResult timedResult = items.get(uid);
+        if ( timedResult == null ) {
+            return null;
+        }
+        
+        if ( isExpired(timedResult, System.currentTimeMillis()) ) {
+            return null;
+        }
+        
+        timedResult.got = true;
+        return timedResult;
+    }
+    
+    // removes expired results, must be called with syncItemsOrder held
+    private void removeExpiredItems() {
+        if ( maxTimeDuration == 0 ) {
+            return;
+        }
+        
+        List<UUID> expiredIds = expirations.expire(System.currentTimeMillis());
+        for ( UUID expiredId : expiredIds ) {
+            TimedResult timedResult = itemsOrder.remove(expiredId);
+            if ( timedResult != null ) {
+                items.remove(expiredId, timedResult);
+            }
+        }
+    }
+    
+    // removes results over capacity, must be called with syncItemsOrder held
+    private void removeItemsOverCapacity() {
+        while ( itemsOrder.size() > capacity ) {
+            // the oldest result, which has already been got, is removed first
+            Map.Entry<UUID, TimedResult> removedEntry = null;
+            Iterator<Map.Entry<UUID, TimedResult>> entryIt = itemsOrder.entrySet().iterator();
+            while ( entryIt.hasNext() ) {
+                Map.Entry<UUID, TimedResult> entry = entryIt.next();
+                if ( entry.getValue().got ) {
+                    removedEntry = entry;
+                    entryIt.remove();
+                    break;
+                }
+            }
+            
+            if ( removedEntry == null ) {
+                entryIt = itemsOrder.entrySet().iterator();
+                removedEntry = entryIt.next();
+                entryIt.remove();
+                
+                logger.warn("Capacity exceeded, result not got yet removed: {}", removedEntry.getKey());
+                evictedCounter.inc();
+            }
+            
+            TimedResult removedItem = removedEntry.getValue();
+            if ( removedItem.expiration != null ) {
+                expirations.cancel(removedItem.expiration);
+            }
+            items.remove(removedEntry.getKey(), removedItem);
+        }
+    }
+    
+    
+    /**
+     * Creates new results container with default values of parameters: <br>
+     * - capacity = 1000 <br>
+     * - max time duration = not used
+     */
+    public ConcurrentResultsContainer() { 
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_TIME_DURATION);
+    }
+    
+    /**
+     * Creates new result container with parameters set to specified values.
+     * @param capacity capacity of container ( in number of results ). Must be
+     *                 > 0
+     * @param maxTimeDuration maximal time duration of existence of each 
+     *        call result in container. 0 means that this capability is not used
+     *        Must be >= 0.
+     */
+    public ConcurrentResultsContainer(int capacity, long maxTimeDuration) {
+        this.capacity = checkCapacity(capacity);
+        this.maxTimeDuration = checkMaxTimeResultDuration(maxTimeDuration);
+    }
+    
+    @Override
+    public T get(UUID uid) {
+        logger.debug("get - start: uid={}", uid );
+        
+        TimedResult timedResult = getValidItem(uid);
+        if ( timedResult == null ) {
+            logger.debug("get - end: null" );
+            return null;
+        }
+        
+        logger.debug("get - end: {}", timedResult.result );
+        return timedResult.result;
+    }
+    
+    /**
+     * Returns call result associated with specified identifier. If the result 
+     * is not present in the container, waits for it at most specified time.
+     * @param uid identifier of call result to return
+     * @param timeout maximal time [in ms] to wait for the result, 0 means not
+     *        to wait
+     * @return call result associated with specified identifier <br>
+     *         {@code null}, if the result has not been put into the container
+     *         in specified time
+     * @throws InterruptedException if the waiting thread has been interrupted
+     * @throws IllegalArgumentException if {@code timeout} is less then 0
+     */
+    public T get(UUID uid, long timeout) throws InterruptedException {
+        logger.debug("get - start: uid={}, timeout={}", uid, timeout );
+        
+        checkTimeout(timeout);
+        
+        TimedResult timedResult = getValidItem(uid);
+        if ( (timedResult != null) || (timeout == 0) ) {
+            T result = ( timedResult == null )? null : timedResult.result;
+            logger.debug("get - end: {}", result );
+            return result;
+        }
+        
+        long endTime = System.currentTimeMillis() + timeout;
+        while ( true ) {
+            ResultWaiters resultWaiters = waiters.get(uid);
+            if ( resultWaiters == null ) {
+                ResultWaiters newResultWaiters = new ResultWaiters();
+                resultWaiters = waiters.putIfAbsent(uid, newResultWaiters);
+                if ( resultWaiters == null ) {
+                    resultWaiters = newResultWaiters;
+                }
+            }
+            
+            synchronized ( resultWaiters ) {
+                // the last waiting thread has just removed it
+                if ( resultWaiters.removed ) {
+                    continue;
+                }
+                
+                resultWaiters.count++;
+                try {
+                    timedResult = getValidItem(uid);
+                    long waitingTime = endTime - System.currentTimeMillis();
+                    while ( (timedResult == null) && (waitingTime > 0) ) {
+                        resultWaiters.wait(waitingTime);
+                        timedResult = getValidItem(uid);
+                        waitingTime = endTime - System.currentTimeMillis();
+                    }
+                } finally {
+                    resultWaiters.count--;
+                    if ( resultWaiters.count == 0 ) {
+                        resultWaiters.removed = true;
+                        waiters.remove(uid, resultWaiters);
+                    }
+                }
+            }
+            break;
+        }
+        
+        T result = ( timedResult == null )? null : timedResult.result;
+        logger.debug("get - end: {}", result );
+        return result;
+    }
+    
+    @Override
+    public void put(UUID uid, T callResult) {
+        logger.debug("put - start: uid={}, callResult={}", uid, callResult );
+        
+        TimedResult timedResult = new TimedResult(callResult, System.currentTimeMillis());
+        synchronized ( syncItemsOrder ) {
+            removeExpiredItems();
+            
+            TimedResult oldItem = itemsOrder.remove(uid);
+            if ( (oldItem != null) && (oldItem.expiration != null) ) {
+                expirations.cancel(oldItem.expiration);
+            }
+            
+            if ( maxTimeDuration != 0 ) {
+                timedResult.expiration = expirations.schedule(uid, maxTimeDuration);
+            }
+            itemsOrder.put(uid, timedResult);
+            items.put(uid, timedResult);
+            
+            removeItemsOverCapacity();
+        }
+        
+        // wakes up only threads waiting for this result
+        ResultWaiters resultWaiters = waiters.get(uid);
+        if ( resultWaiters != null ) {
+            synchronized ( resultWaiters ) {
+                resultWaiters.notifyAll();
+            }
+        }
+        
+        logger.debug("put - end: " );
+    }
+    
+    @Override
+    public void remove(UUID uid) {
+        logger.debug("remove - start: uid={}", uid );
+        
+        synchronized ( syncItemsOrder ) {
+            removeExpiredItems();
+            
+            TimedResult timedResult = itemsOrder.remove(uid);
+            if ( timedResult != null ) {
+                if ( timedResult.expiration != null ) {
+                    expirations.cancel(timedResult.expiration);
+                }
+                items.remove(uid, timedResult);
+            }
+        }
+        
+        logger.debug("remove - end: " );
+    }
+    
+    /**
+     * @return number of results in the container
+     */
+    public int size() {
+        return items.size();
+    }
+    
+    /**
+     * @return capacity of the container
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * @return maximal time duration [in ms] of existence of each result in 
+     *         the container, 0 if not used
+     */
+    public long getMaxTimeDuration() {
+        return maxTimeDuration;
+    }
+}
@@ -16,7 +16,12 @@
 
 package com.microrisc.simply;
 
+import com.microrisc.simply.di_services.CallRequestFutureService;
+import com.microrisc.simply.di_services.RequestSchedulingService;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,7 +32,10 @@ import org.slf4j.LoggerFactory;
  */
 public class ConnectedDeviceObject 
 extends BaseDeviceObject 
-implements CallRequestDispatcher, ConnectorListener {
+implements 
+    CallRequestDispatcher, ConnectorListener, RequestSchedulingService, 
+    CallRequestFutureService 
+{
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(ConnectedDeviceObject.class);
     
@@ -38,12 +46,33 @@ implements CallRequestDispatcher, ConnectorListener {
     /** Incomming results of performed method calls. */
     protected final CallRequestProcessingInfoContainer results;
     
+    /** 
+     * Completion handles of dispatched calls, whose results have not arrived yet. 
+     */
+    private final ConcurrentMap<UUID, CallRequestFuture> pendingCalls 
+            = new ConcurrentHashMap<>();
+    
+    /** 
+     * Period [in ms] of checking, wheather the calls with pending completion 
+     * handles are still processed by the connector.
+     */
+    protected static final long PENDING_CALLS_CHECK_PERIOD = 10000;
+    
+    /** Time of the last check of pending calls. */
+    private volatile long lastPendingCallsCheckTime = System.currentTimeMillis();
+    
     /** Last method call id. */
     protected UUID lastCallId = null;
     
     /** Dispatch error of lastly issued dispatching. */
     protected Exception lastDispatchError = null;
     
+    /** Priority class of dispatched calls. */
+    protected volatile CallRequestPriority requestPriority = CallRequestPriority.NORMAL;
+    
+    /** Deadline of dispatched calls. */
+    protected volatile long requestDeadline = NO_REQUEST_DEADLINE;
+    
     
     /** Prefix of logged data. */
     protected final String logPrefix;
@@ -77,6 +106,80 @@ implements CallRequestDispatcher, ConnectorListener {
         return resultsContainer;
     }
     
+    private static CallRequestPriority checkRequestPriority(CallRequestPriority priority) {
+        if ( priority == null ) {
+            throw new IllegalArgumentException("Request priority cannot be null");
+        }
+        return priority;
+    }
+    
+    private static long checkRequestDeadline(long deadline) {
+        if ( deadline == NO_REQUEST_DEADLINE ) {
+            return deadline;
+        }
+        
+        if ( deadline < 0 ) {
+            throw new IllegalArgumentException(
+                    "Request deadline must be nonnegative or equal to " + NO_REQUEST_DEADLINE
+            );
+        }
+        return deadline;
+    }
+    
+    
+    // registers completion handle of newly dispatched call
+    private void registerCallFuture(UUID callId) {
+        CallRequestFuture future = new CallRequestFuture(callId);
+        pendingCalls.put(callId, future);
+        
+        // the result could have arrived before the handle was registered
+        CallRequestProcessingInfo procInfo = results.get(callId);
+        if ( procInfo != null ) {
+            pendingCalls.remove(callId, future);
+            future.complete(procInfo);
+        }
+    }
+    
+    // releases specified pending handle, if the connector doesn't process 
+    // its call anymore
+    private void releaseIfNotProcessed(UUID callId, CallRequestFuture future) {
+        CallRequestProcessingInfo procInfo = results.get(callId);
+        if ( procInfo == null ) {
+            procInfo = connector.getCallRequestProcessingInfo(callId);
+        }
+        
+        // the call has been dropped by the connector without sending any result
+        if ( procInfo == null ) {
+            pendingCalls.remove(callId, future);
+            future.cancel(false);
+            logger.info("{}Call dropped by connector, id={}", logPrefix, callId);
+            return;
+        }
+        
+        switch ( procInfo.getState() ) {
+            case WAITING_FOR_PROCESSING:
+            case WAITING_FOR_RESULT:
+                return;
+            default:
+                pendingCalls.remove(callId, future);
+                future.complete(procInfo);
+        }
+    }
+    
+    // releases handles of calls, which are not processed by the connector anymore
+    // runs at most once per check period
+    private void releaseNotProcessedCalls() {
+        long now = System.currentTimeMillis();
+        if ( (now - lastPendingCallsCheckTime) < PENDING_CALLS_CHECK_PERIOD ) {
+            return;
+        }
+        lastPendingCallsCheckTime = now;
+        
+        for ( Map.Entry<UUID, CallRequestFuture> pendingCall : pendingCalls.entrySet() ) {
+            releaseIfNotProcessed(pendingCall.getKey(), pendingCall.getValue());
+        }
+    }
+    
     
     /**
      * Creates new device object connected to specified connector with defined 
@@ -109,7 +212,8 @@ implements CallRequestDispatcher, ConnectorListener {
         UUID callId = null;
         try {
             callId = connector.callMethod(
-                    this, implementedDeviceInterface, methodId, args
+                    this, implementedDeviceInterface, methodId, args, 
+                    requestPriority, requestDeadline
             ); 
         } catch ( Exception e ) {
             lastCallId = null;
@@ -119,6 +223,8 @@ implements CallRequestDispatcher, ConnectorListener {
         }
         
         lastCallId = callId;
+        registerCallFuture(callId);
+        releaseNotProcessedCalls();
         
         logger.debug("{}dispatchCall - end: {}", logPrefix, callId);
         logger.info("{}Method {} call dispatched, id={}", logPrefix, methodId, callId);
@@ -136,7 +242,8 @@ implements CallRequestDispatcher, ConnectorListener {
         UUID callId = null;
         try {
             callId = connector.callMethod(
-                    this, implementedDeviceInterface, methodId, args, timeout
+                    this, implementedDeviceInterface, methodId, args, timeout, 
+                    requestPriority, requestDeadline
             ); 
         } catch ( Exception e ) {
             lastCallId = null;
@@ -146,6 +253,8 @@ implements CallRequestDispatcher, ConnectorListener {
         }
         
         lastCallId = callId;
+        registerCallFuture(callId);
+        releaseNotProcessedCalls();
         
         logger.debug("{}dispatchCall - end: {}", logPrefix, callId);
         logger.info("{}Method {} call dispatched, id={}", logPrefix, methodId, callId);
@@ -160,13 +269,109 @@ implements CallRequestDispatcher, ConnectorListener {
                 logPrefix, procInfo, callId
         );
         
+        // results container can be shared by more device objects, 
+        // so it is locked only for notification of waiting threads
+        results.put(callId, procInfo);
         synchronized( results ) {
-            results.put(callId, procInfo);
-            results.notify();
+            results.notifyAll();
+        }
+        
+        CallRequestFuture future = pendingCalls.remove(callId);
+        if ( future != null ) {
+            future.complete(procInfo);
         }
         
         logger.debug("{}onCallRequestProcessingInfo - end", logPrefix);
         logger.info("{}New result from connector, id={}", logPrefix, callId);
     }
     
+    /**
+     * @throws IllegalArgumentException if {@code priority} is {@code null}
+     */
+    @Override
+    public void setRequestPriority(CallRequestPriority priority) {
+        this.requestPriority = checkRequestPriority(priority);
+    }
+    
+    @Override
+    public CallRequestPriority getRequestPriority() {
+        return requestPriority;
+    }
+    
+    /**
+     * @throws IllegalArgumentException if {@code deadline} is negative and 
+     *         not equal to {@link #NO_REQUEST_DEADLINE}
+     */
+    @Override
+    public void setRequestDeadline(long deadline) {
+        this.requestDeadline = checkRequestDeadline(deadline);
+    }
+    
+    @Override
+    public long getRequestDeadline() {
+        return requestDeadline;
+    }
+    
+    /**
+     * Returns completion handle of specified call. The handle is completed at 
+     * the moment, when the result of the call arrives from connector. 
+     * <p>
+     * Handles of calls, which are not completed, are held by this device 
+     * object until a result of the call arrives, the call is cancelled or the
+     * connector stops processing the call without sending any result. In the
+     * last case, the handle is cancelled.
+     * @param callId ID of the call
+     * @return completion handle of the call <br>
+     *         {@code null}, if the call has not been dispatched by this device 
+     *         object or if its handle has already been released and its result 
+     *         is not available anymore
+     * @throws IllegalArgumentException if {@code callId} is {@code null}
+     */
+    @Override
+    public CallRequestFuture getCallRequestFuture(UUID callId) {
+        if ( callId == null ) {
+            throw new IllegalArgumentException("Call ID cannot be null");
+        }
+        
+        CallRequestFuture future = pendingCalls.get(callId);
+        if ( future != null ) {
+            return future;
+        }
+        
+        // handles of completed calls are not held, result is used instead
+        CallRequestProcessingInfo procInfo = results.get(callId);
+        if ( procInfo == null ) {
+            return null;
+        }
+        
+        CallRequestFuture completedFuture = new CallRequestFuture(callId);
+        completedFuture.complete(procInfo);
+        return completedFuture;
+    }
+    
+    /**
+     * Releases pending completion handle of specified call, if the connector
+     * doesn't process the call anymore. The handle is completed by the final
+     * processing info of the call, if it is available, or cancelled, if the 
+     * connector has dropped the call without sending any result.
+     * @param callId ID of the call
+     */
+    protected void releaseCallRequestFutureIfNotProcessed(UUID callId) {
+        CallRequestFuture future = pendingCalls.get(callId);
+        if ( future != null ) {
+            releaseIfNotProcessed(callId, future);
+        }
+    }
+    
+    /**
+     * Cancels completion handle of specified call, if there is any.
+     * @param callId ID of the call
+     */
+    protected void cancelCallRequestFuture(UUID callId) {
+        CallRequestFuture future = pendingCalls.remove(callId);
+        if ( future != null ) {
+            future.cancel(false);
+        }
+    }
+    
 }
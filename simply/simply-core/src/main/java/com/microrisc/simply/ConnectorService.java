@@ -28,6 +28,9 @@ public interface ConnectorService {
     /** Unlimited maximal processing time for a call request. */
     long UNLIMITED_MAXIMAL_PROCESSING_TIME = -1;
     
+    /** No deadline of a call request. */
+    long NO_DEADLINE = -1;
+    
     
     /**
      * Performs action on underlaying network device, which corresponds to 
@@ -55,6 +58,32 @@ public interface ConnectorService {
             String methodId, Object[] args, long maxProcTime
     );
     
+    /**
+     * Like {@link ConnectorService#callMethod(com.microrisc.simply.ConnectedDeviceObject, 
+     * java.lang.Class, java.lang.String, java.lang.Object[] ) callMethod} method,
+     * but specifies also scheduling parameters of the call request. 
+     * Requests of higher priority classes are sent before requests of lower 
+     * priority classes. A request, which cannot be sent within its deadline, 
+     * is dropped and its processing ends with an error. 
+     * @param priority priority class of the call request
+     * @param deadline deadline ( in ms ) of the call request, or {@link #NO_DEADLINE}
+     */
+    UUID callMethod(ConnectedDeviceObject deviceObject, Class deviceIface,
+            String methodId, Object[] args, CallRequestPriority priority, long deadline
+    );
+    
+    /**
+     * Like {@link ConnectorService#callMethod(com.microrisc.simply.ConnectedDeviceObject, 
+     * java.lang.Class, java.lang.String, java.lang.Object[], com.microrisc.simply.CallRequestPriority, long ) 
+     * callMethod} method, but specifies also a maximal time of processing of 
+     * a called method.
+     * @param maxProcTime maximal time of processing of the called method
+     */
+    UUID callMethod(ConnectedDeviceObject deviceObject, Class deviceIface,
+            String methodId, Object[] args, long maxProcTime, 
+            CallRequestPriority priority, long deadline
+    );
+    
     /**
      * Sets maximal processing time for specified call request.
      * @param requestId ID of a call request, whose processing time to set
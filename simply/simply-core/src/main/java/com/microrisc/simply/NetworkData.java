@@ -28,6 +28,14 @@ public interface NetworkData {
      * @return effective data
      */
     short[] getData();
+    
+    /**
+     * Returns effective data as byte packet. The packet is the preferred
+     * representation of data, it occupies half of memory of the {@code short[]}
+     * representation and its parts can be viewed without copying.
+     * @return effective data as byte packet
+     */
+    BytePacket getPacket();
 
     /**
      * Returns ID of source/destination network.
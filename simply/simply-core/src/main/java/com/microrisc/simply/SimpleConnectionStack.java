@@ -27,6 +27,7 @@ import com.microrisc.simply.connector.Connector;
  * - connector
  * - protocol layer
  * - network layer
+ * Optionally, it manages life cycle of reporting of metrics of these parts.
  * 
  * @author Michal Konopa
  */
@@ -40,6 +41,9 @@ public final class SimpleConnectionStack implements ConnectionStack {
     /** Connector. */
     private final Connector connector;
     
+    /** Reporting of metrics. May be {@code null}. */
+    private final ManageableObject metricsReporting;
+    
     
     /**
      * Creates new connection stack.
@@ -49,10 +53,25 @@ public final class SimpleConnectionStack implements ConnectionStack {
      */
     public SimpleConnectionStack(NetworkLayer networkLayer, ProtocolLayer protoLayer, 
             Connector connector
+    ) {
+        this(networkLayer, protoLayer, connector, null);
+    }
+    
+    /**
+     * Creates new connection stack with reporting of metrics.
+     * @param networkLayer network layer
+     * @param protoLayer protocol layer
+     * @param connector connector
+     * @param metricsReporting reporting of metrics, which will be started and
+     *        destroyed together with the stack, may be {@code null}
+     */
+    public SimpleConnectionStack(NetworkLayer networkLayer, ProtocolLayer protoLayer, 
+            Connector connector, ManageableObject metricsReporting
     ) {
         this.networkLayer = networkLayer;
         this.protocolLayer = protoLayer;
         this.connector = connector;
+        this.metricsReporting = metricsReporting;
     }
 
     /**
@@ -84,10 +103,16 @@ public final class SimpleConnectionStack implements ConnectionStack {
         networkLayer.start();
         protocolLayer.start();
         connector.start();
+        if ( metricsReporting != null ) {
+            metricsReporting.start();
+        }
     }
     
     @Override
     public void destroy() {
+        if ( metricsReporting != null ) {
+            metricsReporting.destroy();
+        }
         connector.destroy();
         protocolLayer.destroy();
         networkLayer.destroy();
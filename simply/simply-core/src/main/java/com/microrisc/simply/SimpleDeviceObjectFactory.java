@@ -16,12 +16,29 @@
 
 package com.microrisc.simply;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Simple device object factory.
+ * <p>
+ * Associated configuration properties of results containers of connected 
+ * device objects: <br>
+ * - type of container: <b>deviceObject.resultsContainer.type</b> <br>
+ *   [hashMap] for {@link HashMapCallRequestProcessingInfoContainer} ( default ),
+ *   [concurrent] for {@link ConcurrentCallRequestProcessingInfoContainer} <br>
+ * - sharing of container: <b>deviceObject.resultsContainer.sharing</b> <br>
+ *   [deviceObject] for one container per device object ( default ), 
+ *   [node] for one container per node, [network] for one container per network. 
+ *   Containers are shared only by device objects connected to the same 
+ *   connector, i.e. belonging to the same Simply instance. They are released 
+ *   by {@link #releaseSharedResultsContainers(ConnectorService) }. <br>
+ * - capacity: <b>deviceObject.resultsContainer.capacity</b> <br>
+ * - maximal time of existence of results: <b>deviceObject.resultsContainer.maxTimeDuration</b>
  * 
  * @author Michal Konopa
  */
@@ -47,25 +64,105 @@ extends AbstractDeviceObjectFactory<ConnectorService, Configuration, DeviceObjec
         return deviceObj;
     }
     
+    /**
+     * Shared results containers indexed by connectors and then by network ID 
+     * or by network ID and node ID. Shared by all factories, because device 
+     * objects of one node can be created by more factories. Containers of 
+     * a connector, which is not used anymore, are released together with it.
+     */
+    private static final Map<ConnectorService, Map<String, CallRequestProcessingInfoContainer>> 
+            sharedContainers = new WeakHashMap<>();
+    
     /**
      * Creates new results container.
      */
     private CallRequestProcessingInfoContainer createResultsContainer(Configuration configuration) {
         logger.debug("createResultsContainer - start: configuration={}", configuration);
         
-        int capacity = configuration.getInt("deviceObject.resultsContainer.capacity", 
-                HashMapResultsContainer.DEFAULT_CAPACITY
-        );
-        long maxTimeDuration = configuration.getLong("deviceObject.resultsContainer.maxTimeDuration", 
-                HashMapResultsContainer.DEFAULT_MAX_TIME_DURATION);
+        String type = configuration.getString("deviceObject.resultsContainer.type", "hashMap");
         
-        CallRequestProcessingInfoContainer resultsContainer = 
-                new HashMapCallRequestProcessingInfoContainer(capacity, maxTimeDuration);
+        CallRequestProcessingInfoContainer resultsContainer = null;
+        switch ( type ) {
+            case "hashMap":
+                int capacity = configuration.getInt("deviceObject.resultsContainer.capacity", 
+                        HashMapResultsContainer.DEFAULT_CAPACITY
+                );
+                long maxTimeDuration = configuration.getLong("deviceObject.resultsContainer.maxTimeDuration", 
+                        HashMapResultsContainer.DEFAULT_MAX_TIME_DURATION);
+                resultsContainer = new HashMapCallRequestProcessingInfoContainer(capacity, maxTimeDuration);
+                break;
+            case "concurrent":
+                capacity = configuration.getInt("deviceObject.resultsContainer.capacity", 
+                        ConcurrentResultsContainer.DEFAULT_CAPACITY
+                );
+                maxTimeDuration = configuration.getLong("deviceObject.resultsContainer.maxTimeDuration", 
+                        ConcurrentResultsContainer.DEFAULT_MAX_TIME_DURATION);
+                resultsContainer = new ConcurrentCallRequestProcessingInfoContainer(capacity, maxTimeDuration);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported type of results container: " + type);
+        }
         
         logger.debug("createResultsContainer - end: {}", resultsContainer);
         return resultsContainer;
     }
     
+    /**
+     * Returns results container for device object of specified node. 
+     * According to configuration, the container is either new one, or shared 
+     * with other device objects of the node or network.
+     */
+    private CallRequestProcessingInfoContainer getResultsContainer(
+            String networkId, String nodeId, ConnectorService connector, 
+            Configuration configuration
+    ) {
+        String sharing = configuration.getString("deviceObject.resultsContainer.sharing", "deviceObject");
+        
+        String containerKey = null;
+        switch ( sharing ) {
+            case "deviceObject":
+                return createResultsContainer(configuration);
+            case "node":
+                containerKey = networkId + "/" + nodeId;
+                break;
+            case "network":
+                containerKey = networkId;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported sharing of results container: " + sharing);
+        }
+        
+        synchronized ( sharedContainers ) {
+            Map<String, CallRequestProcessingInfoContainer> connectorContainers 
+                    = sharedContainers.get(connector);
+            if ( connectorContainers == null ) {
+                connectorContainers = new HashMap<>();
+                sharedContainers.put(connector, connectorContainers);
+            }
+            
+            CallRequestProcessingInfoContainer resultsContainer = connectorContainers.get(containerKey);
+            if ( resultsContainer == null ) {
+                resultsContainer = createResultsContainer(configuration);
+                connectorContainers.put(containerKey, resultsContainer);
+            }
+            return resultsContainer;
+        }
+    }
+    
+    
+    /**
+     * Releases all results containers shared by device objects connected 
+     * to specified connector. Device objects created afterwards get new 
+     * containers. Should be called at the time of destruction of the Simply
+     * instance, which the connector belongs to.
+     * @param connector connector, whose shared containers to release
+     */
+    public static void releaseSharedResultsContainers(ConnectorService connector) {
+        synchronized ( sharedContainers ) {
+            sharedContainers.remove(connector);
+        }
+    }
+    
     
     /**
      * Implementation class {@code implClass} must be subclass ( direct or indirect )
@@ -119,7 +216,8 @@ extends AbstractDeviceObjectFactory<ConnectorService, Configuration, DeviceObjec
         constructor = implClass.getConstructor(paramsTypes);
         
         // results container - only for connected device objects
-        CallRequestProcessingInfoContainer resultsContainer = createResultsContainer(configuration);
+        CallRequestProcessingInfoContainer resultsContainer 
+                = getResultsContainer(networkId, nodeId, connector, configuration);
         
         // Parameters for the constructor
         Object[] params = new Object[] { networkId, nodeId, connector, resultsContainer };
@@ -20,6 +20,9 @@ import com.microrisc.simply.di_services.StandardServices;
 import com.microrisc.simply.errors.DispatchingRequestToConnectorError;
 import com.microrisc.simply.errors.CallRequestProcessingError;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -124,21 +127,19 @@ implements StandardServices
         // setting of processing timeout
         connector.setCallRequestMaximalProcessingTime(callId, timeout);
         
-        long startTime = System.currentTimeMillis();
-        synchronized( results ) {
-            while ( results.get(callId) == null ) {
-                try {
-                    results.wait( timeout );
-                } catch ( InterruptedException e ) {
-                    logger.warn("{}Get call result - interrupted", logPrefix);
-                    break;
-                }
-                
-                long timeElapsed = System.currentTimeMillis() - startTime;
-                if ( timeElapsed >= timeout ) {
-                    logger.info("{}Get call result - time elapsed", logPrefix);
-                    break;
-                }
+        // waiting on completion handle of the call
+        CallRequestFuture future = getCallRequestFuture(callId);
+        if ( future != null ) {
+            try {
+                future.get(timeout, TimeUnit.MILLISECONDS);
+            } catch ( InterruptedException e ) {
+                logger.warn("{}Get call result - interrupted", logPrefix);
+                Thread.currentThread().interrupt();
+            } catch ( TimeoutException e ) {
+                logger.info("{}Get call result - time elapsed", logPrefix);
+                releaseCallRequestFutureIfNotProcessed(callId);
+            } catch ( CancellationException e ) {
+                logger.info("{}Get call result - call cancelled", logPrefix);
             }
         }
         
@@ -164,14 +165,20 @@ implements StandardServices
         // setting of processing timeout
         connector.setCallRequestMaximalProcessingTime(callId, UNLIMITED_WAITING_TIMEOUT);
         
-        synchronized( results ) {
-            while ( results.get(callId) == null ) {
-                try {
-                    results.wait( 0 );
-                } catch ( InterruptedException e ) {
-                    logger.warn("{}Get call result - interrupted", logPrefix);
-                    break;
-                }
+        // waiting on completion handle of the call
+        // the call is checked periodically, the connector can drop it silently
+        CallRequestFuture future = getCallRequestFuture(callId);
+        while ( (future != null) && !future.isDone() ) {
+            try {
+                future.get(PENDING_CALLS_CHECK_PERIOD, TimeUnit.MILLISECONDS);
+            } catch ( InterruptedException e ) {
+                logger.warn("{}Get call result - interrupted", logPrefix);
+                Thread.currentThread().interrupt();
+                break;
+            } catch ( TimeoutException e ) {
+                releaseCallRequestFutureIfNotProcessed(callId);
+            } catch ( CancellationException e ) {
+                logger.info("{}Get call result - call cancelled", logPrefix);
             }
         }
         
@@ -226,6 +233,7 @@ implements StandardServices
     public void cancelCallRequest(UUID callId) {
         checkCallId(callId);
         connector.cancelCallRequest(callId);
+        cancelCallRequestFuture(callId);
     }
     
     @Override
@@ -247,6 +255,7 @@ implements StandardServices
     public void cancelCallRequestOfLastCall() {
         if ( lastCallId != null ) {
             connector.cancelCallRequest(lastCallId);
+            cancelCallRequestFuture(lastCallId);
         }
     }
     
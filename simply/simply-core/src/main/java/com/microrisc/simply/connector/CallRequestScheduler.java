@@ -0,0 +1,63 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.connector;
+
+import com.microrisc.simply.CallRequestPriority;
+
+/**
+ * Decides about the order, in which call requests waiting in a connector are 
+ * sent into the network. 
+ * <p>
+ * Implementations must be thread safe.
+ * 
+ * @param <T> type of scheduled requests
+ * 
+ * @author Michal Konopa
+ */
+public interface CallRequestScheduler<T> {
+    /** Value of deadline of requests without any deadline. */
+    long NO_DEADLINE = -1;
+    
+    /**
+     * Adds specified request into the scheduler.
+     * @param request request to add
+     * @param priority priority class of the request
+     * @param deadline time [in ms, as returned by {@code System.currentTimeMillis}], 
+     *        until which the request must be sent, or {@link #NO_DEADLINE}
+     */
+    void add(T request, CallRequestPriority priority, long deadline);
+    
+    /**
+     * Removes and returns the request, which should be sent as the next one.
+     * @return the next request to send <br>
+     *         {@code null}, if there is no request in the scheduler
+     */
+    T poll();
+    
+    /**
+     * Indicates, wheather there are no requests in the scheduler.
+     * @return {@code true}, if there are no requests in the scheduler <br>
+     *         {@code false}, otherwise
+     */
+    boolean isEmpty();
+    
+    /**
+     * Returns number of requests in the scheduler.
+     * @return number of requests in the scheduler
+     */
+    int size();
+}
@@ -20,6 +20,11 @@ import com.microrisc.simply.CallRequestProcessingInfo;
 import com.microrisc.simply.ConnectorListener;
 import com.microrisc.simply.SimplyException;
 import com.microrisc.simply.ManageableObject;
+import com.microrisc.simply.metrics.Gauge;
+import com.microrisc.simply.metrics.Histogram;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.StandardMetrics;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -46,6 +51,7 @@ public final class CallResultsSender implements ManageableObject {
         @Override
         public void run() {
             CallRequestProcessingInfo procInfo = null;
+            long addTime = 0;
             
             while ( true ) {
                 if ( this.isInterrupted() ) {
@@ -63,6 +69,7 @@ public final class CallResultsSender implements ManageableObject {
                         }
                     }
                     procInfo = procInfoToListeners.poll(); 
+                    addTime = procInfoAddTimes.poll();
                 }
                 
                 // addressee identification
@@ -70,6 +77,14 @@ public final class CallResultsSender implements ManageableObject {
                 
                 // sending information to the addressee
                 adressee.onCallRequestProcessingInfo( procInfo, procInfo.getRequestId() );
+                deliveryTimeHistogram.updateSince(addTime);
+                
+                // information must be available until the addressee holds it
+                synchronized( syncProcInfoToListeners ) {
+                    if ( procInfoIndex.get(procInfo.getRequestId()) == procInfo ) {
+                        procInfoIndex.remove(procInfo.getRequestId());
+                    }
+                }
                 
                 // remove addresee from senders map
                 addressees.remove(procInfo.getRequestId());
@@ -92,11 +107,41 @@ public final class CallResultsSender implements ManageableObject {
     private Queue<CallRequestProcessingInfo> procInfoToListeners = 
             new ConcurrentLinkedQueue<>();
     
+    /**
+     * Index of information in {@code procInfoToListeners} by ID of call request.
+     * Information is removed from the index after its delivery to addressee.
+     */
+    private Map<UUID, CallRequestProcessingInfo> procInfoIndex = new HashMap<>();
+    
+    /**
+     * Times of adding of information in {@code procInfoToListeners} [in ns].
+     */
+    private Queue<Long> procInfoAddTimes = new ConcurrentLinkedQueue<>();
+    
     /**
      * Synchronization for access to {@code procInfoToListeners} variable.
      */
     private final Object syncProcInfoToListeners = new Object();
     
+    /** Time between adding of information and its delivery to addressee. */
+    private final Histogram deliveryTimeHistogram = MetricsRegistry.getDefault().histogram(
+            new MetricName(StandardMetrics.RESULTS_DELIVERY_TIME)
+    );
+    
+    /** Name of queue depth gauge. */
+    private static final MetricName QUEUE_DEPTH_METRIC_NAME 
+            = new MetricName(StandardMetrics.RESULTS_QUEUE_DEPTH);
+    
+    /** Number of information waiting for delivery. */
+    private final Gauge queueDepthGauge = new Gauge() {
+        @Override
+        public long getValue() {
+            synchronized ( syncProcInfoToListeners ) {
+                return ( procInfoToListeners == null )? 0 : procInfoToListeners.size();
+            }
+        }
+    };
+    
     
     /**
      * Terminates sender thread.
@@ -138,6 +183,7 @@ public final class CallResultsSender implements ManageableObject {
         logger.debug("start - start:");
         
         senderThread.start();
+        MetricsRegistry.getDefault().gauge(QUEUE_DEPTH_METRIC_NAME, queueDepthGauge);
         
         logger.info("Sending started");
         logger.debug("start - end");
@@ -163,6 +209,8 @@ public final class CallResultsSender implements ManageableObject {
     public void addCallRequestProcessingInfo( CallRequestProcessingInfo procInfo ) {
         synchronized( syncProcInfoToListeners ) {
             procInfoToListeners.offer(procInfo);
+            procInfoAddTimes.offer(System.nanoTime());
+            procInfoIndex.put(procInfo.getRequestId(), procInfo);
             syncProcInfoToListeners.notify();
         }
     }
@@ -175,13 +223,8 @@ public final class CallResultsSender implements ManageableObject {
      */
     public CallRequestProcessingInfo getCallRequestProcessingInfo( UUID callId ) {
         synchronized ( syncProcInfoToListeners ) {
-            for ( CallRequestProcessingInfo procInfo : procInfoToListeners ) {
-                if ( procInfo.getRequestId().equals(callId) ) {
-                    return procInfo;
-                }
-            }
+            return procInfoIndex.get(callId);
         }
-        return null;
     }
     
     /**
@@ -192,9 +235,18 @@ public final class CallResultsSender implements ManageableObject {
         logger.debug("destroy - start:");
         
         terminateSenderThread();
+        MetricsRegistry.getDefault().remove(QUEUE_DEPTH_METRIC_NAME, queueDepthGauge);
         
-        procInfoToListeners.clear();
-        procInfoToListeners = null;
+        synchronized ( syncProcInfoToListeners ) {
+            procInfoToListeners.clear();
+            procInfoToListeners = null;
+            
+            procInfoAddTimes.clear();
+            procInfoAddTimes = null;
+            
+            procInfoIndex.clear();
+            procInfoIndex = null;
+        }
         
         addressees.clear();
         addressees = null;
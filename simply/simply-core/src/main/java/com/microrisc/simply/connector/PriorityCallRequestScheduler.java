@@ -0,0 +1,132 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.connector;
+
+import com.microrisc.simply.CallRequestPriority;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Scheduler of call requests by their priority classes and deadlines.
+ * <p>
+ * Requests of higher priority classes are polled first. Inside one priority 
+ * class, requests with earlier deadlines are polled first and requests without 
+ * deadline are polled last. Requests with the same priority and deadline are
+ * polled in the order, in which they were added. So, if all requests have 
+ * the same priority class and no deadline, the scheduler behaves like a FIFO.
+ * 
+ * @param <T> type of scheduled requests
+ * 
+ * @author Michal Konopa
+ */
+public final class PriorityCallRequestScheduler<T> implements CallRequestScheduler<T> {
+    
+    // request together with its scheduling parameters
+    private static final class Entry<T> {
+        final T request;
+        final CallRequestPriority priority;
+        final long deadline;
+        final long sequenceNumber;
+        
+        Entry(T request, CallRequestPriority priority, long deadline, long sequenceNumber) {
+            this.request = request;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+    
+    // compares entries by priority class, deadline and order of adding
+    private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry first, Entry second) {
+            int priorityComp = first.priority.compareTo(second.priority);
+            if ( priorityComp != 0 ) {
+                return priorityComp;
+            }
+            
+            if ( first.deadline != second.deadline ) {
+                if ( first.deadline == NO_DEADLINE ) {
+                    return 1;
+                }
+                if ( second.deadline == NO_DEADLINE ) {
+                    return -1;
+                }
+                return ( first.deadline < second.deadline )? -1 : 1;
+            }
+            
+            if ( first.sequenceNumber == second.sequenceNumber ) {
+                return 0;
+            }
+            return ( first.sequenceNumber < second.sequenceNumber )? -1 : 1;
+        }
+    };
+    
+    
+    // scheduled requests
+    private final PriorityQueue<Entry<T>> entries = new PriorityQueue<>(11, ENTRY_COMPARATOR);
+    
+    // sequence number of the next added request
+    private long nextSequenceNumber = 0;
+    
+    
+    private static CallRequestPriority checkPriority(CallRequestPriority priority) {
+        if ( priority == null ) {
+            throw new IllegalArgumentException("Priority cannot be null");
+        }
+        return priority;
+    }
+    
+    private static long checkDeadline(long deadline) {
+        if ( (deadline != NO_DEADLINE) && (deadline < 0) ) {
+            throw new IllegalArgumentException(
+                    "Deadline must be nonnegative or equal to " + NO_DEADLINE
+            );
+        }
+        return deadline;
+    }
+    
+    
+    /**
+     * @throws IllegalArgumentException if {@code priority} is {@code null} or
+     *         {@code deadline} is negative and not equal to {@link #NO_DEADLINE}
+     */
+    @Override
+    public synchronized void add(T request, CallRequestPriority priority, long deadline) {
+        entries.add(
+                new Entry<>(request, checkPriority(priority), checkDeadline(deadline), 
+                        nextSequenceNumber++
+                )
+        );
+    }
+    
+    @Override
+    public synchronized T poll() {
+        Entry<T> entry = entries.poll();
+        return ( entry == null )? null : entry.request;
+    }
+    
+    @Override
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+    
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -23,6 +23,7 @@ import static com.microrisc.simply.CallRequestProcessingState.WAITING_FOR_PROCES
 import static com.microrisc.simply.CallRequestProcessingState.WAITING_FOR_RESULT;
 import com.microrisc.simply.BaseCallResponse;
 import com.microrisc.simply.CallRequest;
+import com.microrisc.simply.CallRequestPriority;
 import com.microrisc.simply.CallRequestProcessingInfo;
 import com.microrisc.simply.CallRequestProcessingState;
 import com.microrisc.simply.CallResult;
@@ -736,6 +737,29 @@ extends AbstractConnector implements ResponseWaitingConnector {
         return callMethod(deviceObject, deviceIface, methodId, args, responseTimeout);
     }
     
+    /**
+     * Scheduling parameters are ignored, requests are sent into the network
+     * in the order of their arrival.
+     */
+    @Override
+    public UUID callMethod(ConnectedDeviceObject deviceObject, Class deviceIface, 
+            String methodId, Object[] args, long maxProcTime, 
+            CallRequestPriority priority, long deadline
+    ) {
+        return callMethod(deviceObject, deviceIface, methodId, args, maxProcTime);
+    }
+    
+    /**
+     * Scheduling parameters are ignored, requests are sent into the network
+     * in the order of their arrival.
+     */
+    @Override
+    public UUID callMethod(ConnectedDeviceObject deviceObject, Class deviceIface, 
+            String methodId, Object[] args, CallRequestPriority priority, long deadline
+    ) {
+        return callMethod(deviceObject, deviceIface, methodId, args);
+    }
+    
     @Override
     public void setCallRequestMaximalProcessingTime(UUID requestId, long maxProcTime) {
         workerThread.setCallRequestProcessingTime(
@@ -0,0 +1,38 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.di_services;
+
+import com.microrisc.simply.CallRequestFuture;
+import java.util.UUID;
+
+/**
+ * Access to completion handles of DO method calls. 
+ * 
+ * @author Michal Konopa
+ */
+public interface CallRequestFutureService {
+    /**
+     * Returns completion handle of DO method call, which is identified by 
+     * specified method call ID. The handle is completed at the moment, when 
+     * the result of the call arrives.
+     * @param callId unique identifier of performed DO method call
+     * @return completion handle of DO method call identified by {@code callId} <br>
+     *         {@code null}, if the call is not known or its result is not 
+     *         available anymore
+     */
+    CallRequestFuture getCallRequestFuture(UUID callId);
+}
@@ -19,11 +19,12 @@ package com.microrisc.simply.di_services;
 import java.util.UUID;
 
 /**
- * Generic interface to call DI methods in asynchronous manner. 
+ * Generic interface to call DI methods in asynchronous manner. Completion 
+ * handle of each call is accessible by its unique identifier. 
  * 
  * @author Michal Konopa
  */
-public interface GenericAsyncCallable {
+public interface GenericAsyncCallable extends CallRequestFutureService {
     /**
      * Calls specified method with specified arguments and returns unique
      * identifier of that call.
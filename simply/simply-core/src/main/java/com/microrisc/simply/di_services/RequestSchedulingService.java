@@ -0,0 +1,56 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.di_services;
+
+import com.microrisc.simply.CallRequestPriority;
+
+/**
+ * Access to scheduling parameters of DO method calls. Parameters are used 
+ * for all subsequent method calls.
+ * 
+ * @author Michal Konopa
+ */
+public interface RequestSchedulingService {
+    /** No deadline of DO method calls. */
+    long NO_REQUEST_DEADLINE = -1;
+    
+    /**
+     * Returns priority class of DO method calls.
+     * @return priority class of DO method calls
+     */
+    CallRequestPriority getRequestPriority();
+    
+    /**
+     * Sets priority class of DO method calls.
+     * @param priority priority class to set
+     */
+    void setRequestPriority(CallRequestPriority priority);
+    
+    /**
+     * Returns deadline ( in ms ) of DO method calls.
+     * @return deadline ( in ms ) of DO method calls, or {@link #NO_REQUEST_DEADLINE}
+     */
+    long getRequestDeadline();
+    
+    /**
+     * Sets deadline ( in ms ) of DO method calls. A call, which is not sent 
+     * into the network within the deadline after it was issued, is dropped and 
+     * its processing ends with an error.
+     * @param deadline deadline to set, or {@link #NO_REQUEST_DEADLINE}
+     */
+    void setRequestDeadline(long deadline);
+}
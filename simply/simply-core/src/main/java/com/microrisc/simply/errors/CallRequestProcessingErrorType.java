@@ -35,5 +35,8 @@ public enum CallRequestProcessingErrorType {
     PROCESSING_RESPONSE_AT_PROTOCOL_LAYER,
     
     /** Network internal error. */
-    NETWORK_INTERNAL;
+    NETWORK_INTERNAL,
+    
+    /** Call request was not sent before its deadline. */
+    DEADLINE_EXPIRED;
 }
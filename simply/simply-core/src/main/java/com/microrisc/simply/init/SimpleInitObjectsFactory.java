@@ -18,6 +18,7 @@ package com.microrisc.simply.init;
 
 import com.microrisc.simply.SimpleConnectionStack;
 import com.microrisc.simply.ConnectionStack;
+import com.microrisc.simply.ManageableObject;
 import com.microrisc.simply.SimplyException;
 import com.microrisc.simply.NetworkLayerService;
 import com.microrisc.simply.ProtocolLayerService;
@@ -25,6 +26,9 @@ import com.microrisc.simply.network.NetworkLayer;
 import com.microrisc.simply.protocol.ProtocolLayer;
 import com.microrisc.simply.connector.AbstractConnectorFactory;
 import com.microrisc.simply.connector.Connector;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.MetricsReporter;
+import com.microrisc.simply.metrics.MetricsReportingService;
 import com.microrisc.simply.network.AbstractNetworkLayerFactory;
 import com.microrisc.simply.network.NetworkConnectionStorage;
 import com.microrisc.simply.network.SimpleNetworkConnectionStorageFactory;
@@ -162,6 +166,38 @@ extends AbstractInitObjectsFactory<
         return factory.getConnector(protocolLayerService, configuration);
     }
     
+    /** 
+     * Creates reporting of metrics of the connection stack.
+     * @param configuration source configuration
+     * @return reporting of metrics <br>
+     *         {@code null}, if neither JMX export nor reporter is configured
+     * @throws java.lang.Exception if an error has occured during creating of 
+     *         reporting of metrics
+     */
+    protected ManageableObject createMetricsReporting(Configuration configuration) 
+            throws Exception {
+        boolean exportToJmx = ( configuration.getInt("metrics.jmx", 0) > 0 );
+        
+        MetricsReporter reporter = null;
+        String reporterClassName = configuration.getString("metrics.reporter.class", null);
+        if ( reporterClassName != null ) {
+            Class<?> reporterClass = Class.forName(reporterClassName);
+            java.lang.reflect.Constructor constructor = reporterClass.getConstructor();
+            reporter = (MetricsReporter) constructor.newInstance();
+        }
+        
+        if ( !exportToJmx && (reporter == null) ) {
+            return null;
+        }
+        
+        long reportingPeriod = configuration.getLong(
+                "metrics.reporter.period", MetricsReportingService.DEFAULT_REPORTING_PERIOD
+        );
+        return new MetricsReportingService(
+                MetricsRegistry.getDefault(), exportToJmx, reporter, reportingPeriod
+        );
+    }
+    
     /** 
      * Creates connection stack.
      * @param configuration source configuration
@@ -186,7 +222,11 @@ extends AbstractInitObjectsFactory<
             
             // creating connector
             Connector connector = createConnector(protoLayer, configuration);
-            connectionStack = new SimpleConnectionStack(networkLayer, protoLayer, connector);
+            
+            ManageableObject metricsReporting = createMetricsReporting(configuration);
+            connectionStack = new SimpleConnectionStack(
+                    networkLayer, protoLayer, connector, metricsReporting
+            );
         } catch ( Exception e ) {
             throw new SimplyException(e);
         }
@@ -0,0 +1,55 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing counter of events.
+ *
+ * @author Michal Konopa
+ */
+public final class Counter implements CounterMBean {
+    // actual value
+    private final AtomicLong count = new AtomicLong();
+    
+    
+    /**
+     * Increments the counter by 1.
+     */
+    public void inc() {
+        count.incrementAndGet();
+    }
+    
+    /**
+     * Increments the counter by specified value.
+     * @param value value to add
+     */
+    public void add(long value) {
+        count.addAndGet(value);
+    }
+    
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "count=" + count.get();
+    }
+}
@@ -0,0 +1,167 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of recorded non-negative values, typically latencies
+ * in microseconds.
+ * <p>
+ * Values are counted in fixed log-linear buckets: values lower than 16 have
+ * each its own bucket, each higher power of 2 range is split into 8 buckets.
+ * Relative error of reported percentiles is therefore at most 12.5%.
+ * Recording is lock-free and doesn't allocate any memory.
+ *
+ * @author Michal Konopa
+ */
+public final class Histogram implements HistogramMBean {
+    // number of values, which have each its own bucket
+    static final int LINEAR_BUCKETS_NUM = 16;
+    
+    // number of bits of sub-bucket index within one power of 2
+    static final int SUB_BUCKET_BITS = 3;
+    
+    // number of buckets within one power of 2
+    static final int SUB_BUCKETS_NUM = 1 << SUB_BUCKET_BITS;
+    
+    // exponent of the lowest logarithmic range
+    private static final int MIN_EXPONENT = 4;
+    
+    // number of all buckets
+    static final int BUCKETS_NUM
+            = LINEAR_BUCKETS_NUM + (63 - MIN_EXPONENT) * SUB_BUCKETS_NUM;
+    
+    
+    // counts of values in buckets
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_NUM);
+    
+    // number of recorded values
+    private final AtomicLong count = new AtomicLong();
+    
+    // sum of recorded values
+    private final AtomicLong sum = new AtomicLong();
+    
+    // maximal recorded value
+    private final AtomicLong max = new AtomicLong();
+    
+    
+    /**
+     * Returns index of bucket for specified value.
+     */
+    static int bucketIndex(long value) {
+        if ( value < LINEAR_BUCKETS_NUM ) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS_NUM - 1);
+        return LINEAR_BUCKETS_NUM + (exponent - MIN_EXPONENT) * SUB_BUCKETS_NUM + subBucket;
+    }
+    
+    /**
+     * Returns the highest value, which falls into bucket of specified index.
+     */
+    static long bucketUpperBound(int index) {
+        if ( index < LINEAR_BUCKETS_NUM ) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS_NUM) / SUB_BUCKETS_NUM + MIN_EXPONENT;
+        int subBucket = (index - LINEAR_BUCKETS_NUM) % SUB_BUCKETS_NUM;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lowerBound = (SUB_BUCKETS_NUM + subBucket) * width;
+        return lowerBound + width - 1;
+    }
+    
+    
+    /**
+     * Records specified value. Negative values are recorded as 0.
+     * @param value value to record
+     */
+    public void update(long value) {
+        if ( value < 0 ) {
+            value = 0;
+        }
+        
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        
+        long actualMax = max.get();
+        while ( value > actualMax ) {
+            if ( max.compareAndSet(actualMax, value) ) {
+                break;
+            }
+            actualMax = max.get();
+        }
+    }
+    
+    /**
+     * Records time elapsed from specified start time in microseconds.
+     * @param startNanos start time as returned by {@link System#nanoTime() }
+     */
+    public void updateSince(long startNanos) {
+        update((System.nanoTime() - startNanos) / 1000);
+    }
+    
+    /**
+     * @return snapshot of actual state of this histogram
+     */
+    public HistogramSnapshot getSnapshot() {
+        long[] bucketsCopy = new long[BUCKETS_NUM];
+        for ( int bucketId = 0; bucketId < BUCKETS_NUM; bucketId++ ) {
+            bucketsCopy[bucketId] = buckets.get(bucketId);
+        }
+        return new HistogramSnapshot(bucketsCopy, count.get(), sum.get(), max.get());
+    }
+    
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+    
+    @Override
+    public double getMean() {
+        long actualCount = count.get();
+        return ( actualCount == 0 )? 0 : (double) sum.get() / actualCount;
+    }
+    
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+    
+    @Override
+    public long get50thPercentile() {
+        return getSnapshot().getPercentile(0.5);
+    }
+    
+    @Override
+    public long get95thPercentile() {
+        return getSnapshot().getPercentile(0.95);
+    }
+    
+    @Override
+    public long get99thPercentile() {
+        return getSnapshot().getPercentile(0.99);
+    }
+    
+    @Override
+    public String toString() {
+        return getSnapshot().toString();
+    }
+}
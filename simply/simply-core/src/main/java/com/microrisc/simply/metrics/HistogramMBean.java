@@ -0,0 +1,54 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+/**
+ * JMX view of a histogram.
+ *
+ * @author Michal Konopa
+ */
+public interface HistogramMBean {
+    /**
+     * @return number of recorded values
+     */
+    long getCount();
+    
+    /**
+     * @return mean of recorded values
+     */
+    double getMean();
+    
+    /**
+     * @return maximal recorded value
+     */
+    long getMax();
+    
+    /**
+     * @return median of recorded values
+     */
+    long get50thPercentile();
+    
+    /**
+     * @return 95th percentile of recorded values
+     */
+    long get95thPercentile();
+    
+    /**
+     * @return 99th percentile of recorded values
+     */
+    long get99thPercentile();
+}
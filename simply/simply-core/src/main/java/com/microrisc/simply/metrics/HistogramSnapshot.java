@@ -0,0 +1,121 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+/**
+ * Immutable snapshot of a {@link Histogram}.
+ *
+ * @author Michal Konopa
+ */
+public final class HistogramSnapshot {
+    // counts of values in buckets
+    private final long[] buckets;
+    
+    // number of values
+    private final long count;
+    
+    // sum of values
+    private final long sum;
+    
+    // maximal value
+    private final long max;
+    
+    
+    private static double checkQuantile(double quantile) {
+        if ( (quantile < 0) || (quantile > 1) ) {
+            throw new IllegalArgumentException(
+                    "Quantile must be in the [0, 1] interval: " + quantile
+            );
+        }
+        return quantile;
+    }
+    
+    
+    HistogramSnapshot(long[] buckets, long count, long sum, long max) {
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+    
+    /**
+     * @return number of values
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * @return sum of values
+     */
+    public long getSum() {
+        return sum;
+    }
+    
+    /**
+     * @return mean of values
+     */
+    public double getMean() {
+        return ( count == 0 )? 0 : (double) sum / count;
+    }
+    
+    /**
+     * @return maximal value
+     */
+    public long getMax() {
+        return max;
+    }
+    
+    /**
+     * Returns value, under which lies specified quantile of values.
+     * @param quantile quantile in the [0, 1] interval, e.g. 0.99
+     * @return value at specified quantile, or 0 if there are no values
+     * @throws IllegalArgumentException if {@code quantile} is out of the
+     *         [0, 1] interval
+     */
+    public long getPercentile(double quantile) {
+        checkQuantile(quantile);
+        
+        if ( count == 0 ) {
+            return 0;
+        }
+        
+        long rank = (long) Math.ceil(quantile * count);
+        if ( rank < 1 ) {
+            rank = 1;
+        }
+        
+        long cumulativeCount = 0;
+        for ( int bucketId = 0; bucketId < buckets.length; bucketId++ ) {
+            cumulativeCount += buckets[bucketId];
+            if ( cumulativeCount >= rank ) {
+                return Math.min(Histogram.bucketUpperBound(bucketId), max);
+            }
+        }
+        return max;
+    }
+    
+    @Override
+    public String toString() {
+        return "count=" + count
+                + ", mean=" + String.format("%.1f", getMean())
+                + ", p50=" + getPercentile(0.5)
+                + ", p95=" + getPercentile(0.95)
+                + ", p99=" + getPercentile(0.99)
+                + ", max=" + max;
+    }
+}
@@ -0,0 +1,219 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports metrics of a registry as MBeans into the platform MBean server.
+ * <p>
+ * Each metric is registered under object name
+ * {@code com.microrisc.simply:name=<metric name>[,<tag>=<value>]*}. 
+ * Tag with the key {@code name} is exported under the key {@code tag.name}, 
+ * so that it doesn't clash with the metric name.
+ * Values of MBeans are read from metrics at the time of JMX request, so
+ * the exporter has no cost while not being queried.
+ *
+ * @author Michal Konopa
+ */
+public final class JmxMetricsExporter implements MetricsRegistryListener {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(JmxMetricsExporter.class);
+    
+    /** Domain of object names of exported metrics. */
+    public static final String DOMAIN = "com.microrisc.simply";
+    
+    /** Key of metric name in object names of exported metrics. */
+    public static final String NAME_KEY = "name";
+    
+    /** Prefix of tag keys, which clash with the key of metric name. */
+    public static final String CLASHING_TAG_KEY_PREFIX = "tag.";
+    
+    /**
+     * JMX view of a gauge.
+     */
+    public static interface GaugeMBean {
+        /**
+         * @return actual value of the gauge
+         */
+        long getValue();
+    }
+    
+    // adapter of gauge to its MBean
+    private static final class GaugeAdapter implements GaugeMBean {
+        private final Gauge gauge;
+        
+        GaugeAdapter(Gauge gauge) {
+            this.gauge = gauge;
+        }
+        
+        @Override
+        public long getValue() {
+            return gauge.getValue();
+        }
+    }
+    
+    
+    // registry to export
+    private final MetricsRegistry registry;
+    
+    // MBean server
+    private final MBeanServer mbeanServer;
+    
+    // registered object names
+    private final Map<MetricName, ObjectName> registeredNames = new ConcurrentHashMap<>();
+    
+    
+    private static MetricsRegistry checkRegistry(MetricsRegistry registry) {
+        if ( registry == null ) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        return registry;
+    }
+    
+    private static String quoteIfNeeded(String value) {
+        for ( int charId = 0; charId < value.length(); charId++ ) {
+            switch ( value.charAt(charId) ) {
+                case ',': case '=': case ':': case '"': case '*': case '?': case '\n':
+                    return ObjectName.quote(value);
+            }
+        }
+        return value;
+    }
+    
+    private static ObjectName createObjectName(MetricName name) throws JMException {
+        StringBuilder strBuilder = new StringBuilder(DOMAIN);
+        strBuilder.append(':').append(NAME_KEY)
+                .append('=').append(quoteIfNeeded(name.getName()));
+        for ( Map.Entry<String, String> tag : name.getTags().entrySet() ) {
+            strBuilder.append(',');
+            if ( tag.getKey().equals(NAME_KEY) ) {
+                strBuilder.append(CLASHING_TAG_KEY_PREFIX);
+            }
+            strBuilder.append(tag.getKey())
+                    .append('=').append(quoteIfNeeded(tag.getValue()));
+        }
+        return new ObjectName(strBuilder.toString());
+    }
+    
+    private static StandardMBean createMBean(Object metric) {
+        if ( metric instanceof Counter ) {
+            return new StandardMBean((Counter) metric, CounterMBean.class, false);
+        }
+        if ( metric instanceof Histogram ) {
+            return new StandardMBean((Histogram) metric, HistogramMBean.class, false);
+        }
+        if ( metric instanceof Gauge ) {
+            return new StandardMBean(new GaugeAdapter((Gauge) metric), GaugeMBean.class, false);
+        }
+        return null;
+    }
+    
+    private void register(MetricName name, Object metric) {
+        StandardMBean mbean = createMBean(metric);
+        if ( mbean == null ) {
+            logger.warn("Unsupported type of metric {}", name);
+            return;
+        }
+        
+        try {
+            ObjectName objectName = createObjectName(name);
+            if ( mbeanServer.isRegistered(objectName) ) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+            mbeanServer.registerMBean(mbean, objectName);
+            registeredNames.put(name, objectName);
+        } catch ( JMException ex ) {
+            logger.error("Registration of metric " + name + " into JMX failed", ex);
+        }
+    }
+    
+    private void unregister(MetricName name) {
+        ObjectName objectName = registeredNames.remove(name);
+        if ( objectName == null ) {
+            return;
+        }
+        
+        try {
+            if ( mbeanServer.isRegistered(objectName) ) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+        } catch ( JMException ex ) {
+            logger.error("Unregistration of metric " + name + " from JMX failed", ex);
+        }
+    }
+    
+    
+    /**
+     * Creates new exporter of specified registry into the platform MBean server.
+     * @param registry registry to export
+     */
+    public JmxMetricsExporter(MetricsRegistry registry) {
+        this.registry = checkRegistry(registry);
+        this.mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    }
+    
+    /**
+     * Registers all existing metrics of the registry and starts tracking
+     * of metrics added afterwards.
+     */
+    public void start() {
+        logger.debug("start - start:");
+        
+        registry.addListener(this);
+        for ( Map.Entry<MetricName, Object> entry : registry.getMetrics().entrySet() ) {
+            register(entry.getKey(), entry.getValue());
+        }
+        
+        logger.info("Started");
+        logger.debug("start - end");
+    }
+    
+    /**
+     * Stops tracking of metrics and unregisters all of them from the MBean
+     * server.
+     */
+    public void destroy() {
+        logger.debug("destroy - start:");
+        
+        registry.removeListener(this);
+        for ( MetricName name : registeredNames.keySet() ) {
+            unregister(name);
+        }
+        
+        logger.info("Destroyed");
+        logger.debug("destroy - end");
+    }
+    
+    @Override
+    public void onMetricAdded(MetricName name, Object metric) {
+        register(name, metric);
+    }
+    
+    @Override
+    public void onMetricRemoved(MetricName name, Object metric) {
+        unregister(name);
+    }
+}
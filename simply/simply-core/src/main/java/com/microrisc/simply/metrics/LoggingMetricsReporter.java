@@ -0,0 +1,61 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports metrics into the log at the INFO level, one line per metric.
+ *
+ * @author Michal Konopa
+ */
+public final class LoggingMetricsReporter implements MetricsReporter {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMetricsReporter.class);
+    
+    
+    private static <T> Map<String, T> sortByName(Map<MetricName, T> metrics) {
+        Map<String, T> sortedMetrics = new TreeMap<>();
+        for ( Map.Entry<MetricName, T> entry : metrics.entrySet() ) {
+            sortedMetrics.put(entry.getKey().toString(), entry.getValue());
+        }
+        return sortedMetrics;
+    }
+    
+    
+    @Override
+    public void report(MetricsSnapshot snapshot) {
+        if ( !logger.isInfoEnabled() ) {
+            return;
+        }
+        
+        for ( Map.Entry<String, Long> entry : sortByName(snapshot.getCounters()).entrySet() ) {
+            logger.info("{}: count={}", entry.getKey(), entry.getValue());
+        }
+        for ( Map.Entry<String, Long> entry : sortByName(snapshot.getGauges()).entrySet() ) {
+            logger.info("{}: value={}", entry.getKey(), entry.getValue());
+        }
+        for ( Map.Entry<String, HistogramSnapshot> entry
+                : sortByName(snapshot.getHistograms()).entrySet()
+        ) {
+            logger.info("{}: {}", entry.getKey(), entry.getValue());
+        }
+    }
+}
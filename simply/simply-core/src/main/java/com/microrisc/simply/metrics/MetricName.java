@@ -0,0 +1,162 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Name of a metric together with its tags, e.g. network or peripheral.
+ * <p>
+ * Tags are specified as pairs of tag key and tag value. Tags with
+ * {@code null} value are ignored.
+ *
+ * @author Michal Konopa
+ */
+public final class MetricName {
+    // name of the metric
+    private final String name;
+    
+    // tag keys and values: key, value, key, value, ...
+    private final String[] tags;
+    
+    // precomputed hash code
+    private final int hashCode;
+    
+    
+    private static String checkName(String name) {
+        if ( name == null ) {
+            throw new IllegalArgumentException("Metric name cannot be null");
+        }
+        if ( name.isEmpty() ) {
+            throw new IllegalArgumentException("Metric name cannot be empty");
+        }
+        return name;
+    }
+    
+    private static String[] checkTags(String[] tags) {
+        if ( tags == null ) {
+            throw new IllegalArgumentException("Tags cannot be null");
+        }
+        if ( (tags.length % 2) != 0 ) {
+            throw new IllegalArgumentException("Tags must be pairs of key and value");
+        }
+        
+        int notNullCount = 0;
+        for ( int tagId = 0; tagId < tags.length; tagId += 2 ) {
+            if ( tags[tagId] == null ) {
+                throw new IllegalArgumentException("Tag key cannot be null");
+            }
+            if ( tags[tagId + 1] != null ) {
+                notNullCount += 2;
+            }
+        }
+        
+        String[] tagsCopy = new String[notNullCount];
+        int copyId = 0;
+        for ( int tagId = 0; tagId < tags.length; tagId += 2 ) {
+            if ( tags[tagId + 1] != null ) {
+                tagsCopy[copyId++] = tags[tagId];
+                tagsCopy[copyId++] = tags[tagId + 1];
+            }
+        }
+        return tagsCopy;
+    }
+    
+    
+    /**
+     * Creates new metric name.
+     * @param name name of the metric
+     * @param tags pairs of tag keys and tag values
+     * @throws IllegalArgumentException if {@code name} is {@code null} or empty,
+     *         or if {@code tags} don't form pairs or contain {@code null} key
+     */
+    public MetricName(String name, String... tags) {
+        this.name = checkName(name);
+        this.tags = checkTags(tags);
+        this.hashCode = 31 * name.hashCode() + Arrays.hashCode(this.tags);
+    }
+    
+    /**
+     * Returns new metric name with the same name and tags as this one,
+     * extended by specified tags.
+     * @param tags pairs of tag keys and tag values to add
+     * @return extended metric name
+     */
+    public MetricName tagged(String... tags) {
+        String[] allTags = new String[this.tags.length + tags.length];
+        System.arraycopy(this.tags, 0, allTags, 0, this.tags.length);
+        System.arraycopy(tags, 0, allTags, this.tags.length, tags.length);
+        return new MetricName(name, allTags);
+    }
+    
+    /**
+     * @return name of the metric
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * @return tags of the metric in the order of their specification
+     */
+    public Map<String, String> getTags() {
+        Map<String, String> tagsMap = new LinkedHashMap<>();
+        for ( int tagId = 0; tagId < tags.length; tagId += 2 ) {
+            tagsMap.put(tags[tagId], tags[tagId + 1]);
+        }
+        return tagsMap;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( !(obj instanceof MetricName) ) {
+            return false;
+        }
+        MetricName metricName = (MetricName) obj;
+        return ( hashCode == metricName.hashCode )
+                && name.equals(metricName.name)
+                && Arrays.equals(tags, metricName.tags);
+    }
+    
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+    
+    @Override
+    public String toString() {
+        if ( tags.length == 0 ) {
+            return name;
+        }
+        
+        StringBuilder strBuilder = new StringBuilder(name);
+        strBuilder.append('{');
+        for ( int tagId = 0; tagId < tags.length; tagId += 2 ) {
+            if ( tagId > 0 ) {
+                strBuilder.append(',');
+            }
+            strBuilder.append(tags[tagId]).append('=').append(tags[tagId + 1]);
+        }
+        strBuilder.append('}');
+        return strBuilder.toString();
+    }
+}
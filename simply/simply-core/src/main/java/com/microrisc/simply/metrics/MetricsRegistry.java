@@ -0,0 +1,251 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of metrics.
+ * <p>
+ * Metrics are identified by their names. Lookup of a metric is a single
+ * concurrent map access, so components usually look their metrics up once
+ * and keep references to them.
+ *
+ * @author Michal Konopa
+ */
+public final class MetricsRegistry {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+    
+    // default registry
+    private static final MetricsRegistry defaultRegistry = new MetricsRegistry();
+    
+    // metrics
+    private final ConcurrentMap<MetricName, Object> metrics = new ConcurrentHashMap<>();
+    
+    // listeners
+    private final CopyOnWriteArrayList<MetricsRegistryListener> listeners
+            = new CopyOnWriteArrayList<>();
+    
+    
+    private static MetricName checkName(MetricName name) {
+        if ( name == null ) {
+            throw new IllegalArgumentException("Metric name cannot be null");
+        }
+        return name;
+    }
+    
+    private static <T> T checkMetricType(MetricName name, Object metric, Class<T> type) {
+        if ( !type.isInstance(metric) ) {
+            throw new IllegalArgumentException(
+                    "Metric " + name + " already exists and is not of type: "
+                    + type.getSimpleName()
+            );
+        }
+        return type.cast(metric);
+    }
+    
+    private void fireMetricAdded(MetricName name, Object metric) {
+        for ( MetricsRegistryListener listener : listeners ) {
+            try {
+                listener.onMetricAdded(name, metric);
+            } catch ( RuntimeException ex ) {
+                logger.error("Error while notifying listener about added metric " + name, ex);
+            }
+        }
+    }
+    
+    private void fireMetricRemoved(MetricName name, Object metric) {
+        for ( MetricsRegistryListener listener : listeners ) {
+            try {
+                listener.onMetricRemoved(name, metric);
+            } catch ( RuntimeException ex ) {
+                logger.error("Error while notifying listener about removed metric " + name, ex);
+            }
+        }
+    }
+    
+    private <T> T getOrAdd(MetricName name, T newMetric, Class<T> type) {
+        checkName(name);
+        Object metric = metrics.get(name);
+        if ( metric != null ) {
+            return checkMetricType(name, metric, type);
+        }
+        
+        metric = metrics.putIfAbsent(name, newMetric);
+        if ( metric != null ) {
+            return checkMetricType(name, metric, type);
+        }
+        
+        fireMetricAdded(name, newMetric);
+        return newMetric;
+    }
+    
+    
+    /**
+     * @return default registry of the application
+     */
+    public static MetricsRegistry getDefault() {
+        return defaultRegistry;
+    }
+    
+    /**
+     * Returns counter of specified name. If it doesn't exist, it is created.
+     * @param name name of the counter
+     * @return counter
+     * @throws IllegalArgumentException if {@code name} is {@code null} or
+     *         a metric of other type and of the same name already exists
+     */
+    public Counter counter(MetricName name) {
+        Object metric = metrics.get(checkName(name));
+        if ( metric instanceof Counter ) {
+            return (Counter) metric;
+        }
+        return getOrAdd(name, new Counter(), Counter.class);
+    }
+    
+    /**
+     * Returns histogram of specified name. If it doesn't exist, it is created.
+     * @param name name of the histogram
+     * @return histogram
+     * @throws IllegalArgumentException if {@code name} is {@code null} or
+     *         a metric of other type and of the same name already exists
+     */
+    public Histogram histogram(MetricName name) {
+        Object metric = metrics.get(checkName(name));
+        if ( metric instanceof Histogram ) {
+            return (Histogram) metric;
+        }
+        return getOrAdd(name, new Histogram(), Histogram.class);
+    }
+    
+    /**
+     * Registers specified gauge under specified name. Previously registered
+     * gauge of the same name is replaced.
+     * @param name name of the gauge
+     * @param gauge gauge to register
+     * @throws IllegalArgumentException if {@code name} or {@code gauge} is
+     *         {@code null} or a metric of other type and of the same name
+     *         already exists
+     */
+    public void gauge(MetricName name, Gauge gauge) {
+        checkName(name);
+        if ( gauge == null ) {
+            throw new IllegalArgumentException("Gauge cannot be null");
+        }
+        
+        Object oldMetric = metrics.get(name);
+        if ( oldMetric != null ) {
+            checkMetricType(name, oldMetric, Gauge.class);
+        }
+        
+        oldMetric = metrics.put(name, gauge);
+        if ( oldMetric != null ) {
+            fireMetricRemoved(name, oldMetric);
+        }
+        fireMetricAdded(name, gauge);
+    }
+    
+    /**
+     * Removes metric of specified name.
+     * @param name name of the metric to remove
+     * @return {@code true} if the metric has been removed <br>
+     *         {@code false} if there is no metric of specified name
+     */
+    public boolean remove(MetricName name) {
+        Object metric = metrics.remove(checkName(name));
+        if ( metric == null ) {
+            return false;
+        }
+        fireMetricRemoved(name, metric);
+        return true;
+    }
+    
+    /**
+     * Removes metric of specified name, but only if it is the specified
+     * instance. Useful for gauges, which can be replaced by other components.
+     * @param name name of the metric to remove
+     * @param metric metric instance to remove
+     * @return {@code true} if the metric has been removed <br>
+     *         {@code false} otherwise
+     */
+    public boolean remove(MetricName name, Object metric) {
+        if ( (metric == null) || !metrics.remove(checkName(name), metric) ) {
+            return false;
+        }
+        fireMetricRemoved(name, metric);
+        return true;
+    }
+    
+    /**
+     * @return all registered metrics
+     */
+    public Map<MetricName, Object> getMetrics() {
+        return new HashMap<>(metrics);
+    }
+    
+    /**
+     * @return snapshot of actual values of all registered metrics
+     */
+    public MetricsSnapshot getSnapshot() {
+        Map<MetricName, Long> counters = new HashMap<>();
+        Map<MetricName, Long> gauges = new HashMap<>();
+        Map<MetricName, HistogramSnapshot> histograms = new HashMap<>();
+        
+        for ( Map.Entry<MetricName, Object> entry : metrics.entrySet() ) {
+            Object metric = entry.getValue();
+            if ( metric instanceof Counter ) {
+                counters.put(entry.getKey(), ((Counter) metric).getCount());
+            } else if ( metric instanceof Histogram ) {
+                histograms.put(entry.getKey(), ((Histogram) metric).getSnapshot());
+            } else if ( metric instanceof Gauge ) {
+                try {
+                    gauges.put(entry.getKey(), ((Gauge) metric).getValue());
+                } catch ( RuntimeException ex ) {
+                    logger.error("Error while reading gauge " + entry.getKey(), ex);
+                }
+            }
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), counters, gauges, histograms);
+    }
+    
+    /**
+     * Adds specified listener. The listener is not notified about metrics
+     * already present in the registry.
+     * @param listener listener to add
+     */
+    public void addListener(MetricsRegistryListener listener) {
+        if ( listener == null ) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.addIfAbsent(listener);
+    }
+    
+    /**
+     * Removes specified listener.
+     * @param listener listener to remove
+     */
+    public void removeListener(MetricsRegistryListener listener) {
+        listeners.remove(listener);
+    }
+}
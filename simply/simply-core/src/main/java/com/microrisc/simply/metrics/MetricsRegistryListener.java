@@ -0,0 +1,39 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+/**
+ * Listener of additions and removals of metrics in a {@link MetricsRegistry}.
+ *
+ * @author Michal Konopa
+ */
+public interface MetricsRegistryListener {
+    /**
+     * Called after new metric has been added into the registry.
+     * @param name name of the metric
+     * @param metric added metric: {@link Counter}, {@link Histogram} or
+     *        {@link Gauge}
+     */
+    void onMetricAdded(MetricName name, Object metric);
+    
+    /**
+     * Called after metric has been removed from the registry.
+     * @param name name of the metric
+     * @param metric removed metric
+     */
+    void onMetricRemoved(MetricName name, Object metric);
+}
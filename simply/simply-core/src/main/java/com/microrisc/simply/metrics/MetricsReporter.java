@@ -0,0 +1,33 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+/**
+ * Reporter of metrics, e.g. into log file or into external monitoring
+ * system. Reporter is called periodically by {@link MetricsReportingService}.
+ * <p>
+ * Implementing classes must have public constructor without parameters.
+ *
+ * @author Michal Konopa
+ */
+public interface MetricsReporter {
+    /**
+     * Reports specified snapshot of metrics.
+     * @param snapshot snapshot to report
+     */
+    void report(MetricsSnapshot snapshot);
+}
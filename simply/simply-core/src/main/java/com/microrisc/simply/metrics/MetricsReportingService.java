@@ -0,0 +1,150 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import com.microrisc.simply.ManageableObject;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports metrics of a registry into JMX and periodically passes their
+ * snapshots to a reporter.
+ *
+ * @author Michal Konopa
+ */
+public final class MetricsReportingService implements ManageableObject {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(MetricsReportingService.class);
+    
+    /** Default period of reporting [in ms]. */
+    public static final long DEFAULT_REPORTING_PERIOD = 60000;
+    
+    
+    // registry of metrics
+    private final MetricsRegistry registry;
+    
+    // JMX exporter, may be null
+    private final JmxMetricsExporter jmxExporter;
+    
+    // reporter, may be null
+    private final MetricsReporter reporter;
+    
+    // period of reporting
+    private final long reportingPeriod;
+    
+    // executor of reporting
+    private ScheduledExecutorService reportingExecutor = null;
+    
+    
+    private static MetricsRegistry checkRegistry(MetricsRegistry registry) {
+        if ( registry == null ) {
+            throw new IllegalArgumentException("Metrics registry cannot be null");
+        }
+        return registry;
+    }
+    
+    private static long checkReportingPeriod(long reportingPeriod) {
+        if ( reportingPeriod <= 0 ) {
+            throw new IllegalArgumentException("Reporting period must be positive");
+        }
+        return reportingPeriod;
+    }
+    
+    private void report() {
+        try {
+            reporter.report(registry.getSnapshot());
+        } catch ( RuntimeException ex ) {
+            logger.error("Reporting of metrics failed", ex);
+        }
+    }
+    
+    
+    /**
+     * Creates new reporting service.
+     * @param registry registry of metrics
+     * @param exportToJmx export metrics into JMX?
+     * @param reporter reporter of metrics, may be {@code null}
+     * @param reportingPeriod period of calling the reporter [in ms]
+     * @throws IllegalArgumentException if {@code registry} is {@code null}
+     *         or {@code reportingPeriod} is not positive
+     */
+    public MetricsReportingService(
+            MetricsRegistry registry, boolean exportToJmx,
+            MetricsReporter reporter, long reportingPeriod
+    ) {
+        this.registry = checkRegistry(registry);
+        this.jmxExporter = ( exportToJmx )? new JmxMetricsExporter(registry) : null;
+        this.reporter = reporter;
+        this.reportingPeriod = checkReportingPeriod(reportingPeriod);
+    }
+    
+    @Override
+    public void start() {
+        logger.debug("start - start:");
+        
+        if ( jmxExporter != null ) {
+            jmxExporter.start();
+        }
+        
+        if ( reporter != null ) {
+            reportingExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "Metrics reporting");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }
+            );
+            reportingExecutor.scheduleAtFixedRate(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        report();
+                    }
+                },
+                reportingPeriod, reportingPeriod, TimeUnit.MILLISECONDS
+            );
+        }
+        
+        logger.info("Started");
+        logger.debug("start - end");
+    }
+    
+    @Override
+    public void destroy() {
+        logger.debug("destroy - start:");
+        
+        if ( reportingExecutor != null ) {
+            reportingExecutor.shutdownNow();
+            reportingExecutor = null;
+            report();
+        }
+        
+        if ( jmxExporter != null ) {
+            jmxExporter.destroy();
+        }
+        
+        logger.info("Destroyed");
+        logger.debug("destroy - end");
+    }
+}
@@ -0,0 +1,80 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Values of all metrics of a {@link MetricsRegistry} at one moment.
+ *
+ * @author Michal Konopa
+ */
+public final class MetricsSnapshot {
+    // time of creation of this snapshot [ms]
+    private final long timestamp;
+    
+    // counters values
+    private final Map<MetricName, Long> counters;
+    
+    // gauges values
+    private final Map<MetricName, Long> gauges;
+    
+    // histograms snapshots
+    private final Map<MetricName, HistogramSnapshot> histograms;
+    
+    
+    MetricsSnapshot(
+            long timestamp,
+            Map<MetricName, Long> counters,
+            Map<MetricName, Long> gauges,
+            Map<MetricName, HistogramSnapshot> histograms
+    ) {
+        this.timestamp = timestamp;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+    
+    /**
+     * @return time of creation of this snapshot in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * @return values of counters
+     */
+    public Map<MetricName, Long> getCounters() {
+        return counters;
+    }
+    
+    /**
+     * @return values of gauges
+     */
+    public Map<MetricName, Long> getGauges() {
+        return gauges;
+    }
+    
+    /**
+     * @return snapshots of histograms
+     */
+    public Map<MetricName, HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+}
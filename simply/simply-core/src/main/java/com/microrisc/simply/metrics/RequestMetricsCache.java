@@ -0,0 +1,89 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of metrics tagged by network and peripheral of requests.
+ * <p>
+ * Metrics of each pair of network and peripheral are created only once, by 
+ * {@link #createMetrics(String, String) }, at the time of the first request. 
+ * Next lookups are two concurrent map accesses without any allocation, so 
+ * the cache can be used on paths processing each request or response.
+ *
+ * @author Michal Konopa
+ * @param <T> type of object holding metrics of one network and peripheral
+ */
+public abstract class RequestMetricsCache<T> {
+    // key of requests without network ID
+    private static final String NO_NETWORK = "";
+    
+    // key of requests without device interface
+    private static final Class NO_DEVICE_INTERFACE = Void.class;
+    
+    // metrics indexed by network IDs and device interfaces
+    private final ConcurrentMap<String, ConcurrentMap<Class, T>> metrics 
+            = new ConcurrentHashMap<>();
+    
+    
+    private ConcurrentMap<Class, T> getNetworkMetrics(String networkKey) {
+        ConcurrentMap<Class, T> networkMetrics = metrics.get(networkKey);
+        if ( networkMetrics != null ) {
+            return networkMetrics;
+        }
+        
+        ConcurrentMap<Class, T> newNetworkMetrics = new ConcurrentHashMap<>();
+        networkMetrics = metrics.putIfAbsent(networkKey, newNetworkMetrics);
+        return ( networkMetrics != null )? networkMetrics : newNetworkMetrics;
+    }
+    
+    
+    /**
+     * Creates metrics of specified network and peripheral. Metrics are 
+     * usually got from a registry by names tagged by {@code networkId} and 
+     * {@code peripheral}. Can be called more times for the same network and 
+     * peripheral, if more threads request them at the same time.
+     * @param networkId ID of network, may be {@code null}
+     * @param peripheral value of the peripheral tag, see 
+     *        {@link StandardMetrics#peripheralTag(Class) }
+     * @return metrics of specified network and peripheral
+     */
+    protected abstract T createMetrics(String networkId, String peripheral);
+    
+    /**
+     * Returns metrics of specified network and device interface.
+     * @param networkId ID of network, may be {@code null}
+     * @param devInterface device interface, may be {@code null}
+     * @return metrics of specified network and device interface
+     */
+    public T get(String networkId, Class devInterface) {
+        String networkKey = ( networkId == null )? NO_NETWORK : networkId;
+        Class devIfaceKey = ( devInterface == null )? NO_DEVICE_INTERFACE : devInterface;
+        
+        ConcurrentMap<Class, T> networkMetrics = getNetworkMetrics(networkKey);
+        T devIfaceMetrics = networkMetrics.get(devIfaceKey);
+        if ( devIfaceMetrics != null ) {
+            return devIfaceMetrics;
+        }
+        
+        T newDevIfaceMetrics = createMetrics(networkId, StandardMetrics.peripheralTag(devInterface));
+        devIfaceMetrics = networkMetrics.putIfAbsent(devIfaceKey, newDevIfaceMetrics);
+        return ( devIfaceMetrics != null )? devIfaceMetrics : newDevIfaceMetrics;
+    }
+}
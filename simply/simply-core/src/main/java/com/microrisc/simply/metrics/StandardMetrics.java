@@ -0,0 +1,124 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.metrics;
+
+/**
+ * Names and tags of metrics of the connection stack.
+ * <p>
+ * All times are in microseconds.
+ *
+ * @author Michal Konopa
+ */
+public final class StandardMetrics {
+    /** Number of requests waiting for sending in connector. Tags: network. */
+    public static final String CONNECTOR_QUEUE_DEPTH = "connector.queue.depth";
+    
+    /** Time of request in connector queue before sending. Tags: network, peripheral. */
+    public static final String CONNECTOR_QUEUE_TIME = "connector.queue.time";
+    
+    /** Pause inserted by connector before sending a request. Tags: network. */
+    public static final String CONNECTOR_SEND_PAUSE = "connector.send.pause";
+    
+    /** Number of repeated attempts to send a request. Tags: network, peripheral. */
+    public static final String CONNECTOR_RETRIES = "connector.retries";
+    
+    /** Number of requests without response in maximal processing time. Tags: network, peripheral. */
+    public static final String CONNECTOR_IDLE_REQUESTS = "connector.idle";
+    
+    /** Number of requests attached to equal requests in processing. Tags: network, peripheral. */
+    public static final String CONNECTOR_COALESCED_REQUESTS = "connector.coalesced";
+    
+    /** Number of requests aggregated into one request to a node. Tags: network, peripheral. */
+    public static final String CONNECTOR_AGGREGATED_REQUESTS = "connector.aggregated";
+    
+    /** Number of requests dropped because of expired deadline. Tags: network, peripheral. */
+    public static final String CONNECTOR_EXPIRED_REQUESTS = "connector.expired";
+    
+    /** Number of received messages waiting for delivery in network layer. Tags: network. */
+    public static final String NETWORK_RECEPTION_QUEUE_DEPTH = "network.reception.queue.depth";
+    
+    /** Number of received messages dropped by network layer. Tags: network, type. */
+    public static final String NETWORK_RECEPTION_DROPPED = "network.reception.dropped";
+    
+    /** Time between sending request and receiving its confirmation. Tags: network, peripheral. */
+    public static final String PROTOCOL_CONFIRMATION_RTT = "protocol.confirmation.rtt";
+    
+    /** Time between sending request and receiving its response. Tags: network, peripheral, hops. */
+    public static final String PROTOCOL_RESPONSE_RTT = "protocol.response.rtt";
+    
+    /** Estimated timeout of waiting for confirmation. Tags: network. */
+    public static final String PROTOCOL_CONFIRMATION_TIMEOUT = "protocol.confirmation.timeout";
+    
+    /** Estimated timeout of waiting for response of a node. Tags: network, node. */
+    public static final String PROTOCOL_RESPONSE_TIMEOUT = "protocol.response.timeout";
+    
+    /** Number of timeouts. Tags: network, peripheral, type. */
+    public static final String PROTOCOL_TIMEOUTS = "protocol.timeouts";
+    
+    /** Number of failed conversions of messages. Tags: network, peripheral, direction. */
+    public static final String PROTOCOL_CONVERSION_FAILURES = "protocol.conversion.failures";
+    
+    /** Time between receiving result in connector and its delivery to listener. */
+    public static final String RESULTS_DELIVERY_TIME = "results.delivery.time";
+    
+    /** Number of results waiting for delivery to listener. */
+    public static final String RESULTS_QUEUE_DEPTH = "results.queue.depth";
+    
+    /** Number of results removed from results container before they were got. */
+    public static final String RESULTS_EVICTED = "results.evicted";
+    
+    /** Number of asynchronous messages dropped because of full queue of a listener. Tags: listener. */
+    public static final String ASYNCHRONY_DROPPED_MESSAGES = "asynchrony.dropped";
+    
+    
+    /** ID of network. */
+    public static final String TAG_NETWORK = "network";
+    
+    /** Simple name of device interface. */
+    public static final String TAG_PERIPHERAL = "peripheral";
+    
+    /** ID of node. */
+    public static final String TAG_NODE = "node";
+    
+    /** Number of hops. */
+    public static final String TAG_HOPS = "hops";
+    
+    /** Type of event, e.g. type of timeout. */
+    public static final String TAG_TYPE = "type";
+    
+    /** Direction of message: request or response. */
+    public static final String TAG_DIRECTION = "direction";
+    
+    /** Simple name of class of listener. */
+    public static final String TAG_LISTENER = "listener";
+    
+    /** Value of the peripheral tag, if the peripheral is not known. */
+    public static final String UNKNOWN_PERIPHERAL = "unknown";
+    
+    
+    /**
+     * Returns value of the peripheral tag for specified device interface.
+     * @param devInterface device interface, may be {@code null}
+     * @return simple name of {@code devInterface} or {@link #UNKNOWN_PERIPHERAL}
+     */
+    public static String peripheralTag(Class devInterface) {
+        return ( devInterface == null )? UNKNOWN_PERIPHERAL : devInterface.getSimpleName();
+    }
+    
+    
+    private StandardMetrics() {}
+}
@@ -16,11 +16,14 @@
 
 package com.microrisc.simply.network;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.NetworkData;
-import java.util.Arrays;
 
 /**
  * Base class of network data exchanged between protocol and network layers.
+ * <p>
+ * Data can be created either from {@code short[]} or from {@link BytePacket}.
+ * The other representation is created lazily at the first access to it.
  * 
  * @author Michal Konopa
  */
@@ -28,6 +31,9 @@ public class BaseNetworkData implements NetworkData {
     /** Effective data. */
     protected short[] data;
     
+    /** Effective data as byte packet. */
+    protected BytePacket packet;
+    
     /** ID of destination network. */
     protected String networkId;
     
@@ -39,6 +45,18 @@ public class BaseNetworkData implements NetworkData {
      */
     public BaseNetworkData(short[] data, String networkId) {
         this.data = data;
+        this.packet = null;
+        this.networkId = networkId;
+    }
+    
+    /**
+     * Creates new network data object.
+     * @param packet effective data to send
+     * @param networkId ID of destination network
+     */
+    public BaseNetworkData(BytePacket packet, String networkId) {
+        this.data = null;
+        this.packet = packet;
         this.networkId = networkId;
     }
 
@@ -46,9 +64,23 @@ public class BaseNetworkData implements NetworkData {
      * @return effective data
      */
     @Override
-    public short[] getData() {
+    public synchronized short[] getData() {
+        if ( (data == null) && (packet != null) ) {
+            data = packet.toShortArray();
+        }
         return data;
     }
+    
+    /**
+     * @return effective data as byte packet
+     */
+    @Override
+    public synchronized BytePacket getPacket() {
+        if ( (packet == null) && (data != null) ) {
+            packet = BytePacket.fromShortArray(data);
+        }
+        return packet;
+    }
 
     /**
      * @return ID of destination network
@@ -61,7 +93,7 @@ public class BaseNetworkData implements NetworkData {
     @Override
     public String toString() {
         return ("{ " +
-                "data=" + Arrays.toString(data) +
+                "data=" + getPacket() +
                 ", network ID=" + networkId + 
                 " }");
     }
@@ -44,7 +44,7 @@ public final class RequestPacketCreator {
         
         int maxPos = 0;
         for (PacketFragment fragment : packetFragments) {
-            int pos = fragment.getStartingPosition() + fragment.getData().length;
+            int pos = fragment.getStartingPosition() + fragment.getLength();
             if (pos > maxPos) {
                 maxPos = pos;
             }
@@ -65,8 +65,7 @@ public final class RequestPacketCreator {
         
         short[] finalPacket = new short[getMaxPosition(packetFragments)]; 
         for (PacketFragment packetFragment : packetFragments) {
-            System.arraycopy(packetFragment.getData(), 0, finalPacket, 
-                    packetFragment.getStartingPosition(), packetFragment.getData().length);
+            packetFragment.copyTo(finalPacket);
         }
         
         logger.debug("createRequestPacket - end: {}", finalPacket);
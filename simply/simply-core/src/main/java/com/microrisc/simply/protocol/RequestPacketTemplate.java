@@ -0,0 +1,146 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.protocol;
+
+import com.microrisc.simply.protocol.mapping.CallRequestToPacketMapping;
+import com.microrisc.simply.protocol.mapping.PacketFragment;
+import com.microrisc.simply.protocol.mapping.ProtocolMappingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precompiled request packet of one method of one Device Interface.
+ * <p>
+ * Constant parts of the request packet, i.e. protocol data, Device Interface
+ * data and method data, are serialized only once at the creation of the
+ * template. Creation of request packet then consists only of copying of
+ * the constant parts and of patching of network data, node data and method
+ * arguments into the packet. The resulting packet is the same as the packet
+ * created by {@link RequestPacketCreator} from all the fragments.
+ * <p>
+ * Templates are immutable and can be shared among threads.
+ *
+ * @author Michal Konopa
+ */
+public final class RequestPacketTemplate {
+    /** Protocol data - they precede network and node data in the packet. */
+    private final PacketFragment[] protocolData;
+    
+    /** Device Interface and method data - they follow node data in the packet. */
+    private final PacketFragment[] interfaceAndMethodData;
+    
+    /** Minimal length of the packet given by the constant parts. */
+    private final int minLength;
+    
+    
+    // returns maximum position of data of specified fragments
+    private static int getMaxPosition(PacketFragment[] fragments, int maxPos) {
+        for ( PacketFragment fragment : fragments ) {
+            int pos = fragment.getStartingPosition() + fragment.getLength();
+            if ( pos > maxPos ) {
+                maxPos = pos;
+            }
+        }
+        return maxPos;
+    }
+    
+    private static int getMaxPosition(List<PacketFragment> fragments, int maxPos) {
+        for ( PacketFragment fragment : fragments ) {
+            int pos = fragment.getStartingPosition() + fragment.getLength();
+            if ( pos > maxPos ) {
+                maxPos = pos;
+            }
+        }
+        return maxPos;
+    }
+    
+    // copies data of specified fragments into the packet
+    private static void writeFragments(PacketFragment[] fragments, short[] packet) {
+        for ( PacketFragment fragment : fragments ) {
+            fragment.copyTo(packet);
+        }
+    }
+    
+    private static void writeFragments(List<PacketFragment> fragments, short[] packet) {
+        for ( PacketFragment fragment : fragments ) {
+            fragment.copyTo(packet);
+        }
+    }
+    
+    private static PacketFragment[] toArray(List<PacketFragment> fragments) {
+        return fragments.toArray(new PacketFragment[fragments.size()]);
+    }
+    
+    
+    private RequestPacketTemplate(
+            PacketFragment[] protocolData, PacketFragment[] interfaceAndMethodData
+    ) {
+        this.protocolData = protocolData;
+        this.interfaceAndMethodData = interfaceAndMethodData;
+        this.minLength = getMaxPosition(
+                interfaceAndMethodData, getMaxPosition(protocolData, 0)
+        );
+    }
+    
+    /**
+     * Creates template of request packet of specified method of specified
+     * Device Interface.
+     * @param mapping call request to packet mapping to use
+     * @param devInterface Device Interface
+     * @param methodId ID of method
+     * @return template of request packet
+     * @throws ProtocolMappingException if the mapping of specified Device
+     *         Interface or method was not found
+     */
+    public static RequestPacketTemplate create(
+            CallRequestToPacketMapping mapping, Class devInterface, String methodId
+    ) throws ProtocolMappingException {
+        List<PacketFragment> ifaceAndMethodData = new ArrayList<>(
+                mapping.getSerializedInterfaceData(devInterface)
+        );
+        ifaceAndMethodData.addAll(mapping.getSerializedMethodData(devInterface, methodId));
+        
+        return new RequestPacketTemplate(
+                toArray(mapping.getSerializedProtocolData()), toArray(ifaceAndMethodData)
+        );
+    }
+    
+    /**
+     * Creates and returns complete request packet of protocol layer.
+     * @param networkData serialized network data
+     * @param nodeData serialized node data
+     * @param methodArgs serialized method arguments
+     * @return complete request packet of protocol layer
+     */
+    public short[] createRequestPacket(
+            List<PacketFragment> networkData,
+            List<PacketFragment> nodeData,
+            List<PacketFragment> methodArgs
+    ) {
+        int length = getMaxPosition(networkData, minLength);
+        length = getMaxPosition(nodeData, length);
+        length = getMaxPosition(methodArgs, length);
+        
+        short[] packet = new short[length];
+        writeFragments(protocolData, packet);
+        writeFragments(networkData, packet);
+        writeFragments(nodeData, packet);
+        writeFragments(interfaceAndMethodData, packet);
+        writeFragments(methodArgs, packet);
+        return packet;
+    }
+}
@@ -18,6 +18,7 @@ package com.microrisc.simply.protocol;
 
 import com.microrisc.simply.AbstractMessage;
 import com.microrisc.simply.BaseCallResponse;
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.CallRequest;
 import com.microrisc.simply.SimplyException;
 import com.microrisc.simply.NetworkData;
@@ -28,7 +29,6 @@ import com.microrisc.simply.protocol.mapping.PacketFragment;
 import com.microrisc.simply.protocol.mapping.PacketToCallResponseMapping;
 import com.microrisc.simply.protocol.mapping.ProtocolMapping;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import org.slf4j.Logger;
@@ -96,34 +96,34 @@ public class SimpleMessageConvertor extends AbstractMessageConvertor {
                 protocolMapping.getPacketToCallResponseMapping();
         
         // protocol message
-        short[] protoMsg = networkData.getData();
+        BytePacket protoMsg = networkData.getPacket();
         
         String networkId = devObjMapping.getNetworkId(protoMsg);
         if ( networkId == null ) {
-            throw new ValueConversionException("Network Id was not found, source packet: " + Arrays.toString(protoMsg));
+            throw new ValueConversionException("Network Id was not found, source packet: " + protoMsg);
         }
         
         String nodeId = devObjMapping.getNodeId(protoMsg);
         if ( nodeId == null ) {
-            throw new ValueConversionException("Node Id was not found, source packet: " + Arrays.toString(protoMsg));
+            throw new ValueConversionException("Node Id was not found, source packet: " + protoMsg);
         }
         
         Class devIface = devObjMapping.getDeviceInterface(protoMsg);
         if ( devIface == null ) {
             throw new ValueConversionException(
-                "Device Interface was not found, source packet: " + Arrays.toString(protoMsg)
+                "Device Interface was not found, source packet: " + protoMsg
             );
         }
         
         String methodId = devObjMapping.getMethodId(devIface, protoMsg);
         if ( methodId == null ) {
-            throw new ValueConversionException("Method was not found, source packet: " + Arrays.toString(protoMsg));
+            throw new ValueConversionException("Method was not found, source packet: " + protoMsg);
         }
         
         Object methodResult = devObjMapping.getMethodResult(devIface, methodId, protoMsg);
         if ( methodResult == null ) {
             throw new ValueConversionException(
-                "Method result was not found, source packet: " + Arrays.toString(protoMsg)
+                "Method result was not found, source packet: " + protoMsg
             );
         }
         
@@ -0,0 +1,635 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.protocol.mapping;
+
+import com.microrisc.simply.BytePacket;
+import com.microrisc.simply.typeconvertors.ValueConversionException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Packet to call response mapping compiled into dispatch tables.
+ * <p>
+ * Interface mappings are indexed by value at the interface key position of
+ * the packet (e.g. peripheral number) and method mappings of each interface are
+ * indexed by value at the method key position (e.g. peripheral command).
+ * Incomming packet is then matched only against the mappings found in the
+ * table under values at the key positions of the packet. If exactly one mapping
+ * is found and its patterns are fully determined by the key value, the mapping
+ * is used directly. Otherwise, i.e. for ambiguous patterns or mappings without
+ * any pattern at the key position, the generic pattern matching of
+ * {@link SimplePacketToCallResponseMapping} is used on the found mappings.
+ * <p>
+ * Mapping compiled from more source mappings by {@link #compile} resolves 
+ * Device Interface within each source mapping separately. If more source 
+ * mappings resolve some Device Interface for the same packet, the resolution 
+ * is ambiguous and {@link ValueConversionException} is thrown. Request for 
+ * a method of not supported Device Interface ends with 
+ * {@link ValueConversionException} as well. 
+ * <p>
+ * Otherwise, results are the same as the results of 
+ * {@link SimplePacketToCallResponseMapping} with the same mappings.
+ *
+ * @author Michal Konopa
+ */
+public final class CompiledPacketToCallResponseMapping
+implements PacketToCallResponseMapping {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(CompiledPacketToCallResponseMapping.class);
+    
+    /**
+     * Entry of dispatch table - list of candidate mappings for one key value.
+     * @param <T> type of mapping
+     */
+    private static final class Candidates<T> {
+        final List<T> mappings = new ArrayList<>();
+        
+        // mapping, which can be used without pattern matching, or null
+        T direct = null;
+        
+        // indicates, wheather the mappings come from more source mappings
+        boolean fromMoreSources = false;
+    }
+    
+    /** Dispatch table of methods of one Device Interface. */
+    private static final class MethodTable {
+        final Map<Short, Candidates<PacketToMethodMapping>> table = new HashMap<>();
+        
+        // candidates for values, which are not in the table
+        final Candidates<PacketToMethodMapping> unkeyed = new Candidates<>();
+    }
+    
+    
+    /** Network mapping. */
+    private final PacketToValueMapping networkMapping;
+    
+    /** Node mapping. */
+    private final PacketToValueMapping nodeMapping;
+    
+    /** Device Interface mappings. */
+    private final Map<Class, PacketToInterfaceMapping> interfaceMappings;
+    
+    /** Additional data mapping. */
+    private final PacketToValueMapping additionalDataMapping;
+    
+    /** Position of interface key in packet. */
+    private final int interfaceKeyPosition;
+    
+    /** Position of method key in packet. */
+    private final int methodKeyPosition;
+    
+    /** Dispatch table of Device Interfaces. */
+    private final Map<Short, Candidates<PacketToInterfaceMapping>> interfaceTable
+            = new HashMap<>();
+    
+    /** Candidate interfaces for values, which are not in the table. */
+    private final Candidates<PacketToInterfaceMapping> unkeyedInterfaces
+            = new Candidates<>();
+    
+    /** Dispatch tables of methods of individual Device Interfaces. */
+    private final Map<Class, MethodTable> methodTables = new HashMap<>();
+    
+    /** Indexes of source mappings of individual Device Interfaces. */
+    private final Map<Class, Integer> sourceIndexes = new HashMap<>();
+    
+    /** Number of source mappings. */
+    private final int sourcesCount;
+    
+    
+    private static int checkKeyPosition(int keyPosition) {
+        if ( keyPosition < 0 ) {
+            throw new IllegalArgumentException("Key position must be nonnegative");
+        }
+        return keyPosition;
+    }
+    
+    private static Map<Class, PacketToInterfaceMapping> checkInterfaceMappings(
+            Map<Class, PacketToInterfaceMapping> interfaceMappings
+    ) {
+        if ( interfaceMappings == null ) {
+            throw new IllegalArgumentException("Interface mappings cannot be null");
+        }
+        return interfaceMappings;
+    }
+    
+    private static List<Map<Class, PacketToInterfaceMapping>> checkSourceInterfaceMappings(
+            List<Map<Class, PacketToInterfaceMapping>> sourceIfaceMappings
+    ) {
+        if ( sourceIfaceMappings == null ) {
+            throw new IllegalArgumentException("Interface mappings cannot be null");
+        }
+        if ( sourceIfaceMappings.isEmpty() ) {
+            throw new IllegalArgumentException("Interface mappings cannot be empty");
+        }
+        for ( Map<Class, PacketToInterfaceMapping> ifaceMappings : sourceIfaceMappings ) {
+            checkInterfaceMappings(ifaceMappings);
+        }
+        return sourceIfaceMappings;
+    }
+    
+    // joins interface mappings of all sources into one map
+    private static Map<Class, PacketToInterfaceMapping> joinInterfaceMappings(
+            List<Map<Class, PacketToInterfaceMapping>> sourceIfaceMappings
+    ) {
+        Map<Class, PacketToInterfaceMapping> allIfaceMappings = new LinkedHashMap<>();
+        for ( Map<Class, PacketToInterfaceMapping> ifaceMappings : sourceIfaceMappings ) {
+            for ( Map.Entry<Class, PacketToInterfaceMapping> entry : ifaceMappings.entrySet() ) {
+                if ( allIfaceMappings.containsKey(entry.getKey()) ) {
+                    throw new IllegalArgumentException(
+                            "Packet to response mappings haven't discjunctive"
+                            + " supported sets of Device Interfaces: " + entry.getKey()
+                    );
+                }
+                allIfaceMappings.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return allIfaceMappings;
+    }
+    
+    // returns pattern at specified position or null, if there is no such pattern
+    private static PacketPositionValues getPatternAt(
+            List<PacketPositionValues> patterns, int position
+    ) {
+        for ( PacketPositionValues pattern : patterns ) {
+            if ( pattern.getPosition() == position ) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+    
+    // adds specified mapping into the table under all values of its key pattern
+    private static <T> void addToTable(
+            Map<Short, Candidates<T>> table, Candidates<T> unkeyed,
+            T mapping, PacketPositionValues keyPattern
+    ) {
+        if ( keyPattern == null ) {
+            unkeyed.mappings.add(mapping);
+            for ( Candidates<T> candidates : table.values() ) {
+                candidates.mappings.add(mapping);
+            }
+            return;
+        }
+        
+        for ( Short value : keyPattern.getValues() ) {
+            Candidates<T> candidates = table.get(value);
+            if ( candidates == null ) {
+                candidates = new Candidates<>();
+                candidates.mappings.addAll(unkeyed.mappings);
+                table.put(value, candidates);
+            }
+            candidates.mappings.add(mapping);
+        }
+    }
+    
+    // indicates, wheather the specified patterns are fully determined by key value
+    private static boolean isDeterminedByKey(
+            List<PacketPositionValues> patterns, int keyPosition
+    ) {
+        return ( (patterns.size() == 1) && (patterns.get(0).getPosition() == keyPosition) );
+    }
+    
+    // compiles dispatch table of Device Interfaces
+    private void compileInterfaceTable() {
+        for ( PacketToInterfaceMapping ifaceMapping : interfaceMappings.values() ) {
+            List<PacketPositionValues> patterns = ifaceMapping.getPacketValues();
+            
+            // mapping without any pattern can never be selected
+            if ( patterns.isEmpty() ) {
+                continue;
+            }
+            addToTable(
+                    interfaceTable, unkeyedInterfaces, ifaceMapping,
+                    getPatternAt(patterns, interfaceKeyPosition)
+            );
+        }
+        
+        for ( Candidates<PacketToInterfaceMapping> candidates : interfaceTable.values() ) {
+            markInterfaceCandidates(candidates);
+        }
+        markInterfaceCandidates(unkeyedInterfaces);
+    }
+    
+    // sets direct mapping and source indication of specified interface candidates
+    private void markInterfaceCandidates(Candidates<PacketToInterfaceMapping> candidates) {
+        if ( candidates.mappings.size() == 1 ) {
+            PacketToInterfaceMapping ifaceMapping = candidates.mappings.get(0);
+            if ( isDeterminedByKey(ifaceMapping.getPacketValues(), interfaceKeyPosition) ) {
+                candidates.direct = ifaceMapping;
+            }
+        }
+        
+        Integer firstSource = null;
+        for ( PacketToInterfaceMapping ifaceMapping : candidates.mappings ) {
+            Integer source = sourceIndexes.get(ifaceMapping.getDeviceInterface());
+            if ( firstSource == null ) {
+                firstSource = source;
+            } else if ( !firstSource.equals(source) ) {
+                candidates.fromMoreSources = true;
+                return;
+            }
+        }
+    }
+    
+    // compiles dispatch table of methods of specified Device Interface
+    private MethodTable compileMethodTable(PacketToInterfaceMapping ifaceMapping) {
+        MethodTable methodTable = new MethodTable();
+        for ( PacketToMethodMapping methodMapping : ifaceMapping.getMethodMappings() ) {
+            List<PacketPositionValues> patterns = methodMapping.getPacketValues();
+            
+            // mapping without any pattern can never be selected
+            if ( patterns.isEmpty() ) {
+                continue;
+            }
+            addToTable(
+                    methodTable.table, methodTable.unkeyed, methodMapping,
+                    getPatternAt(patterns, methodKeyPosition)
+            );
+        }
+        
+        for ( Candidates<PacketToMethodMapping> candidates : methodTable.table.values() ) {
+            if ( candidates.mappings.size() == 1 ) {
+                PacketToMethodMapping methodMapping = candidates.mappings.get(0);
+                if ( isDeterminedByKey(methodMapping.getPacketValues(), methodKeyPosition) ) {
+                    candidates.direct = methodMapping;
+                }
+            }
+        }
+        return methodTable;
+    }
+    
+    // returns candidates for the value at specified key position of the packet
+    private static <T> Candidates<T> getCandidates(
+            Map<Short, Candidates<T>> table, Candidates<T> unkeyed,
+            BytePacket packet, int keyPosition
+    ) {
+        if ( keyPosition >= packet.length() ) {
+            return unkeyed;
+        }
+        Candidates<T> candidates = table.get(packet.get(keyPosition));
+        return ( candidates != null )? candidates : unkeyed;
+    }
+    
+    
+    /**
+     * Creates new compiled mapping.
+     * @param networkMapping network mapping
+     * @param nodeMapping node mapping
+     * @param interfaceMappings interface mappings
+     * @param additionalDataMapping additional data mapping
+     * @param interfaceKeyPosition position of interface key in packet
+     * @param methodKeyPosition position of method key in packet
+     * @throws IllegalArgumentException if {@code interfaceMappings} is {@code null}
+     *         or some of key positions is negative
+     */
+    public CompiledPacketToCallResponseMapping(
+            PacketToValueMapping networkMapping,
+            PacketToValueMapping nodeMapping,
+            Map<Class, PacketToInterfaceMapping> interfaceMappings,
+            PacketToValueMapping additionalDataMapping,
+            int interfaceKeyPosition,
+            int methodKeyPosition
+    ) {
+        this(
+                networkMapping, nodeMapping, 
+                Collections.singletonList(checkInterfaceMappings(interfaceMappings)), 
+                additionalDataMapping, interfaceKeyPosition, methodKeyPosition
+        );
+    }
+    
+    /**
+     * Creates new compiled mapping of interface mappings of more source mappings.
+     * @param networkMapping network mapping
+     * @param nodeMapping node mapping
+     * @param sourceIfaceMappings interface mappings of individual source mappings
+     * @param additionalDataMapping additional data mapping
+     * @param interfaceKeyPosition position of interface key in packet
+     * @param methodKeyPosition position of method key in packet
+     * @throws IllegalArgumentException if {@code sourceIfaceMappings} is {@code null},
+     *         empty or contains {@code null}, if sets of Device Interfaces of 
+     *         source mappings are not disjunctive or some of key positions 
+     *         is negative
+     */
+    private CompiledPacketToCallResponseMapping(
+            PacketToValueMapping networkMapping,
+            PacketToValueMapping nodeMapping,
+            List<Map<Class, PacketToInterfaceMapping>> sourceIfaceMappings,
+            PacketToValueMapping additionalDataMapping,
+            int interfaceKeyPosition,
+            int methodKeyPosition
+    ) {
+        checkSourceInterfaceMappings(sourceIfaceMappings);
+        this.networkMapping = networkMapping;
+        this.nodeMapping = nodeMapping;
+        this.interfaceMappings = joinInterfaceMappings(sourceIfaceMappings);
+        this.additionalDataMapping = additionalDataMapping;
+        this.interfaceKeyPosition = checkKeyPosition(interfaceKeyPosition);
+        this.methodKeyPosition = checkKeyPosition(methodKeyPosition);
+        
+        this.sourcesCount = sourceIfaceMappings.size();
+        for ( int source = 0; source < sourcesCount; source++ ) {
+            for ( Class devIface : sourceIfaceMappings.get(source).keySet() ) {
+                sourceIndexes.put(devIface, source);
+            }
+        }
+        
+        compileInterfaceTable();
+        for ( PacketToInterfaceMapping ifaceMapping : interfaceMappings.values() ) {
+            methodTables.put(ifaceMapping.getDeviceInterface(), compileMethodTable(ifaceMapping));
+        }
+    }
+    
+    /**
+     * Compiles specified mappings into one compiled mapping. Network, node and
+     * additional data mappings are taken from the first of specified mappings.
+     * Each of specified mappings must support disjunctive set of Device
+     * Interfaces from each other mapping.
+     * @param mappings source mappings, {@code null} items are ignored
+     * @param interfaceKeyPosition position of interface key in packet
+     * @param methodKeyPosition position of method key in packet
+     * @return compiled mapping
+     * @throws IllegalArgumentException if {@code mappings} is {@code null} or
+     *         doesn't contain any mapping, or if sets of supported Device
+     *         Interfaces of mappings are not disjunctive
+     */
+    public static CompiledPacketToCallResponseMapping compile(
+            SimplePacketToCallResponseMapping[] mappings,
+            int interfaceKeyPosition,
+            int methodKeyPosition
+    ) {
+        if ( mappings == null ) {
+            throw new IllegalArgumentException("Mappings cannot be null");
+        }
+        
+        SimplePacketToCallResponseMapping firstMapping = null;
+        List<Map<Class, PacketToInterfaceMapping>> sourceIfaceMappings = new ArrayList<>();
+        for ( SimplePacketToCallResponseMapping mapping : mappings ) {
+            if ( mapping == null ) {
+                continue;
+            }
+            if ( firstMapping == null ) {
+                firstMapping = mapping;
+            }
+            sourceIfaceMappings.add(mapping.getInterfaceMappings());
+        }
+        
+        if ( firstMapping == null ) {
+            throw new IllegalArgumentException("Mappings cannot be empty");
+        }
+        
+        return new CompiledPacketToCallResponseMapping(
+                firstMapping.getNetworkMapping(), firstMapping.getNodeMapping(),
+                sourceIfaceMappings, firstMapping.getAdditionalDataMapping(),
+                interfaceKeyPosition, methodKeyPosition
+        );
+    }
+    
+    @Override
+    public Set<Class> getSupportedDeviceInterfaces() {
+        return interfaceMappings.keySet();
+    }
+    
+    @Override
+    public String getNetworkId(BytePacket packet) throws ValueConversionException {
+        logger.debug("getNetworkId - start: packet={}", packet);
+        
+        String networkId = (String)Deserializer.deserialize(networkMapping, packet);
+        
+        logger.debug("getNetworkId - end: {}", networkId);
+        return networkId;
+    }
+    
+    @Override
+    public String getNodeId(BytePacket packet) throws ValueConversionException {
+        logger.debug("getNodeId - start: packet={}", packet);
+        
+        String nodeId = (String)Deserializer.deserialize(nodeMapping, packet);
+        
+        logger.debug("getNodeId - end: {}", nodeId);
+        return nodeId;
+    }
+    
+    // resolves Device Interface within each source mapping separately and 
+    // checks, that at most one source mapping has resolved it
+    private Class getDeviceInterfaceOfMoreSources(
+            List<PacketToInterfaceMapping> ifaceMappings, BytePacket packet
+    ) throws ValueConversionException {
+        int[] bestEqualities = new int[sourcesCount];
+        Class[] devIfaces = new Class[sourcesCount];
+        
+        for ( PacketToInterfaceMapping ifaceMapping : ifaceMappings ) {
+            List<PacketPositionValues> packetValues = ifaceMapping.getPacketValues();
+            if ( SimplePacketToCallResponseMapping.isCompatible(packet, packetValues) ) {
+                int source = sourceIndexes.get(ifaceMapping.getDeviceInterface());
+                if ( packetValues.size() > bestEqualities[source] ) {
+                    bestEqualities[source] = packetValues.size();
+                    devIfaces[source] = ifaceMapping.getDeviceInterface();
+                }
+            }
+        }
+        
+        Class foundClass = null;
+        for ( Class devIface : devIfaces ) {
+            if ( devIface == null ) {
+                continue;
+            }
+            if ( foundClass != null ) {
+                throw new ValueConversionException(
+                        "Class resolution ambiguous: " + foundClass + " vs. " + devIface
+                );
+            }
+            foundClass = devIface;
+        }
+        return foundClass;
+    }
+    
+    @Override
+    public Class getDeviceInterface(BytePacket packet) throws ValueConversionException {
+        logger.debug("getDeviceInterface - start: packet={}", packet);
+        
+        Candidates<PacketToInterfaceMapping> candidates = getCandidates(
+                interfaceTable, unkeyedInterfaces, packet, interfaceKeyPosition
+        );
+        
+        if ( candidates.direct != null ) {
+            Class devIface = candidates.direct.getDeviceInterface();
+            logger.debug("getDeviceInterface - end: {}", devIface);
+            return devIface;
+        }
+        
+        if ( candidates.fromMoreSources ) {
+            Class devIface = getDeviceInterfaceOfMoreSources(candidates.mappings, packet);
+            logger.debug("getDeviceInterface - end: {}", devIface);
+            return devIface;
+        }
+        
+        int bestEquality = 0;
+        Class devIface = null;
+        
+        for ( PacketToInterfaceMapping ifaceMapping : candidates.mappings ) {
+            List<PacketPositionValues> packetValues = ifaceMapping.getPacketValues();
+            if ( SimplePacketToCallResponseMapping.isCompatible(packet, packetValues) ) {
+                if ( packetValues.size() > bestEquality ) {
+                    bestEquality = packetValues.size();
+                    devIface = ifaceMapping.getDeviceInterface();
+                }
+            }
+        }
+        
+        logger.debug("getDeviceInterface - end: {}", devIface);
+        return devIface;
+    }
+    
+    @Override
+    public String getMethodId(Class devInterface, BytePacket packet) 
+            throws ValueConversionException {
+        logger.debug("getMethodId - start: devInterface={}, packet={}",
+                devInterface, packet
+        );
+        
+        MethodTable methodTable = methodTables.get(devInterface);
+        if ( methodTable == null ) {
+            throw new ValueConversionException("Device Interface not supported: " + devInterface);
+        }
+        
+        Candidates<PacketToMethodMapping> candidates = getCandidates(
+                methodTable.table, methodTable.unkeyed, packet, methodKeyPosition
+        );
+        
+        if ( candidates.direct != null ) {
+            String methodId = null;
+            PacketToMethodMapping methodMapping = candidates.direct;
+            if ( SimplePacketToCallResponseMapping.isResultCompatible(
+                    packet, methodMapping.getResultMapping())
+            ) {
+                methodId = methodMapping.getMethodId();
+            }
+            logger.debug("getMethodId - end: {}", methodId);
+            return methodId;
+        }
+        
+        int bestEquality = 0;
+        String methodId = null;
+        
+        for ( PacketToMethodMapping methodMapping : candidates.mappings ) {
+            List<PacketPositionValues> patterns = methodMapping.getPacketValues();
+            if ( SimplePacketToCallResponseMapping.isCompatible(packet, patterns) ) {
+                if ( SimplePacketToCallResponseMapping.isResultCompatible(
+                        packet, methodMapping.getResultMapping())
+                ) {
+                    if ( patterns.size() > bestEquality ) {
+                        bestEquality = patterns.size();
+                        methodId = methodMapping.getMethodId();
+                    }
+                }
+            }
+        }
+        
+        logger.debug("getMethodId - end: {}", methodId);
+        return methodId;
+    }
+    
+    @Override
+    public Object getMethodResult(
+            Class devInterface, String methodId, BytePacket protoMsg
+    ) throws ValueConversionException {
+        Object logArgs[] = new Object[3];
+        logArgs[0] = devInterface;
+        logArgs[1] = methodId;
+        logArgs[2] = protoMsg;
+        logger.debug("getMethodResult - start: devInterface={}, methodId={},"
+                + "protoMsg={}", logArgs
+        );
+        
+        PacketToInterfaceMapping ifaceMapping = interfaceMappings.get(devInterface);
+        if ( ifaceMapping == null ) {
+            throw new ValueConversionException("Device Interface not supported: " + devInterface);
+        }
+        
+        PacketToMethodMapping methodMapping = ifaceMapping.getMethodMapping(methodId);
+        if ( methodMapping == null ) {
+            logger.warn("Method mapping not found");
+            logger.debug("getMethodResult - end: null");
+            return null;
+        }
+        
+        Object result = Deserializer.deserialize(methodMapping.getResultMapping(), protoMsg);
+        
+        logger.debug("getMethodResult - end: {}", result);
+        return result;
+    }
+    
+    @Override
+    public Object getAdditionalData(BytePacket packet) throws ValueConversionException
+    {
+        logger.debug("getAdditionalData - start: packet={}", packet);
+        
+        Object additionalData = Deserializer.deserialize(additionalDataMapping, packet);
+        
+        logger.debug("getAdditionalData - end: {}", additionalData);
+        return additionalData;
+    }
+    
+    @Override
+    public String getNetworkId(short[] packet) throws ValueConversionException {
+        return getNetworkId(BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public String getNodeId(short[] packet) throws ValueConversionException {
+        return getNodeId(BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public Class getDeviceInterface(short[] packet) throws ValueConversionException {
+        return getDeviceInterface(BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public String getMethodId(Class devInterface, short[] packet) 
+            throws ValueConversionException {
+        return getMethodId(devInterface, BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public Object getMethodResult(
+            Class devInterface, String methodId, short[] protoMsg
+    ) throws ValueConversionException {
+        return getMethodResult(devInterface, methodId, BytePacket.fromShortArray(protoMsg));
+    }
+    
+    @Override
+    public Object getAdditionalData(short[] packet) throws ValueConversionException {
+        return getAdditionalData(BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public String toString() {
+        return ("{ " +
+                "interface key position=" + interfaceKeyPosition +
+                ", method key position=" + methodKeyPosition +
+                ", interface mappings=" + interfaceMappings +
+                " }");
+    }
+}
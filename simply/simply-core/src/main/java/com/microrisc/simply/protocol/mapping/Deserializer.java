@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.protocol.mapping;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,4 +60,34 @@ public final class Deserializer {
         logger.debug("deserialize - end: {}", result);
         return result;
     }
+    
+    /**
+     * Deserialize and returns Java value. The fragment to deserialize is passed
+     * to the convertor as a view of the source packet, i.e. without copying.
+     * @param packetToValueMapping parameteters of deserialization
+     * @param protoMsg source packet to deserialize
+     * @return deserialized Java value.
+     */
+    static public Object deserialize(PacketToValueMapping packetToValueMapping, 
+            BytePacket protoMsg
+    ) throws ValueConversionException {
+        logger.debug("deserialize - start: packetToValueMapping={}, protoMsg={}", 
+                packetToValueMapping, protoMsg);
+        
+        int startPos = packetToValueMapping.getStartingPosition();
+        int valueLength = ( packetToValueMapping.isUpToEnd() )?
+                protoMsg.length() - startPos : packetToValueMapping.getLength();
+        if ( (startPos < 0) || (valueLength < 0) || (startPos + valueLength > protoMsg.length()) ) {
+            throw new ValueConversionException(
+                    "Value doesn't lie inside the packet: " + packetToValueMapping
+                    + ", packet length=" + protoMsg.length()
+            );
+        }
+        BytePacket valueToConv = protoMsg.slice(startPos, valueLength);
+        
+        Object result = packetToValueMapping.getConvertor().toObject(valueToConv);
+        
+        logger.debug("deserialize - end: {}", result);
+        return result;
+    }
 }
@@ -18,25 +18,27 @@ package com.microrisc.simply.protocol.mapping;
 
 /**
  * Describes fragment of packet data. 
+ * <p>
+ * Fragments are immutable, so they can be cached and shared among threads.
  * 
  * @author Michal Konopa
  */
 public final class PacketFragment {
     /** Position inside packet, where the data starts. */
-    private int startingPosition = 0;
+    private final int startingPosition;
     
     /** Data. */
-    private short[] data = null;
+    private final short[] data;
     
     
     /**
      * Constructor.
      * @param startingPosition position inside packet, where the data starts
-     * @param data data
+     * @param data data - copy of the data is stored
      */
     public PacketFragment(int startingPosition, short[] data) {
         this.startingPosition = startingPosition;
-        this.data = data;
+        this.data = data.clone();
     }
 
     /**
@@ -47,10 +49,25 @@ public final class PacketFragment {
     }
 
     /**
-     * @return the data
+     * @return copy of the data
      */
     public short[] getData() {
-        return data;
+        return data.clone();
+    }
+    
+    /**
+     * @return length of the data
+     */
+    public int getLength() {
+        return data.length;
+    }
+    
+    /**
+     * Copies the data into specified packet at the starting position.
+     * @param packet packet to copy the data into
+     */
+    public void copyTo(short[] packet) {
+        System.arraycopy(data, 0, packet, startingPosition, data.length);
     }
     
     @Override
@@ -17,6 +17,7 @@
 package com.microrisc.simply.protocol.mapping;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -104,6 +105,14 @@ public final class PacketPositionValues {
         return position;
     }
     
+    /**
+     * Returns set of values, which can be at the position.
+     * @return unmodifiable set of values, which can be at the position
+     */
+    Set<Short> getValues() {
+        return Collections.unmodifiableSet(values);
+    }
+    
     /**
      * Returns {@code true}, if specified value can be at the position. Otherwise
      * return {@code false}.
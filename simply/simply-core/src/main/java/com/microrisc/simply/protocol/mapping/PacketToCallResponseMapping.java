@@ -16,12 +16,16 @@
 
 package com.microrisc.simply.protocol.mapping;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
 import java.util.Set;
 
 /**
  * Interface for access a functionality of mapping of protocol layer packet to 
- * call response data.
+ * call response data. <br>
+ * Each operation is available for both {@code short[]} packets and byte packets.
+ * Byte packets are preferred, because their parts are deserialized without
+ * copying.
  * 
  * @author Michal Konopa
  */
@@ -87,4 +91,60 @@ public interface PacketToCallResponseMapping {
      * @throws ValueConversionException if some conversion error encountered
      */
     public Object getAdditionalData(short[] protoMsg) throws ValueConversionException;
+    
+    /**
+     * Returns network ID from specified protocol packet.
+     * @param packet source protocol packet
+     * @return network ID <br>
+     *         {@code null}, if network Id was not determined
+     * @throws ValueConversionException if some conversion error encountered
+     */
+    String getNetworkId(BytePacket packet) throws ValueConversionException;
+    
+    /**
+     * Returns node ID from specified protocol packet.
+     * @param packet source protocol packet
+     * @return node ID <br>
+     *         {@code null}, if Node Id was not determined
+     * @throws ValueConversionException if some conversion error encountered
+     */
+    String getNodeId(BytePacket packet) throws ValueConversionException;
+    
+    /**
+     * Returns Device Interface from specified protocol packet.
+     * @param packet source protocol packet
+     * @return Device Interface <br>
+     *         {@code null}, if no Device Interface was found
+     * @throws ValueConversionException if some conversion error encountered
+     */
+    Class getDeviceInterface(BytePacket packet) throws ValueConversionException;
+    
+    /**
+     * Returns method ID from specified Device Interface and protocol packet.
+     * @param devInterface Device Interface, which the method belongs to
+     * @param packet source protocol packet
+     * @return method ID <br>
+     *         {@code null}, if no method was found
+     * @throws ValueConversionException if some conversion error encountered
+     */
+    String getMethodId(Class devInterface, BytePacket packet) throws ValueConversionException;
+    
+    /**
+     * Returns deserialized result of specified method.
+     * @param devInterface Device Interface, which the method belongs to
+     * @param methodId ID of the method
+     * @param protoMsg source protocol packet
+     * @return deserialized result
+     * @throws ValueConversionException if some conversion error encountered
+     */
+    Object getMethodResult(Class devInterface, String methodId, BytePacket protoMsg) 
+            throws ValueConversionException;
+    
+    /**
+     * Returns deserialized additional data.
+     * @param protoMsg source protocol packet
+     * @return deserialized additional data.
+     * @throws ValueConversionException if some conversion error encountered
+     */
+    Object getAdditionalData(BytePacket protoMsg) throws ValueConversionException;
 }
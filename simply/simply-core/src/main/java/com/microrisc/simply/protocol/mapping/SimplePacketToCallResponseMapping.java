@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.protocol.mapping;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
 import java.util.Collection;
 import java.util.List;
@@ -49,18 +50,18 @@ implements PacketToCallResponseMapping {
     private static final Logger logger = LoggerFactory.getLogger(SimplePacketToCallResponseMapping.class);
     
     // Indicates, wheather specified packet fullfils specified packet values.
-    private boolean isCompatible(short[] packet, List<PacketPositionValues> packetPosValues) 
+    static boolean isCompatible(BytePacket packet, List<PacketPositionValues> packetPosValues) 
     {
         logger.debug("isCompatible - start: packet={}, packetValues={}", 
                 packet, packetPosValues);
         
         for (PacketPositionValues packetPosValue : packetPosValues) {
-            if (packetPosValue.getPosition() >= packet.length) {
+            if (packetPosValue.getPosition() >= packet.length()) {
                 logger.debug("isCompatible - end: {}", false);
                 return false;
             }
             
-            if (!packetPosValue.canBeAtPosition(packet[packetPosValue.getPosition()])) {
+            if (!packetPosValue.canBeAtPosition(packet.get(packetPosValue.getPosition()))) {
                 logger.debug("isCompatible - end: {}", false);
                 return false;
             }
@@ -77,7 +78,7 @@ implements PacketToCallResponseMapping {
      * @return {@code true} if packet is compatible
      *         {@code false} otherwise
      */
-    private boolean isResultCompatible(short[] packet, PacketToValueMapping resultMapping) {
+    static boolean isResultCompatible(BytePacket packet, PacketToValueMapping resultMapping) {
         logger.debug("isResultCompatible - start: packet={}, resultMapping={}", 
                 packet, resultMapping);
         
@@ -91,7 +92,7 @@ implements PacketToCallResponseMapping {
             lastResultPos += resultMapping.getLength();
         }
         
-        if (lastResultPos == packet.length - 1) {
+        if (lastResultPos == packet.length() - 1) {
             logger.debug("isResultCompatible - end: {}", true);
             return true;
         }
@@ -119,13 +120,41 @@ implements PacketToCallResponseMapping {
         this.additionalDataMapping = additionalDataMapping;
     }
     
+    /**
+     * @return network mapping
+     */
+    PacketToValueMapping getNetworkMapping() {
+        return networkMapping;
+    }
+    
+    /**
+     * @return node mapping
+     */
+    PacketToValueMapping getNodeMapping() {
+        return nodeMapping;
+    }
+    
+    /**
+     * @return Device Interface mappings
+     */
+    Map<Class, PacketToInterfaceMapping> getInterfaceMappings() {
+        return interfaceMappings;
+    }
+    
+    /**
+     * @return additional data mapping
+     */
+    PacketToValueMapping getAdditionalDataMapping() {
+        return additionalDataMapping;
+    }
+    
     @Override
     public Set<Class> getSupportedDeviceInterfaces() {
         return interfaceMappings.keySet();
     }
     
     @Override
-    public String getNetworkId(short[] packet) throws ValueConversionException {
+    public String getNetworkId(BytePacket packet) throws ValueConversionException {
         logger.debug("getNetworkId - start: packet={}", packet);
         
         String networkId = (String)Deserializer.deserialize(networkMapping, packet);
@@ -135,7 +164,7 @@ implements PacketToCallResponseMapping {
     }
     
     @Override
-    public String getNodeId(short[] packet) throws ValueConversionException {
+    public String getNodeId(BytePacket packet) throws ValueConversionException {
         logger.debug("getNodeId - start: packet={}", packet);
         
         String nodeId = (String)Deserializer.deserialize(nodeMapping, packet);
@@ -146,7 +175,7 @@ implements PacketToCallResponseMapping {
     
     
     @Override
-    public Class getDeviceInterface(short[] packet) {
+    public Class getDeviceInterface(BytePacket packet) {
         logger.debug("getDeviceInterface - start: packet={}", packet);
         
         int bestEquality = 0;
@@ -167,7 +196,7 @@ implements PacketToCallResponseMapping {
     }
     
     @Override
-    public String getMethodId(Class devInterface, short[] packet) {
+    public String getMethodId(Class devInterface, BytePacket packet) {
         logger.debug("getMethodId - start: devInterface={}, packet={}", 
                 devInterface, packet
         );
@@ -201,7 +230,7 @@ implements PacketToCallResponseMapping {
     
     @Override
     public Object getMethodResult(
-            Class devInterface, String methodId, short[] protoMsg
+            Class devInterface, String methodId, BytePacket protoMsg
     ) throws ValueConversionException {
         Object logArgs[] = new Object[3];
         logArgs[0] = devInterface;
@@ -233,7 +262,7 @@ implements PacketToCallResponseMapping {
     }
     
     @Override
-    public Object getAdditionalData(short[] packet) throws ValueConversionException 
+    public Object getAdditionalData(BytePacket packet) throws ValueConversionException 
     {
         logger.debug("getAdditionalData - start: packet={}", packet);
         
@@ -243,6 +272,38 @@ implements PacketToCallResponseMapping {
         return additionalData;
     }
     
+    @Override
+    public String getNetworkId(short[] packet) throws ValueConversionException {
+        return getNetworkId(BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public String getNodeId(short[] packet) throws ValueConversionException {
+        return getNodeId(BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public Class getDeviceInterface(short[] packet) {
+        return getDeviceInterface(BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public String getMethodId(Class devInterface, short[] packet) {
+        return getMethodId(devInterface, BytePacket.fromShortArray(packet));
+    }
+    
+    @Override
+    public Object getMethodResult(
+            Class devInterface, String methodId, short[] protoMsg
+    ) throws ValueConversionException {
+        return getMethodResult(devInterface, methodId, BytePacket.fromShortArray(protoMsg));
+    }
+    
+    @Override
+    public Object getAdditionalData(short[] packet) throws ValueConversionException {
+        return getAdditionalData(BytePacket.fromShortArray(packet));
+    }
+    
     @Override
     public String toString() {
         return ("{ " +
@@ -16,6 +16,8 @@
 
 package com.microrisc.simply.typeconvertors;
 
+import com.microrisc.simply.BytePacket;
+
 /**
  * Abstract base class for conversion data between generic types and Java types 
  * via used application protocol. Conversion to generic is done by encoding 
@@ -46,4 +48,18 @@ abstract public class AbstractConvertor {
      * @throws ValueConversionException if an error is encountered inside input sequence
      */
     abstract public Object toObject(short[] protoValue) throws ValueConversionException;
+    
+    /**
+     * Converts specified application protocol sequence of bytes, which represents 
+     * generic type value, to corresponding Java type value. <br>
+     * Default implementation converts the packet to {@code short[]} and calls
+     * {@link #toObject(short[]) }. Convertors should override this method,
+     * if they are able to read values directly from the packet.
+     * @param protoValue application protocol value to convert
+     * @return Java-type value of converted value
+     * @throws ValueConversionException if an error is encountered inside input sequence
+     */
+    public Object toObject(BytePacket protoValue) throws ValueConversionException {
+        return toObject(protoValue.toShortArray());
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.typeconvertors;
 
+import com.microrisc.simply.BytePacket;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import org.slf4j.Logger;
@@ -103,4 +104,20 @@ public final class StringToByteConvertor extends PrimitiveConvertor {
         logger.debug("toObject - end: {}", numValueStr);
         return numValueStr;
     }    
+    
+    @Override
+    public Object toObject(BytePacket iqValue) throws ValueConversionException {
+        logger.debug("toObject - start: iqValue={}", iqValue);
+        
+        if ( iqValue.length() != TYPE_SIZE ) {
+            throw new ValueConversionException(
+                "Argument length doesn't match with type size"
+            );
+        }
+        
+        String numValueStr = String.valueOf(iqValue.get(0));
+        
+        logger.debug("toObject - end: {}", numValueStr);
+        return numValueStr;
+    }
 }
@@ -0,0 +1,300 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.utilities;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Hashed timer wheel for tracking of expiration of items.
+ * <p>
+ * Time is divided into ticks of fixed duration. Each item is put into the slot
+ * of the wheel, which corresponds to the tick of its expiration. Scheduling,
+ * rescheduling and cancelling of an item are O(1) operations. Expired items
+ * are collected by the {@link #expire(long) } method, which visits only slots
+ * of ticks elapsed since its last call.
+ * <p>
+ * The wheel doesn't run any thread of its own and it is NOT thread safe.
+ * Users must synchronize access to it.
+ *
+ * @param <T> type of tracked items
+ *
+ * @author Michal Konopa
+ */
+public final class HashedTimerWheel<T> {
+    
+    /**
+     * Scheduled expiration of one item.
+     * @param <T> type of item
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private long deadline;
+        
+        // slot, which this timeout is in, -1 if in no slot
+        private int slotIndex = -1;
+        
+        // neighbours in the slot
+        private Timeout<T> prev = null;
+        private Timeout<T> next = null;
+        
+        private Timeout(T item) {
+            this.item = item;
+        }
+        
+        /**
+         * Returns tracked item.
+         * @return tracked item
+         */
+        public T getItem() {
+            return item;
+        }
+        
+        /**
+         * Returns time of expiration [in ms].
+         * @return time of expiration
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+        
+        /**
+         * Indicates, wheather this timeout is scheduled in the wheel, i.e. it
+         * is neither expired nor cancelled.
+         * @return {@code true} if this timeout is scheduled <br>
+         *         {@code false} otherwise
+         */
+        public boolean isScheduled() {
+            return ( slotIndex != -1 );
+        }
+    }
+    
+    
+    /** Default duration of one tick [in ms]. */
+    public static final long TICK_DURATION_DEFAULT = 100;
+    
+    /** Default number of slots of the wheel. */
+    public static final int WHEEL_SIZE_DEFAULT = 512;
+    
+    
+    // duration of one tick [in ms]
+    private final long tickDuration;
+    
+    // heads of slots
+    private final Timeout<T>[] slots;
+    
+    // mask for computing slot index, number of slots is the power of 2
+    private final int mask;
+    
+    // the last tick, which has been processed, i.e. whose slot has been visited
+    private long lastTick;
+    
+    // number of scheduled timeouts
+    private int size = 0;
+    
+    
+    private static long checkTickDuration(long tickDuration) {
+        if ( tickDuration <= 0 ) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        return tickDuration;
+    }
+    
+    private static int checkWheelSize(int wheelSize) {
+        if ( wheelSize <= 0 ) {
+            throw new IllegalArgumentException("Wheel size must be positive");
+        }
+        return wheelSize;
+    }
+    
+    // creates array of slots, arrays of generic type cannot be created directly
+    @SuppressWarnings("unchecked")
+    private static <T> Timeout<T>[] createSlots(int size) {
+        return (Timeout<T>[]) new Timeout[size];
+    }
+    
+    // returns nearest power of 2 greater or equal to specified number
+    private static int normalizeWheelSize(int wheelSize) {
+        int normalized = 1;
+        while ( normalized < wheelSize ) {
+            normalized <<= 1;
+        }
+        return normalized;
+    }
+    
+    private static long checkDelay(long delay) {
+        if ( delay < 0 ) {
+            throw new IllegalArgumentException("Delay must be nonnegative");
+        }
+        return delay;
+    }
+    
+    private void checkTimeout(Timeout<T> timeout) {
+        if ( timeout == null ) {
+            throw new IllegalArgumentException("Timeout cannot be null");
+        }
+    }
+    
+    // inserts the timeout into its slot
+    private void insert(Timeout<T> timeout) {
+        long deadlineTick = timeout.deadline / tickDuration;
+        
+        // expiration in the past is handled in the next processed tick
+        if ( deadlineTick <= lastTick ) {
+            deadlineTick = lastTick + 1;
+        }
+        
+        int slotIndex = (int)( deadlineTick & mask );
+        
+        timeout.slotIndex = slotIndex;
+        timeout.prev = null;
+        timeout.next = slots[slotIndex];
+        if ( slots[slotIndex] != null ) {
+            slots[slotIndex].prev = timeout;
+        }
+        slots[slotIndex] = timeout;
+        size++;
+    }
+    
+    // removes the timeout from its slot
+    private void unlink(Timeout<T> timeout) {
+        if ( timeout.prev != null ) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slotIndex] = timeout.next;
+        }
+        if ( timeout.next != null ) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.slotIndex = -1;
+        size--;
+    }
+    
+    
+    /**
+     * Creates new timer wheel with specified tick duration and number of slots.
+     * @param tickDuration duration of one tick [in ms], must be positive
+     * @param wheelSize number of slots of the wheel, must be positive. It is
+     *        rounded up to the nearest power of 2.
+     * @throws IllegalArgumentException if {@code tickDuration} or {@code wheelSize}
+     *         is not positive
+     */
+    public HashedTimerWheel(long tickDuration, int wheelSize) {
+        this.tickDuration = checkTickDuration(tickDuration);
+        int normalizedSize = normalizeWheelSize(checkWheelSize(wheelSize));
+        this.slots = createSlots(normalizedSize);
+        this.mask = normalizedSize - 1;
+        this.lastTick = System.currentTimeMillis() / tickDuration - 1;
+    }
+    
+    /**
+     * Creates new timer wheel with default tick duration and number of slots.
+     */
+    public HashedTimerWheel() {
+        this(TICK_DURATION_DEFAULT, WHEEL_SIZE_DEFAULT);
+    }
+    
+    /**
+     * Schedules expiration of specified item after specified delay from now.
+     * @param item item to track
+     * @param delay delay [in ms] of expiration, must be nonnegative
+     * @return scheduled timeout
+     * @throws IllegalArgumentException if {@code delay} is negative
+     */
+    public Timeout<T> schedule(T item, long delay) {
+        checkDelay(delay);
+        Timeout<T> timeout = new Timeout<>(item);
+        timeout.deadline = System.currentTimeMillis() + delay;
+        insert(timeout);
+        return timeout;
+    }
+    
+    /**
+     * Reschedules specified timeout to expire after specified delay from now.
+     * If the timeout is not scheduled, it is scheduled again.
+     * @param timeout timeout to reschedule
+     * @param delay new delay [in ms] of expiration, must be nonnegative
+     * @throws IllegalArgumentException if {@code timeout} is {@code null} or
+     *         {@code delay} is negative
+     */
+    public void reschedule(Timeout<T> timeout, long delay) {
+        checkTimeout(timeout);
+        checkDelay(delay);
+        if ( timeout.isScheduled() ) {
+            unlink(timeout);
+        }
+        timeout.deadline = System.currentTimeMillis() + delay;
+        insert(timeout);
+    }
+    
+    /**
+     * Cancels specified timeout. Does nothing, if the timeout is not scheduled.
+     * @param timeout timeout to cancel
+     * @throws IllegalArgumentException if {@code timeout} is {@code null}
+     */
+    public void cancel(Timeout<T> timeout) {
+        checkTimeout(timeout);
+        if ( timeout.isScheduled() ) {
+            unlink(timeout);
+        }
+    }
+    
+    /**
+     * Removes and returns expired items. An item is returned during the first 
+     * call, whose {@code now} is after the end of the tick of its expiration, 
+     * i.e. items expire with the precision of one tick.
+     * @param now current time [in ms]
+     * @return list of expired items, empty list if no item has expired
+     */
+    public List<T> expire(long now) {
+        List<T> expiredItems = new LinkedList<>();
+        
+        // the last tick, which has completely elapsed
+        long currentTick = now / tickDuration - 1;
+        if ( currentTick <= lastTick ) {
+            return expiredItems;
+        }
+        
+        // each slot is visited at most once during one call, timeouts of later 
+        // rounds in a visited slot have not expired yet and stay in it
+        long ticksToProcess = Math.min(currentTick - lastTick, slots.length);
+        for ( long tick = lastTick + 1; tick <= lastTick + ticksToProcess; tick++ ) {
+            Timeout<T> timeout = slots[(int)( tick & mask )];
+            while ( timeout != null ) {
+                Timeout<T> next = timeout.next;
+                if ( timeout.deadline <= now ) {
+                    unlink(timeout);
+                    expiredItems.add(timeout.item);
+                }
+                timeout = next;
+            }
+        }
+        
+        lastTick = currentTick;
+        return expiredItems;
+    }
+    
+    /**
+     * Returns number of scheduled timeouts.
+     * @return number of scheduled timeouts
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -24,6 +24,8 @@ import com.microrisc.simply.Network;
 import com.microrisc.simply.SimplyException;
 import com.microrisc.simply.asynchrony.AsynchronousMessagesGenerator;
 import com.microrisc.simply.asynchrony.AsynchronousMessagingManager;
+import com.microrisc.simply.asynchrony.DispatchOverflowPolicy;
+import com.microrisc.simply.asynchrony.DispatcherConfiguration;
 import com.microrisc.simply.config.ConfigurationReader;
 import com.microrisc.simply.connector.Connector;
 import com.microrisc.simply.iqrf.dpa.DPA_Simply;
@@ -84,8 +86,48 @@ public final class DPA_SimplyFactory {
         );
     }
     
+    /**
+     * Creates configuration of dispatching of asynchronous messages. Dispatching
+     * is turned on only if it is explicitly configured, because it changes 
+     * threading of existing listeners.
+     * @param configuration source configuration
+     * @return configuration of dispatching <br>
+     *         {@code null}, if messages are to be delivered in the thread of connector
+     */
+    private static DispatcherConfiguration createDispatcherConfiguration(
+            Configuration configuration
+    ) {
+        if ( configuration.getInt("asynchrony.dispatcher", 0) <= 0 ) {
+            return null;
+        }
+        
+        return new DispatcherConfiguration.Builder()
+                .threadsNum(
+                    configuration.getInt(
+                        "asynchrony.dispatcher.threads", 
+                        DispatcherConfiguration.DEFAULT_THREADS_NUM
+                    )
+                )
+                .queueCapacity(
+                    configuration.getInt(
+                        "asynchrony.dispatcher.queueCapacity", 
+                        DispatcherConfiguration.DEFAULT_QUEUE_CAPACITY
+                    )
+                )
+                .overflowPolicy(
+                    DispatchOverflowPolicy.valueOf(
+                        configuration.getString(
+                            "asynchrony.dispatcher.overflowPolicy", 
+                            DispatcherConfiguration.DEFAULT_OVERFLOW_POLICY.name()
+                        )
+                    )
+                )
+                .build();
+    }
+    
     /**
      * Creates new asynchronous messaging manager and returns it.
+     * @param configuration source configuration
      * @param connector connector to use
      * @return asynchronous messaging manager
      * @throws SimplyException if specified connector doesn't support asynchronous
@@ -94,11 +136,20 @@ public final class DPA_SimplyFactory {
     private static AsynchronousMessagingManager<
                         DPA_AsynchronousMessage, DPA_AsynchronousMessageProperties
                    > createAsynchronousMessagingManager
-    (Connector connector) throws SimplyException {
+    (Configuration configuration, Connector connector) throws SimplyException {
         if ( !(connector instanceof AsynchronousMessagesGenerator) ) {
             throw new SimplyException("Connector doesn't support asynchronous messages generator.");
         }
-        return new DPA_AsynchronousMessagingManager();
+        
+        DispatcherConfiguration dispatcherConfig = createDispatcherConfiguration(configuration);
+        if ( dispatcherConfig == null ) {
+            return new DPA_AsynchronousMessagingManager();
+        }
+        
+        DPA_AsynchronousMessagingManager asyncManager 
+                = new DPA_AsynchronousMessagingManager(dispatcherConfig);
+        asyncManager.start();
+        return asyncManager;
     }
     
     /**
@@ -129,7 +180,9 @@ public final class DPA_SimplyFactory {
             networkMap = new DPA_Initializer().initialize(initObjects);
             connStack = initObjects.getConnectionStack();
             broadcastServices = createBroadcastServices(configuration, connStack.getConnector());
-            asyncManager = createAsynchronousMessagingManager(connStack.getConnector());
+            asyncManager = createAsynchronousMessagingManager(
+                    configuration, connStack.getConnector()
+            );
         } catch ( Exception e ) {
             throw new SimplyException(e);
         }
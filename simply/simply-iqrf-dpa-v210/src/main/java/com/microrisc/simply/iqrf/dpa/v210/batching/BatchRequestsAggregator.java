@@ -0,0 +1,168 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.batching;
+
+import com.microrisc.simply.CallRequest;
+import com.microrisc.simply.DeviceInterfaceMethodId;
+import com.microrisc.simply.di_services.MethodIdTransformer;
+import com.microrisc.simply.iqrf.dpa.broadcasting.BroadcastRequest;
+import com.microrisc.simply.iqrf.dpa.connector.CallRequestsAggregator;
+import com.microrisc.simply.iqrf.dpa.v210.devices.GeneralLED;
+import com.microrisc.simply.iqrf.dpa.v210.devices.IO;
+import com.microrisc.simply.iqrf.dpa.v210.devices.LEDG;
+import com.microrisc.simply.iqrf.dpa.v210.devices.LEDR;
+import com.microrisc.simply.iqrf.dpa.v210.devices.OS;
+import com.microrisc.simply.iqrf.dpa.v210.devices.PWM;
+import com.microrisc.simply.iqrf.dpa.v210.di_services.method_id_transformers.StandardMethodIdTransformers;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
+import com.microrisc.simply.iqrf.dpa.v210.typeconvertors.BatchCommandConvertor;
+import com.microrisc.simply.iqrf.dpa.v210.types.DPA_Request;
+import com.microrisc.simply.typeconvertors.ValueConversionException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates requests to the same node into one request of the Batch command
+ * of OS peripheral.
+ * <p>
+ * Aggregable are requests of methods, which only set state of a peripheral 
+ * and return no data: setting and pulsing of LEDs, setting of direction and 
+ * output state of IO pins and setting of PWM. All aggregated requests must 
+ * have the same HW profile and the resulting batch must fit into data of one 
+ * DPA request.
+ * 
+ * @author Michal Konopa
+ */
+public final class BatchRequestsAggregator implements CallRequestsAggregator {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(BatchRequestsAggregator.class);
+    
+    // aggregable methods indexed by device interfaces and string method IDs
+    private static final Map<Class, Map<String, DeviceInterfaceMethodId>> aggregableMethods 
+            = new HashMap<>();
+    
+    private static void addAggregableMethods(Class devIface, DeviceInterfaceMethodId... methodIds) {
+        MethodIdTransformer transformer = StandardMethodIdTransformers.getInstance().
+                getTransformer(devIface);
+        Map<String, DeviceInterfaceMethodId> ifaceMethods = new HashMap<>();
+        for ( DeviceInterfaceMethodId methodId : methodIds ) {
+            ifaceMethods.put(transformer.transform(methodId), methodId);
+        }
+        aggregableMethods.put(devIface, ifaceMethods);
+    }
+    
+    private static void initAggregableMethods() {
+        addAggregableMethods(LEDR.class, GeneralLED.MethodID.SET, GeneralLED.MethodID.PULSE);
+        addAggregableMethods(LEDG.class, GeneralLED.MethodID.SET, GeneralLED.MethodID.PULSE);
+        addAggregableMethods(IO.class, IO.MethodID.SET_DIRECTION, IO.MethodID.SET_OUTPUT_STATE);
+        addAggregableMethods(PWM.class, PWM.MethodID.SET);
+    }
+    
+    static {
+        initAggregableMethods();
+    }
+    
+    // string ID of batch method
+    private static final String BATCH_METHOD_ID = StandardMethodIdTransformers.getInstance().
+            getTransformer(OS.class).transform(OS.MethodID.BATCH);
+    
+    
+    // returns aggregable method of specified request or null
+    private static DeviceInterfaceMethodId getAggregableMethod(CallRequest request) {
+        Map<String, DeviceInterfaceMethodId> ifaceMethods 
+                = aggregableMethods.get(request.getDeviceInterface());
+        if ( ifaceMethods == null ) {
+            return null;
+        }
+        return ifaceMethods.get(request.getMethodId());
+    }
+    
+    // HW profile is the first argument of each request
+    private static Integer getHwProfile(CallRequest request) {
+        Object[] args = request.getArgs();
+        if ( (args.length == 0) || !(args[0] instanceof Integer) ) {
+            return null;
+        }
+        return (Integer) args[0];
+    }
+    
+    private static DPA_Request toDPA_Request(CallRequest request) {
+        Object[] args = request.getArgs();
+        return new DPA_Request(
+                request.getDeviceInterface(), getAggregableMethod(request), 
+                Arrays.copyOfRange(args, 1, args.length), getHwProfile(request)
+        );
+    }
+    
+    
+    @Override
+    public boolean isAggregable(CallRequest request) {
+        if ( request instanceof BroadcastRequest ) {
+            return false;
+        }
+        return ( (getAggregableMethod(request) != null) && (getHwProfile(request) != null) );
+    }
+    
+    @Override
+    public CallRequest aggregate(List<CallRequest> requests) {
+        logger.debug("aggregate - start: requests={}", requests);
+        
+        if ( requests.isEmpty() ) {
+            logger.debug("aggregate - end: null");
+            return null;
+        }
+        
+        CallRequest firstRequest = requests.get(0);
+        Integer hwProfile = getHwProfile(firstRequest);
+        
+        DPA_Request[] dpaRequests = new DPA_Request[requests.size()];
+        int requestId = 0;
+        for ( CallRequest request : requests ) {
+            if ( !isAggregable(request) || !hwProfile.equals(getHwProfile(request)) ) {
+                logger.debug("aggregate - end: null");
+                return null;
+            }
+            dpaRequests[requestId++] = toDPA_Request(request);
+        }
+        
+        // the whole batch must fit into data of one request
+        try {
+            short[] batchData = BatchCommandConvertor.getInstance().toProtoValue(dpaRequests);
+            if ( batchData.length > DPA_ProtocolProperties.PDATA_MAX_LENGTH ) {
+                logger.debug("aggregate - end: null");
+                return null;
+            }
+        } catch ( ValueConversionException ex ) {
+            logger.warn("Requests cannot be converted into batch", ex);
+            logger.debug("aggregate - end: null");
+            return null;
+        }
+        
+        CallRequest batchRequest = new CallRequest(
+                UUID.randomUUID(), firstRequest.getNetworkId(), firstRequest.getNodeId(),
+                OS.class, BATCH_METHOD_ID, new Object[] { hwProfile, dpaRequests }
+        );
+        
+        logger.debug("aggregate - end: {}", batchRequest);
+        return batchRequest;
+    }
+}
@@ -0,0 +1,87 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.coalescing;
+
+import com.microrisc.simply.CallRequest;
+import com.microrisc.simply.DeviceInterfaceMethodId;
+import com.microrisc.simply.di_services.MethodIdTransformer;
+import com.microrisc.simply.iqrf.dpa.broadcasting.BroadcastRequest;
+import com.microrisc.simply.iqrf.dpa.connector.CallRequestsCoalescingPolicy;
+import com.microrisc.simply.iqrf.dpa.v210.devices.GeneralLED;
+import com.microrisc.simply.iqrf.dpa.v210.devices.IO;
+import com.microrisc.simply.iqrf.dpa.v210.devices.LEDG;
+import com.microrisc.simply.iqrf.dpa.v210.devices.LEDR;
+import com.microrisc.simply.iqrf.dpa.v210.devices.OS;
+import com.microrisc.simply.iqrf.dpa.v210.devices.PeripheralInfoGetter;
+import com.microrisc.simply.iqrf.dpa.v210.devices.Thermometer;
+import com.microrisc.simply.iqrf.dpa.v210.di_services.method_id_transformers.StandardMethodIdTransformers;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allows coalescing of requests of methods, which only read a state of a 
+ * device and don't change it: reading of OS information and HWP configuration, 
+ * reading of thermometer, IO pins and LEDs and getting of information about 
+ * peripherals. Requests of all other methods, e.g. pulsing of LEDs, writing 
+ * into UART or SPI or restart of OS, are always sent separately.
+ * 
+ * @author Michal Konopa
+ */
+public final class ReadRequestsCoalescingPolicy implements CallRequestsCoalescingPolicy {
+    // string IDs of coalescable methods indexed by device interfaces
+    private static final Map<Class, Set<String>> coalescableMethods = new HashMap<>();
+    
+    private static void addCoalescableMethods(Class devIface, DeviceInterfaceMethodId... methodIds) {
+        MethodIdTransformer transformer = StandardMethodIdTransformers.getInstance().
+                getTransformer(devIface);
+        Set<String> ifaceMethods = new HashSet<>();
+        for ( DeviceInterfaceMethodId methodId : methodIds ) {
+            ifaceMethods.add(transformer.transform(methodId));
+        }
+        coalescableMethods.put(devIface, ifaceMethods);
+    }
+    
+    private static void initCoalescableMethods() {
+        addCoalescableMethods(OS.class, OS.MethodID.READ, OS.MethodID.READ_HWP_CONFIGURATION);
+        addCoalescableMethods(Thermometer.class, Thermometer.MethodID.GET);
+        addCoalescableMethods(IO.class, IO.MethodID.GET);
+        addCoalescableMethods(LEDR.class, GeneralLED.MethodID.GET);
+        addCoalescableMethods(LEDG.class, GeneralLED.MethodID.GET);
+        addCoalescableMethods(PeripheralInfoGetter.class, 
+                PeripheralInfoGetter.MethodID.GET_PERIPHERAL_ENUMERATION,
+                PeripheralInfoGetter.MethodID.GET_PERIPHERAL_INFO,
+                PeripheralInfoGetter.MethodID.GET_MORE_PERIPHERALS_INFO
+        );
+    }
+    
+    static {
+        initCoalescableMethods();
+    }
+    
+    
+    @Override
+    public boolean isCoalescable(CallRequest request) {
+        if ( request instanceof BroadcastRequest ) {
+            return false;
+        }
+        
+        Set<String> ifaceMethods = coalescableMethods.get(request.getDeviceInterface());
+        return ( (ifaceMethods != null) && ifaceMethods.contains(request.getMethodId()) );
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.dpa.v210.di_services;
 
+import com.microrisc.simply.di_services.RequestSchedulingService;
 import com.microrisc.simply.di_services.StandardServices;
 import com.microrisc.simply.iqrf.dpa.di_services.HwProfileService;
 
@@ -25,5 +26,8 @@ import com.microrisc.simply.iqrf.dpa.di_services.HwProfileService;
  * @author Michal Konopa
  */
 public interface DPA_StandardServices 
-extends StandardServices, DPA_AdditionalInfoService, HwProfileService {
+extends 
+    StandardServices, DPA_AdditionalInfoService, HwProfileService, 
+    RequestSchedulingService 
+{
 }
@@ -0,0 +1,66 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.frc_polling;
+
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_Command;
+
+/**
+ * Type of data collected from each node by FRC command.
+ * 
+ * @author Michal Konopa
+ */
+public enum FRC_CollectionType {
+    /** 2 bits are collected from each node. */
+    BITS,
+    
+    /** 1 byte is collected from each node. */
+    BYTES;
+    
+    
+    /** Minimal ID of FRC command collecting bytes. */
+    private static final int BYTES_COMMAND_ID_MIN = 0x80;
+    
+    /** Minimal ID of FRC command collecting 2 bytes. */
+    private static final int TWO_BYTES_COMMAND_ID_MIN = 0xE0;
+    
+    
+    /**
+     * Returns type of collected data of specified FRC command.
+     * @param command FRC command
+     * @return type of collected data
+     * @throws IllegalArgumentException if {@code command} is {@code null} or
+     *         it collects data of unsupported type
+     */
+    public static FRC_CollectionType forCommand(FRC_Command command) {
+        if ( command == null ) {
+            throw new IllegalArgumentException("FRC command cannot be null");
+        }
+        
+        int commandId = command.getId();
+        if ( commandId < BYTES_COMMAND_ID_MIN ) {
+            return BITS;
+        }
+        
+        if ( commandId < TWO_BYTES_COMMAND_ID_MIN ) {
+            return BYTES;
+        }
+        
+        throw new IllegalArgumentException(
+                "Unsupported type of collected data of FRC command: " + commandId
+        );
+    }
+}
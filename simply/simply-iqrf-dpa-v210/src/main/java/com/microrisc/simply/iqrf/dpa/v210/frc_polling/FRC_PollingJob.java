@@ -0,0 +1,134 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.frc_polling;
+
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_Command;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Job of FRC polling. Specifies FRC command to send, nodes to poll and 
+ * unicast fallback for nodes, which don't respond to the FRC command.
+ * 
+ * @param <V> type of values read by unicast fallback
+ * 
+ * @author Michal Konopa
+ */
+public final class FRC_PollingJob<V> {
+    // FRC command to send
+    private final FRC_Command command;
+    
+    // type of collected data
+    private final FRC_CollectionType collectionType;
+    
+    // addresses of nodes to poll, empty for all nodes of the network
+    private final Set<Integer> nodes;
+    
+    // unicast fallback
+    private final FRC_UnicastFallback<V> unicastFallback;
+    
+    
+    public static class Builder<V> {
+        private final FRC_Command command;
+        private Collection<Integer> nodes = Collections.emptySet();
+        private FRC_UnicastFallback<V> unicastFallback = null;
+        
+        public Builder(FRC_Command command) {
+            this.command = command;
+        }
+        
+        public Builder<V> nodes(Collection<Integer> nodes) {
+            this.nodes = nodes;
+            return this;
+        }
+        
+        public Builder<V> unicastFallback(FRC_UnicastFallback<V> unicastFallback) {
+            this.unicastFallback = unicastFallback;
+            return this;
+        }
+        
+        public FRC_PollingJob<V> build() {
+            return new FRC_PollingJob<>(this);
+        }
+    }
+    
+    
+    private static FRC_Command checkCommand(FRC_Command command) {
+        if ( command == null ) {
+            throw new IllegalArgumentException("FRC command cannot be null");
+        }
+        return command;
+    }
+    
+    private static Set<Integer> checkNodes(Collection<Integer> nodes) {
+        if ( nodes == null ) {
+            throw new IllegalArgumentException("Nodes cannot be null");
+        }
+        
+        Set<Integer> nodesSet = new TreeSet<>();
+        for ( Integer nodeAddress : nodes ) {
+            if ( (nodeAddress == null) || (nodeAddress < 1) 
+                    || (nodeAddress > DPA_ProtocolProperties.NADR_Properties.IQMESH_NODE_ADDRESS_MAX) 
+            ) {
+                throw new IllegalArgumentException("Invalid node address: " + nodeAddress);
+            }
+            nodesSet.add(nodeAddress);
+        }
+        return Collections.unmodifiableSet(nodesSet);
+    }
+    
+    
+    private FRC_PollingJob(Builder<V> builder) {
+        this.command = checkCommand(builder.command);
+        this.collectionType = FRC_CollectionType.forCommand(command);
+        this.nodes = checkNodes(builder.nodes);
+        this.unicastFallback = builder.unicastFallback;
+    }
+    
+    /**
+     * @return FRC command to send
+     */
+    public FRC_Command getCommand() {
+        return command;
+    }
+    
+    /**
+     * @return type of data collected by the FRC command
+     */
+    public FRC_CollectionType getCollectionType() {
+        return collectionType;
+    }
+    
+    /**
+     * @return addresses of nodes to poll <br>
+     *         empty set, if all nodes of the network are polled
+     */
+    public Set<Integer> getNodes() {
+        return nodes;
+    }
+    
+    /**
+     * @return unicast fallback for nodes, which don't respond to the FRC command <br>
+     *         {@code null}, if no fallback is used
+     */
+    public FRC_UnicastFallback<V> getUnicastFallback() {
+        return unicastFallback;
+    }
+}
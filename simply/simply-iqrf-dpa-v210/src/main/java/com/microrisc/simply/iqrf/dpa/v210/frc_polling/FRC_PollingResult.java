@@ -0,0 +1,165 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.frc_polling;
+
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_CollectedBitsResult;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_CollectedBytesResult;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of one run of FRC polling job.
+ * <p>
+ * Values collected by FRC command are accessible through compact results, 
+ * for example {@code FRC_Temperature.getTemperature(result.getBytesResult(), address)}.
+ * Values of nodes, which haven't responded to FRC command, are read by 
+ * unicast fallback of the job.
+ * 
+ * @param <V> type of values read by unicast fallback
+ * 
+ * @author Michal Konopa
+ */
+public final class FRC_PollingResult<V> {
+    /** Value of FRC status, if the FRC command failed. */
+    public static final int STATUS_FAILED = -1;
+    
+    
+    // job
+    private final FRC_PollingJob<V> job;
+    
+    // time of creation of this result
+    private final long time;
+    
+    // status of the FRC command
+    private final int status;
+    
+    // result of bits collection
+    private final FRC_CollectedBitsResult bitsResult;
+    
+    // result of bytes collection
+    private final FRC_CollectedBytesResult bytesResult;
+    
+    // polled nodes
+    private final Set<Integer> polledNodes;
+    
+    // polled nodes, which haven't responded to FRC command
+    private final Set<Integer> nonRespondingNodes;
+    
+    // values read by unicast fallback
+    private final Map<Integer, V> fallbackValues;
+    
+    
+    /**
+     * Creates new polling result.
+     */
+    FRC_PollingResult(
+            FRC_PollingJob<V> job, int status, 
+            FRC_CollectedBitsResult bitsResult, FRC_CollectedBytesResult bytesResult,
+            Set<Integer> polledNodes, Set<Integer> nonRespondingNodes, 
+            Map<Integer, V> fallbackValues
+    ) {
+        this.job = job;
+        this.time = System.currentTimeMillis();
+        this.status = status;
+        this.bitsResult = bitsResult;
+        this.bytesResult = bytesResult;
+        this.polledNodes = Collections.unmodifiableSet(polledNodes);
+        this.nonRespondingNodes = Collections.unmodifiableSet(nonRespondingNodes);
+        this.fallbackValues = Collections.unmodifiableMap(fallbackValues);
+    }
+    
+    /**
+     * @return job, which this result comes from
+     */
+    public FRC_PollingJob<V> getJob() {
+        return job;
+    }
+    
+    /**
+     * @return time of creation of this result [in ms]
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    /**
+     * @return status of FRC command returned by coordinator <br>
+     *         {@link #STATUS_FAILED}, if the FRC command failed
+     */
+    public int getStatus() {
+        return status;
+    }
+    
+    /**
+     * @return {@code true}, if the FRC command has been processed <br>
+     *         {@code false}, otherwise
+     */
+    public boolean isFrcSucceeded() {
+        return ( status != STATUS_FAILED );
+    }
+    
+    /**
+     * @return result of bits collection <br>
+     *         {@code null}, if the FRC command failed or collects bytes
+     */
+    public FRC_CollectedBitsResult getBitsResult() {
+        return bitsResult;
+    }
+    
+    /**
+     * @return result of bytes collection <br>
+     *         {@code null}, if the FRC command failed or collects bits
+     */
+    public FRC_CollectedBytesResult getBytesResult() {
+        return bytesResult;
+    }
+    
+    /**
+     * @return addresses of polled nodes
+     */
+    public Set<Integer> getPolledNodes() {
+        return polledNodes;
+    }
+    
+    /**
+     * @return addresses of polled nodes, which haven't responded to the FRC command
+     */
+    public Set<Integer> getNonRespondingNodes() {
+        return nonRespondingNodes;
+    }
+    
+    /**
+     * Indicates, whether specified node has responded to the FRC command.
+     * @param nodeAddress address of node
+     * @return {@code true}, if the node has been polled and has responded <br>
+     *         {@code false}, otherwise
+     */
+    public boolean isResponding(int nodeAddress) {
+        return ( isFrcSucceeded() && polledNodes.contains(nodeAddress) 
+                && !nonRespondingNodes.contains(nodeAddress) 
+        );
+    }
+    
+    /**
+     * @return values read by unicast fallback from nodes, which haven't 
+     *         responded to the FRC command. Node addresses are used as keys.
+     */
+    public Map<Integer, V> getFallbackValues() {
+        return fallbackValues;
+    }
+}
@@ -0,0 +1,345 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.frc_polling;
+
+import com.microrisc.simply.ManageableObject;
+import com.microrisc.simply.Network;
+import com.microrisc.simply.Node;
+import com.microrisc.simply.iqrf.dpa.v210.devices.FRC;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_CollectedBitsResult;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_CollectedBytesResult;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_Data;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_ResultParser;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls values from nodes of a network using FRC commands of the coordinator.
+ * <p>
+ * Each run of a job sends one FRC command, reads the FRC extra result and 
+ * publishes values of all polled nodes. Standard requests are sent only to 
+ * nodes, which haven't responded to the FRC command and only if the job 
+ * has an unicast fallback. Only one FRC command is processed at a time.
+ * <p>
+ * Nodes with addresses out of range of collected bytes are considered 
+ * as non-responding to FRC commands collecting bytes.
+ * 
+ * @author Michal Konopa
+ */
+public final class FRC_PollingService implements ManageableObject {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(FRC_PollingService.class);
+    
+    /** Length of complete FRC data. */
+    private static final int FRC_DATA_LENGTH = 64;
+    
+    
+    // polled network
+    private final Network network;
+    
+    // FRC of the coordinator
+    private final FRC coordFrc;
+    
+    // synchronizes sending of FRC commands together with reading of extra results
+    private final Object frcLock = new Object();
+    
+    // executor of periodic jobs
+    private ScheduledExecutorService executor = null;
+    
+    
+    private static Network checkNetwork(Network network) {
+        if ( network == null ) {
+            throw new IllegalArgumentException("Network cannot be null");
+        }
+        return network;
+    }
+    
+    private static FRC getCoordinatorFrc(Network network) {
+        Node coordNode = network.getNode("0");
+        if ( coordNode == null ) {
+            throw new IllegalArgumentException("Coordinator not found in network " + network.getId());
+        }
+        
+        FRC frc = coordNode.getDeviceObject(FRC.class);
+        if ( frc == null ) {
+            throw new IllegalArgumentException("FRC not found on coordinator");
+        }
+        return frc;
+    }
+    
+    private static void checkJob(FRC_PollingJob<?> job) {
+        if ( job == null ) {
+            throw new IllegalArgumentException("Job cannot be null");
+        }
+    }
+    
+    private static void checkListener(FRC_PollingListener<?> listener) {
+        if ( listener == null ) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+    }
+    
+    private static void checkPeriod(long period) {
+        if ( period <= 0 ) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+    }
+    
+    
+    // returns addresses of nodes to poll by specified job
+    private Set<Integer> getPolledNodes(FRC_PollingJob<?> job) {
+        if ( !job.getNodes().isEmpty() ) {
+            return new TreeSet<>(job.getNodes());
+        }
+        
+        Set<Integer> polledNodes = new TreeSet<>();
+        for ( String nodeId : network.getNodesMap().keySet() ) {
+            int nodeAddress;
+            try {
+                nodeAddress = Integer.parseInt(nodeId);
+            } catch ( NumberFormatException e ) {
+                continue;
+            }
+            
+            if ( (nodeAddress >= 1) 
+                    && (nodeAddress <= DPA_ProtocolProperties.NADR_Properties.IQMESH_NODE_ADDRESS_MAX) 
+            ) {
+                polledNodes.add(nodeAddress);
+            }
+        }
+        return polledNodes;
+    }
+    
+    // returns complete FRC data, missing extra data are replaced by zeros
+    private static short[] getCompleteFrcData(short[] frcData, short[] extraData) {
+        short[] completeData = Arrays.copyOf(frcData, FRC_DATA_LENGTH);
+        if ( extraData != null ) {
+            System.arraycopy(extraData, 0, completeData, frcData.length, 
+                    Math.min(extraData.length, FRC_DATA_LENGTH - frcData.length)
+            );
+        }
+        return completeData;
+    }
+    
+    private static boolean isResponding(FRC_CollectedBitsResult bitsResult, int nodeAddress) {
+        if ( nodeAddress >= FRC_CollectedBitsResult.NODES_NUM ) {
+            return false;
+        }
+        return ( (bitsResult.getBit0(nodeAddress) | bitsResult.getBit1(nodeAddress)) != 0 );
+    }
+    
+    private static boolean isResponding(FRC_CollectedBytesResult bytesResult, int nodeAddress) {
+        if ( (nodeAddress < FRC_CollectedBytesResult.MIN_NODE_ADDRESS)
+                || (nodeAddress > FRC_CollectedBytesResult.MAX_NODE_ADDRESS)
+        ) {
+            return false;
+        }
+        return ( bytesResult.getByte(nodeAddress) != 0 );
+    }
+    
+    // reads values of specified nodes using unicast fallback
+    private <V> Map<Integer, V> readByFallback(
+            FRC_UnicastFallback<V> fallback, Set<Integer> nodes
+    ) {
+        Map<Integer, V> values = new HashMap<>();
+        if ( fallback == null ) {
+            return values;
+        }
+        
+        for ( int nodeAddress : nodes ) {
+            Node node = network.getNode(String.valueOf(nodeAddress));
+            if ( node == null ) {
+                logger.warn("Node {} not found. Fallback not used.", nodeAddress);
+                continue;
+            }
+            
+            try {
+                V value = fallback.read(node);
+                if ( value != null ) {
+                    values.put(nodeAddress, value);
+                }
+            } catch ( RuntimeException e ) {
+                logger.error("Unicast fallback failed on node " + nodeAddress, e);
+            }
+        }
+        return values;
+    }
+    
+    
+    /**
+     * Creates new polling service for specified network.
+     * @param network network to poll
+     * @throws IllegalArgumentException if {@code network} is {@code null} or
+     *         the coordinator of the network or its FRC is not available
+     */
+    public FRC_PollingService(Network network) {
+        this.network = checkNetwork(network);
+        this.coordFrc = getCoordinatorFrc(network);
+    }
+    
+    @Override
+    public void start() {
+        logger.debug("start - start:");
+        
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "FRC_PollingService-" + network.getId());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        
+        logger.info("Started");
+        logger.debug("start - end");
+    }
+    
+    /**
+     * Runs specified job and returns its result. Blocks until the job is
+     * finished.
+     * @param <V> type of values read by unicast fallback
+     * @param job job to run
+     * @return result of the job
+     */
+    public <V> FRC_PollingResult<V> poll(FRC_PollingJob<V> job) {
+        logger.debug("poll - start: job={}", job);
+        
+        checkJob(job);
+        Set<Integer> polledNodes = getPolledNodes(job);
+        
+        FRC_Data frcData = null;
+        short[] extraData = null;
+        synchronized ( frcLock ) {
+            frcData = coordFrc.send(job.getCommand());
+            if ( frcData != null ) {
+                extraData = coordFrc.extraResult();
+            }
+        }
+        
+        if ( frcData == null ) {
+            logger.warn("FRC command failed: {}", coordFrc.getCallRequestProcessingErrorOfLastCall());
+            FRC_PollingResult<V> result = new FRC_PollingResult<>(
+                    job, FRC_PollingResult.STATUS_FAILED, null, null, polledNodes, 
+                    new TreeSet<Integer>(), new HashMap<Integer, V>()
+            );
+            logger.debug("poll - end: {}", result);
+            return result;
+        }
+        
+        if ( extraData == null ) {
+            logger.warn("Reading of FRC extra result failed. Nodes in extra result will be non-responding.");
+        }
+        short[] completeData = getCompleteFrcData(frcData.getData(), extraData);
+        
+        FRC_CollectedBitsResult bitsResult = null;
+        FRC_CollectedBytesResult bytesResult = null;
+        Set<Integer> nonRespondingNodes = new TreeSet<>();
+        switch ( job.getCollectionType() ) {
+            case BITS:
+                bitsResult = FRC_ResultParser.parseAsCollectedBitsResult(completeData);
+                for ( int nodeAddress : polledNodes ) {
+                    if ( !isResponding(bitsResult, nodeAddress) ) {
+                        nonRespondingNodes.add(nodeAddress);
+                    }
+                }
+                break;
+            case BYTES:
+                bytesResult = FRC_ResultParser.parseAsCollectedBytesResult(completeData);
+                for ( int nodeAddress : polledNodes ) {
+                    if ( !isResponding(bytesResult, nodeAddress) ) {
+                        nonRespondingNodes.add(nodeAddress);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unsupported collection type: " + job.getCollectionType());
+        }
+        
+        if ( !nonRespondingNodes.isEmpty() ) {
+            logger.info("Nodes not responding to FRC: {}", nonRespondingNodes);
+        }
+        
+        Map<Integer, V> fallbackValues = readByFallback(job.getUnicastFallback(), nonRespondingNodes);
+        
+        FRC_PollingResult<V> result = new FRC_PollingResult<>(
+                job, frcData.getStatus(), bitsResult, bytesResult, polledNodes, 
+                nonRespondingNodes, fallbackValues
+        );
+        
+        logger.debug("poll - end: {}", result);
+        return result;
+    }
+    
+    /**
+     * Runs specified job periodically and passes its results to specified listener.
+     * The first run starts immediately, next runs start after specified period 
+     * following the end of the previous run.
+     * @param <V> type of values read by unicast fallback
+     * @param job job to run
+     * @param listener listener of results of the job
+     * @param period period [in ms]
+     * @return future, which can be used to cancel the job
+     * @throws IllegalStateException if the service hasn't been started
+     */
+    public <V> ScheduledFuture<?> schedule(
+            final FRC_PollingJob<V> job, final FRC_PollingListener<V> listener, long period
+    ) {
+        checkJob(job);
+        checkListener(listener);
+        checkPeriod(period);
+        
+        if ( executor == null ) {
+            throw new IllegalStateException("Polling service not started");
+        }
+        
+        return executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    listener.onPollingResult(poll(job));
+                } catch ( Exception e ) {
+                    // exception would cancel all next runs
+                    logger.error("Error while running polling job", e);
+                }
+            }
+        }, 0, period, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public void destroy() {
+        logger.debug("destroy - start:");
+        
+        if ( executor != null ) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        
+        logger.info("Destroyed");
+        logger.debug("destroy - end");
+    }
+}
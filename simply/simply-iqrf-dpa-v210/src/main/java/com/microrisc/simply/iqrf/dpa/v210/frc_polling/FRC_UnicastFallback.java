@@ -0,0 +1,36 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.frc_polling;
+
+import com.microrisc.simply.Node;
+
+/**
+ * Reads value from node, which hasn't responded to FRC command.
+ * 
+ * @param <V> type of read value
+ * 
+ * @author Michal Konopa
+ */
+public interface FRC_UnicastFallback<V> {
+    /**
+     * Reads value from specified node using standard request.
+     * @param node node to read value from
+     * @return read value <br>
+     *         {@code null}, if the value cannot be read
+     */
+    V read(Node node);
+}
@@ -16,19 +16,26 @@
 
 package com.microrisc.simply.iqrf.dpa.v210.init;
 
+import com.microrisc.simply.NetworkLayerService;
 import com.microrisc.simply.init.AbstractInitObjectsFactory;
 import com.microrisc.simply.init.InitObjects;
 import com.microrisc.simply.init.InitConfigSettings;
 import com.microrisc.simply.init.SimpleInitObjectsFactory;
 import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_PeripheralToDevIfaceMapperFactory;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolLayer;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
 import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_StandardPerProtocolMappingFactory;
 import com.microrisc.simply.iqrf.dpa.protocol.PeripheralToDevIfaceMapper;
 import com.microrisc.simply.iqrf.dpa.protocol.PeripheralToDevIfaceMapperFactory;
 import com.microrisc.simply.iqrf.dpa.protocol.ProtocolObjects;
+import com.microrisc.simply.protocol.MessageConvertor;
+import com.microrisc.simply.protocol.ProtocolLayer;
 import com.microrisc.simply.protocol.mapping.CallRequestToPacketMapping;
+import com.microrisc.simply.protocol.mapping.CompiledPacketToCallResponseMapping;
 import com.microrisc.simply.protocol.mapping.PacketToCallResponseMapping;
 import com.microrisc.simply.protocol.mapping.ProtocolMapping;
 import com.microrisc.simply.protocol.mapping.ProtocolMappingFactory;
+import com.microrisc.simply.protocol.mapping.SimplePacketToCallResponseMapping;
 import com.microrisc.simply.protocol.mapping.SimpleProtocolMapping;
 import java.util.Map;
 import org.apache.commons.configuration.Configuration;
@@ -43,6 +50,12 @@ import org.apache.commons.configuration.Configuration;
  * - user DPA peripherals to Device Interafces factory class: 
  * <b>dpa.perToDevIfaceMapper.factory.class</b>
  * 
+ * - network lanes of DPA protocol layer, shared with DPA connector: 
+ * <b>dpa.networkLanes</b>
+ * 
+ * - adaptive timeouts of DPA protocol layer: 
+ * <b>protocolLayer.adaptiveTimeouts</b>
+ * 
  * 
  * @author Michal Konopa
  */
@@ -80,6 +93,37 @@ extends AbstractInitObjectsFactory<Configuration, SimpleDPA_InitObjects>
             return protoFactory.createProtocolMapping();   
         }
         
+        /**
+         * Puts together standard and user peripheral response mappings. If 
+         * both of them are simple mappings, they are compiled into dispatch 
+         * table keyed by peripheral number and peripheral command. 
+         * @param standardMapping standard peripheral response mapping
+         * @param userMapping user peripheral response mapping, can be {@code null}
+         * @return mapping composed of specified mappings
+         */
+        private PacketToCallResponseMapping createPacketToCallResponseMapping(
+                PacketToCallResponseMapping standardMapping, 
+                PacketToCallResponseMapping userMapping
+        ) {
+            if ( (standardMapping instanceof SimplePacketToCallResponseMapping) 
+                    && ( (userMapping == null) 
+                        || (userMapping instanceof SimplePacketToCallResponseMapping) )
+            ) {
+                return CompiledPacketToCallResponseMapping.compile(
+                        new SimplePacketToCallResponseMapping[] {
+                            (SimplePacketToCallResponseMapping)standardMapping,
+                            (SimplePacketToCallResponseMapping)userMapping
+                        },
+                        DPA_ProtocolProperties.PNUM_START, 
+                        DPA_ProtocolProperties.PCMD_START
+                );
+            }
+            
+            return new MultiPacketToCallResponseMapping( new PacketToCallResponseMapping[] { 
+                standardMapping, userMapping
+            } );
+        }
+        
         @Override
         protected ProtocolMapping createProtocolMapping(Configuration configuration) 
                 throws Exception {
@@ -101,16 +145,34 @@ extends AbstractInitObjectsFactory<Configuration, SimpleDPA_InitObjects>
                     } );
             
             PacketToCallResponseMapping multiResponseMapping = 
-                    new MultiPacketToCallResponseMapping( new PacketToCallResponseMapping[] { 
+                    createPacketToCallResponseMapping( 
                         standardProtoMapping.getPacketToCallResponseMapping(),
                         userResponseMapping
-                    } );
+                    );
             ProtocolMapping protocolMapping = new SimpleProtocolMapping(
                     multiRequestMapping, multiResponseMapping
             );
             _protocolMapping = protocolMapping;
             return protocolMapping;
         }
+        
+        @Override
+        protected ProtocolLayer createProtocolLayer(
+                NetworkLayerService networkLayerService, 
+                MessageConvertor msgConvertor, 
+                Configuration configuration
+        ) throws Exception {
+            ProtocolLayer protocolLayer = super.createProtocolLayer(
+                    networkLayerService, msgConvertor, configuration
+            );
+            if ( protocolLayer instanceof DPA_ProtocolLayer ) {
+                int networkLanes = configuration.getInt("dpa.networkLanes", 0);
+                ((DPA_ProtocolLayer)protocolLayer).setNetworkLanesEnabled( networkLanes > 0 );
+                int adaptiveTimeouts = configuration.getInt("protocolLayer.adaptiveTimeouts", 0);
+                ((DPA_ProtocolLayer)protocolLayer).setAdaptiveTimeoutsEnabled( adaptiveTimeouts > 0 );
+            }
+            return protocolLayer;
+        }
     }
     
     
@@ -26,11 +26,14 @@ import com.microrisc.simply.connector.response_waiting.ResponseWaitingConnector;
 import com.microrisc.simply.init.AbstractInitializer;
 import com.microrisc.simply.init.InitConfigSettings;
 import com.microrisc.simply.iqrf.dpa.v210.devices.Coordinator;
+import com.microrisc.simply.iqrf.dpa.v210.devices.OS;
 import com.microrisc.simply.iqrf.dpa.v210.devices.PeripheralInfoGetter;
 import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
 import com.microrisc.simply.iqrf.dpa.v210.types.BondedNodes;
+import com.microrisc.simply.iqrf.dpa.v210.types.DPA_AdditionalInfo;
 import com.microrisc.simply.iqrf.dpa.v210.types.DiscoveryParams;
 import com.microrisc.simply.iqrf.dpa.v210.types.DiscoveryResult;
+import com.microrisc.simply.iqrf.dpa.v210.types.OsInfo;
 import com.microrisc.simply.iqrf.dpa.v210.types.PeripheralEnumeration;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -40,12 +43,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Encapsulates inicialization process of DPA based networks.
+ * <p>
+ * If snapshot of enumeration is configured, enumerated networks are created
+ * from the snapshot without any communication with nodes. The networks are 
+ * then revalidated in the background: only nodes, whose module ID or HWPID
+ * has changed, are enumerated again and replaced in the network.
  * 
  * @author Michal Konopa
  */
@@ -66,6 +76,30 @@ extends
     /** Configuration settings for initializer. */
     private DPA_InitializerConfiguration dpaInitConfig = null;
     
+    /** Snapshot of enumerated networks, {@code null} if snapshot is not used. */
+    private EnumerationSnapshot snapshot = null;
+    
+    /** Indicates, whether the snapshot has been changed and needs to be saved. */
+    private boolean snapshotChanged = false;
+    
+    /** Nodes maps of networks created from the snapshot. */
+    private final Map<String, Map<String, Node>> networksFromSnapshot = new HashMap<>();
+    
+    
+    /** Identity of node. */
+    private static final class NodeIdentity {
+        // module ID
+        private final String moduleId;
+        
+        // HW profile ID, null if not known
+        private final Integer hwProfileId;
+        
+        NodeIdentity(String moduleId, Integer hwProfileId) {
+            this.moduleId = moduleId;
+            this.hwProfileId = hwProfileId;
+        }
+    }
+    
     
     /**
      * Creates and returns peripheral information object for specified node.
@@ -83,13 +117,25 @@ extends
     }
     
     /**
-     * Returns peripheral numbers provided by specified node.
+     * Creates and returns OS object for specified node.
+     */
+    private OS createOsObject(String networkId, String nodeId) throws Exception {
+        Class baseImplClass = initObjects.getImplClassMapper().getImplClass(OS.class);
+        
+        return (OS)devObjectFactory.getDeviceObject(
+                networkId, nodeId, initObjects.getConnectionStack().getConnector(),
+                baseImplClass, initObjects.getConfigSettings().getGeneralSettings()
+        );
+    }
+    
+    /**
+     * Returns peripheral enumeration of specified node.
      * @param infoDeviceObj
-     * @return set of peripheral numbers the device supports
+     * @return peripheral enumeration of the node
      */
-    private Set<Integer> getPeripheralNumbers(PeripheralInfoGetter infoDeviceObj) 
+    private PeripheralEnumeration getPeripheralEnumeration(PeripheralInfoGetter infoDeviceObj) 
             throws SimplyException {
-        logger.debug("getPeripheralNumbers - start: infoDeviceObj={}", infoDeviceObj);
+        logger.debug("getPeripheralEnumeration - start: infoDeviceObj={}", infoDeviceObj);
         
         GettingPeripheralsConfiguration gettingPerConfig 
                 = dpaInitConfig.getEnumerationConfiguration().getGettingPeripheralsConfiguration();
@@ -121,6 +167,16 @@ extends
             throw new SimplyException("No response from peripheral enumeration request.");
         }
         
+        logger.debug("getPeripheralEnumeration - end: {}", perEnum);
+        return perEnum;
+    }
+    
+    /**
+     * Returns peripheral numbers contained in specified peripheral enumeration.
+     * @param perEnum peripheral enumeration
+     * @return set of peripheral numbers the device supports
+     */
+    private static Set<Integer> getPeripheralNumbers(PeripheralEnumeration perEnum) {
         int[] defaultPerNumbers = perEnum.getDefaultPeripherals();
         int userPerTotal = perEnum.getUserDefPeripheralsNum();
         Set<Integer> allPerNumbers = new HashSet<>();
@@ -133,10 +189,49 @@ extends
             allPerNumbers.add(STANDARD_PER_NUM + userPerNum);
         }
         
-        logger.debug("getPeripheralNumbers - end: {}", allPerNumbers);
         return allPerNumbers;
     }
     
+    /**
+     * Reads identity of specified node. Only one attempt is performed.
+     * @param networkId network ID
+     * @param nodeId node ID
+     * @return identity of the node <br>
+     *         {@code null}, if the identity cannot be read
+     */
+    private NodeIdentity readNodeIdentity(String networkId, String nodeId) throws Exception {
+        logger.debug("readNodeIdentity - start: networkId={}, nodeId={}", networkId, nodeId);
+        
+        GettingPeripheralsConfiguration gettingPerConfig 
+                = dpaInitConfig.getEnumerationConfiguration().getGettingPeripheralsConfiguration();
+        
+        OS os = createOsObject(networkId, nodeId);
+        UUID uid = os.call(OS.MethodID.READ, null);
+        if ( uid == null ) {
+            logger.debug("readNodeIdentity - end: null");
+            return null;
+        }
+        
+        OsInfo osInfo = os.getCallResult(uid, OsInfo.class, gettingPerConfig.getPerTimeout());
+        if ( osInfo == null ) {
+            logger.debug("readNodeIdentity - end: null");
+            return null;
+        }
+        
+        // HWPID is part of each response
+        Integer hwProfileId = null;
+        DPA_AdditionalInfo additionalInfo = os.getDPA_AdditionalInfo(uid);
+        if ( additionalInfo != null ) {
+            hwProfileId = additionalInfo.getHwProfile();
+        }
+        
+        NodeIdentity identity = new NodeIdentity(osInfo.getPrettyFormatedModuleId(), hwProfileId);
+        logger.debug("readNodeIdentity - end: moduleId={}, hwProfileId={}", 
+                identity.moduleId, identity.hwProfileId
+        );
+        return identity;
+    }
+    
     /**
      * Returns list of bonded nodes IDs.
      * @param coord coordinator to use
@@ -189,17 +284,44 @@ extends
      * @return node for specified nodeId
      */
     Node createNode(String networkId, String nodeId) throws Exception {
+        return createNode(networkId, nodeId, null);
+    }
+    
+    /**
+     * Creates node for specified nodeId and returns it.
+     * @param networkId network ID
+     * @param nodeId node ID
+     * @param identity identity of the node to store into the snapshot, 
+     *        if {@code null}, the identity is read from the node
+     * @return node for specified nodeId
+     */
+    private Node createNode(String networkId, String nodeId, NodeIdentity identity) 
+            throws Exception {
         logger.debug("createNode - start: networkId={}, nodeId={}", networkId, nodeId);
         System.out.println("Creating node " + nodeId + ":");
         
         // creating Peripheral Information object to get all supported peripherals
         PeripheralInfoGetter perInfoObject = createPerInfoObject(networkId, nodeId);
         
-        Set<Integer> peripheralNumbers = getPeripheralNumbers(perInfoObject);
+        PeripheralEnumeration perEnum = getPeripheralEnumeration(perInfoObject);
+        Set<Integer> peripheralNumbers = getPeripheralNumbers(perEnum);
         System.out.println("Peripherals: " + Arrays.toString(peripheralNumbers.toArray( new Integer[0])) );
         
         Node node = NodeFactory.createNode(networkId, nodeId, peripheralNumbers);
         
+        if ( snapshot != null ) {
+            if ( identity == null ) {
+                try {
+                    identity = readNodeIdentity(networkId, nodeId);
+                } catch ( Exception e ) {
+                    logger.warn("Reading of identity of node " + nodeId + " failed", e);
+                }
+            }
+            String moduleId = ( identity == null )? null : identity.moduleId;
+            snapshot.putNode(networkId, nodeId, new EnumerationSnapshot.NodeInfo(moduleId, perEnum));
+            snapshotChanged = true;
+        }
+        
         System.out.println("Node created\n");
         logger.debug("createNode - end: {}", node);
         
@@ -263,6 +385,63 @@ extends
         return discResult;
     }
     
+    /**
+     * Runs process of discovery and compares number of discovered nodes with
+     * specified number of bonded nodes.
+     * @param coord coordinator to run discovery on
+     * @param bondedNodesNum number of bonded nodes
+     */
+    private void runDiscoveryAndCheck(Coordinator coord, int bondedNodesNum) 
+            throws SimplyException {
+        DiscoveryResult discoResult = runDiscovery(coord);
+        if ( discoResult == null ) {
+            throw new SimplyException("Discovery failed");
+        }
+        System.out.println("Number of discovered nodes: " + discoResult.getDiscoveredNodesNum());
+        
+        if ( bondedNodesNum != discoResult.getDiscoveredNodesNum() ) {
+            logger.warn(
+                    "Number of bonded nodes NOT equal to the number of discovered nodes:"
+                    + " bonded nodes number = " + bondedNodesNum
+                    + " discovered nodes number = " + discoResult.getDiscoveredNodesNum()
+            );
+        }
+    }
+    
+    // creates network from nodes stored in the snapshot
+    private Network createNetworkFromSnapshot(
+            String networkId, Map<String, EnumerationSnapshot.NodeInfo> snapshotNodes
+    ) throws Exception 
+    {
+        logger.debug("createNetworkFromSnapshot - start: networkId={}, nodes={}", 
+                networkId, snapshotNodes.keySet()
+        );
+        System.out.println("Creating nodes from snapshot ...");
+        
+        // nodes map is updated during revalidation of the network
+        Map<String, Node> nodesMap = new ConcurrentHashMap<>();
+        for ( Map.Entry<String, EnumerationSnapshot.NodeInfo> nodeEntry : snapshotNodes.entrySet() ) {
+            Set<Integer> peripheralNumbers = getPeripheralNumbers(
+                    nodeEntry.getValue().getPeripheralEnumeration()
+            );
+            Node node = NodeFactory.createNode(networkId, nodeEntry.getKey(), peripheralNumbers);
+            nodesMap.put(nodeEntry.getKey(), node);
+        }
+        System.out.println("Number of nodes: " + nodesMap.size());
+        
+        // running discovery process
+        Coordinator masterCoord = nodesMap.get("0").getDeviceObject(Coordinator.class);
+        if ( (masterCoord != null) && (dpaInitConfig.getDiscoveryConfiguration() != null) ) {
+            runDiscoveryAndCheck(masterCoord, nodesMap.size() - 1);
+        }
+        
+        networksFromSnapshot.put(networkId, nodesMap);
+        Network network = new BaseNetwork(networkId, nodesMap);
+        
+        logger.debug("createNetworkFromSnapshot - end: {}", network);
+        return network;
+    }
+    
     // creates network enumerated using enumeration of devices inside IQRF network
     private Network createEnumeratedNetwork(String networkId, Configuration networkSettings) 
             throws Exception 
@@ -270,6 +449,16 @@ extends
         logger.debug("createEnumeratedNetwork - start: networkId={}, networkSettings={}", 
                 networkId, networkSettings
         );
+        
+        // network previously stored in the snapshot
+        if ( snapshot != null ) {
+            Map<String, EnumerationSnapshot.NodeInfo> snapshotNodes = snapshot.getNodes(networkId);
+            if ( (snapshotNodes != null) && snapshotNodes.containsKey("0") ) {
+                Network network = createNetworkFromSnapshot(networkId, snapshotNodes);
+                logger.debug("createEnumeratedNetwork - end: {}", network);
+                return network;
+            }
+        }
 
         // creating master node
         Node masterNode = createNode(networkId, "0");
@@ -307,19 +496,7 @@ extends
         
         // running discovery process
         if ( dpaInitConfig.getDiscoveryConfiguration() != null ) {
-            DiscoveryResult discoResult = runDiscovery(masterCoord);
-            if ( discoResult == null ) {
-                throw new SimplyException("Discovery failed");
-            }
-            System.out.println("Number of discovered nodes: " + discoResult.getDiscoveredNodesNum());
-            
-            if ( bondedNodesIds.size() != discoResult.getDiscoveredNodesNum() ) {
-                logger.warn(
-                        "Number of bonded nodes NOT equal to the number of discovered nodes:"
-                        + " bonded nodes number = " + bondedNodesIds.size()
-                        + " discovered nodes number = " + discoResult.getDiscoveredNodesNum()
-                );
-            } 
+            runDiscoveryAndCheck(masterCoord, bondedNodesIds.size());
         }
         
         // creating nodes bonded to the Master node
@@ -448,6 +625,149 @@ extends
     }
     
     
+    // returns IDs of currently bonded nodes including the master node
+    private Set<String> getBondedNodesIdsWithMaster(Coordinator coord) throws Exception {
+        Set<String> bondedNodesIds = new HashSet<>();
+        bondedNodesIds.add("0");
+        for ( Integer bondedNodeId : getBondedNodesIds(coord) ) {
+            if ( bondedNodeId <= DPA_ProtocolProperties.NADR_Properties.IQMESH_NODE_ADDRESS_MAX ) {
+                bondedNodesIds.add(String.valueOf(bondedNodeId));
+            }
+        }
+        return bondedNodesIds;
+    }
+    
+    // revalidates specified network created from the snapshot
+    private void revalidateNetwork(String networkId, Map<String, Node> nodesMap) {
+        logger.debug("revalidateNetwork - start: networkId={}", networkId);
+        
+        Map<String, EnumerationSnapshot.NodeInfo> snapshotNodes = snapshot.getNodes(networkId);
+        Set<String> nodesToCheck = new HashSet<>(snapshotNodes.keySet());
+        
+        // synchronizing with currently bonded nodes
+        Coordinator masterCoord = nodesMap.get("0").getDeviceObject(Coordinator.class);
+        if ( (masterCoord != null) 
+                && (dpaInitConfig.getEnumerationConfiguration().getBondedNodesConfiguration() != null) 
+        ) {
+            Set<String> bondedNodesIds = null;
+            try {
+                bondedNodesIds = getBondedNodesIdsWithMaster(masterCoord);
+            } catch ( Exception e ) {
+                logger.error("Revalidation of bonded nodes of network " + networkId + " failed", e);
+            }
+            
+            if ( bondedNodesIds != null ) {
+                for ( String nodeId : snapshotNodes.keySet() ) {
+                    if ( !bondedNodesIds.contains(nodeId) ) {
+                        logger.info("Node {} is no longer bonded. Node removed.", nodeId);
+                        nodesMap.remove(nodeId);
+                        snapshot.removeNode(networkId, nodeId);
+                        snapshotChanged = true;
+                        nodesToCheck.remove(nodeId);
+                    }
+                }
+                
+                for ( String nodeId : bondedNodesIds ) {
+                    if ( snapshotNodes.containsKey(nodeId) ) {
+                        continue;
+                    }
+                    
+                    logger.info("Node {} is newly bonded. Node will be enumerated.", nodeId);
+                    try {
+                        nodesMap.put(nodeId, createNode(networkId, nodeId));
+                    } catch ( Exception e ) {
+                        logger.error("Fail to create bonded node " + nodeId, e);
+                    }
+                }
+            }
+        }
+        
+        // checking identity of nodes from the snapshot
+        for ( String nodeId : nodesToCheck ) {
+            try {
+                NodeIdentity identity = readNodeIdentity(networkId, nodeId);
+                if ( identity == null ) {
+                    logger.warn("Identity of node {} not available. Node kept from snapshot.", nodeId);
+                    continue;
+                }
+                
+                EnumerationSnapshot.NodeInfo nodeInfo = snapshotNodes.get(nodeId);
+                boolean hwProfileChanged = (identity.hwProfileId != null) 
+                        && (identity.hwProfileId != nodeInfo.getPeripheralEnumeration().getHwProfileID());
+                if ( identity.moduleId.equals(nodeInfo.getModuleId()) && !hwProfileChanged ) {
+                    continue;
+                }
+                
+                logger.info("Identity of node {} changed. Node will be enumerated again.", nodeId);
+                nodesMap.put(nodeId, createNode(networkId, nodeId, identity));
+            } catch ( Exception e ) {
+                logger.error("Revalidation of node " + nodeId + " failed", e);
+            }
+        }
+        
+        logger.debug("revalidateNetwork - end");
+    }
+    
+    /**
+     * Revalidates networks created from the snapshot and saves the snapshot,
+     * if it has changed.
+     */
+    private class SnapshotRevalidator extends Thread {
+        
+        SnapshotRevalidator() {
+            super("DPA_Initializer-SnapshotRevalidator");
+            setDaemon(true);
+        }
+        
+        @Override
+        public void run() {
+            logger.info("Revalidation of snapshot started");
+            
+            for ( Map.Entry<String, Map<String, Node>> networkEntry : networksFromSnapshot.entrySet() ) {
+                if ( isInterrupted() ) {
+                    logger.warn("Revalidation of snapshot interrupted");
+                    return;
+                }
+                revalidateNetwork(networkEntry.getKey(), networkEntry.getValue());
+            }
+            
+            if ( snapshotChanged ) {
+                saveSnapshot();
+            }
+            logger.info("Revalidation of snapshot complete");
+        }
+    }
+    
+    // returns snapshot configuration or null, if snapshot is not used
+    private SnapshotConfiguration getSnapshotConfiguration() {
+        if ( dpaInitConfig.getInitializationType() != InitializationType.ENUMERATION ) {
+            return null;
+        }
+        return dpaInitConfig.getEnumerationConfiguration().getSnapshotConfiguration();
+    }
+    
+    // loads snapshot from specified file, returns empty snapshot in case of an error
+    private static EnumerationSnapshot loadSnapshot(String fileName) {
+        try {
+            return EnumerationSnapshot.load(fileName);
+        } catch ( ConfigurationException e ) {
+            logger.warn("Loading of snapshot failed. Full enumeration will be performed.", e);
+            return new EnumerationSnapshot();
+        }
+    }
+    
+    // saves the snapshot
+    private void saveSnapshot() {
+        String fileName = getSnapshotConfiguration().getFileName();
+        try {
+            snapshot.save(fileName);
+            snapshotChanged = false;
+            logger.info("Snapshot saved into {}", fileName);
+        } catch ( ConfigurationException e ) {
+            logger.error("Saving of snapshot into " + fileName + " failed", e);
+        }
+    }
+    
     /**
      * Creates and returns new network - according to specified settings.
      * @param networkId ID of created network
@@ -495,6 +815,12 @@ extends
                 getDPA_InitializerConfiguration(initObjects.getConfigSettings().getGeneralSettings()
         );
         
+        // loading snapshot of previously enumerated networks
+        SnapshotConfiguration snapshotConfig = getSnapshotConfiguration();
+        if ( snapshotConfig != null ) {
+            this.snapshot = loadSnapshot(snapshotConfig.getFileName());
+        }
+        
         // starting the connector
         this.initObjects.getConnectionStack().start();
         
@@ -507,6 +833,16 @@ extends
             Network network = createNetwork(networkEntry.getKey(), networkEntry.getValue());
             networksMap.put(networkEntry.getKey(), network);
         }
+        
+        if ( snapshot != null ) {
+            if ( snapshotChanged ) {
+                saveSnapshot();
+            }
+            
+            if ( !networksFromSnapshot.isEmpty() && snapshotConfig.isRevalidate() ) {
+                new SnapshotRevalidator().start();
+            }
+        }
         System.out.println("Initialization of Simply complete.");
         
         logger.info("Initialization complete");
@@ -150,12 +150,33 @@ public final class DPA_InitializerConfigurationFactory {
         return new DiscoveryConfiguration(discoveryTimeout, discoveryTxPower);
     }
     
+    private static SnapshotConfiguration createSnapshotConfiguration(
+            Configuration configuration
+    ) {
+        int useSnapshot = configuration.getInt("initialization.type.dpa.enumeration.snapshot", 0);
+        if ( useSnapshot <= 0 ) {
+            return null;
+        }
+        
+        String fileName = configuration.getString(
+                "initialization.type.dpa.enumeration.snapshot.file",
+                SnapshotConfiguration.DEFAULT_SNAPSHOT_FILE
+        );
+        
+        int revalidate = configuration.getInt(
+                "initialization.type.dpa.enumeration.snapshot.revalidate", 1
+        );
+        
+        return new SnapshotConfiguration(fileName, revalidate > 0);
+    }
+    
     private static EnumerationConfiguration createEnumerationConfiguration(
             Configuration configuration
     ) {
         return new EnumerationConfiguration(
                 createGettingPeripheralsConfiguration(configuration), 
-                createBondedNodesConfigurationForEnum(configuration)
+                createBondedNodesConfigurationForEnum(configuration),
+                createSnapshotConfiguration(configuration)
         );
     }
     
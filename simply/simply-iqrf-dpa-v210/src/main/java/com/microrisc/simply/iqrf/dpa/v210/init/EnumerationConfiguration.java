@@ -27,6 +27,9 @@ public final class EnumerationConfiguration {
     
     // configuration of processing of bonded nodes
     private final BondedNodesConfiguration bondedNodesConfig;
+    
+    // configuration of snapshot of enumerated networks
+    private final SnapshotConfiguration snapshotConfig;
 
     
     private static GettingPeripheralsConfiguration checkGettingPeripheralsConfiguration(
@@ -49,6 +52,7 @@ public final class EnumerationConfiguration {
     ) {
         this.gettingPerConfig = checkGettingPeripheralsConfiguration(gettingPerConfig);
         this.bondedNodesConfig = null;
+        this.snapshotConfig = null;
     }
     
     /**
@@ -63,6 +67,25 @@ public final class EnumerationConfiguration {
     ) {
         this.gettingPerConfig = checkGettingPeripheralsConfiguration(gettingPerConfig);
         this.bondedNodesConfig = bondedNodesConfig;
+        this.snapshotConfig = null;
+    }
+    
+    /**
+     * Creates configuration of DPA initializer.
+     * @param gettingPerConfig getting peripherals configuration
+     * @param bondedNodesConfig bonded nodes configuration
+     * @param snapshotConfig snapshot configuration, {@code null} if
+     *        snapshot is not used
+     * @throws IllegalArgumentException if {@code gettingPerConfig} is {@code null}
+     */
+    public EnumerationConfiguration(
+            GettingPeripheralsConfiguration gettingPerConfig,
+            BondedNodesConfiguration bondedNodesConfig,
+            SnapshotConfiguration snapshotConfig
+    ) {
+        this.gettingPerConfig = checkGettingPeripheralsConfiguration(gettingPerConfig);
+        this.bondedNodesConfig = bondedNodesConfig;
+        this.snapshotConfig = snapshotConfig;
     }
     
     
@@ -80,4 +103,12 @@ public final class EnumerationConfiguration {
         return bondedNodesConfig;
     }
     
+    /**
+     * @return snapshot configuration <br>
+     *         {@code null}, if snapshot is not used
+     */
+    public SnapshotConfiguration getSnapshotConfiguration() {
+        return snapshotConfig;
+    }
+    
 }
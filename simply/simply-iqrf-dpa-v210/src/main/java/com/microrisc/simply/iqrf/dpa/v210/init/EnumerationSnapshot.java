@@ -0,0 +1,305 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.init;
+
+import com.microrisc.simply.iqrf.dpa.v210.types.PeripheralEnumeration;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.apache.commons.configuration.XMLConfiguration;
+
+/**
+ * Snapshot of enumerated networks. 
+ * <p>
+ * For each node, the snapshot stores its peripheral enumeration and module ID.
+ * Snapshot can be stored into and loaded from <b>XML</b> file. 
+ * <p>
+ * This class is thread-safe.
+ * 
+ * @author Michal Konopa
+ */
+public final class EnumerationSnapshot {
+    
+    /**
+     * Information about one node stored in snapshot.
+     */
+    public static final class NodeInfo {
+        // module ID
+        private final String moduleId;
+        
+        // peripheral enumeration
+        private final PeripheralEnumeration perEnum;
+        
+        
+        private static PeripheralEnumeration checkPeripheralEnumeration(
+                PeripheralEnumeration perEnum
+        ) {
+            if ( perEnum == null ) {
+                throw new IllegalArgumentException("Peripheral enumeration cannot be null.");
+            }
+            return perEnum;
+        }
+        
+        /**
+         * Creates new node information.
+         * @param moduleId module ID of the node, {@code null} if not known
+         * @param perEnum peripheral enumeration of the node
+         * @throws IllegalArgumentException if {@code perEnum} is {@code null}
+         */
+        public NodeInfo(String moduleId, PeripheralEnumeration perEnum) {
+            this.moduleId = moduleId;
+            this.perEnum = checkPeripheralEnumeration(perEnum);
+        }
+        
+        /**
+         * @return module ID of the node <br>
+         *         {@code null}, if module ID is not known
+         */
+        public String getModuleId() {
+            return moduleId;
+        }
+        
+        /**
+         * @return peripheral enumeration of the node
+         */
+        public PeripheralEnumeration getPeripheralEnumeration() {
+            return perEnum;
+        }
+    }
+    
+    
+    // nodes of networks: network ID -> node ID -> node information
+    private final Map<String, Map<String, NodeInfo>> networks = new HashMap<>();
+    
+    
+    private static String checkNetworkId(String networkId) {
+        if ( networkId == null ) {
+            throw new IllegalArgumentException("Network ID cannot be null.");
+        }
+        return networkId;
+    }
+    
+    private static String checkNodeId(String nodeId) {
+        if ( nodeId == null ) {
+            throw new IllegalArgumentException("Node ID cannot be null.");
+        }
+        return nodeId;
+    }
+    
+    private static NodeInfo checkNodeInfo(NodeInfo nodeInfo) {
+        if ( nodeInfo == null ) {
+            throw new IllegalArgumentException("Node information cannot be null.");
+        }
+        return nodeInfo;
+    }
+    
+    private static String getPeripheralsString(int[] peripherals) {
+        StringBuilder sb = new StringBuilder();
+        for ( int perId = 0; perId < peripherals.length; perId++ ) {
+            if ( perId > 0 ) {
+                sb.append(",");
+            }
+            sb.append(peripherals[perId]);
+        }
+        return sb.toString();
+    }
+    
+    private static int[] getPeripherals(HierarchicalConfiguration nodeConfig) {
+        List<Integer> peripheralsList = new LinkedList<>();
+        for ( Object perNumberObj : nodeConfig.getList("peripherals") ) {
+            String perNumberStr = perNumberObj.toString().trim();
+            if ( !perNumberStr.isEmpty() ) {
+                peripheralsList.add(Integer.parseInt(perNumberStr));
+            }
+        }
+        
+        int[] peripherals = new int[peripheralsList.size()];
+        int perId = 0;
+        for ( int perNumber : peripheralsList ) {
+            peripherals[perId++] = perNumber;
+        }
+        return peripherals;
+    }
+    
+    // creates node information from specified configuration
+    private static NodeInfo createNodeInfo(HierarchicalConfiguration nodeConfig) {
+        PeripheralEnumeration perEnum = new PeripheralEnumeration(
+                new PeripheralEnumeration.DPA_ProtocolVersion(
+                        nodeConfig.getShort("[@dpaMinor]"), 
+                        nodeConfig.getShort("[@dpaMajor]")
+                ),
+                nodeConfig.getShort("[@userPeripherals]"),
+                getPeripherals(nodeConfig),
+                nodeConfig.getInt("[@hwpid]"),
+                nodeConfig.getInt("[@hwpidVersion]"),
+                nodeConfig.getInt("[@flags]")
+        );
+        
+        return new NodeInfo(nodeConfig.getString("[@mid]", null), perEnum);
+    }
+    
+    
+    /**
+     * Creates new empty snapshot.
+     */
+    public EnumerationSnapshot() {
+    }
+    
+    /**
+     * Loads snapshot from specified file. If the file doesn't exist, empty
+     * snapshot is returned.
+     * @param fileName name of the file to load snapshot from
+     * @return loaded snapshot
+     * @throws ConfigurationException if an error has occured during parsing
+     *         of the file
+     */
+    public static EnumerationSnapshot load(String fileName) throws ConfigurationException {
+        EnumerationSnapshot snapshot = new EnumerationSnapshot();
+        if ( !(new File(fileName)).exists() ) {
+            return snapshot;
+        }
+        
+        XMLConfiguration snapshotConfig = new XMLConfiguration(fileName);
+        List<HierarchicalConfiguration> networkConfigs = snapshotConfig.configurationsAt("network");
+        for ( HierarchicalConfiguration networkConfig : networkConfigs ) {
+            String networkId = networkConfig.getString("[@id]");
+            
+            List<HierarchicalConfiguration> nodeConfigs = networkConfig.configurationsAt("node");
+            for ( HierarchicalConfiguration nodeConfig : nodeConfigs ) {
+                try {
+                    snapshot.putNode(networkId, nodeConfig.getString("[@id]"), 
+                            createNodeInfo(nodeConfig)
+                    );
+                } catch ( RuntimeException e ) {
+                    throw new ConfigurationException(
+                            "Invalid node in network " + networkId + " in snapshot file.", e
+                    );
+                }
+            }
+        }
+        
+        return snapshot;
+    }
+    
+    /**
+     * Stores this snapshot into specified file. The file is replaced only
+     * after the whole snapshot has been written.
+     * @param fileName name of the file to store snapshot into
+     * @throws ConfigurationException if an error has occured during storing
+     */
+    public synchronized void save(String fileName) throws ConfigurationException {
+        XMLConfiguration snapshotConfig = new XMLConfiguration();
+        snapshotConfig.setRootElementName("snapshot");
+        
+        // peripherals are written as one comma separated list
+        snapshotConfig.setDelimiterParsingDisabled(true);
+        
+        int networkIndex = 0;
+        for ( Map.Entry<String, Map<String, NodeInfo>> networkEntry : networks.entrySet() ) {
+            snapshotConfig.addProperty("network(-1)[@id]", networkEntry.getKey());
+            
+            String networkKey = "network(" + networkIndex + ")";
+            int nodeIndex = 0;
+            for ( Map.Entry<String, NodeInfo> nodeEntry : networkEntry.getValue().entrySet() ) {
+                snapshotConfig.addProperty(networkKey + ".node(-1)[@id]", nodeEntry.getKey());
+                
+                String nodeKey = networkKey + ".node(" + nodeIndex + ")";
+                NodeInfo nodeInfo = nodeEntry.getValue();
+                PeripheralEnumeration perEnum = nodeInfo.getPeripheralEnumeration();
+                if ( nodeInfo.getModuleId() != null ) {
+                    snapshotConfig.addProperty(nodeKey + "[@mid]", nodeInfo.getModuleId());
+                }
+                snapshotConfig.addProperty(nodeKey + "[@hwpid]", perEnum.getHwProfileID());
+                snapshotConfig.addProperty(nodeKey + "[@hwpidVersion]", perEnum.getHwProfileVersion());
+                snapshotConfig.addProperty(nodeKey + "[@dpaMajor]", 
+                        perEnum.getDPA_ProtocolVersion().getMajorVersion()
+                );
+                snapshotConfig.addProperty(nodeKey + "[@dpaMinor]", 
+                        perEnum.getDPA_ProtocolVersion().getMinorVersion()
+                );
+                snapshotConfig.addProperty(nodeKey + "[@userPeripherals]", perEnum.getUserDefPeripheralsNum());
+                snapshotConfig.addProperty(nodeKey + "[@flags]", perEnum.getFlags());
+                snapshotConfig.addProperty(nodeKey + ".peripherals", 
+                        getPeripheralsString(perEnum.getDefaultPeripherals())
+                );
+                nodeIndex++;
+            }
+            networkIndex++;
+        }
+        
+        File snapshotFile = new File(fileName).getAbsoluteFile();
+        File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+        snapshotConfig.save(tmpFile);
+        try {
+            Files.move(tmpFile.toPath(), snapshotFile.toPath(), 
+                    StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch ( IOException e ) {
+            throw new ConfigurationException("Cannot replace snapshot file " + fileName, e);
+        }
+    }
+    
+    /**
+     * Returns nodes of specified network.
+     * @param networkId ID of network
+     * @return map of node IDs to node information <br>
+     *         {@code null}, if the snapshot doesn't contain specified network
+     */
+    public synchronized Map<String, NodeInfo> getNodes(String networkId) {
+        Map<String, NodeInfo> nodes = networks.get(networkId);
+        return ( nodes == null )? null : new HashMap<>(nodes);
+    }
+    
+    /**
+     * Puts specified node into the snapshot. Previously stored information
+     * about the node is replaced.
+     * @param networkId ID of network the node belongs to
+     * @param nodeId ID of the node
+     * @param nodeInfo information about the node
+     */
+    public synchronized void putNode(String networkId, String nodeId, NodeInfo nodeInfo) {
+        checkNetworkId(networkId);
+        checkNodeId(nodeId);
+        checkNodeInfo(nodeInfo);
+        
+        Map<String, NodeInfo> nodes = networks.get(networkId);
+        if ( nodes == null ) {
+            nodes = new HashMap<>();
+            networks.put(networkId, nodes);
+        }
+        nodes.put(nodeId, nodeInfo);
+    }
+    
+    /**
+     * Removes specified node from the snapshot.
+     * @param networkId ID of network the node belongs to
+     * @param nodeId ID of the node
+     */
+    public synchronized void removeNode(String networkId, String nodeId) {
+        Map<String, NodeInfo> nodes = networks.get(networkId);
+        if ( nodes != null ) {
+            nodes.remove(nodeId);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.dpa.v210.init;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.protocol.mapping.PacketToCallResponseMapping;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
 import java.util.HashMap;
@@ -94,17 +95,17 @@ final class MultiPacketToCallResponseMapping implements PacketToCallResponseMapp
     }
     
     @Override
-    public String getNetworkId(short[] packet) throws ValueConversionException {
+    public String getNetworkId(BytePacket packet) throws ValueConversionException {
         return mappings[0].getNetworkId(packet);
     }
 
     @Override
-    public String getNodeId(short[] packet) throws ValueConversionException {
+    public String getNodeId(BytePacket packet) throws ValueConversionException {
         return mappings[0].getNodeId(packet);
     }
 
     @Override
-    public Class getDeviceInterface(short[] packet) throws ValueConversionException {
+    public Class getDeviceInterface(BytePacket packet) throws ValueConversionException {
         Class foundClass = null;
         for ( PacketToCallResponseMapping packetMapping : mappings ) {
             Class suppClass = packetMapping.getDeviceInterface(packet);
@@ -122,7 +123,7 @@ final class MultiPacketToCallResponseMapping implements PacketToCallResponseMapp
     }
 
     @Override
-    public String getMethodId(Class devInterface, short[] packet) throws ValueConversionException {
+    public String getMethodId(Class devInterface, BytePacket packet) throws ValueConversionException {
         PacketToCallResponseMapping packetMapping = classMapping.get(devInterface);
         if ( packetMapping == null ) {
             throw new ValueConversionException("Device Interface not supported: " + devInterface);
@@ -131,7 +132,7 @@ final class MultiPacketToCallResponseMapping implements PacketToCallResponseMapp
     }
 
     @Override
-    public Object getMethodResult(Class devInterface, String methodId, short[] protoMsg) 
+    public Object getMethodResult(Class devInterface, String methodId, BytePacket protoMsg) 
             throws ValueConversionException {
         PacketToCallResponseMapping packetMapping = classMapping.get(devInterface);
         if ( packetMapping == null ) {
@@ -141,8 +142,39 @@ final class MultiPacketToCallResponseMapping implements PacketToCallResponseMapp
     }
 
     @Override
-    public Object getAdditionalData(short[] protoMsg) throws ValueConversionException {
+    public Object getAdditionalData(BytePacket protoMsg) throws ValueConversionException {
         return mappings[0].getAdditionalData(protoMsg);
     }
     
+    @Override
+    public String getNetworkId(short[] packet) throws ValueConversionException {
+        return getNetworkId(BytePacket.fromShortArray(packet));
+    }
+
+    @Override
+    public String getNodeId(short[] packet) throws ValueConversionException {
+        return getNodeId(BytePacket.fromShortArray(packet));
+    }
+
+    @Override
+    public Class getDeviceInterface(short[] packet) throws ValueConversionException {
+        return getDeviceInterface(BytePacket.fromShortArray(packet));
+    }
+
+    @Override
+    public String getMethodId(Class devInterface, short[] packet) throws ValueConversionException {
+        return getMethodId(devInterface, BytePacket.fromShortArray(packet));
+    }
+
+    @Override
+    public Object getMethodResult(Class devInterface, String methodId, short[] protoMsg) 
+            throws ValueConversionException {
+        return getMethodResult(devInterface, methodId, BytePacket.fromShortArray(protoMsg));
+    }
+
+    @Override
+    public Object getAdditionalData(short[] protoMsg) throws ValueConversionException {
+        return getAdditionalData(BytePacket.fromShortArray(protoMsg));
+    }
+    
 }
@@ -0,0 +1,75 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.init;
+
+/**
+ * Configuration of snapshot of enumerated networks.
+ * 
+ * @author Michal Konopa
+ */
+public final class SnapshotConfiguration {
+    /** Default name of snapshot file. */
+    public static final String DEFAULT_SNAPSHOT_FILE = "EnumerationSnapshot.xml";
+    
+    
+    // name of snapshot file
+    private final String fileName;
+    
+    // indicates, whether to revalidate networks created from snapshot
+    private final boolean revalidate;
+    
+    
+    private static String checkFileName(String fileName) {
+        if ( fileName == null ) {
+            throw new IllegalArgumentException("Snapshot file name cannot be null.");
+        }
+        
+        if ( fileName.isEmpty() ) {
+            throw new IllegalArgumentException("Snapshot file name cannot be empty.");
+        }
+        return fileName;
+    }
+    
+    
+    /**
+     * Creates new snapshot configuration.
+     * @param fileName name of snapshot file
+     * @param revalidate {@code true}, if networks created from snapshot 
+     *        should be revalidated in the background
+     * @throws IllegalArgumentException if {@code fileName} is {@code null} or empty
+     */
+    public SnapshotConfiguration(String fileName, boolean revalidate) {
+        this.fileName = checkFileName(fileName);
+        this.revalidate = revalidate;
+    }
+    
+    /**
+     * @return name of snapshot file
+     */
+    public String getFileName() {
+        return fileName;
+    }
+    
+    /**
+     * @return {@code true}, if networks created from snapshot are revalidated
+     *         in the background <br>
+     *         {@code false}, otherwise
+     */
+    public boolean isRevalidate() {
+        return revalidate;
+    }
+}
@@ -38,21 +38,20 @@ import com.microrisc.simply.iqrf.dpa.v210.types.DPA_Request;
 import com.microrisc.simply.iqrf.dpa.v210.types.DiscoveredNodes;
 import com.microrisc.simply.iqrf.dpa.v210.types.DiscoveryParams;
 import com.microrisc.simply.iqrf.dpa.v210.types.DiscoveryResult;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_CollectedBitsResult;
 import com.microrisc.simply.iqrf.dpa.v210.types.FRC_Data;
 import com.microrisc.simply.iqrf.dpa.v210.types.FRC_Prebonding;
+import com.microrisc.simply.iqrf.dpa.v210.types.FRC_ResultParser;
 import com.microrisc.simply.iqrf.dpa.v210.types.LED_State;
 import com.microrisc.simply.iqrf.dpa.v210.types.RemotelyBondedModuleId;
 import com.microrisc.simply.iqrf.dpa.v210.types.RoutingHops;
 import com.microrisc.simply.iqrf.types.VoidType;
 import java.lang.reflect.Field;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.UUID;
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
@@ -448,36 +447,6 @@ public final class NetworkBuildingAlgorithmImpl implements NetworkBuildingAlgori
         return 31 - Integer.numberOfLeadingZeros(value);
     }
     
-    // puts together both parts of incomming FRC data
-    private static short[] getCompleteFrcData(short[] firstPart, short[] extraData) {
-        short[] completeData = new short[firstPart.length + extraData.length];
-        System.arraycopy(firstPart, 0, completeData, 0, firstPart.length);
-        System.arraycopy(extraData, 0, completeData, firstPart.length, extraData.length);
-        return completeData;
-    }
-    
-    // comparing Node Ids
-    private static class NodeIdComparator implements Comparator<String> {
-        @Override
-        public int compare(String nodeIdStr1, String nodeIdStr2) {
-            int nodeId_1 = Integer.decode(nodeIdStr1);
-            int nodeId_2 = Integer.decode(nodeIdStr2);
-            return Integer.compare(nodeId_1, nodeId_2);
-        }
-    }
-    
-    // Node Id comparator
-    private static final NodeIdComparator nodeIdComparator = new NodeIdComparator();
-    
-    // sorting specified results according to node ID in ascendent manner
-    private static SortedMap<String, FRC_Prebonding.Result> sortFrcResult(
-            Map<String, FRC_Prebonding.Result> result
-    ) {
-        TreeMap<String, FRC_Prebonding.Result> sortedResult = new TreeMap<>(nodeIdComparator);
-        sortedResult.putAll(result);
-        return sortedResult;
-    }
-    
     
     // stores information about elements used to send P2P packet to allow prebonding
     private static class P2PPrebondingInfo {
@@ -699,7 +668,7 @@ public final class NetworkBuildingAlgorithmImpl implements NetworkBuildingAlgori
     }
     
     // disables prebonding and returns results of the disabling request
-    private Map<String, FRC_Prebonding.Result> disablePrebonding(com.microrisc.simply.Node coordNode) 
+    private FRC_CollectedBitsResult disablePrebonding(com.microrisc.simply.Node coordNode) 
             throws Exception 
     {
         FRC coordFrc = coordNode.getDeviceObject(FRC.class);
@@ -717,18 +686,17 @@ public final class NetworkBuildingAlgorithmImpl implements NetworkBuildingAlgori
             throw new Exception("Error while disabling prebonding - getting extra data.");
         }
 
-        return FRC_Prebonding.parse(getCompleteFrcData(frcData.getData(), extraData));
+        return FRC_ResultParser.parseAsCollectedBitsResult(frcData.getData(), extraData);
     }
     
     // returns list of nodes, which provided prebonding
-    private List<Integer> getPrebondingNodes(Map<String, FRC_Prebonding.Result> frcResult) {
+    private List<Integer> getPrebondingNodes(FRC_CollectedBitsResult frcResult) {
         List<Integer> prebondingNodes = new LinkedList<>();
         for ( int nodeAddr = 1;
               nodeAddr <= DPA_ProtocolProperties.NADR_Properties.IQMESH_NODE_ADDRESS_MAX;
               nodeAddr++
         ) {
-            FRC_Prebonding.Result nodeResult = frcResult.get(Integer.toString(nodeAddr));
-            if ( nodeResult.getBit1() == 0x01 ) {
+            if ( FRC_Prebonding.providedPrebondingForNewNode(frcResult, nodeAddr) ) {
                 prebondingNodes.add(nodeAddr);
             }
         }
@@ -797,23 +765,18 @@ public final class NetworkBuildingAlgorithmImpl implements NetworkBuildingAlgori
         
         logger.info("Running FRC to disable and check for prebonding");
         
-        Map<String, FRC_Prebonding.Result> prebondDisablingResult = disablePrebonding(coordNode);
-                    
-        // sort the disabling result
-        SortedMap<String, FRC_Prebonding.Result> sortedPrebondDisablingResult 
-                = sortFrcResult(prebondDisablingResult);
-
+        FRC_CollectedBitsResult prebondDisablingResult = disablePrebonding(coordNode);
+        
         // logging prebonding info on each node
-        for ( Map.Entry<String, FRC_Prebonding.Result> dataEntry : sortedPrebondDisablingResult.entrySet()
-        ) {
+        for ( int nodeAddr = 0; nodeAddr < FRC_CollectedBitsResult.NODES_NUM; nodeAddr++ ) {
             logger.info(
                 "Node: {}, bit0: {}, bit.1: {}", 
-                dataEntry.getKey(), dataEntry.getValue().getBit0(), dataEntry.getValue().getBit1()
+                nodeAddr, prebondDisablingResult.getBit0(nodeAddr), prebondDisablingResult.getBit1(nodeAddr)
             );
         }
         
         // getting prebonding nodes
-        List<Integer> prebondingNodes = getPrebondingNodes(sortedPrebondDisablingResult);        
+        List<Integer> prebondingNodes = getPrebondingNodes(prebondDisablingResult);        
         if ( prebondingNodes.isEmpty() ) {
             logger.info("No node prebonded.");
             return prebondedMIDs;
@@ -18,6 +18,7 @@ package com.microrisc.simply.iqrf.dpa.v210.protocol;
 
 import com.microrisc.simply.AbstractMessage;
 import com.microrisc.simply.BaseCallResponse;
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.CallRequest;
 import com.microrisc.simply.SimplyException;
 import com.microrisc.simply.NetworkData;
@@ -27,21 +28,27 @@ import com.microrisc.simply.errors.NetworkInternalError;
 import com.microrisc.simply.iqrf.dpa.v210.DPA_ResponseCode;
 import com.microrisc.simply.iqrf.dpa.broadcasting.BroadcastRequest;
 import com.microrisc.simply.iqrf.dpa.v210.devices.PeripheralInfoGetter;
-import com.microrisc.simply.protocol.RequestPacketCreator;
+import com.microrisc.simply.protocol.RequestPacketTemplate;
 import com.microrisc.simply.protocol.SimpleMessageConvertor;
 import com.microrisc.simply.protocol.mapping.CallRequestToPacketMapping;
 import com.microrisc.simply.protocol.mapping.PacketFragment;
 import com.microrisc.simply.protocol.mapping.PacketToCallResponseMapping;
 import com.microrisc.simply.protocol.mapping.ProtocolMapping;
+import com.microrisc.simply.protocol.mapping.ProtocolMappingException;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Interface for conversion between Protocol Layer and Network Layer messages.
+ * <p>
+ * Request packets are created from precompiled templates, which are cached 
+ * for each method of each Device Interface. Serialized network and node data 
+ * are cached too, so only method arguments are serialized for each request.
  * 
  * @author Michal Konopa
  */
@@ -58,7 +65,7 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
      * @return {@code true} if specified packet is from Device Exploration process <br>
      *         {@code false} otherwise
      */
-    private boolean isDeviceExploration(short[] msg) {
+    private boolean isDeviceExploration(BytePacket msg) {
         int pNum = DPA_ProtocolProperties.getPeripheralNumber(msg);
         int pCmd = DPA_ProtocolProperties.getCommand(msg);
         
@@ -69,6 +76,85 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
     }
     
     
+    /** Precompiled request packet templates of methods of Device Interfaces. */
+    private final ConcurrentMap<Class, ConcurrentMap<String, RequestPacketTemplate>> 
+            requestTemplates = new ConcurrentHashMap<>();
+    
+    /** Serialized network data of networks. */
+    private final ConcurrentMap<String, List<PacketFragment>> serNetworkDataCache 
+            = new ConcurrentHashMap<>();
+    
+    /** Serialized node data of nodes. */
+    private final ConcurrentMap<String, List<PacketFragment>> serNodeDataCache 
+            = new ConcurrentHashMap<>();
+    
+    
+    /**
+     * Returns request packet template of specified method of specified 
+     * Device Interface. The template is created at the first use and cached.
+     */
+    private RequestPacketTemplate getRequestPacketTemplate(
+            CallRequestToPacketMapping reqToPacketMapping, Class devIface, String methodId
+    ) throws ProtocolMappingException {
+        ConcurrentMap<String, RequestPacketTemplate> ifaceTemplates = requestTemplates.get(devIface);
+        if ( ifaceTemplates == null ) {
+            ifaceTemplates = new ConcurrentHashMap<>();
+            ConcurrentMap<String, RequestPacketTemplate> existingTemplates 
+                    = requestTemplates.putIfAbsent(devIface, ifaceTemplates);
+            if ( existingTemplates != null ) {
+                ifaceTemplates = existingTemplates;
+            }
+        }
+        
+        RequestPacketTemplate template = ifaceTemplates.get(methodId);
+        if ( template == null ) {
+            template = RequestPacketTemplate.create(reqToPacketMapping, devIface, methodId);
+            ifaceTemplates.putIfAbsent(methodId, template);
+        }
+        return template;
+    }
+    
+    /**
+     * Returns serialized data of specified network. Serialized data are cached.
+     */
+    private List<PacketFragment> getSerializedNetworkData(
+            CallRequestToPacketMapping reqToPacketMapping, String networkId
+    ) throws ValueConversionException {
+        if ( networkId == null ) {
+            return reqToPacketMapping.getSerializedNetworkData(networkId);
+        }
+        
+        List<PacketFragment> serNetworkData = serNetworkDataCache.get(networkId);
+        if ( serNetworkData == null ) {
+            serNetworkData = Collections.unmodifiableList(
+                    reqToPacketMapping.getSerializedNetworkData(networkId)
+            );
+            serNetworkDataCache.putIfAbsent(networkId, serNetworkData);
+        }
+        return serNetworkData;
+    }
+    
+    /**
+     * Returns serialized data of specified node. Serialized data are cached.
+     */
+    private List<PacketFragment> getSerializedNodeData(
+            CallRequestToPacketMapping reqToPacketMapping, String nodeId
+    ) throws ValueConversionException {
+        if ( nodeId == null ) {
+            return reqToPacketMapping.getSerializedNodeData(nodeId);
+        }
+        
+        List<PacketFragment> serNodeData = serNodeDataCache.get(nodeId);
+        if ( serNodeData == null ) {
+            serNodeData = Collections.unmodifiableList(
+                    reqToPacketMapping.getSerializedNodeData(nodeId)
+            );
+            serNodeDataCache.putIfAbsent(nodeId, serNodeData);
+        }
+        return serNodeData;
+    }
+    
+    
     public DPA_MessageConvertor(ProtocolMapping protocolMapping) {
         super(protocolMapping);
     }
@@ -79,36 +165,27 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
         
         CallRequestToPacketMapping reqToPacketMapping = protocolMapping.
                 getCallRequestToPacketMapping();  
-        List<PacketFragment> serProtoData = reqToPacketMapping.getSerializedProtocolData();
-        List<PacketFragment> serNetworkData = reqToPacketMapping.
-                getSerializedNetworkData(callRequest.getNetworkId()
+        
+        RequestPacketTemplate template = getRequestPacketTemplate(
+                reqToPacketMapping, callRequest.getDeviceInterface(), callRequest.getMethodId()
+        );
+        
+        List<PacketFragment> serNetworkData = getSerializedNetworkData(
+                reqToPacketMapping, callRequest.getNetworkId()
         );
         
         List<PacketFragment> serNodeData = null;
         
         if ( callRequest instanceof BroadcastRequest ) {
-            serNodeData = reqToPacketMapping.getSerializedNodeData(String.valueOf(BROADCAST_ADDRESS));
+            serNodeData = getSerializedNodeData(reqToPacketMapping, String.valueOf(BROADCAST_ADDRESS));
         } else {
-            serNodeData = reqToPacketMapping.getSerializedNodeData(callRequest.getNodeId());
+            serNodeData = getSerializedNodeData(reqToPacketMapping, callRequest.getNodeId());
         }
         
-        List<PacketFragment> serIfaceData = reqToPacketMapping.getSerializedInterfaceData(
-                callRequest.getDeviceInterface()
-        );
-        List<PacketFragment> serMethodData = reqToPacketMapping.getSerializedMethodData(
-                callRequest.getDeviceInterface(), callRequest.getMethodId());
         List<PacketFragment> serMethodArgs = reqToPacketMapping.getSerializedMethodArgs(
                 callRequest.getDeviceInterface(), callRequest.getMethodId(), callRequest.getArgs());
         
-        List<PacketFragment> allFragments = new LinkedList<>();
-        allFragments.addAll(serProtoData);
-        allFragments.addAll(serNetworkData);
-        allFragments.addAll(serNodeData);
-        allFragments.addAll(serIfaceData);
-        allFragments.addAll(serMethodData);
-        allFragments.addAll(serMethodArgs);
-        
-        short[] requestPacket = RequestPacketCreator.createRequestPacket(allFragments);
+        short[] requestPacket = template.createRequestPacket(serNetworkData, serNodeData, serMethodArgs);
         
         logger.debug("convertToProtoFormat - end: {}", requestPacket);
         return requestPacket;
@@ -128,12 +205,12 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
         }
         
         // protocol data
-        short[] protoMsg = networkData.getData();
+        BytePacket protoMsg = networkData.getPacket();
         
         String nodeId = devObjMapping.getNodeId(protoMsg);
         if ( nodeId == null ) {
             throw new ValueConversionException(
-                "Node Id was not found, source packet: " + Arrays.toString(protoMsg)
+                "Node Id was not found, source packet: " + protoMsg
             );
         }
         
@@ -144,7 +221,7 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
             devIface = devObjMapping.getDeviceInterface(protoMsg);
             if ( devIface == null ) {
                 throw new ValueConversionException(
-                    "Device Interface was not found source packet: " + Arrays.toString(protoMsg)
+                    "Device Interface was not found source packet: " + protoMsg
                 );
             }
         }
@@ -152,7 +229,7 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
         String methodId = devObjMapping.getMethodId(devIface, protoMsg);
         if ( methodId == null ) {
             throw new ValueConversionException(
-                "Method was not found, source packet: " + Arrays.toString(protoMsg)
+                "Method was not found, source packet: " + protoMsg
             );
         }
         
@@ -164,7 +241,7 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
         );
         
         // determining response code
-        DPA_ResponseCode responseCode = DPA_ProtocolProperties.getResponseCode(networkData.getData());
+        DPA_ResponseCode responseCode = DPA_ProtocolProperties.getResponseCode(protoMsg);
         
         // check response code for errors
         if ( responseCode != DPA_ResponseCode.NO_ERROR ) {
@@ -177,7 +254,7 @@ public final class DPA_MessageConvertor extends SimpleMessageConvertor {
         Object methodResult = devObjMapping.getMethodResult(devIface, methodId, protoMsg);
         if ( methodResult == null ) {
             throw new ValueConversionException(
-                "Method result was not found, source packet: " + Arrays.toString(protoMsg)
+                "Method result was not found, source packet: " + protoMsg
             );
         }
         
@@ -18,6 +18,7 @@ package com.microrisc.simply.iqrf.dpa.v210.protocol;
 
 import com.microrisc.simply.AbstractMessage;
 import com.microrisc.simply.BaseCallResponse;
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.CallRequest;
 import com.microrisc.simply.NetworkData;
 import com.microrisc.simply.NetworkLayerService;
@@ -35,30 +36,49 @@ import com.microrisc.simply.iqrf.dpa.v210.devices.Coordinator;
 import com.microrisc.simply.iqrf.dpa.v210.di_services.method_id_transformers.CoordinatorStandardTransformer;
 import com.microrisc.simply.iqrf.dpa.v210.typeconvertors.DPA_ConfirmationConvertor;
 import com.microrisc.simply.iqrf.dpa.v210.types.DPA_Confirmation;
+import com.microrisc.simply.metrics.Counter;
+import com.microrisc.simply.metrics.Histogram;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.RequestMetricsCache;
+import com.microrisc.simply.metrics.StandardMetrics;
 import com.microrisc.simply.network.BaseNetworkData;
 import com.microrisc.simply.protocol.AbstractProtocolLayer;
 import com.microrisc.simply.protocol.CallRequestComparator;
 import com.microrisc.simply.protocol.MessageConvertor;
 import com.microrisc.simply.protocol.SimpleRequestToResponseMatcher;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Protocol layer based on DPA_ProtocolProperties of IQRF.
+ * <p>
+ * By default, communication with all networks is driven by one common protocol 
+ * state machine. If network lanes are enabled, each network has its own protocol 
+ * state machine, so requests to different networks ( coordinators ) can be 
+ * processed concurrently. See {@link #setNetworkLanesEnabled(boolean) }.
+ * <p>
+ * Times of confirmations and responses are estimated from the received ones.
+ * If adaptive timeouts are enabled, timeouts of waiting for confirmations and 
+ * responses are derived from these estimates. See 
+ * {@link #setAdaptiveTimeoutsEnabled(boolean) }.
  * 
  * @author Michal Konopa
  */
 public final class DPA_ProtocolLayer 
 extends AbstractProtocolLayer
-implements ProtocolStateMachineListener
 {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(DPA_ProtocolLayer.class);
@@ -74,6 +94,9 @@ implements ProtocolStateMachineListener
         // time, at which the request was sent
         long sentTime;
         
+        // time of sending in nanoseconds, used for round trip time metrics
+        final long sentNanos = System.nanoTime();
+        
         TimeRequest(CallRequest request, long sentTime) {
             this.request = request;
             this.sentTime = sentTime;
@@ -143,13 +166,6 @@ implements ProtocolStateMachineListener
         return ( request.getMethodId().equals(discoMethodConvId) ); 
     }
     
-    // indicates, wheather a time unlimited request is in process
-    private volatile boolean isTimeUnlimitedRequestInProcess = false;
-    
-    
-    /** Last sent request. */
-    private TimeRequest lastRequest = null;
-    
     /** List of all requests, which was sent to network layer. */
     private List<TimeRequest> sentRequests = new LinkedList<>();
     
@@ -157,14 +173,6 @@ implements ProtocolStateMachineListener
     private final Object synchroSentRequest = new Object();
    
     
-    /**
-     * For ensuring that sending a request to connected network together with 
-     * performing of all needed settings including manipulation with Protocol Machine
-     * will be executed all at once - without interruption of any other threads.
-     */
-    private final Object synchroSendOrReceive = new Object();
-    
-    
     /** Default maximal time duration [in ms] of sent requests in the protocol layer. */
     public static final long MAX_REQUEST_DURATION_DEFAULT = 10000;
     
@@ -172,47 +180,245 @@ implements ProtocolStateMachineListener
     private long maxRequestDuration = MAX_REQUEST_DURATION_DEFAULT;
     
     
-    /** State machine supporting DPA protocol communication. */
-    private ProtocolStateMachine protoMachine = null;
-    
-    // state changed in protocol machine
-    private final Object protoMachineStateChangeSignal = new Object();
-    
     // type of errors encontered during communication with network layer
     private static enum COMMUNICATION_ERROR_TYPE {
         CONFIRMATION_TIMEOUTED,
         RESPONSE_TIMEOUTED
     }
     
-    // waits before sending next request 
-    private void doWaitBeforeSendRequest() throws InterruptedException {
-        ProtocolStateMachine.State machineState = null;
-        
-        synchronized ( protoMachineStateChangeSignal ) {
-            machineState = protoMachine.getState();
-            while ( (machineState != ProtocolStateMachine.State.FREE_FOR_SEND)  
-                    && (machineState != ProtocolStateMachine.State.WAITING_FOR_CONFIRMATION_ERROR)
-                    && (machineState != ProtocolStateMachine.State.WAITING_FOR_RESPONSE_ERROR)
-                  ) {
-                protoMachineStateChangeSignal.wait();
+    /** Maximal number of hops reported by confirmations. */
+    private static final int MAX_HOPS = 0xFF;
+    
+    /**
+     * Metrics of requests to one peripheral in one network.
+     */
+    private static final class RequestMetrics {
+        final String networkId;
+        final String peripheral;
+        final Histogram confirmationRtt;
+        final Counter requestConversionFailures;
+        final Map<COMMUNICATION_ERROR_TYPE, Counter> timeouts 
+                = new EnumMap<>(COMMUNICATION_ERROR_TYPE.class);
+        
+        // response RTTs indexed by numbers of hops, created on the first use
+        final AtomicReferenceArray<Histogram> responseRtts 
+                = new AtomicReferenceArray<>(MAX_HOPS + 1);
+        
+        RequestMetrics(String networkId, String peripheral) {
+            this.networkId = networkId;
+            this.peripheral = peripheral;
+            
+            MetricsRegistry registry = MetricsRegistry.getDefault();
+            confirmationRtt = registry.histogram(
+                    getRequestMetricName(StandardMetrics.PROTOCOL_CONFIRMATION_RTT, networkId, peripheral)
+            );
+            requestConversionFailures = registry.counter(
+                    getRequestMetricName(StandardMetrics.PROTOCOL_CONVERSION_FAILURES, networkId, peripheral)
+                    .tagged(StandardMetrics.TAG_DIRECTION, "request")
+            );
+            for ( COMMUNICATION_ERROR_TYPE errorType : COMMUNICATION_ERROR_TYPE.values() ) {
+                timeouts.put(errorType, registry.counter(
+                        getRequestMetricName(StandardMetrics.PROTOCOL_TIMEOUTS, networkId, peripheral)
+                        .tagged(StandardMetrics.TAG_TYPE, errorType.name())
+                ));
+            }
+        }
+        
+        // histograms of hops out of the array are not cached
+        Histogram getResponseRtt(int hops) {
+            boolean cached = ( (hops >= 0) && (hops <= MAX_HOPS) );
+            if ( cached ) {
+                Histogram responseRtt = responseRtts.get(hops);
+                if ( responseRtt != null ) {
+                    return responseRtt;
+                }
+            }
+            
+            Histogram responseRtt = MetricsRegistry.getDefault().histogram(
+                    getRequestMetricName(StandardMetrics.PROTOCOL_RESPONSE_RTT, networkId, peripheral)
+                    .tagged(StandardMetrics.TAG_HOPS, Integer.toString(hops))
+            );
+            if ( cached ) {
+                responseRtts.set(hops, responseRtt);
+            }
+            return responseRtt;
+        }
+    }
+    
+    /** Metrics of requests indexed by networks and peripherals. */
+    private final RequestMetricsCache<RequestMetrics> requestMetrics 
+            = new RequestMetricsCache<RequestMetrics>() {
+                @Override
+                protected RequestMetrics createMetrics(String networkId, String peripheral) {
+                    return new RequestMetrics(networkId, peripheral);
+                }
+            };
+    
+    /** 
+     * Numbers of failed conversions of responses indexed by networks, 
+     * peripheral of these responses is not known. 
+     */
+    private final RequestMetricsCache<Counter> responseConversionFailures 
+            = new RequestMetricsCache<Counter>() {
+                @Override
+                protected Counter createMetrics(String networkId, String peripheral) {
+                    return MetricsRegistry.getDefault().counter(
+                            getRequestMetricName(
+                                StandardMetrics.PROTOCOL_CONVERSION_FAILURES, networkId, peripheral
+                            ).tagged(StandardMetrics.TAG_DIRECTION, "response")
+                    );
+                }
+            };
+    
+    // returns metrics of specified request
+    private RequestMetrics getRequestMetrics(CallRequest request) {
+        return requestMetrics.get(request.getNetworkId(), request.getDeviceInterface());
+    }
+    
+    
+    /**
+     * Lane of communication with one network. Each lane has its own protocol 
+     * state machine.
+     */
+    private class NetworkLane implements ProtocolStateMachineListener {
+        /** State machine supporting DPA protocol communication. */
+        private ProtocolStateMachine protoMachine = null;
+        
+        // state changed in protocol machine
+        private final Object protoMachineStateChangeSignal = new Object();
+        
+        /** Last sent request. */
+        private volatile TimeRequest lastRequest = null;
+        
+        // number of hops reported by confirmation of the last request, 0 for not confirmed requests
+        private volatile int lastRequestHops = 0;
+        
+        // indicates, wheather a time unlimited request is in process
+        private volatile boolean isTimeUnlimitedRequestInProcess = false;
+        
+        /**
+         * For ensuring that sending a request to connected network together with 
+         * performing of all needed settings including manipulation with Protocol Machine
+         * will be executed all at once - without interruption of any other threads.
+         */
+        private final Object synchroSendOrReceive = new Object();
+        
+        
+        NetworkLane() {
+            protoMachine = new ProtocolStateMachine(responseTimeEstimator);
+            protoMachine.setAdaptiveTimeoutsEnabled(adaptiveTimeoutsEnabled);
+        }
+        
+        // waits before sending next request 
+        private void doWaitBeforeSendRequest() throws InterruptedException {
+            ProtocolStateMachine.State machineState = null;
+
+            synchronized ( protoMachineStateChangeSignal ) {
                 machineState = protoMachine.getState();
+                while ( (machineState != ProtocolStateMachine.State.FREE_FOR_SEND)  
+                        && (machineState != ProtocolStateMachine.State.WAITING_FOR_CONFIRMATION_ERROR)
+                        && (machineState != ProtocolStateMachine.State.WAITING_FOR_RESPONSE_ERROR)
+                      ) {
+                    protoMachineStateChangeSignal.wait();
+                    machineState = protoMachine.getState();
+                }
+            }
+
+            // checking if it is possible to send new request
+            switch ( machineState ) {
+                case WAITING_FOR_CONFIRMATION_ERROR:
+                case WAITING_FOR_RESPONSE_ERROR:
+                    // reseting machine after error
+                    protoMachine.resetAfterError();
+                    break;
+                case FREE_FOR_SEND:
+                    break;
+                default:
+                    throw new IllegalStateException("State not expected: " + machineState);
             }
         }
         
-        // checking if it is possible to send new request
-        switch ( machineState ) {
-            case WAITING_FOR_CONFIRMATION_ERROR:
-            case WAITING_FOR_RESPONSE_ERROR:
-                // reseting machine after error
-                protoMachine.resetAfterError();
-                break;
-            case FREE_FOR_SEND:
-                break;
-            default:
-                throw new IllegalStateException("State not expected: " + machineState);
+        void start() throws SimplyException {
+            protoMachine.start();
+            protoMachine.registerListener(this);
+        }
+        
+        void destroy() {
+            protoMachine.unregisterListener();
+            protoMachine.destroy();
+            protoMachine = null;
+        }
+        
+        @Override
+        public void onFreeForSend() {
+            synchronized ( protoMachineStateChangeSignal ) {
+                protoMachineStateChangeSignal.notifyAll();
+            }
+        }
+
+        @Override
+        public void onConfirmationTimeouted() {
+            sendErrorMessage(COMMUNICATION_ERROR_TYPE.CONFIRMATION_TIMEOUTED, lastRequest);
+            synchronized ( protoMachineStateChangeSignal ) {
+                protoMachineStateChangeSignal.notifyAll();
+            }
+        }
+
+        @Override
+        public void onResponseTimeouted() {
+            sendErrorMessage(COMMUNICATION_ERROR_TYPE.RESPONSE_TIMEOUTED, lastRequest);
+            synchronized ( protoMachineStateChangeSignal ) {
+                protoMachineStateChangeSignal.notifyAll();
+            }
         }
     }
     
+    /** Default lane - used for all networks if network lanes are not enabled. */
+    private NetworkLane defaultLane = null;
+    
+    /** Lanes of individual networks. Used only if network lanes are enabled. */
+    private final Map<String, NetworkLane> networkLanes = new HashMap<>();
+    
+    /** Synchronization object for {@code networkLanes}. */
+    private final Object synchroNetworkLanes = new Object();
+    
+    // indicates, wheather each network has its own lane
+    private volatile boolean networkLanesEnabled = false;
+    
+    // indicates, wheather this protocol layer has already been started
+    private volatile boolean started = false;
+    
+    // estimator of times of confirmations and responses, shared by all lanes
+    private final ResponseTimeEstimator responseTimeEstimator = new ResponseTimeEstimator();
+    
+    // indicates, wheather estimated timeouts are used instead of static ones
+    private volatile boolean adaptiveTimeoutsEnabled = false;
+    
+    
+    /**
+     * Returns lane of specified network. If network lanes are not enabled,
+     * returns the default lane.
+     * @param networkId ID of network
+     * @return lane of the specified network
+     */
+    private NetworkLane getLane(String networkId) throws SimplyException {
+        if ( !networkLanesEnabled || networkId == null ) {
+            return defaultLane;
+        }
+        
+        synchronized ( synchroNetworkLanes ) {
+            NetworkLane lane = networkLanes.get(networkId);
+            if ( lane == null ) {
+                lane = new NetworkLane();
+                if ( started ) {
+                    lane.start();
+                }
+                networkLanes.put(networkId, lane);
+                logger.info("New lane created for network: {}", networkId);
+            }
+            return lane;
+        }
+    }
     
     /** 
      * Deletes invalid requests. Request is invalid, if: <br> 
@@ -290,8 +496,11 @@ implements ProtocolStateMachineListener
      * Processes specified message.
      * @param message message to process
      * @paeram msgPacket message source protocol packet
+     * @param lane lane, which the message has arrived from
      */
-    private void processMessage(AbstractMessage message, short[] msgPacket) {
+    private void processMessage(
+            AbstractMessage message, BytePacket msgPacket, NetworkLane lane
+    ) {
         logger.debug("processMessage - start: message={}", message);
         
         if ( !(message instanceof BaseCallResponse) ) {
@@ -308,18 +517,21 @@ implements ProtocolStateMachineListener
         }
         
         BaseCallResponse response = ( BaseCallResponse) message;
-        boolean causeRequestFound = false;
+        TimeRequest causeRequest = null;
         
         synchronized ( synchroSentRequest ) {
-            TimeRequest causeRequest = getCauseRequest(response);
+            causeRequest = getCauseRequest(response);
             if ( causeRequest != null ) {
                 response.setRequestId(causeRequest.request.getId());
                 sentRequests.remove(causeRequest);
-                causeRequestFound = true;
             } 
         }
         
-        if ( causeRequestFound ) {
+        if ( causeRequest != null ) {
+            int hops = ( causeRequest == lane.lastRequest )? lane.lastRequestHops : 0;
+            getRequestMetrics(causeRequest.request).getResponseRtt(hops)
+                    .updateSince(causeRequest.sentNanos);
+            
             synchronized ( synchroListener ) {
                 listener.onGetMessage(message);
             }
@@ -340,10 +552,21 @@ implements ProtocolStateMachineListener
         logger.debug("processResponse - end");
     }
     
+    // returns name of specified metric tagged by specified network and peripheral
+    private static MetricName getRequestMetricName(String metric, String networkId, String peripheral) {
+        return new MetricName(
+                metric, 
+                StandardMetrics.TAG_NETWORK, networkId,
+                StandardMetrics.TAG_PERIPHERAL, peripheral
+        );
+    }
+    
     // sends information about encountered error to the registered listener
     private void sendErrorMessage(COMMUNICATION_ERROR_TYPE errorType, TimeRequest causeRequest) {
         logger.debug("sendErrorMessage - start: causeRequest={}", causeRequest);
         
+        getRequestMetrics(causeRequest.request).timeouts.get(errorType).inc();
+        
         String errorMsg = null;
         switch ( errorType ) {
             case CONFIRMATION_TIMEOUTED:
@@ -491,33 +714,10 @@ implements ProtocolStateMachineListener
     ) {
         super(networkLayerService, msgConvertor);
         broadcastResponder = new BroadcastResponder();
-        protoMachine = new ProtocolStateMachine();
+        defaultLane = new NetworkLane();
         initTimeUnlimitedRequests();
     }
     
-    @Override
-    public void onFreeForSend() {
-        synchronized ( protoMachineStateChangeSignal ) {
-            protoMachineStateChangeSignal.notifyAll();
-        }
-    }
-    
-    @Override
-    public void onConfirmationTimeouted() {
-        sendErrorMessage(COMMUNICATION_ERROR_TYPE.CONFIRMATION_TIMEOUTED, lastRequest);
-        synchronized ( protoMachineStateChangeSignal ) {
-            protoMachineStateChangeSignal.notifyAll();
-        }
-    }
-    
-    @Override
-    public void onResponseTimeouted() {
-        sendErrorMessage(COMMUNICATION_ERROR_TYPE.RESPONSE_TIMEOUTED, lastRequest);
-        synchronized ( protoMachineStateChangeSignal ) {
-            protoMachineStateChangeSignal.notifyAll();
-        }
-    }
-    
     /**
      * This method works as follows: <br>
      * 1. Converts specified request into sequence of bytes. If an error has
@@ -532,11 +732,19 @@ implements ProtocolStateMachineListener
         logger.debug("sendRequest - start: request={}", request);
         
         // conversion to format used by application protocol
-        short[] protoMsg = msgConvertor.convertToProtoFormat(request);
+        short[] protoMsg = null;
+        try {
+            protoMsg = msgConvertor.convertToProtoFormat(request);
+        } catch ( SimplyException ex ) {
+            getRequestMetrics(request).requestConversionFailures.inc();
+            throw ex;
+        }
+        
+        NetworkLane lane = getLane(request.getNetworkId());
         
         // waiting until it is possible to send new request
         try {
-            doWaitBeforeSendRequest();
+            lane.doWaitBeforeSendRequest();
         } catch ( InterruptedException ex ) {
             logger.error(
                 "Thread interrupted while waiting for sending next request."
@@ -545,19 +753,21 @@ implements ProtocolStateMachineListener
             return;
         }
         
-        lastRequest = new TimeRequest(request, System.currentTimeMillis());
+        TimeRequest lastRequest = new TimeRequest(request, System.currentTimeMillis());
+        lane.lastRequest = lastRequest;
+        lane.lastRequestHops = 0;
         
         if ( request instanceof BroadcastRequest ) {
             synchronized ( synchroSentBroadcastRequest ) {
                 networkLayerService.sendData( new BaseNetworkData(protoMsg, request.getNetworkId()) );
                 sentBroadcastRequests.add( lastRequest );
-                protoMachine.newRequest(request);
+                lane.protoMachine.newRequest(request);
                 synchroSentBroadcastRequest.notify();
             }
         } else {
             // must be performed altogether to eliminating the case, when 
             // response comes to early
-            synchronized ( synchroSendOrReceive ) {
+            synchronized ( lane.synchroSendOrReceive ) {
                 // maintenance of already sent requests
                 maintainSentRequest(request);
                 networkLayerService.sendData( new BaseNetworkData(protoMsg, request.getNetworkId()) );
@@ -565,10 +775,10 @@ implements ProtocolStateMachineListener
                     sentRequests.add( lastRequest );
                 }
                 if ( isTimeUnlimitedRequest(request) ) {
-                    isTimeUnlimitedRequestInProcess = true;
+                    lane.isTimeUnlimitedRequestInProcess = true;
                 } else {
-                    isTimeUnlimitedRequestInProcess = false;
-                    protoMachine.newRequest(request);
+                    lane.isTimeUnlimitedRequestInProcess = false;
+                    lane.protoMachine.newRequest(request);
                 }
             }
         }
@@ -582,8 +792,13 @@ implements ProtocolStateMachineListener
         
         super.start();
         broadcastResponder.start();
-        protoMachine.start();
-        protoMachine.registerListener(this);
+        synchronized ( synchroNetworkLanes ) {
+            defaultLane.start();
+            for ( NetworkLane lane : networkLanes.values() ) {
+                lane.start();
+            }
+            started = true;
+        }
         
         logger.info("Started");
         logger.debug("start - end");
@@ -604,9 +819,16 @@ implements ProtocolStateMachineListener
         sentBroadcastRequests.clear();
         sentBroadcastRequests = null;
         
-        protoMachine.unregisterListener();
-        protoMachine.destroy();
-        protoMachine = null;
+        synchronized ( synchroNetworkLanes ) {
+            defaultLane.destroy();
+            defaultLane = null;
+            for ( NetworkLane lane : networkLanes.values() ) {
+                lane.destroy();
+            }
+            networkLanes.clear();
+        }
+        
+        responseTimeEstimator.removeMetrics();
         
         logger.info("Destroyed");
         logger.debug("destroy - end");
@@ -622,9 +844,20 @@ implements ProtocolStateMachineListener
             return;
         }
         
+        NetworkLane lane = null;
+        try {
+            lane = getLane(networkData.getNetworkId());
+        } catch ( SimplyException ex ) {
+            logger.error("Error in getting lane of network={}", networkData.getNetworkId(), ex);
+            return;
+        }
+        
+        // received packet - parts of it are further processed without copying
+        BytePacket packet = networkData.getPacket();
+        
         DPA_ResponseCode responseCode = null;
         try {
-            responseCode = DPA_ProtocolProperties.getResponseCode(networkData.getData());
+            responseCode = DPA_ProtocolProperties.getResponseCode(packet);
         } catch ( ValueConversionException ex ) {
             logger.error("Error in determining response code. Network data={}", networkData);
             return;
@@ -635,12 +868,7 @@ implements ProtocolStateMachineListener
             DPA_Confirmation confirmation = null;
             
             try {
-                short[] confirmData = new short[
-                            networkData.getData().length - DPA_ProtocolProperties.PDATA_START
-                        ];
-                System.arraycopy(networkData.getData(), DPA_ProtocolProperties.PDATA_START, 
-                        confirmData, 0, confirmData.length
-                );
+                BytePacket confirmData = packet.slice(DPA_ProtocolProperties.PDATA_START);
                 confirmation = (DPA_Confirmation)DPA_ConfirmationConvertor.
                         getInstance().toObject(confirmData);
             } catch ( ValueConversionException ex ) {
@@ -648,10 +876,10 @@ implements ProtocolStateMachineListener
                 return;
             }
             
-            if ( !isTimeUnlimitedRequestInProcess ) {
-                synchronized ( synchroSendOrReceive ) {
+            if ( !lane.isTimeUnlimitedRequestInProcess ) {
+                synchronized ( lane.synchroSendOrReceive ) {
                     try {
-                        protoMachine.confirmationReceived(confirmation);
+                        lane.protoMachine.confirmationReceived(confirmation);
                     } catch ( StateTimeoutedException ex ) {
                         logger.error("Confirmation reception too late. Waiting timeouted.");
                         return;
@@ -659,6 +887,13 @@ implements ProtocolStateMachineListener
                 }
             }
             
+            TimeRequest confirmedRequest = lane.lastRequest;
+            if ( confirmedRequest != null ) {
+                lane.lastRequestHops = confirmation.getHops();
+                getRequestMetrics(confirmedRequest.request).confirmationRtt
+                        .updateSince(confirmedRequest.sentNanos);
+            }
+            
             logger.debug("onGetData - confirmation arrived: {}", networkData);
             return;
         }
@@ -669,13 +904,14 @@ implements ProtocolStateMachineListener
             message = msgConvertor.convertToDOFormat(networkData);
         } catch ( SimplyException e ) {
             logger.error("Conversion error on incomming data", e);
+            responseConversionFailures.get(networkData.getNetworkId(), null).inc();
             return;
         }
         
-        synchronized ( synchroSendOrReceive ) {
-            if ( !isTimeUnlimitedRequestInProcess ) {
+        synchronized ( lane.synchroSendOrReceive ) {
+            if ( !lane.isTimeUnlimitedRequestInProcess ) {
                 try {
-                    protoMachine.responseReceived(networkData.getData());
+                    lane.protoMachine.responseReceived(packet);
                 } catch ( StateTimeoutedException ex ) {
                     logger.error("Response reception too late. Waiting timeouted.");
                     return;
@@ -683,7 +919,7 @@ implements ProtocolStateMachineListener
             }
             
             // processing the message incomming from network
-            processMessage(message, networkData.getData());
+            processMessage(message, packet, lane);
         }
         
         logger.debug("onGetData - end");
@@ -706,4 +942,73 @@ implements ProtocolStateMachineListener
     public void setMaxRequestDuration(long maxRequestDuration) {
         this.maxRequestDuration = checkMaxRequestDuration(maxRequestDuration);
     }
+    
+    /**
+     * Enables or disables network lanes. If network lanes are enabled, each 
+     * network has its own protocol state machine, so requests to different 
+     * networks do not wait for each other. <br>
+     * Network lanes can be enabled or disabled only before the protocol layer
+     * is started.
+     * @param enabled {@code true} to enable network lanes <br>
+     *                {@code false} to disable network lanes
+     * @throws IllegalStateException if the protocol layer has already been started
+     */
+    public void setNetworkLanesEnabled(boolean enabled) {
+        synchronized ( synchroNetworkLanes ) {
+            if ( started ) {
+                throw new IllegalStateException(
+                        "Network lanes cannot be changed after the protocol layer has started."
+                );
+            }
+            this.networkLanesEnabled = enabled;
+        }
+    }
+    
+    /**
+     * Indicates, wheather network lanes are enabled.
+     * @return {@code true} if network lanes are enabled <br>
+     *         {@code false} otherwise
+     */
+    public boolean isNetworkLanesEnabled() {
+        return networkLanesEnabled;
+    }
+    
+    /**
+     * Enables or disables adaptive timeouts. If adaptive timeouts are enabled,
+     * timeouts of waiting for confirmations and responses are derived from 
+     * estimated times of confirmations in each network and of responses of 
+     * each node. Adaptive timeouts are never longer than the static ones.
+     * @param enabled {@code true} to enable adaptive timeouts <br>
+     *                {@code false} to use static timeouts
+     */
+    public void setAdaptiveTimeoutsEnabled(boolean enabled) {
+        synchronized ( synchroNetworkLanes ) {
+            this.adaptiveTimeoutsEnabled = enabled;
+            if ( defaultLane != null ) {
+                defaultLane.protoMachine.setAdaptiveTimeoutsEnabled(enabled);
+            }
+            for ( NetworkLane lane : networkLanes.values() ) {
+                lane.protoMachine.setAdaptiveTimeoutsEnabled(enabled);
+            }
+        }
+    }
+    
+    /**
+     * Indicates, wheather adaptive timeouts are enabled.
+     * @return {@code true} if adaptive timeouts are enabled <br>
+     *         {@code false} otherwise
+     */
+    public boolean isAdaptiveTimeoutsEnabled() {
+        return adaptiveTimeoutsEnabled;
+    }
+    
+    /**
+     * Returns estimator of times of confirmations and responses. Estimates
+     * are updated regardless of whether adaptive timeouts are enabled, so they 
+     * can be used for monitoring.
+     * @return estimator of times of confirmations and responses
+     */
+    public ResponseTimeEstimator getResponseTimeEstimator() {
+        return responseTimeEstimator;
+    }
 }
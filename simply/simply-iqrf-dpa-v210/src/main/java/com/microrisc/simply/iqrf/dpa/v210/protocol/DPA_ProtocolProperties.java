@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.dpa.v210.protocol;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.iqrf.dpa.v210.DPA_ResponseCode;
 import com.microrisc.simply.typeconvertors.AbstractConvertor;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
@@ -294,6 +295,46 @@ public final class DPA_ProtocolProperties {
 
    }
     
+    /**
+     * Timing properties of IQMESH routing.
+     */
+    public static class Timing_Properties {
+        // Suppress default constructor for noninstantiability
+        private Timing_Properties() {
+            throw new AssertionError();
+        }
+        
+        /** Length of timeslot unit [in ms]. */
+        public static final int TIMESLOT_UNIT = 10;
+        
+        /**
+         * Returns length of timeslot [in 10 ms units] used for routing of
+         * a packet with specified length of data.
+         * @param dataLength length of data of the packet
+         * @return length of timeslot [in 10 ms units]
+         */
+        public static long countTimeslotLength(int dataLength) {
+            if ( dataLength < 19 ) {
+                return 8;
+            }
+            if ( dataLength < 41 ) {
+                return 9;
+            }
+            return 10;
+        }
+        
+        /**
+         * Returns time [in ms] of routing of a packet over specified number of
+         * hops with specified length of timeslot.
+         * @param hops number of hops
+         * @param timeslotLength length of timeslot [in 10 ms units]
+         * @return routing time [in ms]
+         */
+        public static long countRoutingTime(int hops, long timeslotLength) {
+            return ( hops + 1 ) * timeslotLength * TIMESLOT_UNIT;
+        }
+    }
+    
     
     /** Start index of node address field. */
     public static final int NADR_START = 0;
@@ -407,6 +448,22 @@ public final class DPA_ProtocolProperties {
         return data;
     }
     
+    /**
+     * Returns Integer-typed specified part of specified protocol message.
+     * @param protoMsg source message
+     * @param startIndex start index in the message
+     * @param dataLength number of bytes
+     */
+    static private int getMessageData_Int(BytePacket protoMsg, int startIndex, 
+            int dataLength
+    ) {
+        int data = 0;
+        for ( int byteId = 0; byteId < dataLength; byteId++ ) {
+            data |= protoMsg.get(startIndex + byteId) << (8 * byteId);
+        }
+        return data;
+    }
+    
     /**
      * Returns length of tripple.
      * @return length of tripple.
@@ -501,6 +558,15 @@ public final class DPA_ProtocolProperties {
         return perNumber;
     }
     
+    /**
+     * Returns PNUM field of specified message.
+     * @param protoMsg source message
+     * @return PNUM field of specified message.
+     */
+    static int getPeripheralNumber(BytePacket protoMsg) {
+        return getMessageData_Int(protoMsg, PNUM_START, PNUM_LENGTH);
+    }
+    
     /**
      * Returns PCMD field of specified message.
      * @param protoMsg source message
@@ -515,6 +581,15 @@ public final class DPA_ProtocolProperties {
         return command;
     }
     
+    /**
+     * Returns PCMD field of specified message.
+     * @param protoMsg source message
+     * @return PCMD field of specified message.
+     */
+    static int getCommand(BytePacket protoMsg) {
+        return getMessageData_Int(protoMsg, PCMD_START, PCMD_LENGTH);
+    }
+    
     /**
      * Returns RESPONSE_CODE field of specified message ( must be a response ).
      * @param protoMsg source message
@@ -539,6 +614,33 @@ public final class DPA_ProtocolProperties {
         throw new ValueConversionException("Unknown response code: " + responseIntCode);
     }
     
+    /**
+     * Returns RESPONSE_CODE field of specified message ( must be a response ).
+     * @param protoMsg source message
+     * @return RESPONSE_CODE field of specified message
+     * @throws ValueConversionException, if response code contains unknown value
+     */
+    public static DPA_ResponseCode getResponseCode(BytePacket protoMsg) 
+            throws ValueConversionException {
+        if ( protoMsg.length() < RESPONSE_CODE_START + RESPONSE_CODE_LENGTH ) {
+            throw new ValueConversionException(
+                    "Message too short to contain response code: " + protoMsg
+            );
+        }
+        
+        int responseIntCode = getMessageData_Int(
+                protoMsg, RESPONSE_CODE_START, RESPONSE_CODE_LENGTH
+        );
+        for ( DPA_ResponseCode responseCode : DPA_ResponseCode.values() ) {
+            if ( responseCode.getCodeValue() == responseIntCode ) {
+                return responseCode;
+            }
+        }
+        
+        // unknown reponse code
+        throw new ValueConversionException("Unknown response code: " + responseIntCode);
+    }
+    
     /**
      * Retruns response code length.
      * @return length of response code
@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.dpa.v210.protocol;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.CallRequest;
 import com.microrisc.simply.ManageableObject;
 import com.microrisc.simply.SimplyException;
@@ -42,10 +43,12 @@ final class ProtocolStateMachine implements ManageableObject {
     
     private static class NewRequestEvent extends Event {
         CallRequest request;
+        long sentTime;
         boolean countWithConfirmation = false;
         
-        NewRequestEvent( CallRequest request) {
+        NewRequestEvent( CallRequest request, long sentTime) {
             this.request = request;
+            this.sentTime = sentTime;
         }
     }
     
@@ -61,11 +64,11 @@ final class ProtocolStateMachine implements ManageableObject {
     
     private static class ResponseReceivedEvent extends Event {
         long recvTime;
-        short[] responseData;
+        int responseDataLength;
 
-        ResponseReceivedEvent(long recvTime, short[] responseData) {
+        ResponseReceivedEvent(long recvTime, int responseDataLength) {
             this.recvTime = recvTime;
-            this.responseData = responseData;
+            this.responseDataLength = responseDataLength;
         }
     }
     
@@ -148,27 +151,68 @@ final class ProtocolStateMachine implements ManageableObject {
     
     // counts timeslot length in 10 ms units
     private static long countTimeslotLength(int responseDataLength) {
-        if ( responseDataLength < 19 ) {
-            return 8;
-        }
-        if ( responseDataLength < 41 ) {
-            return 9;
-        }
-        return 10;
+        return DPA_ProtocolProperties.Timing_Properties.countTimeslotLength(responseDataLength);
+    }
+    
+    // counts routing time [in ms]
+    private static long countRoutingTime(int hops, long timeslotLength) {
+        return DPA_ProtocolProperties.Timing_Properties.countRoutingTime(hops, timeslotLength);
     }
     
     private long countWaitingTimeForConfirmation() {
+        if ( adaptiveTimeoutsEnabled ) {
+            return timeEstimator.getConfirmationTimeout(
+                    request.getNetworkId(), timeToWaitForConfirmation
+            );
+        }
         return timeToWaitForConfirmation;
     }
     
     private long countWaitingTimeForResponse() {
+        long timeToWaitForResponse = baseTimeToWaitForResponse + 100;
+        if ( adaptiveTimeoutsEnabled ) {
+            timeToWaitForResponse = timeEstimator.getResponseTimeout(
+                    request.getNetworkId(), request.getNodeId(), timeToWaitForResponse
+            );
+        }
+        
         long requestRoutingTime = 0;
         if ( countWithConfirmation ) {
-            requestRoutingTime = (confirmation.getHops() + 1) * confirmation.getTimeslotLength() * 10;
-            return baseTimeToWaitForResponse + requestRoutingTime + 100;
+            requestRoutingTime = countRoutingTime(confirmation.getHops(), confirmation.getTimeslotLength());
+            return timeToWaitForResponse + requestRoutingTime;
         }
         
-        return baseTimeToWaitForResponse + 100;
+        return timeToWaitForResponse;
+    }
+    
+    // updates estimate of times of confirmations by just received confirmation
+    private void updateConfirmationTimeEstimate() {
+        if ( timeEstimator == null ) {
+            return;
+        }
+        timeEstimator.confirmationReceived(
+                request.getNetworkId(), Math.max(0, confirmRecvTime - requestSentTime)
+        );
+    }
+    
+    // updates estimate of times of responses by just received response
+    // time of response of a node doesn't include routing of the request
+    private void updateResponseTimeEstimate() {
+        if ( timeEstimator == null ) {
+            return;
+        }
+        
+        long responseTime = 0;
+        if ( countWithConfirmation ) {
+            responseTime = responseRecvTime - confirmRecvTime 
+                    - countRoutingTime(confirmation.getHops(), confirmation.getTimeslotLength());
+        } else {
+            responseTime = responseRecvTime - requestSentTime;
+        }
+        
+        timeEstimator.responseReceived(
+                request.getNetworkId(), request.getNodeId(), Math.max(0, responseTime)
+        );
     }
     
     private long countWaitingTimeAfterResponse() {
@@ -181,8 +225,8 @@ final class ProtocolStateMachine implements ManageableObject {
                                 + "but not present."
                 );
             }
-            return ( confirmation.getHops() + 1 ) * confirmation.getTimeslotLength() * 10
-                + ( confirmation.getHopsResponse() + 1 ) * actualRespTimeslotLength  * 10
+            return countRoutingTime(confirmation.getHops(), confirmation.getTimeslotLength())
+                + countRoutingTime(confirmation.getHopsResponse(), actualRespTimeslotLength)
                 - (System.currentTimeMillis() - responseRecvTime);
         }
         
@@ -190,7 +234,7 @@ final class ProtocolStateMachine implements ManageableObject {
     }
     
     private long countWaitingTimeAfterConfirmation() {
-        return ( confirmation.getHops() + 1 ) * confirmation.getTimeslotLength() * 10
+        return countRoutingTime(confirmation.getHops(), confirmation.getTimeslotLength())
                 - (System.currentTimeMillis() - responseRecvTime);
     }
     
@@ -303,6 +347,9 @@ final class ProtocolStateMachine implements ManageableObject {
                             listener.onConfirmationTimeouted();
                         }
                     }
+                    if ( timeEstimator != null ) {
+                        timeEstimator.confirmationTimeouted(request.getNetworkId());
+                    }
                     break;
                 case WAITING_FOR_RESPONSE:
                     actualState = ProtocolStateMachine.State.WAITING_FOR_RESPONSE_ERROR;
@@ -311,6 +358,9 @@ final class ProtocolStateMachine implements ManageableObject {
                             listener.onResponseTimeouted();
                         }
                     }
+                    if ( timeEstimator != null ) {
+                        timeEstimator.responseTimeouted(request.getNetworkId(), request.getNodeId());
+                    }
                     break;
                 default:
                     throw new IllegalStateException("Cannot do error transition for state: " + actualState);
@@ -322,6 +372,7 @@ final class ProtocolStateMachine implements ManageableObject {
             synchronized ( synchroNewEvent ) {
                 if ( newEvent instanceof NewRequestEvent ) {
                     request = ((NewRequestEvent)newEvent).request;
+                    requestSentTime = ((NewRequestEvent)newEvent).sentTime;
                     countWithConfirmation = ((NewRequestEvent)newEvent).countWithConfirmation;
                     if ( ((NewRequestEvent)newEvent).request instanceof BroadcastRequest ) {
                         willWaitForResponse = false;
@@ -331,9 +382,11 @@ final class ProtocolStateMachine implements ManageableObject {
                 } else if ( newEvent instanceof ConfirmationReceivedEvent ) {
                     confirmation = ((ConfirmationReceivedEvent)newEvent).confirmation;
                     confirmRecvTime = ((ConfirmationReceivedEvent)newEvent).recvTime; 
+                    updateConfirmationTimeEstimate();
                 } else if ( newEvent instanceof ResponseReceivedEvent ) {
-                    responseDataLength = ((ResponseReceivedEvent)newEvent).responseData.length;
+                    responseDataLength = ((ResponseReceivedEvent)newEvent).responseDataLength;
                     responseRecvTime =((ResponseReceivedEvent)newEvent).recvTime;
+                    updateResponseTimeEstimate();
                 } else {
                 }
                 
@@ -481,6 +534,9 @@ final class ProtocolStateMachine implements ManageableObject {
     // request
     private CallRequest request = null;
     
+    // time of sending of the request
+    private long requestSentTime = -1;
+    
     // time of reception of a confirmation
     private long confirmRecvTime = -1;
     
@@ -509,6 +565,13 @@ final class ProtocolStateMachine implements ManageableObject {
     private final Object synchroListener = new Object();
     
     
+    // estimator of times of confirmations and responses
+    private final ResponseTimeEstimator timeEstimator;
+    
+    // indicates, whether to use estimated timeouts instead of static ones
+    private volatile boolean adaptiveTimeoutsEnabled = false;
+    
+    
     private boolean isRequestForCoordinator(CallRequest request) {
         return request.getNodeId().equals("0");
     }
@@ -536,6 +599,17 @@ final class ProtocolStateMachine implements ManageableObject {
      * Creates new object of Protocol Machine.
      */
     public ProtocolStateMachine() {
+        this(null);
+    }
+    
+    /**
+     * Creates new object of Protocol Machine, which updates specified estimator
+     * by times of received confirmations and responses.
+     * @param timeEstimator estimator of times of confirmations and responses,
+     *        {@code null} if no estimation is required
+     */
+    public ProtocolStateMachine(ResponseTimeEstimator timeEstimator) {
+        this.timeEstimator = timeEstimator;
         waitingTimeCounter = new WaitingTimeCounter();
         logger.info("Protocol machine successfully created.");
     }
@@ -574,6 +648,28 @@ final class ProtocolStateMachine implements ManageableObject {
         this.baseTimeToWaitForResponse = checkBaseTimeToWaitForResponse(time);
     }
     
+    /**
+     * Enables or disables using of estimated timeouts of waiting for confirmation
+     * and response instead of the static ones. Estimated timeouts are never
+     * longer than the static ones.
+     * @param enabled {@code true} to use estimated timeouts
+     * @throws IllegalStateException if the machine has no estimator of times
+     */
+    public void setAdaptiveTimeoutsEnabled(boolean enabled) {
+        if ( enabled && (timeEstimator == null) ) {
+            throw new IllegalStateException("No estimator of times to derive timeouts from.");
+        }
+        this.adaptiveTimeoutsEnabled = enabled;
+    }
+    
+    /**
+     * @return {@code true} if estimated timeouts are used <br>
+     *         {@code false} if static timeouts are used
+     */
+    public boolean isAdaptiveTimeoutsEnabled() {
+        return adaptiveTimeoutsEnabled;
+    }
+    
     
     @Override
     public void start() throws SimplyException {
@@ -668,7 +764,7 @@ final class ProtocolStateMachine implements ManageableObject {
         
         // signaling that new event has come in and what is the next expected state
         synchronized ( synchroNewEvent ) {
-            newEvent = new NewRequestEvent(request);
+            newEvent = new NewRequestEvent(request, System.currentTimeMillis());
             if ( request instanceof BroadcastRequest ) {
                 nextExpectedState = State.WAITING_FOR_CONFIRMATION;
             } else {
@@ -773,6 +869,36 @@ final class ProtocolStateMachine implements ManageableObject {
                 recvTime, Arrays.toString(responseData)
         );
         
+        processResponseReception(recvTime, responseData.length);
+        
+        logger.debug("responseReceived - end");
+    }
+    
+    /**
+     * Informs the machine, that response has been received.
+     * @param recvTime time of response reception
+     * @param responseData data of the received response
+     * @throws IllegalArgumentException if the machine is not in {@code WAITING_FOR_RESPONSE} state
+     * @throws StateTimeoutedException if {@code WAITING_FOR_RESPONSE} state was
+     *         timeouted during processing of the specified response data
+     */
+    synchronized public void responseReceived(long recvTime, BytePacket responseData) 
+        throws StateTimeoutedException 
+    {
+        logger.debug("responseReceived - start: recvTime={}, responseData={}",
+                recvTime, responseData
+        );
+        
+        processResponseReception(recvTime, responseData.length());
+        
+        logger.debug("responseReceived - end");
+    }
+    
+    // passes the response reception event to the machine thread and waits for
+    // the state change
+    private void processResponseReception(long recvTime, int responseDataLength) 
+        throws StateTimeoutedException 
+    {
         synchronized ( synchroActualState ) {
             if ( actualState != State.WAITING_FOR_RESPONSE ) {
                 throw new IllegalArgumentException(
@@ -784,7 +910,7 @@ final class ProtocolStateMachine implements ManageableObject {
         State nextExpectedState = null;
         
         synchronized ( synchroNewEvent ) {
-            newEvent = new ResponseReceivedEvent(recvTime, responseData);
+            newEvent = new ResponseReceivedEvent(recvTime, responseDataLength);
             nextExpectedState = State.WAITING_AFTER_RESPONSE;
             synchroNewEvent.notifyAll();
         }
@@ -802,8 +928,6 @@ final class ProtocolStateMachine implements ManageableObject {
                 throw e;
             }
         }
-        
-        logger.debug("responseReceived - end");
     }
     
     /**
@@ -819,6 +943,19 @@ final class ProtocolStateMachine implements ManageableObject {
         responseReceived(System.currentTimeMillis(), responseData);
     }
     
+    /**
+     * Informs the machine, that response has been received. Time of calling of
+     * this method will be used as the time of the response reception.
+     * @param responseData data of the received response
+     * @throws StateTimeoutedException if {@code WAITING_FOR_RESPONSE} state was
+     *         timeouted during processing of the specified response data
+     */
+    synchronized public void responseReceived(BytePacket responseData) 
+            throws StateTimeoutedException  
+    {
+        responseReceived(System.currentTimeMillis(), responseData);
+    }
+    
     /**
      * Reseting the machine after some of error states has occured. 
      */
@@ -0,0 +1,388 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.protocol;
+
+import com.microrisc.simply.metrics.Gauge;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.StandardMetrics;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates times of confirmations and responses from observed ones and derives
+ * timeouts of waiting for them.
+ * <p>
+ * Estimation follows the algorithm of Jacobson and Karels: each observed time
+ * updates smoothed time and smoothed mean deviation, the timeout is the smoothed 
+ * time plus 4 times the deviation. Each timeout doubles the next timeout, 
+ * until a new time is observed.
+ * <p>
+ * Confirmations are sent by the coordinator, so times of confirmations are 
+ * estimated per network. Times of responses are estimated per node. In case 
+ * of requests to nodes, the time of response is measured from reception of
+ * confirmation and the routing time of the request is subtracted from it.
+ * <p>
+ * Timeouts are bounded by minimal timeout from below and by static timeouts
+ * of the protocol from above. If no time has been observed yet, static 
+ * timeout is used.
+ * 
+ * @author Michal Konopa
+ */
+public final class ResponseTimeEstimator {
+    /** Default minimal timeout [in ms]. */
+    public static final long MIN_TIMEOUT_DEFAULT = 100;
+    
+    // gain of smoothed time
+    private static final double TIME_GAIN = 0.125;
+    
+    // gain of smoothed deviation
+    private static final double DEVIATION_GAIN = 0.25;
+    
+    // multiplier of deviation in timeout
+    private static final int DEVIATION_MULTIPLIER = 4;
+    
+    // maximal multiplier of timeout after repeated timeouts
+    private static final int MAX_BACKOFF = 64;
+    
+    
+    /**
+     * Estimate of times of confirmations or responses. 
+     */
+    public static final class Estimate {
+        private final double smoothedTime;
+        private final double deviation;
+        private final long timeout;
+        private final long samplesCount;
+        
+        private Estimate(double smoothedTime, double deviation, long timeout, long samplesCount) {
+            this.smoothedTime = smoothedTime;
+            this.deviation = deviation;
+            this.timeout = timeout;
+            this.samplesCount = samplesCount;
+        }
+        
+        /**
+         * @return smoothed time [in ms]
+         */
+        public double getSmoothedTime() {
+            return smoothedTime;
+        }
+        
+        /**
+         * @return smoothed mean deviation of time [in ms]
+         */
+        public double getDeviation() {
+            return deviation;
+        }
+        
+        /**
+         * @return estimated timeout [in ms], before bounding by minimal and 
+         *         static timeout
+         */
+        public long getTimeout() {
+            return timeout;
+        }
+        
+        /**
+         * @return number of observed times
+         */
+        public long getSamplesCount() {
+            return samplesCount;
+        }
+        
+        @Override
+        public String toString() {
+            return ("{ " +
+                    "smoothedTime=" + smoothedTime + 
+                    ", deviation=" + deviation + 
+                    ", timeout=" + timeout + 
+                    ", samplesCount=" + samplesCount + 
+                    " }");
+        }
+    }
+    
+    
+    // estimator of times of one network or node
+    private static final class Estimator implements Gauge {
+        private double smoothedTime = 0;
+        private double deviation = 0;
+        private long samplesCount = 0;
+        private int backoff = 1;
+        
+        synchronized void update(long time) {
+            if ( samplesCount == 0 ) {
+                smoothedTime = time;
+                deviation = time / 2.0;
+            } else {
+                deviation = (1 - DEVIATION_GAIN) * deviation 
+                        + DEVIATION_GAIN * Math.abs(smoothedTime - time);
+                smoothedTime = (1 - TIME_GAIN) * smoothedTime + TIME_GAIN * time;
+            }
+            samplesCount++;
+            backoff = 1;
+        }
+        
+        synchronized void timeouted() {
+            if ( (samplesCount > 0) && (backoff < MAX_BACKOFF) ) {
+                backoff *= 2;
+            }
+        }
+        
+        synchronized long getTimeout() {
+            return (long)Math.ceil(smoothedTime + DEVIATION_MULTIPLIER * deviation) * backoff;
+        }
+        
+        synchronized boolean hasSamples() {
+            return ( samplesCount > 0 );
+        }
+        
+        synchronized Estimate getEstimate() {
+            return new Estimate(smoothedTime, deviation, getTimeout(), samplesCount);
+        }
+        
+        // estimated timeout in microseconds
+        @Override
+        public long getValue() {
+            return getTimeout() * 1000;
+        }
+    }
+    
+    
+    // estimators of confirmations indexed by network IDs
+    private final ConcurrentMap<String, Estimator> confirmationEstimators 
+            = new ConcurrentHashMap<>();
+    
+    // estimators of responses indexed by network IDs and node IDs
+    private final ConcurrentMap<String, ConcurrentMap<String, Estimator>> responseEstimators 
+            = new ConcurrentHashMap<>();
+    
+    // minimal timeout
+    private volatile long minTimeout = MIN_TIMEOUT_DEFAULT;
+    
+    
+    private static long checkTime(long time) {
+        if ( time < 0 ) {
+            throw new IllegalArgumentException("Time cannot be less then 0");
+        }
+        return time;
+    }
+    
+    private static MetricName getConfirmationMetricName(String networkId) {
+        return new MetricName(
+                StandardMetrics.PROTOCOL_CONFIRMATION_TIMEOUT, 
+                StandardMetrics.TAG_NETWORK, networkId
+        );
+    }
+    
+    private static MetricName getResponseMetricName(String networkId, String nodeId) {
+        return new MetricName(
+                StandardMetrics.PROTOCOL_RESPONSE_TIMEOUT, 
+                StandardMetrics.TAG_NETWORK, networkId,
+                StandardMetrics.TAG_NODE, nodeId
+        );
+    }
+    
+    private Estimator getConfirmationEstimator(String networkId) {
+        Estimator estimator = confirmationEstimators.get(networkId);
+        if ( estimator != null ) {
+            return estimator;
+        }
+        
+        Estimator newEstimator = new Estimator();
+        estimator = confirmationEstimators.putIfAbsent(networkId, newEstimator);
+        if ( estimator != null ) {
+            return estimator;
+        }
+        MetricsRegistry.getDefault().gauge(getConfirmationMetricName(networkId), newEstimator);
+        return newEstimator;
+    }
+    
+    private Estimator getResponseEstimator(String networkId, String nodeId) {
+        ConcurrentMap<String, Estimator> nodeEstimators = responseEstimators.get(networkId);
+        if ( nodeEstimators == null ) {
+            ConcurrentMap<String, Estimator> newNodeEstimators = new ConcurrentHashMap<>();
+            nodeEstimators = responseEstimators.putIfAbsent(networkId, newNodeEstimators);
+            if ( nodeEstimators == null ) {
+                nodeEstimators = newNodeEstimators;
+            }
+        }
+        
+        Estimator estimator = nodeEstimators.get(nodeId);
+        if ( estimator != null ) {
+            return estimator;
+        }
+        
+        Estimator newEstimator = new Estimator();
+        estimator = nodeEstimators.putIfAbsent(nodeId, newEstimator);
+        if ( estimator != null ) {
+            return estimator;
+        }
+        MetricsRegistry.getDefault().gauge(getResponseMetricName(networkId, nodeId), newEstimator);
+        return newEstimator;
+    }
+    
+    // bounds estimated timeout of specified estimator
+    private long getBoundedTimeout(Estimator estimator, long staticTimeout) {
+        if ( (estimator == null) || !estimator.hasSamples() ) {
+            return staticTimeout;
+        }
+        
+        long timeout = Math.max(minTimeout, estimator.getTimeout());
+        return Math.min(timeout, staticTimeout);
+    }
+    
+    
+    /**
+     * Updates estimate of confirmations in specified network by specified 
+     * observed time of confirmation.
+     * @param networkId ID of network
+     * @param time time [in ms] between sending of request and reception of 
+     *             its confirmation
+     */
+    public void confirmationReceived(String networkId, long time) {
+        getConfirmationEstimator(networkId).update(checkTime(time));
+    }
+    
+    /**
+     * Updates estimate of confirmations in specified network by timeout 
+     * of waiting for confirmation.
+     * @param networkId ID of network
+     */
+    public void confirmationTimeouted(String networkId) {
+        getConfirmationEstimator(networkId).timeouted();
+    }
+    
+    /**
+     * Updates estimate of responses of specified node by specified observed 
+     * time of response.
+     * @param networkId ID of network
+     * @param nodeId ID of node
+     * @param time time [in ms] of response
+     */
+    public void responseReceived(String networkId, String nodeId, long time) {
+        getResponseEstimator(networkId, nodeId).update(checkTime(time));
+    }
+    
+    /**
+     * Updates estimate of responses of specified node by timeout of waiting
+     * for response.
+     * @param networkId ID of network
+     * @param nodeId ID of node
+     */
+    public void responseTimeouted(String networkId, String nodeId) {
+        getResponseEstimator(networkId, nodeId).timeouted();
+    }
+    
+    /**
+     * Returns timeout of waiting for confirmation in specified network.
+     * @param networkId ID of network
+     * @param staticTimeout static timeout [in ms] 
+     * @return estimated timeout [in ms] bounded by minimal timeout and 
+     *         {@code staticTimeout}, or {@code staticTimeout}, if no 
+     *         confirmation has been observed
+     */
+    public long getConfirmationTimeout(String networkId, long staticTimeout) {
+        return getBoundedTimeout(confirmationEstimators.get(networkId), staticTimeout);
+    }
+    
+    /**
+     * Returns timeout of waiting for response of specified node.
+     * @param networkId ID of network
+     * @param nodeId ID of node
+     * @param staticTimeout static timeout [in ms] 
+     * @return estimated timeout [in ms] bounded by minimal timeout and 
+     *         {@code staticTimeout}, or {@code staticTimeout}, if no 
+     *         response of the node has been observed
+     */
+    public long getResponseTimeout(String networkId, String nodeId, long staticTimeout) {
+        Map<String, Estimator> nodeEstimators = responseEstimators.get(networkId);
+        if ( nodeEstimators == null ) {
+            return staticTimeout;
+        }
+        return getBoundedTimeout(nodeEstimators.get(nodeId), staticTimeout);
+    }
+    
+    /**
+     * Returns estimate of confirmations in specified network.
+     * @param networkId ID of network
+     * @return estimate of confirmations <br>
+     *         {@code null}, if there is no estimate for the network
+     */
+    public Estimate getConfirmationEstimate(String networkId) {
+        Estimator estimator = confirmationEstimators.get(networkId);
+        return ( estimator == null )? null : estimator.getEstimate();
+    }
+    
+    /**
+     * Returns estimates of responses of nodes in specified network.
+     * @param networkId ID of network
+     * @return estimates of responses indexed by node IDs
+     */
+    public Map<String, Estimate> getResponseEstimates(String networkId) {
+        Map<String, Estimator> nodeEstimators = responseEstimators.get(networkId);
+        if ( nodeEstimators == null ) {
+            return Collections.emptyMap();
+        }
+        
+        Map<String, Estimate> estimates = new HashMap<>();
+        for ( Map.Entry<String, Estimator> entry : nodeEstimators.entrySet() ) {
+            estimates.put(entry.getKey(), entry.getValue().getEstimate());
+        }
+        return Collections.unmodifiableMap(estimates);
+    }
+    
+    /**
+     * Sets minimal timeout.
+     * @param minTimeout minimal timeout [in ms]
+     * @throws IllegalArgumentException if {@code minTimeout} is less then 0
+     */
+    public void setMinTimeout(long minTimeout) {
+        this.minTimeout = checkTime(minTimeout);
+    }
+    
+    /**
+     * @return minimal timeout [in ms]
+     */
+    public long getMinTimeout() {
+        return minTimeout;
+    }
+    
+    /**
+     * Unregisters metrics of all estimates.
+     */
+    public void removeMetrics() {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        for ( Map.Entry<String, Estimator> entry : confirmationEstimators.entrySet() ) {
+            registry.remove(getConfirmationMetricName(entry.getKey()), entry.getValue());
+        }
+        
+        for ( Map.Entry<String, ConcurrentMap<String, Estimator>> networkEntry 
+                : responseEstimators.entrySet() 
+        ) {
+            for ( Map.Entry<String, Estimator> entry : networkEntry.getValue().entrySet() ) {
+                registry.remove(
+                        getResponseMetricName(networkEntry.getKey(), entry.getKey()), 
+                        entry.getValue()
+                );
+            }
+        }
+    }
+}
@@ -18,7 +18,6 @@ package com.microrisc.simply.iqrf.dpa.v210.types;
 
 import com.microrisc.simply.iqrf.dpa.v210.typeconvertors.DPA_RequestConvertor;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -58,13 +57,7 @@ public final class FRC_AcknowledgedBroadcastBits extends AbstractFRC_Command {
         public ResultImpl(byte bit0, byte bit1) {
             this.bit0 = bit0;
             this.bit1 = bit1;
-            if ( (bit0 == 0) && (bit1 == 0) ) {
-                devProcResult = Result.DeviceProcResult.NOT_RESPOND;
-            } else if ( (bit0 == 0) && (bit1 == 1) ) {
-                devProcResult = Result.DeviceProcResult.HWPID_NOT_MATCH;
-            } else {
-                devProcResult = Result.DeviceProcResult.HWP_MATCH;
-            }
+            this.devProcResult = FRC_AcknowledgedBroadcastBits.getDeviceProcResult(bit0, bit1);
         }
         
         @Override
@@ -85,6 +78,27 @@ public final class FRC_AcknowledgedBroadcastBits extends AbstractFRC_Command {
     }
     
     
+    // returns result of processing of FRC command for specified bits
+    private static Result.DeviceProcResult getDeviceProcResult(byte bit0, byte bit1) {
+        if ( (bit0 == 0) && (bit1 == 0) ) {
+            return Result.DeviceProcResult.NOT_RESPOND;
+        } else if ( (bit0 == 0) && (bit1 == 1) ) {
+            return Result.DeviceProcResult.HWPID_NOT_MATCH;
+        } else {
+            return Result.DeviceProcResult.HWP_MATCH;
+        }
+    }
+    
+    /** Creates results of nodes for map view of the result. */
+    private static final FRC_CollectedBitsResult.NodeResultCreator<Result> RESULT_CREATOR
+            = new FRC_CollectedBitsResult.NodeResultCreator<Result>() {
+                @Override
+                public Result create(byte bit0, byte bit1) {
+                    return new ResultImpl(bit0, bit1);
+                }
+            };
+    
+    
     private static short[] checkFrcData(short[] frcData) {
         if ( frcData == null ) {
             throw new IllegalArgumentException("FRC data to parse cannot be null");
@@ -154,24 +168,28 @@ public final class FRC_AcknowledgedBroadcastBits extends AbstractFRC_Command {
     /**
      * Parses specified FRC data comming from IQRF.
      * @param frcData FRC data to parse
-     * @return map of results for each node. Identifiers of nodes are used as a
-     *         keys of the returned map.
+     * @return unmodifiable map of results for each node. Identifiers of nodes
+     *         are used as a keys of the returned map. Results are created at
+     *         the time of access to the map.
      * @throws IllegalArgumentException if specified FRC data are not in correct format
      * @throws Exception if parsing failed
      */
     public static Map<String, Result> parse(short[] frcData) throws Exception {
         checkFrcData(frcData);
         
-        Map<String, ResultImpl> resultImplMap = null;
-        try {
-            resultImplMap = FRC_ResultParser.parseAsCollectedBits(frcData, ResultImpl.class);
-        } catch ( Exception ex ) {
-            throw new Exception("Parsing failed: " + ex);
-        }
-        Map<String, Result> resultMap = new HashMap<>();
-        for ( Map.Entry<String, ResultImpl> resImplEntry : resultImplMap.entrySet() ) {
-            resultMap.put(resImplEntry.getKey(), resImplEntry.getValue());
-        }
-        return resultMap;
+        return FRC_ResultParser.parseAsCollectedBitsResult(frcData).asMap(RESULT_CREATOR);
+    }
+    
+    /**
+     * Returns result of processing of FRC command on specified node.
+     * @param result result parsed by {@link FRC_ResultParser#parseAsCollectedBitsResult(short[], short[]) }
+     * @param nodeAddress address of node
+     * @return result of processing of FRC command on specified node
+     * @throws IllegalArgumentException if {@code nodeAddress} is out of bounds
+     */
+    public static Result.DeviceProcResult getDeviceProcResult(
+            FRC_CollectedBitsResult result, int nodeAddress
+    ) {
+        return getDeviceProcResult(result.getBit0(nodeAddress), result.getBit1(nodeAddress));
     }
 }
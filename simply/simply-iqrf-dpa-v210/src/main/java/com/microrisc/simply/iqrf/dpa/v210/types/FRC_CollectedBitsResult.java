@@ -0,0 +1,227 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.types;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact result of FRC command collecting 2 bits from each node.
+ * <p>
+ * Bits of all nodes are stored in 2 bit sets indexed by node address, so no 
+ * objects are created for individual nodes. Map based view of the result can 
+ * be obtained by the {@link #asMap(NodeResultCreator) asMap} method.
+ * <p>
+ * Objects of this class are immutable.
+ * 
+ * @author Michal Konopa
+ */
+public final class FRC_CollectedBitsResult {
+    /** Number of nodes, whose bits are contained in the result. */
+    public static final int NODES_NUM = 240;
+    
+    /**
+     * Creates result object of one node from its collected bits.
+     * @param <T> type of result object
+     */
+    public static interface NodeResultCreator<T> {
+        /**
+         * Creates and returns result object of one node.
+         * @param bit0 value of Bit.0 of the node
+         * @param bit1 value of Bit.1 of the node
+         * @return result object of the node
+         */
+        T create(byte bit0, byte bit1);
+    }
+    
+    
+    // values of Bit.0 indexed by node address
+    private final long[] bits0;
+    
+    // values of Bit.1 indexed by node address
+    private final long[] bits1;
+    
+    
+    private static int checkNodeAddress(int nodeAddress) {
+        if ( (nodeAddress < 0) || (nodeAddress >= NODES_NUM) ) {
+            throw new IllegalArgumentException(
+                    "Node address out of bounds: " + nodeAddress 
+                    + ". Expected: 0.." + (NODES_NUM - 1)
+            );
+        }
+        return nodeAddress;
+    }
+    
+    private static byte getBit(long[] bits, int nodeAddress) {
+        return (byte)((bits[nodeAddress >>> 6] >>> (nodeAddress & 63)) & 1);
+    }
+    
+    
+    /**
+     * Creates new result. Used by {@link FRC_ResultParser}.
+     * @param bits0 values of Bit.0 indexed by node address
+     * @param bits1 values of Bit.1 indexed by node address
+     */
+    FRC_CollectedBitsResult(long[] bits0, long[] bits1) {
+        this.bits0 = bits0;
+        this.bits1 = bits1;
+    }
+    
+    /**
+     * Returns value of Bit.0 of specified node.
+     * @param nodeAddress address of the node
+     * @return value of Bit.0 of the node
+     * @throws IllegalArgumentException if {@code nodeAddress} is out of bounds
+     */
+    public byte getBit0(int nodeAddress) {
+        return getBit(bits0, checkNodeAddress(nodeAddress));
+    }
+    
+    /**
+     * Returns value of Bit.1 of specified node.
+     * @param nodeAddress address of the node
+     * @return value of Bit.1 of the node
+     * @throws IllegalArgumentException if {@code nodeAddress} is out of bounds
+     */
+    public byte getBit1(int nodeAddress) {
+        return getBit(bits1, checkNodeAddress(nodeAddress));
+    }
+    
+    /**
+     * @return set of addresses of nodes with Bit.0 set to 1
+     */
+    public BitSet getBit0Nodes() {
+        return BitSet.valueOf(bits0);
+    }
+    
+    /**
+     * @return set of addresses of nodes with Bit.1 set to 1
+     */
+    public BitSet getBit1Nodes() {
+        return BitSet.valueOf(bits1);
+    }
+    
+    /**
+     * Returns unmodifiable map view of this result. Identifiers of nodes are 
+     * used as a keys of the map. Result objects of nodes are created by 
+     * specified creator at the time of access.
+     * @param <T> type of result object of each node
+     * @param creator creator of result objects of nodes
+     * @return map view of this result
+     */
+    public <T> Map<String, T> asMap(NodeResultCreator<T> creator) {
+        if ( creator == null ) {
+            throw new IllegalArgumentException("Node result creator cannot be null");
+        }
+        return new ResultMap<>(creator);
+    }
+    
+    
+    /** Lazy map view of the result. */
+    private class ResultMap<T> extends AbstractMap<String, T> {
+        private final NodeResultCreator<T> creator;
+        
+        ResultMap(NodeResultCreator<T> creator) {
+            this.creator = creator;
+        }
+        
+        private T createNodeResult(int nodeAddress) {
+            return creator.create(getBit(bits0, nodeAddress), getBit(bits1, nodeAddress));
+        }
+        
+        // returns node address for specified key or -1, if the key is not valid
+        private int getNodeAddress(Object key) {
+            if ( !(key instanceof String) ) {
+                return -1;
+            }
+            
+            int nodeAddress;
+            try {
+                nodeAddress = Integer.parseInt((String)key);
+            } catch ( NumberFormatException e ) {
+                return -1;
+            }
+            
+            if ( (nodeAddress < 0) || (nodeAddress >= NODES_NUM) 
+                    || !String.valueOf(nodeAddress).equals(key) 
+            ) {
+                return -1;
+            }
+            return nodeAddress;
+        }
+        
+        @Override
+        public T get(Object key) {
+            int nodeAddress = getNodeAddress(key);
+            return ( nodeAddress == -1 )? null : createNodeResult(nodeAddress);
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return ( getNodeAddress(key) != -1 );
+        }
+        
+        @Override
+        public int size() {
+            return NODES_NUM;
+        }
+        
+        @Override
+        public Set<Map.Entry<String, T>> entrySet() {
+            return new AbstractSet<Map.Entry<String, T>>() {
+                @Override
+                public Iterator<Map.Entry<String, T>> iterator() {
+                    return new Iterator<Map.Entry<String, T>>() {
+                        private int nodeAddress = 0;
+                        
+                        @Override
+                        public boolean hasNext() {
+                            return ( nodeAddress < NODES_NUM );
+                        }
+                        
+                        @Override
+                        public Map.Entry<String, T> next() {
+                            if ( !hasNext() ) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, T> entry = new AbstractMap.SimpleImmutableEntry<>(
+                                    String.valueOf(nodeAddress), createNodeResult(nodeAddress)
+                            );
+                            nodeAddress++;
+                            return entry;
+                        }
+                        
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("Result is unmodifiable");
+                        }
+                    };
+                }
+                
+                @Override
+                public int size() {
+                    return NODES_NUM;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.v210.types;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact result of FRC command collecting 1 byte from each node.
+ * <p>
+ * Bytes of all nodes are stored in an array indexed by node address, so no 
+ * objects are created for individual nodes. Map based view of the result can 
+ * be obtained by the {@link #asMap(NodeResultCreator) asMap} method.
+ * <p>
+ * Objects of this class are immutable.
+ * 
+ * @author Michal Konopa
+ */
+public final class FRC_CollectedBytesResult {
+    /** Minimal address of node contained in the result. */
+    public static final int MIN_NODE_ADDRESS = 1;
+    
+    /** Maximal address of node contained in the result. */
+    public static final int MAX_NODE_ADDRESS = 62;
+    
+    /**
+     * Creates result object of one node from its collected byte.
+     * @param <T> type of result object
+     */
+    public static interface NodeResultCreator<T> {
+        /**
+         * Creates and returns result object of one node.
+         * @param byteValue value of collected byte of the node
+         * @return result object of the node
+         */
+        T create(short byteValue);
+    }
+    
+    
+    // collected bytes indexed by node address
+    private final byte[] bytes;
+    
+    
+    private static int checkNodeAddress(int nodeAddress) {
+        if ( (nodeAddress < MIN_NODE_ADDRESS) || (nodeAddress > MAX_NODE_ADDRESS) ) {
+            throw new IllegalArgumentException(
+                    "Node address out of bounds: " + nodeAddress 
+                    + ". Expected: " + MIN_NODE_ADDRESS + ".." + MAX_NODE_ADDRESS
+            );
+        }
+        return nodeAddress;
+    }
+    
+    
+    /**
+     * Creates new result. Used by {@link FRC_ResultParser}.
+     * @param bytes collected bytes indexed by node address
+     */
+    FRC_CollectedBytesResult(byte[] bytes) {
+        this.bytes = bytes;
+    }
+    
+    /**
+     * Returns value of collected byte of specified node.
+     * @param nodeAddress address of the node
+     * @return value of collected byte of the node
+     * @throws IllegalArgumentException if {@code nodeAddress} is out of bounds
+     */
+    public short getByte(int nodeAddress) {
+        return (short)(bytes[checkNodeAddress(nodeAddress)] & 0xFF);
+    }
+    
+    /**
+     * Returns collected bytes of all nodes. Index into the returned array 
+     * is the address of node. Items out of the 
+     * {@code MIN_NODE_ADDRESS..MAX_NODE_ADDRESS} interval are {@code 0}.
+     * @return collected bytes indexed by node address
+     */
+    public short[] toArray() {
+        short[] values = new short[MAX_NODE_ADDRESS + 1];
+        for ( int nodeAddress = MIN_NODE_ADDRESS; nodeAddress <= MAX_NODE_ADDRESS; nodeAddress++ ) {
+            values[nodeAddress] = (short)(bytes[nodeAddress] & 0xFF);
+        }
+        return values;
+    }
+    
+    /**
+     * Returns unmodifiable map view of this result. Identifiers of nodes are 
+     * used as a keys of the map. Result objects of nodes are created by 
+     * specified creator at the time of access.
+     * @param <T> type of result object of each node
+     * @param creator creator of result objects of nodes
+     * @return map view of this result
+     */
+    public <T> Map<String, T> asMap(NodeResultCreator<T> creator) {
+        if ( creator == null ) {
+            throw new IllegalArgumentException("Node result creator cannot be null");
+        }
+        return new ResultMap<>(creator);
+    }
+    
+    
+    /** Lazy map view of the result. */
+    private class ResultMap<T> extends AbstractMap<String, T> {
+        private final NodeResultCreator<T> creator;
+        
+        ResultMap(NodeResultCreator<T> creator) {
+            this.creator = creator;
+        }
+        
+        private T createNodeResult(int nodeAddress) {
+            return creator.create((short)(bytes[nodeAddress] & 0xFF));
+        }
+        
+        // returns node address for specified key or -1, if the key is not valid
+        private int getNodeAddress(Object key) {
+            if ( !(key instanceof String) ) {
+                return -1;
+            }
+            
+            int nodeAddress;
+            try {
+                nodeAddress = Integer.parseInt((String)key);
+            } catch ( NumberFormatException e ) {
+                return -1;
+            }
+            
+            if ( (nodeAddress < MIN_NODE_ADDRESS) || (nodeAddress > MAX_NODE_ADDRESS) 
+                    || !String.valueOf(nodeAddress).equals(key) 
+            ) {
+                return -1;
+            }
+            return nodeAddress;
+        }
+        
+        @Override
+        public T get(Object key) {
+            int nodeAddress = getNodeAddress(key);
+            return ( nodeAddress == -1 )? null : createNodeResult(nodeAddress);
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return ( getNodeAddress(key) != -1 );
+        }
+        
+        @Override
+        public int size() {
+            return MAX_NODE_ADDRESS - MIN_NODE_ADDRESS + 1;
+        }
+        
+        @Override
+        public Set<Map.Entry<String, T>> entrySet() {
+            return new AbstractSet<Map.Entry<String, T>>() {
+                @Override
+                public Iterator<Map.Entry<String, T>> iterator() {
+                    return new Iterator<Map.Entry<String, T>>() {
+                        private int nodeAddress = MIN_NODE_ADDRESS;
+                        
+                        @Override
+                        public boolean hasNext() {
+                            return ( nodeAddress <= MAX_NODE_ADDRESS );
+                        }
+                        
+                        @Override
+                        public Map.Entry<String, T> next() {
+                            if ( !hasNext() ) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, T> entry = new AbstractMap.SimpleImmutableEntry<>(
+                                    String.valueOf(nodeAddress), createNodeResult(nodeAddress)
+                            );
+                            nodeAddress++;
+                            return entry;
+                        }
+                        
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("Result is unmodifiable");
+                        }
+                    };
+                }
+                
+                @Override
+                public int size() {
+                    return ResultMap.this.size();
+                }
+            };
+        }
+    }
+}
@@ -59,6 +59,106 @@ public final class FRC_ResultParser {
         return frcData;
     }
     
+    private static void checkFrcData(short[] frcData, short[] extraData) {
+        if ( frcData == null ) {
+            throw new IllegalArgumentException("FRC data to parse cannot be null");
+        }
+        
+        int dataLength = ( extraData == null )? frcData.length : frcData.length + extraData.length;
+        if ( dataLength != DATA_LENGTH ) {
+            throw new IllegalArgumentException(
+                    "Invalid length of FRC data. Expected: " + DATA_LENGTH 
+                            + ", got: " + dataLength 
+            );
+        }
+    }
+    
+    // returns byte at specified index of data merged from FRC data and extra data
+    private static int getDataByte(short[] frcData, short[] extraData, int index) {
+        if ( index < frcData.length ) {
+            return frcData[index] & 0xFF;
+        }
+        return extraData[index - frcData.length] & 0xFF;
+    }
+    
+    /**
+     * Parses specified FRC result data as collected bits and returns compact result.
+     * @param frcData FRC data to parse
+     * @return parsed result
+     * @throws IllegalArgumentException if {@code frcData} is {@code null} or 
+     *         has invalid length
+     */
+    public static FRC_CollectedBitsResult parseAsCollectedBitsResult(short[] frcData) {
+        return parseAsCollectedBitsResult(frcData, null);
+    }
+    
+    /**
+     * Parses FRC result data merged from specified data returned by FRC send 
+     * and by FRC extra result and returns compact result.
+     * @param frcData FRC data returned by FRC send
+     * @param extraData FRC data returned by FRC extra result, can be 
+     *        {@code null}, if {@code frcData} are complete
+     * @return parsed result
+     * @throws IllegalArgumentException if {@code frcData} is {@code null} or 
+     *         length of merged data is invalid
+     */
+    public static FRC_CollectedBitsResult parseAsCollectedBitsResult(
+            short[] frcData, short[] extraData
+    ) {
+        checkFrcData(frcData, extraData);
+        
+        int bitsLength = (FRC_CollectedBitsResult.NODES_NUM + 63) / 64;
+        long[] bits0 = new long[bitsLength];
+        long[] bits1 = new long[bitsLength];
+        
+        for ( int byteId = FIRST_BIT_START_INDEX; byteId <= FIRST_BIT_END_INDEX; byteId++ ) {
+            long byte0 = getDataByte(frcData, extraData, byteId);
+            long byte1 = getDataByte(frcData, extraData, byteId + SECOND_BIT_START_INDEX);
+            
+            // bit position of the first node of the byte
+            int bitPos = (byteId - FIRST_BIT_START_INDEX) * 8;
+            bits0[bitPos >>> 6] |= byte0 << (bitPos & 63);
+            bits1[bitPos >>> 6] |= byte1 << (bitPos & 63);
+        }
+        
+        return new FRC_CollectedBitsResult(bits0, bits1);
+    }
+    
+    /**
+     * Parses specified FRC result data as collected bytes and returns compact result.
+     * @param frcData FRC data to parse
+     * @return parsed result
+     * @throws IllegalArgumentException if {@code frcData} is {@code null} or 
+     *         has invalid length
+     */
+    public static FRC_CollectedBytesResult parseAsCollectedBytesResult(short[] frcData) {
+        return parseAsCollectedBytesResult(frcData, null);
+    }
+    
+    /**
+     * Parses FRC result data merged from specified data returned by FRC send 
+     * and by FRC extra result and returns compact result.
+     * @param frcData FRC data returned by FRC send
+     * @param extraData FRC data returned by FRC extra result, can be 
+     *        {@code null}, if {@code frcData} are complete
+     * @return parsed result
+     * @throws IllegalArgumentException if {@code frcData} is {@code null} or 
+     *         length of merged data is invalid
+     */
+    public static FRC_CollectedBytesResult parseAsCollectedBytesResult(
+            short[] frcData, short[] extraData
+    ) {
+        checkFrcData(frcData, extraData);
+        
+        byte[] bytes = new byte[FRC_CollectedBytesResult.MAX_NODE_ADDRESS + 1];
+        int nodeId = FRC_CollectedBytesResult.MIN_NODE_ADDRESS;
+        for ( int byteId = BYTE_START_INDEX; byteId <= BYTE_END_INDEX; byteId++ ) {
+            bytes[nodeId++] = (byte)getDataByte(frcData, extraData, byteId);
+        }
+        
+        return new FRC_CollectedBytesResult(bytes);
+    }
+    
     /**
      * Parses specified FRC result data as collected bits and returns parsed result.
      * Result is a map of parsed objects of type {@code T} for each node. Identifiers 
@@ -66,7 +166,9 @@ public final class FRC_ResultParser {
      * <p>
      * Important note: <br>
      * Supplied T type must have a public constructor with 2 parameters of 
-     * {@code byte} type, else an exception is thrown. 
+     * {@code byte} type, else an exception is thrown. Objects are created
+     * using reflection, {@link #parseAsCollectedBitsResult(short[], short[]) } 
+     * should be preferred for frequent parsing.
      * @param <T> type of parsed result information of each node
      * @param frcData FRC data to parse
      * @param type Class object of object to return as a parsed result for each node 
@@ -116,7 +218,9 @@ public final class FRC_ResultParser {
      * <p>
      * Important note: <br>
      * Supplied T type must have a public constructor with 1 parameter of 
-     * {@code short} type, else an exception is thrown. 
+     * {@code short} type, else an exception is thrown. Objects are created
+     * using reflection, {@link #parseAsCollectedBytesResult(short[], short[]) } 
+     * should be preferred for frequent parsing.
      * @param <T> type of parsed result information of each node
      * @param frcData FRC data to parse
      * @param type Class object of object to return as a parsed result for each node 
@@ -16,7 +16,6 @@
 
 package com.microrisc.simply.iqrf.dpa.v210.types;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -57,6 +56,16 @@ public final class FRC_ReturnValue extends AbstractFRC_Command {
     }
     
     
+    /** Creates results of nodes for map view of the result. */
+    private static final FRC_CollectedBytesResult.NodeResultCreator<Result> RESULT_CREATOR
+            = new FRC_CollectedBytesResult.NodeResultCreator<Result>() {
+                @Override
+                public Result create(short byteValue) {
+                    return new ResultImpl(byteValue);
+                }
+            };
+    
+    
     private static short[] checkFrcData(short[] frcData) {
         if ( frcData == null ) {
             throw new IllegalArgumentException("FRC data to parse cannot be null");
@@ -104,23 +113,26 @@ public final class FRC_ReturnValue extends AbstractFRC_Command {
     /**
      * Parses specified FRC data comming from IQRF.
      * @param frcData FRC data to parse
-     * @return map of results for each node. Identifiers of nodes are used as a
-     *         keys of the returned map.
+     * @return unmodifiable map of results for each node. Identifiers of nodes
+     *         are used as a keys of the returned map. Results are created at
+     *         the time of access to the map.
      * @throws IllegalArgumentException if specified FRC data are not in correct format
      * @throws Exception if parsing failed
      */
     public static Map<String, Result> parse(short[] frcData) throws Exception {
         checkFrcData(frcData);
-        Map<String, ResultImpl> resultImplMap = null;
-        try {
-            resultImplMap = FRC_ResultParser.parseAsCollectedBytes(frcData, ResultImpl.class);
-        } catch ( Exception ex ) {
-            throw new Exception("Parsing failed: " + ex);
-        }
-        Map<String, Result> resultMap = new HashMap<>();
-        for ( Map.Entry<String, ResultImpl> resImplEntry : resultImplMap.entrySet() ) {
-            resultMap.put(resImplEntry.getKey(), resImplEntry.getValue());
-        }
-        return resultMap;
+        return FRC_ResultParser.parseAsCollectedBytesResult(frcData).asMap(RESULT_CREATOR);
+    }
+    
+    /**
+     * Returns return value of specified node.
+     * @param result result parsed by {@link FRC_ResultParser#parseAsCollectedBytesResult(short[], short[]) }
+     * @param nodeAddress address of node
+     * @return user specified byte ( via user data ) of return value 
+     *         of specified node
+     * @throws IllegalArgumentException if {@code nodeAddress} is out of bounds
+     */
+    public static short getReturnValue(FRC_CollectedBytesResult result, int nodeAddress) {
+        return result.getByte(nodeAddress);
     }
 }
@@ -18,6 +18,7 @@ package com.microrisc.simply.iqrf.dpa;
 
 import com.microrisc.simply.BaseSimply;
 import com.microrisc.simply.ConnectionStack;
+import com.microrisc.simply.ManageableObject;
 import com.microrisc.simply.Network;
 import com.microrisc.simply.asynchrony.AsynchronousMessagesGenerator;
 import com.microrisc.simply.asynchrony.AsynchronousMessagesGeneratorListener;
@@ -92,6 +93,9 @@ extends BaseSimply implements DPA_Simply {
         ((AsynchronousMessagesGenerator)connStack.getConnector()).unregisterListener(
                 (AsynchronousMessagesGeneratorListener) asyncManager
         );
+        if ( asyncManager instanceof ManageableObject ) {
+            ((ManageableObject) asyncManager).destroy();
+        }
         asyncManager = null;
         
         super.destroy();
@@ -16,13 +16,22 @@
 
 package com.microrisc.simply.iqrf.dpa.asynchrony;
 
+import com.microrisc.simply.ManageableObject;
+import com.microrisc.simply.SimplyException;
 import com.microrisc.simply.asynchrony.AbstractAsynchronousMessagingManager;
 import com.microrisc.simply.asynchrony.AsynchronousMessagePropertiesChecker;
 import com.microrisc.simply.asynchrony.AsynchronousMessagesListener;
+import com.microrisc.simply.asynchrony.DispatcherConfiguration;
+import com.microrisc.simply.asynchrony.DispatchingAsynchronousMessagingManager;
 import com.microrisc.simply.asynchrony.SimpleAsynchronousMessagingManager;
 
 /**
  * DPA implementation of {@code AsynchronousMessagingManager} interface.
+ * <p>
+ * If created with dispatcher configuration, messages are delivered to 
+ * listeners by {@code DispatchingAsynchronousMessagingManager}, i.e. off
+ * the thread of the connector. Otherwise, messages are delivered directly
+ * in the thread of the connector.
  * 
  * @author Michal Konopa
  */
@@ -31,11 +40,12 @@ extends AbstractAsynchronousMessagingManager<
             DPA_AsynchronousMessage, 
             DPA_AsynchronousMessageProperties
         > 
+implements ManageableObject
 {
-    
-    private final SimpleAsynchronousMessagingManager<
+    // manager, which all the functionality is delegated to
+    private final AbstractAsynchronousMessagingManager<
                 DPA_AsynchronousMessage, DPA_AsynchronousMessageProperties
-            > simpleManager;
+            > innerManager;
     
     /**
      * Creates new DPA asynchronous messaging manager with specified checker to
@@ -49,7 +59,7 @@ extends AbstractAsynchronousMessagingManager<
             > checker
     ) {
         super(checker);
-        simpleManager = new SimpleAsynchronousMessagingManager<>(checker);
+        innerManager = new SimpleAsynchronousMessagingManager<>(checker);
     }
     
     /**
@@ -60,11 +70,54 @@ extends AbstractAsynchronousMessagingManager<
         this( new DPA_AsynchronousMessagePropertiesChecker() );
     }
     
+    /**
+     * Creates new DPA asynchronous messaging manager, which delivers messages
+     * to listeners off the thread of the connector. The manager will be using
+     * {@code DPA_AsynchronousMessagePropertiesChecker} checker.
+     * @param dispatcherConfig configuration of dispatching of messages
+     */
+    public DPA_AsynchronousMessagingManager(DispatcherConfiguration dispatcherConfig) {
+        this( new DPA_AsynchronousMessagePropertiesChecker(), dispatcherConfig );
+    }
+    
+    /**
+     * Creates new DPA asynchronous messaging manager, which delivers messages
+     * to listeners off the thread of the connector.
+     * @param checker checker to use
+     * @param dispatcherConfig configuration of dispatching of messages
+     */
+    public DPA_AsynchronousMessagingManager(
+            AsynchronousMessagePropertiesChecker<
+                    DPA_AsynchronousMessage, 
+                    DPA_AsynchronousMessageProperties
+            > checker,
+            DispatcherConfiguration dispatcherConfig
+    ) {
+        super(checker);
+        innerManager = new DispatchingAsynchronousMessagingManager<>(
+                checker, new DPA_PeripheralKeyResolver(), dispatcherConfig
+        );
+    }
+    
+    @Override
+    public void start() throws SimplyException {
+        if ( innerManager instanceof ManageableObject ) {
+            ((ManageableObject) innerManager).start();
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        if ( innerManager instanceof ManageableObject ) {
+            ((ManageableObject) innerManager).destroy();
+        }
+    }
+    
     @Override
     public void registerAsyncMsgListener(
             AsynchronousMessagesListener<DPA_AsynchronousMessage> listener
     ) {
-        simpleManager.registerAsyncMsgListener(listener);
+        innerManager.registerAsyncMsgListener(listener);
     }
 
     @Override
@@ -72,19 +125,19 @@ extends AbstractAsynchronousMessagingManager<
             AsynchronousMessagesListener<DPA_AsynchronousMessage> listener, 
             DPA_AsynchronousMessageProperties msgProps
     ) {
-        simpleManager.registerAsyncMsgListener(listener, msgProps);
+        innerManager.registerAsyncMsgListener(listener, msgProps);
     }
 
     @Override
     public void unregisterAsyncMsgListener(
             AsynchronousMessagesListener<DPA_AsynchronousMessage> listener
     ) {
-        simpleManager.unregisterAsyncMsgListener(listener);
+        innerManager.unregisterAsyncMsgListener(listener);
     }
 
     @Override
     public void onAsynchronousMessage(DPA_AsynchronousMessage message) {
-        simpleManager.onAsynchronousMessage(message);
+        innerManager.onAsynchronousMessage(message);
     }
 
 }
@@ -0,0 +1,48 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.asynchrony;
+
+import com.microrisc.simply.asynchrony.PeripheralKeyResolver;
+
+/**
+ * Resolves peripheral numbers of DPA asynchronous messages.
+ * 
+ * @author Michal Konopa
+ */
+public final class DPA_PeripheralKeyResolver
+implements PeripheralKeyResolver<
+            DPA_AsynchronousMessage, 
+            DPA_AsynchronousMessageProperties
+        >
+{
+    @Override
+    public Object getPeripheralKey(DPA_AsynchronousMessage message) {
+        if ( message.getMessageSource() == null ) {
+            return null;
+        }
+        return message.getMessageSource().getPeripheralNumber();
+    }
+
+    @Override
+    public Object getRequiredPeripheralKey(DPA_AsynchronousMessageProperties props) {
+        if ( props.getPeripheralNumber() == DPA_AsynchronousMessageProperties.NOT_DEFINED ) {
+            return null;
+        }
+        return props.getPeripheralNumber();
+    }
+    
+}
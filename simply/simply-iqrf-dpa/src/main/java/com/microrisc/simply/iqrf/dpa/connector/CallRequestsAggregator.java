@@ -0,0 +1,51 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.connector;
+
+import com.microrisc.simply.CallRequest;
+import java.util.List;
+
+/**
+ * Aggregates several requests to the same node into one request, e.g. into 
+ * one batch of commands. The result of aggregated request is delivered to 
+ * the callers of all requests aggregated into it, so only requests, whose 
+ * results carry no data, should be aggregable.
+ * <p>
+ * Implementations must have public constructor without parameters.
+ * 
+ * @author Michal Konopa
+ */
+public interface CallRequestsAggregator {
+    /**
+     * Indicates, wheather specified request can be aggregated with other
+     * requests.
+     * @param request request
+     * @return {@code true} if {@code request} can be aggregated <br>
+     *         {@code false} otherwise
+     */
+    boolean isAggregable(CallRequest request);
+    
+    /**
+     * Aggregates specified requests into one request. Aggregated request 
+     * must process specified requests in the order they are in the list.
+     * @param requests aggregable requests to the same node
+     * @return aggregated request <br>
+     *         {@code null}, if specified requests cannot be aggregated into 
+     *         one request, e.g. because of limited length of request data
+     */
+    CallRequest aggregate(List<CallRequest> requests);
+}
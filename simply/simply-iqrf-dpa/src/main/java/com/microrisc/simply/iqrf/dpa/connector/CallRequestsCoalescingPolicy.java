@@ -0,0 +1,40 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.iqrf.dpa.connector;
+
+import com.microrisc.simply.CallRequest;
+
+/**
+ * Selects requests, which can be coalesced with equal requests processed at 
+ * the same time. All callers of coalesced requests get the same result and 
+ * the request is sent into the network only once, so only requests, which 
+ * only read a state of a device and don't change it, should be coalescable.
+ * <p>
+ * Implementations must have public constructor without parameters.
+ * 
+ * @author Michal Konopa
+ */
+public interface CallRequestsCoalescingPolicy {
+    /**
+     * Indicates, wheather specified request can be coalesced with equal 
+     * requests.
+     * @param request request
+     * @return {@code true} if {@code request} can be coalesced <br>
+     *         {@code false} otherwise
+     */
+    boolean isCoalescable(CallRequest request);
+}
@@ -19,6 +19,7 @@ package com.microrisc.simply.iqrf.dpa.connector;
 import com.microrisc.simply.AbstractMessage;
 import com.microrisc.simply.BaseCallResponse;
 import com.microrisc.simply.CallRequest;
+import com.microrisc.simply.CallRequestPriority;
 import com.microrisc.simply.CallRequestProcessingInfo;
 import com.microrisc.simply.CallRequestProcessingState;
 import static com.microrisc.simply.CallRequestProcessingState.ERROR;
@@ -34,24 +35,61 @@ import com.microrisc.simply.asynchrony.BaseAsynchronousMessage;
 import com.microrisc.simply.asynchrony.AsynchronousMessagesGenerator;
 import com.microrisc.simply.asynchrony.AsynchronousMessagesGeneratorListener;
 import com.microrisc.simply.connector.AbstractConnector;
+import com.microrisc.simply.connector.CallRequestScheduler;
 import com.microrisc.simply.connector.CallResultsSender;
+import com.microrisc.simply.connector.PriorityCallRequestScheduler;
 import com.microrisc.simply.connector.response_waiting.ResponseWaitingConnector;
 import com.microrisc.simply.errors.DispatchingRequestToProtocolLayerError;
 import com.microrisc.simply.errors.CallRequestProcessingError;
+import com.microrisc.simply.errors.DeadlineExpiredError;
 import com.microrisc.simply.iqrf.dpa.asynchrony.DPA_AsynchronousMessage;
 import com.microrisc.simply.iqrf.dpa.broadcasting.BroadcastRequest;
 import com.microrisc.simply.iqrf.dpa.broadcasting.BroadcastingConnectorService;
+import com.microrisc.simply.metrics.Counter;
+import com.microrisc.simply.metrics.Gauge;
+import com.microrisc.simply.metrics.Histogram;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.RequestMetricsCache;
+import com.microrisc.simply.metrics.StandardMetrics;
+import com.microrisc.simply.protocol.CallRequestComparator;
+import com.microrisc.simply.utilities.HashedTimerWheel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Simple response waiting connector supporting DPA.
+ * <p>
+ * By default, requests to all networks are processed one after another by one 
+ * worker thread. If network lanes are enabled, each network gets its own queue 
+ * of requests and its own worker thread. See {@link #setNetworkLanesEnabled(boolean) }.
+ * <p>
+ * If requests coalescing policy is set, equal coalescable requests waiting in 
+ * the queue or being processed at the same time are processed as one request 
+ * and all of their callers get the same result. 
+ * See {@link #setRequestsCoalescingPolicy(CallRequestsCoalescingPolicy) }.
+ * <p>
+ * Requests waiting in the queue are sent in the order given by their priority 
+ * classes and deadlines, see {@link PriorityCallRequestScheduler}. Requests,
+ * which cannot be sent before their deadlines, are dropped and their processing 
+ * ends with {@link DeadlineExpiredError}.
+ * <p>
+ * If requests aggregator is set, aggregable requests waiting in the queue 
+ * for the same node are sent as one aggregated request and all of their 
+ * callers get its result. See {@link #setRequestsAggregator(CallRequestsAggregator) }.
  * 
  * @author Michal Konopa
  */
@@ -73,22 +111,133 @@ implements
         CallRequest callRequest;
         long maxProcTime;
         
-        public CallRequestToProcess(CallRequest callRequest, long maxProcTime) {
+        // priority class
+        final CallRequestPriority priority;
+        
+        // time [in ms], until which the request must be sent, or NO_DEADLINE
+        final long deadline;
+        
+        // time of creation [in ns], used for time-in-queue metric and for 
+        // ordering of aggregated requests
+        long creationTime = System.nanoTime();
+        
+        // cancelled requests are skipped, when polled from the queue
+        volatile boolean cancelled = false;
+        
+        // indicates, wheather the request has already been sent into the network
+        volatile boolean sent = false;
+        
+        public CallRequestToProcess(
+                CallRequest callRequest, long maxProcTime, 
+                CallRequestPriority priority, long deadline
+        ) {
             this.callRequest = callRequest;
             this.maxProcTime = maxProcTime;
+            this.priority = priority;
+            this.deadline = deadline;
         }
     }
     
+    /**
+     * Orders requests by time of their creation.
+     */
+    private static final Comparator<CallRequestToProcess> CREATION_ORDER 
+            = new Comparator<CallRequestToProcess>() {
+        @Override
+        public int compare(CallRequestToProcess reqToProc1, CallRequestToProcess reqToProc2) {
+            long diff = reqToProc1.creationTime - reqToProc2.creationTime;
+            return ( diff < 0 )? -1 : (( diff > 0 )? 1 : 0);
+        }
+    };
+    
     private class IdleRequest {
         CallRequestToProcess reqToProc;
-        long startIdleTime;
         
-        public IdleRequest(CallRequestToProcess reqToProc, long startIdleTime) {
+        // expiration of idle time of the request
+        HashedTimerWheel.Timeout<UUID> idleTimeout;
+        
+        public IdleRequest(CallRequestToProcess reqToProc) {
             this.reqToProc = reqToProc;
-            this.startIdleTime = startIdleTime;
         }
     }
     
+    /**
+     * Request, which other equal requests can be attached to. 
+     */
+    private class CoalescedRequest {
+        CallRequestToProcess reqToProc;
+        
+        // IDs of requests attached to this request
+        final List<UUID> attachedIds = new LinkedList<>();
+        
+        // indicates, wheather the caller of this request has already cancelled it
+        boolean originalCancelled = false;
+        
+        // only requests waiting in the queue or waiting for a response can be joined
+        boolean joinable = true;
+        
+        public CoalescedRequest(CallRequestToProcess reqToProc) {
+            this.reqToProc = reqToProc;
+        }
+    }
+    
+    /**
+     * Metrics of requests to one peripheral in one network.
+     */
+    private static final class RequestMetrics {
+        final Histogram queueTime;
+        final Counter retries;
+        final Counter idle;
+        final Counter coalesced;
+        final Counter aggregated;
+        final Counter expired;
+        
+        RequestMetrics(String networkId, String peripheral) {
+            MetricsRegistry registry = MetricsRegistry.getDefault();
+            queueTime = registry.histogram(
+                    getRequestMetricName(StandardMetrics.CONNECTOR_QUEUE_TIME, networkId, peripheral)
+            );
+            retries = registry.counter(
+                    getRequestMetricName(StandardMetrics.CONNECTOR_RETRIES, networkId, peripheral)
+            );
+            idle = registry.counter(
+                    getRequestMetricName(StandardMetrics.CONNECTOR_IDLE_REQUESTS, networkId, peripheral)
+            );
+            coalesced = registry.counter(
+                    getRequestMetricName(StandardMetrics.CONNECTOR_COALESCED_REQUESTS, networkId, peripheral)
+            );
+            aggregated = registry.counter(
+                    getRequestMetricName(StandardMetrics.CONNECTOR_AGGREGATED_REQUESTS, networkId, peripheral)
+            );
+            expired = registry.counter(
+                    getRequestMetricName(StandardMetrics.CONNECTOR_EXPIRED_REQUESTS, networkId, peripheral)
+            );
+        }
+    }
+    
+    // returns name of specified metric tagged by specified network and peripheral
+    private static MetricName getRequestMetricName(String metric, String networkId, String peripheral) {
+        return new MetricName(
+                metric, 
+                StandardMetrics.TAG_NETWORK, networkId,
+                StandardMetrics.TAG_PERIPHERAL, peripheral
+        );
+    }
+    
+    /** Metrics of requests indexed by networks and peripherals. */
+    private final RequestMetricsCache<RequestMetrics> requestMetrics 
+            = new RequestMetricsCache<RequestMetrics>() {
+                @Override
+                protected RequestMetrics createMetrics(String networkId, String peripheral) {
+                    return new RequestMetrics(networkId, peripheral);
+                }
+            };
+    
+    // returns metrics of specified request
+    private RequestMetrics getRequestMetrics(CallRequest request) {
+        return requestMetrics.get(request.getNetworkId(), request.getDeviceInterface());
+    }
+    
     private CallResultsSender callResultsSender = null;
     
     
@@ -152,6 +301,299 @@ implements
      * messages (responses) from that network.
      */
     private class WorkerThread extends Thread {
+        /** 
+         * Queue of incomming call requests to process.
+         */
+        private final CallRequestScheduler<CallRequestToProcess> requestsToProcess 
+                = new PriorityCallRequestScheduler<>();
+        
+        /**
+         * Requests polled from the queue, which cannot be sent before their 
+         * deadlines. Used only by this worker thread.
+         */
+        private final List<CallRequestToProcess> expiredRequests = new LinkedList<>();
+        
+        /**
+         * Index of not cancelled requests in {@code requestsToProcess} by their IDs.
+         */
+        private final Map<UUID, CallRequestToProcess> requestsToProcessIndex = new HashMap<>();
+        
+        /**
+         * Synchronization object for {@code requestsToProcess}. 
+         */
+        private final Object syncRequestsToProcess = new Object();
+        
+        
+        /**
+         * Idle requests by their IDs.
+         */
+        private final Map<UUID, IdleRequest> idleRequests = new HashMap<>();
+        
+        /**
+         * Expirations of idle requests.
+         */
+        private final HashedTimerWheel<UUID> idleExpirations = new HashedTimerWheel<>();
+        
+        /**
+         * Synchronization object for {@code idleRequests} and {@code idleExpirations}. 
+         */
+        private final Object syncIdleRequests = new Object();
+        
+        
+        /**
+         * Requests, which other equal requests can be attached to, indexed by 
+         * their IDs.
+         */
+        private final Map<UUID, CoalescedRequest> coalescedRequests = new HashMap<>();
+        
+        /**
+         * IDs of coalesced requests indexed by IDs of requests attached to them.
+         */
+        private final Map<UUID, UUID> attachedRequests = new HashMap<>();
+        
+        /**
+         * Synchronization object for {@code coalescedRequests} and 
+         * {@code attachedRequests}. Must not be acquired while holding 
+         * {@code syncRequestsToProcess} or {@code syncCancelRequest}.
+         */
+        private final Object syncCoalescing = new Object();
+        
+        
+        
+        /** 
+         * Queue of messages received from protocol layer.  
+         */  
+        private Queue<AbstractMessage> msgFromProtoLayer = new ConcurrentLinkedQueue<>(); 
+        
+        /**
+         * Synchronization object for messages incomming from protocol layer.
+         */
+        private final Object syncMsgfromProtoLayer = new Object();
+        
+        /** 
+         * Synchronization object for situation, when there is some waiting request 
+         * or some message from protocol layer.
+         */
+        private final Object syncRequestOrMessage = new Object();
+        
+        
+        
+        /** 
+         * Queue of asynchronous messages received from protocol layer.  
+         */  
+        private Queue<DPA_AsynchronousMessage> asyncMsgFromProtoLayer = new ConcurrentLinkedQueue<>();
+        
+        /**
+         * Synchronization object for asynchronous messages incomming from protocol layer.
+         */
+        private final Object syncAsyncMsgfromProtoLayer = new Object();
+        
+        
+        /** Name of queue depth gauge of this lane. */
+        private final MetricName queueDepthMetricName;
+        
+        /** Number of not cancelled requests waiting in the queue. */
+        private final Gauge queueDepthGauge = new Gauge() {
+            @Override
+            public long getValue() {
+                synchronized ( syncRequestsToProcess ) {
+                    return requestsToProcessIndex.size();
+                }
+            }
+        };
+        
+        /** Pauses before sending of requests. */
+        private final Histogram sendPauseHistogram;
+        
+        
+        /**
+         * Creates new worker thread.
+         * @param laneName name of the lane this thread serves
+         */
+        WorkerThread(String laneName) {
+            super("DPA_Connector-" + laneName);
+            this.queueDepthMetricName = new MetricName(
+                    StandardMetrics.CONNECTOR_QUEUE_DEPTH, StandardMetrics.TAG_NETWORK, laneName
+            );
+            this.sendPauseHistogram = MetricsRegistry.getDefault().histogram(
+                    new MetricName(
+                        StandardMetrics.CONNECTOR_SEND_PAUSE, StandardMetrics.TAG_NETWORK, laneName
+                    )
+            );
+            MetricsRegistry.getDefault().gauge(queueDepthMetricName, queueDepthGauge);
+        }
+        
+        /**
+         * Unregisters metrics of this lane.
+         */
+        void removeMetrics() {
+            MetricsRegistry.getDefault().remove(queueDepthMetricName, queueDepthGauge);
+        }
+        
+        /**
+         * Puts specified request into the queue of requests to process.
+         * @param requestToProcess request to put into the queue
+         */
+        public void addRequestToProcess(CallRequestToProcess requestToProcess) {
+            synchronized ( syncRequestOrMessage ) {
+                synchronized( syncRequestsToProcess ) {
+                    requestsToProcess.add( 
+                            requestToProcess, requestToProcess.priority, requestToProcess.deadline 
+                    );
+                    requestsToProcessIndex.put(requestToProcess.callRequest.getId(), requestToProcess);
+                    syncRequestsToProcess.notifyAll();
+                }
+                syncRequestOrMessage.notifyAll();
+            }
+        }
+        
+        /**
+         * Attaches specified request to an equal request waiting in the queue 
+         * or waiting for a response. If there is no such request, specified 
+         * request is put into the queue and next equal requests can be attached
+         * to it.
+         * @param requestToProcess request to process
+         */
+        public void addCoalescedRequestToProcess(CallRequestToProcess requestToProcess) {
+            CallRequest request = requestToProcess.callRequest;
+            synchronized ( syncCoalescing ) {
+                // there are only few requests in processing at the same time
+                for ( CoalescedRequest coalescedRequest : coalescedRequests.values() ) {
+                    if ( !coalescedRequest.joinable 
+                            || !canBeAttached(coalescedRequest.reqToProc, requestToProcess) 
+                    ) {
+                        continue;
+                    }
+                    
+                    CallRequest coalescedCallRequest = coalescedRequest.reqToProc.callRequest;
+                    if ( CallRequestComparator.areEqual(coalescedCallRequest, request) ) {
+                        coalescedRequest.attachedIds.add(request.getId());
+                        attachedRequests.put(request.getId(), coalescedCallRequest.getId());
+                        getRequestMetrics(request).coalesced.inc();
+                        logger.info(
+                                "Request {} attached to equal request {}", 
+                                request.getId(), coalescedCallRequest.getId()
+                        );
+                        return;
+                    }
+                }
+                coalescedRequests.put(request.getId(), new CoalescedRequest(requestToProcess));
+                
+                // cancelling must find the request either coalesced or in the queue
+                addRequestToProcess(requestToProcess);
+            }
+        }
+        
+        /**
+         * Indicates, wheather specified request can be attached to specified
+         * coalesced request without worse scheduling. If the coalesced request
+         * has not been sent yet, it must not have lower priority or earlier 
+         * deadline.
+         */
+        private boolean canBeAttached(
+                CallRequestToProcess coalescedReqToProc, CallRequestToProcess reqToProc
+        ) {
+            if ( coalescedReqToProc.sent ) {
+                return true;
+            }
+            
+            if ( coalescedReqToProc.priority.compareTo(reqToProc.priority) > 0 ) {
+                return false;
+            }
+            
+            if ( coalescedReqToProc.deadline == CallRequestScheduler.NO_DEADLINE ) {
+                return true;
+            }
+            
+            return ( (reqToProc.deadline != CallRequestScheduler.NO_DEADLINE) 
+                    && (reqToProc.deadline <= coalescedReqToProc.deadline) 
+            );
+        }
+        
+        /**
+         * Sends specified processing info to the caller of the request and to 
+         * the callers of all requests attached to it.
+         * @param procInfo processing info to send
+         */
+        private void sendCallRequestProcessingInfo(CallRequestProcessingInfo procInfo) {
+            UUID reqId = procInfo.getRequestId();
+            
+            // after removal no other request can be attached
+            CoalescedRequest coalescedRequest = null;
+            synchronized ( syncCoalescing ) {
+                coalescedRequest = coalescedRequests.remove(reqId);
+            }
+            
+            if ( (coalescedRequest == null) || !coalescedRequest.originalCancelled ) {
+                callResultsSender.addCallRequestProcessingInfo(procInfo);
+            }
+            requestWorkerThreads.remove(reqId);
+            
+            if ( coalescedRequest == null ) {
+                return;
+            }
+            
+            for ( UUID attachedId : coalescedRequest.attachedIds ) {
+                callResultsSender.addCallRequestProcessingInfo(
+                        new CallRequestProcessingInfo(
+                                attachedId, procInfo.getState(), 
+                                procInfo.getCallResult(), procInfo.getError()
+                        )
+                );
+            }
+            
+            synchronized ( syncCoalescing ) {
+                for ( UUID attachedId : coalescedRequest.attachedIds ) {
+                    attachedRequests.remove(attachedId);
+                    requestWorkerThreads.remove(attachedId);
+                }
+            }
+        }
+        
+        // removes specified coalesced request together with all requests attached to it
+        private void removeCoalescedRequest(UUID reqId) {
+            synchronized ( syncCoalescing ) {
+                CoalescedRequest coalescedRequest = coalescedRequests.remove(reqId);
+                if ( coalescedRequest == null ) {
+                    return;
+                }
+                
+                for ( UUID attachedId : coalescedRequest.attachedIds ) {
+                    attachedRequests.remove(attachedId);
+                    requestWorkerThreads.remove(attachedId);
+                }
+            }
+        }
+        
+        /**
+         * Puts specified message comming from protocol layer into the 
+         * corresponding input queue.
+         * @param message message to put
+         */
+        public void addMessage(AbstractMessage message) {
+            synchronized ( syncRequestOrMessage ) {
+                if ( message instanceof BaseAsynchronousMessage ) {
+                    if ( message instanceof DPA_AsynchronousMessage ) {
+                        synchronized( syncAsyncMsgfromProtoLayer ) {
+                            asyncMsgFromProtoLayer.offer((DPA_AsynchronousMessage) message);
+                            syncAsyncMsgfromProtoLayer.notifyAll();
+                        }
+                    } else {
+                        logger.warn(
+                            "Incomming asynchronous message is not of DPA_AsynchronousMessage "
+                            + "type. It will be discared", message
+                        );
+                    }
+                } else {
+                    synchronized( syncMsgfromProtoLayer ) {
+                        msgFromProtoLayer.offer(message);
+                        syncMsgfromProtoLayer.notifyAll();
+                    }   
+                }
+                syncRequestOrMessage.notifyAll();
+            }
+        }
+        
         /** Time, when last request was sended. */
         private long lastSendTime = 0;
         
@@ -198,6 +640,13 @@ implements
                 // pause between sending request to protocol layer
                 if ( sleepTime > 0) {
                     Thread.sleep(sleepTime);
+                    sendPauseHistogram.update(sleepTime * 1000);
+                } else {
+                    sendPauseHistogram.update(0);
+                }
+                
+                if ( sendAttempt > 0 ) {
+                    getRequestMetrics(request).retries.inc();
                 }
                 
                 protocolLayerService.sendRequest(request);
@@ -272,7 +721,7 @@ implements
                 if ( response.getRequestId().equals(currProcRequestInfo.getRequestId()) ) {
                     logger.info("Response found");
                     CallRequestProcessingInfo procInfo = createCallRequestProcessingInfo( response );
-                    callResultsSender.addCallRequestProcessingInfo(procInfo);
+                    sendCallRequestProcessingInfo(procInfo);
                 } else {
                     logger.warn("Response not matching to the last request. "
                             + "Response will be discarded."
@@ -370,37 +819,23 @@ implements
         private final Object syncCurrProcRequestInfo = new Object(); 
         
         
-        // sets maximal processing time for specified request 
+        // sets maximal processing time for specified request, 
+        // processing time of attached requests is given by the coalesced request
         public void setCallRequestProcessingTime(UUID reqId, long maxProcTime) {
             synchronized ( syncRequestsToProcess ) {
-                for ( CallRequestToProcess reqToProc : requestsToProcess ) {
-                    if ( reqToProc.callRequest.getId().equals(reqId) ) {
-                        reqToProc.maxProcTime = maxProcTime;
-                        return;
-                    }
+                CallRequestToProcess reqToProc = requestsToProcessIndex.get(reqId);
+                if ( reqToProc != null ) {
+                    reqToProc.maxProcTime = maxProcTime;
+                    return;
                 }
             }
             
             synchronized ( syncIdleRequests ) {
-                boolean found = false;
-                Iterator<IdleRequest> requestIt = idleRequests.iterator();
-                while ( requestIt.hasNext() ) {
-                    IdleRequest idleRequest = requestIt.next();
-                    long idleTime = System.currentTimeMillis() - idleRequest.startIdleTime;
-                    if ( idleTime > maxCallRequestIdleTime ) {
-                        requestIt.remove();
-                        continue;
-                    }
-                    
-                    if ( found ) {
-                        continue;
-                    }
-                    
-                    if ( idleRequest.reqToProc.callRequest.getId().equals(reqId) ) {
-                        idleRequest.startIdleTime = System.currentTimeMillis();
-                        idleRequest.reqToProc.maxProcTime = maxProcTime;
-                        found = true;
-                    }
+                removeMaxTimeExceededIdleRequests();
+                IdleRequest idleRequest = idleRequests.get(reqId);
+                if ( idleRequest != null ) {
+                    idleExpirations.reschedule(idleRequest.idleTimeout, maxCallRequestIdleTime);
+                    idleRequest.reqToProc.maxProcTime = maxProcTime;
                 }
             }
         } 
@@ -410,47 +845,42 @@ implements
          * request was found.
          */
         public CallRequestProcessingInfo getCallRequestProcessingInfo(UUID reqId) {
+            // attached request is in the same state as the request it is attached to
+            UUID coalescedId = null;
+            synchronized ( syncCoalescing ) {
+                coalescedId = attachedRequests.get(reqId);
+            }
+            if ( coalescedId != null ) {
+                CallRequestProcessingInfo procInfo = getCallRequestProcessingInfo(coalescedId);
+                if ( procInfo == null ) {
+                    return null;
+                }
+                return new CallRequestProcessingInfo(
+                        reqId, procInfo.getState(), procInfo.getCallResult(), procInfo.getError()
+                );
+            }
+            
             // if the request is waiting in input requests queue
             synchronized( syncRequestsToProcess ) {
-                for ( CallRequestToProcess reqToProcess : requestsToProcess ) {
-                    if ( reqToProcess.callRequest.getId().equals(reqId) ) {
-                        return new CallRequestProcessingInfo( reqId, WAITING_FOR_PROCESSING );
-                    }
+                if ( requestsToProcessIndex.containsKey(reqId) ) {
+                    return new CallRequestProcessingInfo( reqId, WAITING_FOR_PROCESSING );
                 }
             }
             
             synchronized ( syncCurrProcRequestInfo ) {
-                if ( currProcRequestInfo.getRequestId().equals(reqId) ) {
+                if ( reqId.equals(currProcRequestInfo.getRequestId()) ) {
                     return currProcRequestInfo.getCallRequestProcessingInfo();
                 }
             }
             
-            CallRequestProcessingInfo procInfo = null; 
-            
             synchronized ( syncIdleRequests ) {
-                boolean found = false;
-                Iterator<IdleRequest> requestIt = idleRequests.iterator();
-                while ( requestIt.hasNext() ) {
-                    IdleRequest idleRequest = requestIt.next();
-                    long idleTime = System.currentTimeMillis() - idleRequest.startIdleTime;
-                    if ( idleTime > maxCallRequestIdleTime ) {
-                        requestIt.remove();
-                        continue;
-                    }
-                    
-                    if ( found ) {
-                        continue;
-                    }
-                    
-                    if ( idleRequest.reqToProc.callRequest.getId().equals(reqId) ) {
-                        procInfo = new CallRequestProcessingInfo(reqId, WAITING_FOR_PROCESSING );
-                        found = true;
-                    }
+                removeMaxTimeExceededIdleRequests();
+                if ( idleRequests.containsKey(reqId) ) {
+                    return new CallRequestProcessingInfo(reqId, WAITING_FOR_PROCESSING );
                 }
             }
             
-            // could be NULL
-            return procInfo;
+            return null;
         }
         
         /**
@@ -458,63 +888,277 @@ implements
          * @param reqId ID of request to cancel
          */
         public void cancelCallRequest(UUID reqId) {
+            // coalesced request is cancelled only if all of its callers cancelled it
+            synchronized ( syncCoalescing ) {
+                UUID coalescedId = attachedRequests.remove(reqId);
+                if ( coalescedId != null ) {
+                    CoalescedRequest coalescedRequest = coalescedRequests.get(coalescedId);
+                    if ( coalescedRequest == null ) {
+                        // processing of the coalesced request has just finished
+                        return;
+                    }
+                    
+                    coalescedRequest.attachedIds.remove(reqId);
+                    if ( !coalescedRequest.originalCancelled 
+                            || !coalescedRequest.attachedIds.isEmpty() 
+                    ) {
+                        return;
+                    }
+                    reqId = coalescedId;
+                } else {
+                    CoalescedRequest coalescedRequest = coalescedRequests.get(reqId);
+                    if ( (coalescedRequest != null) && !coalescedRequest.attachedIds.isEmpty() ) {
+                        coalescedRequest.originalCancelled = true;
+                        return;
+                    }
+                }
+                coalescedRequests.remove(reqId);
+            }
+            
             // must be tied together because the last request is polled from 
             // requests to process
             synchronized ( syncCancelRequest ) {
                 synchronized ( syncMsgfromProtoLayer ) {
-                    if ( lastRequestToProc.callRequest.getId().equals(reqId) ) {
+                    if ( (lastRequestToProc != null) 
+                            && lastRequestToProc.callRequest.getId().equals(reqId) 
+                    ) {
                         isCancelledLastRequest = true;
                         syncMsgfromProtoLayer.notifyAll();
                         return;
                     }
                 }
             
+                // the request stays in the queue and is skipped when polled
                 synchronized ( syncRequestsToProcess ) {
-                    Iterator<CallRequestToProcess> requestIt = requestsToProcess.iterator();
-                    while ( requestIt.hasNext() ) {
-                        CallRequestToProcess reqToProc = requestIt.next();
-                        if ( reqToProc.callRequest.getId().equals(reqId) ) {
-                            requestIt.remove();
-                        }
+                    CallRequestToProcess reqToProc = requestsToProcessIndex.remove(reqId);
+                    if ( reqToProc != null ) {
+                        reqToProc.cancelled = true;
+                        return;
                     }
                 }
             }
             
             synchronized ( syncIdleRequests ) {
-                boolean found = false;
-                Iterator<IdleRequest> requestIt = idleRequests.iterator();
-                while ( requestIt.hasNext() ) {
-                    IdleRequest idleRequest = requestIt.next();
-                    long idleTime = System.currentTimeMillis() - idleRequest.startIdleTime;
-                    if ( idleTime > maxCallRequestIdleTime ) {
-                        requestIt.remove();
-                        continue;
-                    }
-                    
-                    if ( found ) {
-                        continue;
-                    }
-                    
-                    if ( idleRequest.reqToProc.callRequest.getId().equals(reqId) ) {
-                        requestIt.remove();
-                        found = true;
-                    }
+                IdleRequest idleRequest = idleRequests.remove(reqId);
+                if ( idleRequest != null ) {
+                    idleExpirations.cancel(idleRequest.idleTimeout);
                 }
             }
         }
         
+        // adds specified request into idle requests
+        private void addIdleRequest(CallRequestToProcess reqToProc) {
+            getRequestMetrics(reqToProc.callRequest).idle.inc();
+            
+            // idle request cannot be joined, its response will not be processed
+            synchronized ( syncCoalescing ) {
+                CoalescedRequest coalescedRequest = coalescedRequests.get(reqToProc.callRequest.getId());
+                if ( coalescedRequest != null ) {
+                    coalescedRequest.joinable = false;
+                }
+            }
+            
+            synchronized ( syncIdleRequests ) {
+                IdleRequest idleRequest = new IdleRequest(reqToProc);
+                UUID reqId = reqToProc.callRequest.getId();
+                idleRequest.idleTimeout = idleExpirations.schedule(reqId, maxCallRequestIdleTime);
+                idleRequests.put(reqId, idleRequest);
+            }
+        }
+        
         // removes idle requests, which exceeded max idle time period
         private void removeMaxTimeExceededIdleRequests() {
+            List<UUID> expiredReqIds = null;
             synchronized ( syncIdleRequests ) {
-                Iterator<IdleRequest> requestIt = idleRequests.iterator();
-                while ( requestIt.hasNext() ) {
-                    IdleRequest idleRequest = requestIt.next();
-                    long idleTime = System.currentTimeMillis() - idleRequest.startIdleTime;
-                    if ( idleTime > maxCallRequestIdleTime ) {
-                        requestIt.remove();
+                expiredReqIds = idleExpirations.expire(System.currentTimeMillis());
+                for ( UUID reqId : expiredReqIds ) {
+                    idleRequests.remove(reqId);
+                    requestWorkerThreads.remove(reqId);
+                }
+            }
+            
+            for ( UUID reqId : expiredReqIds ) {
+                removeCoalescedRequest(reqId);
+            }
+        }
+        
+        // indicates, wheather specified request cannot be sent before its deadline
+        private boolean isDeadlineExpired(CallRequestToProcess reqToProc) {
+            if ( reqToProc.deadline == CallRequestScheduler.NO_DEADLINE ) {
+                return false;
+            }
+            
+            // the request cannot be sent earlier than after the pause before sending
+            long sendTime = System.currentTimeMillis() + Math.max(0, getSleepTimeBeforeSend(0));
+            return ( sendTime > reqToProc.deadline );
+        }
+        
+        // polls next not cancelled request from the queue, returns null if none
+        // requests with expired deadlines are moved into expired requests, 
+        // they stay in the index until they are dropped
+        private CallRequestToProcess pollNextRequestToProcess() {
+            CallRequestToProcess reqToProc = requestsToProcess.poll();
+            while ( reqToProc != null ) {
+                if ( !reqToProc.cancelled ) {
+                    if ( !isDeadlineExpired(reqToProc) ) {
+                        requestsToProcessIndex.remove(reqToProc.callRequest.getId());
+                        return reqToProc;
                     }
+                    expiredRequests.add(reqToProc);
+                }
+                reqToProc = requestsToProcess.poll();
+            }
+            return null;
+        }
+        
+        // indicates, wheather specified request can be aggregated
+        // requests with attached requests are not aggregated
+        private boolean isAggregable(
+                CallRequestToProcess reqToProc, CallRequestsAggregator aggregator
+        ) {
+            if ( reqToProc.callRequest instanceof BroadcastRequest ) {
+                return false;
+            }
+            
+            if ( !aggregator.isAggregable(reqToProc.callRequest) ) {
+                return false;
+            }
+            
+            CoalescedRequest coalescedRequest = coalescedRequests.get(reqToProc.callRequest.getId());
+            return ( (coalescedRequest == null) || coalescedRequest.attachedIds.isEmpty() );
+        }
+        
+        // returns requests waiting in the queue for the same node as specified 
+        // request in order of their creation
+        private List<CallRequestToProcess> getWaitingRequestsToNode(CallRequest request) {
+            List<CallRequestToProcess> nodeReqsToProc = new ArrayList<>();
+            for ( CallRequestToProcess waitingReqToProc : requestsToProcessIndex.values() ) {
+                CallRequest waitingRequest = waitingReqToProc.callRequest;
+                if ( waitingRequest.getNodeId().equals(request.getNodeId()) 
+                        && waitingRequest.getNetworkId().equals(request.getNetworkId())
+                ) {
+                    nodeReqsToProc.add(waitingReqToProc);
+                }
+            }
+            Collections.sort(nodeReqsToProc, CREATION_ORDER);
+            return nodeReqsToProc;
+        }
+        
+        /**
+         * Aggregates specified request polled from the queue with aggregable
+         * requests waiting for the same node. Aggregation stops at the first 
+         * waiting request to the node, which is not aggregable, so that 
+         * order of requests to the node is kept. <br>
+         * Requests are attached to the aggregated request in the same way as
+         * coalesced requests, so the aggregated request has no caller on its own.
+         * Must be called with {@code syncCoalescing} and {@code syncRequestsToProcess}
+         * held.
+         * @return aggregated request or specified request, if there is nothing
+         *         to aggregate it with
+         */
+        private CallRequestToProcess aggregateRequests(
+                CallRequestToProcess reqToProc, CallRequestsAggregator aggregator
+        ) {
+            if ( !isAggregable(reqToProc, aggregator) ) {
+                return reqToProc;
+            }
+            
+            List<CallRequestToProcess> aggregatedReqsToProc = new LinkedList<>();
+            aggregatedReqsToProc.add(reqToProc);
+            
+            List<CallRequest> aggregatedRequests = new LinkedList<>();
+            aggregatedRequests.add(reqToProc.callRequest);
+            
+            CallRequest aggregatedRequest = null;
+            for ( CallRequestToProcess waitingReqToProc : getWaitingRequestsToNode(reqToProc.callRequest) ) {
+                // will be dropped
+                if ( isDeadlineExpired(waitingReqToProc) ) {
+                    continue;
+                }
+                
+                if ( !isAggregable(waitingReqToProc, aggregator) ) {
+                    break;
+                }
+                
+                aggregatedRequests.add(waitingReqToProc.callRequest);
+                CallRequest newAggregatedRequest = aggregator.aggregate(aggregatedRequests);
+                if ( newAggregatedRequest == null ) {
+                    break;
                 }
+                aggregatedRequest = newAggregatedRequest;
+                aggregatedReqsToProc.add(waitingReqToProc);
+            }
+            
+            if ( aggregatedRequest == null ) {
+                return reqToProc;
             }
+            
+            long maxProcTime = 0;
+            for ( CallRequestToProcess aggregatedReqToProc : aggregatedReqsToProc ) {
+                if ( aggregatedReqToProc.maxProcTime == UNLIMITED_MAXIMAL_PROCESSING_TIME ) {
+                    maxProcTime = UNLIMITED_MAXIMAL_PROCESSING_TIME;
+                    break;
+                }
+                maxProcTime = Math.max(maxProcTime, aggregatedReqToProc.maxProcTime);
+            }
+            
+            CallRequestToProcess aggregatedReqToProc = new CallRequestToProcess(
+                    aggregatedRequest, maxProcTime, reqToProc.priority, 
+                    CallRequestScheduler.NO_DEADLINE
+            );
+            aggregatedReqToProc.creationTime = reqToProc.creationTime;
+            
+            // the aggregated request has no caller, its result is delivered 
+            // only to the callers of attached requests
+            CoalescedRequest coalescedRequest = new CoalescedRequest(aggregatedReqToProc);
+            coalescedRequest.originalCancelled = true;
+            coalescedRequest.joinable = false;
+            
+            for ( CallRequestToProcess attachedReqToProc : aggregatedReqsToProc ) {
+                UUID attachedId = attachedReqToProc.callRequest.getId();
+                
+                // the waiting requests stay in the queue and are skipped when polled
+                if ( attachedReqToProc != reqToProc ) {
+                    requestsToProcessIndex.remove(attachedId);
+                    attachedReqToProc.cancelled = true;
+                }
+                
+                coalescedRequests.remove(attachedId);
+                coalescedRequest.attachedIds.add(attachedId);
+                attachedRequests.put(attachedId, aggregatedRequest.getId());
+                
+                getRequestMetrics(attachedReqToProc.callRequest).aggregated.inc();
+            }
+            coalescedRequests.put(aggregatedRequest.getId(), coalescedRequest);
+            
+            logger.info(
+                    "{} requests aggregated into request {}", 
+                    aggregatedReqsToProc.size(), aggregatedRequest.getId()
+            );
+            return aggregatedReqToProc;
+        }
+        
+        // ends processing of requests, which cannot be sent before their deadlines
+        private void dropExpiredRequests() {
+            for ( CallRequestToProcess reqToProc : expiredRequests ) {
+                if ( reqToProc.cancelled ) {
+                    continue;
+                }
+                
+                logger.warn("Deadline of request expired, request dropped: {}", reqToProc.callRequest);
+                getRequestMetrics(reqToProc.callRequest).expired.inc();
+                sendCallRequestProcessingInfo(
+                        new CallRequestProcessingInfo(
+                                reqToProc.callRequest.getId(), ERROR, null, 
+                                new DeadlineExpiredError("Request not sent before its deadline")
+                        )
+                );
+                
+                synchronized ( syncRequestsToProcess ) {
+                    requestsToProcessIndex.remove(reqToProc.callRequest.getId());
+                }
+            }
+            expiredRequests.clear();
         }
         
         
@@ -549,28 +1193,42 @@ implements
                     }
                 }
                 
-                synchronized ( syncCancelRequest ) {
-                    // checking, if there are some new requests to process
-                    synchronized( syncRequestsToProcess ) {
-                        if ( !requestsToProcess.isEmpty() ) {
-                            lastRequestToProc = requestsToProcess.poll();
+                // coalescing lock is needed for aggregation of requests
+                synchronized ( syncCoalescing ) {
+                    synchronized ( syncCancelRequest ) {
+                        // checking, if there are some new requests to process
+                        synchronized( syncRequestsToProcess ) {
+                            lastRequestToProc = pollNextRequestToProcess();
                             isCancelledLastRequest = false;
-                        } else {
-                            lastRequestToProc = null;
+                            
+                            CallRequestsAggregator aggregator = requestsAggregator;
+                            if ( (lastRequestToProc != null) && (aggregator != null) ) {
+                                lastRequestToProc = aggregateRequests(lastRequestToProc, aggregator);
+                            }
+                            
+                            // must be set together with removing from the queue, 
+                            // otherwise the request would be unknown for a while
+                            if ( lastRequestToProc != null ) {
+                                currProcRequestInfo.setAll( 
+                                        lastRequestToProc.callRequest.getId(), 
+                                        WAITING_FOR_PROCESSING, null, null
+                                );
+                            }
                         }
                     }
                 }
                 
+                if ( !expiredRequests.isEmpty() ) {
+                    dropExpiredRequests();
+                }
+                
                 // if no new requests, go to waiting
                 if ( lastRequestToProc == null ) {
                     continue;
                 }
                 
-                // processing of new requests
-                currProcRequestInfo.setAll( 
-                        lastRequestToProc.callRequest.getId(), 
-                        WAITING_FOR_PROCESSING, null, null
-                );
+                getRequestMetrics(lastRequestToProc.callRequest).queueTime
+                        .updateSince(lastRequestToProc.creationTime);
                 
                 boolean respArrivedForLastRequest = false;
                 boolean requestSentOk = false;
@@ -579,13 +1237,14 @@ implements
                 try {
                     sendRequestToProtocolLayer( lastRequestToProc.callRequest );
                     requestSentOk = true;
+                    lastRequestToProc.sent = true;
                 } catch ( Exception ex ) {
                     // dispatching error
                     logger.error("Send request to protocol layer error", ex);
                     currProcRequestInfo.setAll( lastRequestToProc.callRequest.getId(), ERROR, 
                             null, new DispatchingRequestToProtocolLayerError(ex)
                     );
-                    callResultsSender.addCallRequestProcessingInfo(
+                    sendCallRequestProcessingInfo(
                             currProcRequestInfo.getCallRequestProcessingInfo() 
                     );
                 } 
@@ -633,17 +1292,21 @@ implements
                         // there wasn't a response for a last request
                         logger.warn("No messages arrived for the last request.");
                         if ( !isCancelledLastRequest ) {
-                            idleRequests.add( new IdleRequest(lastRequestToProc, System.currentTimeMillis()) );
+                            addIdleRequest(lastRequestToProc);
                         }
                     }
                 } else {
                     // no messages arrived in the timeout
                     if ( !isCancelledLastRequest ) {
-                        idleRequests.add( new IdleRequest(lastRequestToProc, System.currentTimeMillis()) );
+                        addIdleRequest(lastRequestToProc);
                     }
                     logger.warn("No messages arrived at timeout");
                 }
                 
+                if ( isCancelledLastRequest ) {
+                    requestWorkerThreads.remove(lastRequestToProc.callRequest.getId());
+                }
+                
                 // removes idle requests, which exceeded max idle time period
                 removeMaxTimeExceededIdleRequests();
             }
@@ -656,57 +1319,46 @@ implements
      */
     private WorkerThread workerThread = null;
     
-    /** 
-     * Queue of incomming call requests to process.
+    /**
+     * Worker threads of individual networks. Used only if network lanes are 
+     * enabled.
      */
-    private Queue<CallRequestToProcess> requestsToProcess = new ConcurrentLinkedQueue<>();
+    private final Map<String, WorkerThread> networkWorkerThreads = new HashMap<>();
     
     /**
-     * Synchronization object for {@code requestsToProcess}. 
+     * Synchronization object for {@code networkWorkerThreads}.
      */
-    private final Object syncRequestsToProcess = new Object();
-    
+    private final Object syncNetworkWorkerThreads = new Object();
     
     /**
-     * Idle requests.
+     * Worker threads, which requests are currently held by, indexed by IDs of 
+     * requests. A request is held by its worker thread from the moment of its 
+     * creation until its result is passed to the results sender, or until it 
+     * is cancelled or its maximal idle time expires.
      */
-    private Queue<IdleRequest> idleRequests = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<UUID, WorkerThread> requestWorkerThreads 
+            = new ConcurrentHashMap<>();
     
     /**
-     * Synchronization object for {@code idleRequests}. 
+     * Indicates, wheather each network has its own lane, i.e. its own queue
+     * of requests and its own worker thread.
      */
-    private final Object syncIdleRequests = new Object();
-    
-    
-    
-    /** 
-     * Queue of messages received from protocol layer.  
-     */  
-    private Queue<AbstractMessage> msgFromProtoLayer = new ConcurrentLinkedQueue<>(); 
+    private volatile boolean networkLanesEnabled = false;
     
     /**
-     * Synchronization object for messages incomming from protocol layer.
-     */
-    private final Object syncMsgfromProtoLayer = new Object();
-   
-    /** 
-     * Synchronization object for situation, when there is some waiting request 
-     * or some message from protocol layer.
+     * Policy selecting requests, which are coalesced with equal requests 
+     * processed at the same time, {@code null} if requests are not coalesced.
      */
-    private final Object syncRequestOrMessage = new Object();
-    
-    
-    
-    /** 
-     * Queue of asynchronous messages received from protocol layer.  
-     */  
-    private Queue<DPA_AsynchronousMessage> asyncMsgFromProtoLayer = new ConcurrentLinkedQueue<>();
+    private volatile CallRequestsCoalescingPolicy requestsCoalescingPolicy = null;
     
     /**
-     * Synchronization object for asynchronous messages incomming from protocol layer.
+     * Aggregator of requests waiting for the same node, {@code null} if 
+     * requests are not aggregated.
      */
-    private final Object syncAsyncMsgfromProtoLayer = new Object(); 
+    private volatile CallRequestsAggregator requestsAggregator = null;
     
+    /** Indicates, wheather this connector has already been started. */
+    private volatile boolean started = false;
     
     private static long MAX_CALL_REQUEST_IDLE_TIME_DEFAULT = 30000;
     private volatile long maxCallRequestIdleTime = MAX_CALL_REQUEST_IDLE_TIME_DEFAULT;
@@ -788,6 +1440,35 @@ implements
         return maxProcTime;
     }
     
+    private static CallRequestPriority checkPriority(CallRequestPriority priority) {
+        if ( priority == null ) {
+            throw new IllegalArgumentException("Priority cannot be null");
+        }
+        return priority;
+    }
+    
+    private static long checkDeadline(long deadline) {
+        if ( deadline == NO_DEADLINE ) {
+            return deadline;
+        }
+        
+        if ( deadline < 0 ) {
+            throw new IllegalArgumentException(
+                "Deadline must be nonnegative or equal to " + NO_DEADLINE
+            );
+        }
+        
+        return deadline;
+    }
+    
+    // converts deadline relative to current time to the deadline used by scheduler
+    private static long toSchedulerDeadline(long deadline) {
+        if ( deadline == NO_DEADLINE ) {
+            return CallRequestScheduler.NO_DEADLINE;
+        }
+        return System.currentTimeMillis() + deadline;
+    }
+    
     private static UUID checkRequestId(UUID requestId) {
         if ( requestId == null ) {
             throw new IllegalArgumentException("Call request ID cannot be null");
@@ -811,6 +1492,46 @@ implements
     
     
     
+    /**
+     * Returns worker thread, which serves the lane of specified network.
+     * If network lanes are not enabled, the only one default worker thread is
+     * returned. 
+     * @param networkId ID of network
+     * @return worker thread serving the specified network
+     */
+    private WorkerThread getWorkerThread(String networkId) {
+        if ( !networkLanesEnabled || networkId == null ) {
+            return workerThread;
+        }
+        
+        synchronized ( syncNetworkWorkerThreads ) {
+            WorkerThread networkWorkerThread = networkWorkerThreads.get(networkId);
+            if ( networkWorkerThread == null ) {
+                networkWorkerThread = new WorkerThread(networkId);
+                networkWorkerThreads.put(networkId, networkWorkerThread);
+                if ( started ) {
+                    networkWorkerThread.start();
+                }
+                logger.info("New lane created for network: {}", networkId);
+            }
+            return networkWorkerThread;
+        }
+    }
+    
+    /**
+     * Returns list of all existing worker threads.
+     * @return list of all existing worker threads
+     */
+    private List<WorkerThread> getWorkerThreads() {
+        List<WorkerThread> workerThreads = new LinkedList<>();
+        workerThreads.add(workerThread);
+        synchronized ( syncNetworkWorkerThreads ) {
+            workerThreads.addAll(networkWorkerThreads.values());
+        }
+        return workerThreads;
+    }
+    
+    
     /**
      * Creates new response-waiting connector.
      * @param protocolLayerService protocol layer service to use
@@ -819,28 +1540,32 @@ implements
     public DPA_Connector(ProtocolLayerService protocolLayerService) {
        super( protocolLayerService );
        this.callResultsSender = new CallResultsSender();
-       this.workerThread = new WorkerThread();
+       this.workerThread = new WorkerThread("default");
        this.asyncMsgGenerator = new AsyncMsgGeneratorImpl();
     }
     
     /**
      * @throws IllegalArgumentException if {@code timeout} is less than or 
-     *         equal to 0
+     *         equal to 0, or {@code priority} is {@code null}, or {@code deadline} 
+     *         is negative and not equal to {@link #NO_DEADLINE}
      */
     @Override
     public UUID callMethod( ConnectedDeviceObject devObject, Class deviceIface, 
-            String methodId, Object[] args, long maxProcTime
+            String methodId, Object[] args, long maxProcTime, 
+            CallRequestPriority priority, long deadline
     ) {
         logger.debug(
-                "callMethod - start: devObject={}, devIface={}, methodId={}, "
-                + "args={}, timeout={}", 
-                devObject, deviceIface, methodId, args, maxProcTime
+                "callMethod - start: devObject=" + devObject + ", devIface=" + deviceIface 
+                + ", methodId=" + methodId + ", args=" + args + ", timeout=" + maxProcTime
+                + ", priority=" + priority + ", deadline=" + deadline
         );
         
         checkDeviceObject(devObject);
         checkDeviceInterface(deviceIface);
         checkMethodId( methodId );
         checkMaxProcessingTime( maxProcTime );
+        checkPriority( priority );
+        checkDeadline( deadline );
         
         UUID callId = UUID.randomUUID();
         CallRequest request = new CallRequest(
@@ -851,13 +1576,16 @@ implements
         // associate request ID with addressee of its result
         callResultsSender.associateCallRequestWithAddressee(callId, devObject);
         
-        CallRequestToProcess requestToProcess = new CallRequestToProcess(request, maxProcTime);
-        synchronized ( syncRequestOrMessage ) {
-            synchronized( syncRequestsToProcess ) {
-                requestsToProcess.offer( requestToProcess );
-                syncRequestsToProcess.notifyAll();
-            }
-            syncRequestOrMessage.notifyAll();
+        CallRequestToProcess requestToProcess = new CallRequestToProcess(
+                request, maxProcTime, priority, toSchedulerDeadline(deadline)
+        );
+        WorkerThread requestWorkerThread = getWorkerThread(request.getNetworkId());
+        requestWorkerThreads.put(callId, requestWorkerThread);
+        CallRequestsCoalescingPolicy coalescingPolicy = requestsCoalescingPolicy;
+        if ( (coalescingPolicy != null) && coalescingPolicy.isCoalescable(request) ) {
+            requestWorkerThread.addCoalescedRequestToProcess(requestToProcess);
+        } else {
+            requestWorkerThread.addRequestToProcess(requestToProcess);
         }
         
         logger.info("New call request created: {}", request);
@@ -865,6 +1593,19 @@ implements
         return callId;
     }
     
+    /**
+     * @throws IllegalArgumentException if {@code timeout} is less than or 
+     *         equal to 0
+     */
+    @Override
+    public UUID callMethod( ConnectedDeviceObject devObject, Class deviceIface, 
+            String methodId, Object[] args, long maxProcTime
+    ) {
+        return callMethod(devObject, deviceIface, methodId, args, maxProcTime, 
+                CallRequestPriority.NORMAL, NO_DEADLINE
+        );
+    }
+    
     @Override
     public UUID callMethod(ConnectedDeviceObject deviceObject, Class deviceIface, 
             String methodId, Object[] args
@@ -873,18 +1614,35 @@ implements
     }
     
     @Override
-    public void setCallRequestMaximalProcessingTime(UUID requestId, long maxProcTime) {
-        workerThread.setCallRequestProcessingTime(
-                checkRequestId(requestId), checkMaxProcessingTime(maxProcTime)
+    public UUID callMethod(ConnectedDeviceObject deviceObject, Class deviceIface, 
+            String methodId, Object[] args, CallRequestPriority priority, long deadline
+    ) {
+        return callMethod(deviceObject, deviceIface, methodId, args, responseTimeout, 
+                priority, deadline
         );
     }
     
+    @Override
+    public void setCallRequestMaximalProcessingTime(UUID requestId, long maxProcTime) {
+        checkRequestId(requestId);
+        checkMaxProcessingTime(maxProcTime);
+        WorkerThread worker = requestWorkerThreads.get(requestId);
+        if ( worker != null ) {
+            worker.setCallRequestProcessingTime(requestId, maxProcTime);
+        }
+    }
+    
     @Override
     public CallRequestProcessingInfo getCallRequestProcessingInfo(UUID requestId) {
-        CallRequestProcessingInfo procInfo 
-                = workerThread.getCallRequestProcessingInfo(checkRequestId(requestId));
-        if ( procInfo != null ) {
-            return procInfo;
+        checkRequestId(requestId);
+        
+        CallRequestProcessingInfo procInfo = null;
+        WorkerThread worker = requestWorkerThreads.get(requestId);
+        if ( worker != null ) {
+            procInfo = worker.getCallRequestProcessingInfo(requestId);
+            if ( procInfo != null ) {
+                return procInfo;
+            }
         }
         
         // if procInfo == null, then workerThread hasn't any information about
@@ -895,7 +1653,11 @@ implements
 
     @Override
     public void cancelCallRequest(UUID requestId) {
-        workerThread.cancelCallRequest(checkRequestId(requestId));
+        checkRequestId(requestId);
+        WorkerThread worker = requestWorkerThreads.remove(requestId);
+        if ( worker != null ) {
+            worker.cancelCallRequest(requestId);
+        }
     }
     
     @Override
@@ -926,14 +1688,12 @@ implements
         // associate request ID with addressee of its result
         callResultsSender.associateCallRequestWithAddressee(requestId, connListener);
         
-        CallRequestToProcess requestToProcess = new CallRequestToProcess(request, maxProcTime);
-        synchronized ( syncRequestOrMessage ) {
-            synchronized( syncRequestsToProcess ) {
-                requestsToProcess.offer( requestToProcess );
-                syncRequestsToProcess.notifyAll();
-            }
-            syncRequestOrMessage.notifyAll();
-        }
+        CallRequestToProcess requestToProcess = new CallRequestToProcess(
+                request, maxProcTime, CallRequestPriority.NORMAL, CallRequestScheduler.NO_DEADLINE
+        );
+        WorkerThread requestWorkerThread = getWorkerThread(request.getNetworkId());
+        requestWorkerThreads.put(requestId, requestWorkerThread);
+        requestWorkerThread.addRequestToProcess(requestToProcess);
         
         logger.info("New broadcast call request created: {}", request);
         logger.debug("broadcastCallMethod - end: {}", requestId);
@@ -976,7 +1736,13 @@ implements
         logger.debug("startMessaging - start:");
         
         callResultsSender.start();
-        workerThread.start();
+        synchronized ( syncNetworkWorkerThreads ) {
+            workerThread.start();
+            for ( WorkerThread networkWorkerThread : networkWorkerThreads.values() ) {
+                networkWorkerThread.start();
+            }
+            started = true;
+        }
         
         // register this connector as a listener of messages from protocol layer 
         this.protocolLayerService.registerListener(this);
@@ -989,28 +1755,36 @@ implements
     private static final long JOIN_WAIT_TIMEOUT = 2000;
     
     /**
-     * Terminates worker thread.
+     * Terminates worker threads.
      */
     private void terminateWorkedThread() {
         logger.debug("stopMessaging - start:");
         
-        // termination signal to worker thread
-        workerThread.interrupt();
+        List<WorkerThread> workerThreads = getWorkerThreads();
+        
+        // termination signal to worker threads
+        for ( WorkerThread worker : workerThreads ) {
+            worker.interrupt();
+            worker.removeMetrics();
+        }
         
         // indicates, wheather this thread is interrupted
         boolean isInterrupted = false;
          
-        try {
-            if ( workerThread.isAlive() ) {
-                workerThread.join(JOIN_WAIT_TIMEOUT);
+        for ( WorkerThread worker : workerThreads ) {
+            try {
+                if ( worker.isAlive() ) {
+                    worker.join(JOIN_WAIT_TIMEOUT);
+                }
+            } catch ( InterruptedException e ) {
+                isInterrupted = true;
+                logger.warn("Stop messaging - connector interrupted");
+                break;
             }
-        } catch ( InterruptedException e ) {
-            isInterrupted = true;
-            logger.warn("Stop messaging - connector interrupted");
-        }
         
-        if ( !workerThread.isAlive() ) {
-            logger.info("Worker thread stopped.");
+            if ( !worker.isAlive() ) {
+                logger.info("Worker thread {} stopped.", worker.getName());
+            }
         }
         
         if ( isInterrupted ) {
@@ -1042,27 +1816,11 @@ implements
     public void onGetMessage(AbstractMessage message) {
         logger.debug("onGetMessage - start: data={}", message);
         
-        synchronized ( syncRequestOrMessage ) {
-            if ( message instanceof BaseAsynchronousMessage ) {
-                if ( message instanceof DPA_AsynchronousMessage ) {
-                    synchronized( syncAsyncMsgfromProtoLayer ) {
-                        asyncMsgFromProtoLayer.offer((DPA_AsynchronousMessage) message);
-                        syncAsyncMsgfromProtoLayer.notifyAll();
-                    }
-                } else {
-                    logger.warn(
-                        "Incomming asynchronous message is not of DPA_AsynchronousMessage "
-                        + "type. It will be discared", message
-                    );
-                }
-            } else {
-                synchronized( syncMsgfromProtoLayer ) {
-                    msgFromProtoLayer.offer(message);
-                    syncMsgfromProtoLayer.notifyAll();
-                }   
-            }
-            syncRequestOrMessage.notifyAll();
+        String networkId = null;
+        if ( message.getMessageSource() != null ) {
+            networkId = message.getMessageSource().getNetworkId();
         }
+        getWorkerThread(networkId).addMessage(message);
         
         logger.info("New message from protocol layer get: {}", message);
         logger.debug("onGetMessage - end");
@@ -1070,6 +1828,95 @@ implements
     
     
     
+    /**
+     * Enables or disables network lanes. If network lanes are enabled, each 
+     * network has its own queue of requests and its own worker thread, so 
+     * requests to different networks are processed concurrently. Otherwise, 
+     * requests to all networks are processed one after another in one common 
+     * queue. <br>
+     * Network lanes can be enabled or disabled only before the connector is 
+     * started.
+     * @param enabled {@code true} to enable network lanes <br>
+     *                {@code false} to disable network lanes
+     * @throws IllegalStateException if the connector has already been started
+     */
+    public void setNetworkLanesEnabled(boolean enabled) {
+        synchronized ( syncNetworkWorkerThreads ) {
+            if ( started ) {
+                throw new IllegalStateException(
+                        "Network lanes cannot be changed after the connector has started."
+                );
+            }
+            this.networkLanesEnabled = enabled;
+        }
+    }
+    
+    /**
+     * Indicates, wheather network lanes are enabled.
+     * @return {@code true} if network lanes are enabled <br>
+     *         {@code false} otherwise
+     */
+    public boolean isNetworkLanesEnabled() {
+        return networkLanesEnabled;
+    }
+    
+    
+    /**
+     * Sets policy of coalescing of requests. If the policy is set, a new 
+     * coalescable request equal to some coalescable request waiting in the 
+     * queue or waiting for a response is not sent into the network. Instead, 
+     * it is attached to that request and gets the same result. Requests are 
+     * compared by {@link CallRequestComparator#areEqual(CallRequest, CallRequest) }. 
+     * Broadcast requests are never coalesced. <br>
+     * Coalesced request is cancelled only after all of its callers have 
+     * cancelled it. Maximal processing time of coalesced request can be changed 
+     * only by its original caller. <br>
+     * The policy should select only requests, which don't change state of
+     * a device, e.g. reading of values.
+     * @param policy policy of coalescing of requests, {@code null} to disable
+     *        coalescing of requests
+     */
+    public void setRequestsCoalescingPolicy(CallRequestsCoalescingPolicy policy) {
+        this.requestsCoalescingPolicy = policy;
+    }
+    
+    /**
+     * Returns policy of coalescing of requests.
+     * @return policy of coalescing of requests <br>
+     *         {@code null}, if requests are not coalesced
+     */
+    public CallRequestsCoalescingPolicy getRequestsCoalescingPolicy() {
+        return requestsCoalescingPolicy;
+    }
+    
+    /**
+     * Sets aggregator of requests. If aggregator is set, a request polled 
+     * from the queue is aggregated with aggregable requests waiting in the 
+     * queue for the same node and one aggregated request is sent instead of 
+     * them. Its result is delivered to the callers of all aggregated requests.
+     * Aggregation stops at the first waiting request to the node, which is 
+     * not aggregable, so the order of requests to each node is kept. <br>
+     * Aggregated requests are processed like requests attached to a coalesced 
+     * request, i.e. the aggregated request is cancelled only after all of its
+     * callers have cancelled their requests. Requests with attached equal 
+     * requests are not aggregated.
+     * @param aggregator aggregator of requests, {@code null} to disable 
+     *        aggregation of requests
+     */
+    public void setRequestsAggregator(CallRequestsAggregator aggregator) {
+        this.requestsAggregator = aggregator;
+    }
+    
+    /**
+     * Returns aggregator of requests.
+     * @return aggregator of requests <br>
+     *         {@code null}, if requests are not aggregated
+     */
+    public CallRequestsAggregator getRequestsAggregator() {
+        return requestsAggregator;
+    }
+    
+    
     private static long checkCallRequestMaximalIdleTime(long idleTime) {
         if ( idleTime < 0 ) {
             throw new IllegalArgumentException(
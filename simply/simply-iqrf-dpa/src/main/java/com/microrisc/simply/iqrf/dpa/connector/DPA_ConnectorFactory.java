@@ -23,6 +23,20 @@ import org.apache.commons.configuration.Configuration;
 
 /**
  * DPA connector factory.
+ * <p>
+ * Associated configuration properties: <br>
+ * - network lanes: <b>dpa.networkLanes</b> <br>
+ *   Set [ > 0] to process requests to each network in separate lane, or [0]
+ *   to process requests to all networks in one common lane. The same key 
+ *   switches lanes of DPA protocol layer, so that both layers always agree.
+ * - requests coalescing policy: <b>connector.type.responseWaiting.requestsCoalescing.class</b> <br>
+ *   Name of class implementing {@link CallRequestsCoalescingPolicy}. Equal 
+ *   requests selected by the policy, which are waiting or being processed 
+ *   at the same time, are processed as one request. If not set, requests 
+ *   are not coalesced.
+ * - requests aggregator: <b>connector.type.responseWaiting.requestsAggregator.class</b> <br>
+ *   Name of class implementing {@link CallRequestsAggregator}. If not set, 
+ *   requests are not aggregated.
  * 
  * @author Michal Konopa
  */
@@ -88,9 +102,32 @@ extends AbstractConnectorFactory<ProtocolLayer, Configuration, DPA_Connector>
     
     private DPA_Connector getSimpleResponseWaitingConnector(
             ProtocolLayer protocolLayer, Configuration configuration
-    ) {
+    ) throws Exception {
         DPA_Connector connector = new DPA_Connector(protocolLayer);
         new SimpleResponseWaitingConnectorConfigurator().configure(connector, configuration);
+        
+        int networkLanes = configuration.getInt("dpa.networkLanes", 0);
+        connector.setNetworkLanesEnabled( networkLanes > 0 );
+        
+        String coalescingPolicyClassName = configuration.getString(
+                "connector.type.responseWaiting.requestsCoalescing.class", null
+        );
+        if ( coalescingPolicyClassName != null ) {
+            Class<?> coalescingPolicyClass = Class.forName(coalescingPolicyClassName);
+            java.lang.reflect.Constructor constructor = coalescingPolicyClass.getConstructor();
+            connector.setRequestsCoalescingPolicy( 
+                    (CallRequestsCoalescingPolicy) constructor.newInstance() 
+            );
+        }
+        
+        String aggregatorClassName = configuration.getString(
+                "connector.type.responseWaiting.requestsAggregator.class", null
+        );
+        if ( aggregatorClassName != null ) {
+            Class<?> aggregatorClass = Class.forName(aggregatorClassName);
+            java.lang.reflect.Constructor constructor = aggregatorClass.getConstructor();
+            connector.setRequestsAggregator( (CallRequestsAggregator) constructor.newInstance() );
+        }
         return connector;
     }
     
@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.typeconvertors;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.typeconvertors.PrimitiveConvertor;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
 import java.nio.ByteBuffer;
@@ -102,4 +103,20 @@ public class IntToUns8Convertor extends PrimitiveConvertor  {
         logger.debug("toObject - end: {}", intObj);
         return intObj;
     }
+    
+    @Override
+    public Object toObject(BytePacket iqrfValue) throws ValueConversionException {
+        logger.debug("toObject - start: iqValue={}", iqrfValue);
+        
+        if ( iqrfValue.length() != TYPE_SIZE ) {
+            throw new ValueConversionException(
+                "Argument length doesn't match with type size"
+            );
+        }
+        
+        Integer intObj = (int)iqrfValue.get(0);
+        
+        logger.debug("toObject - end: {}", intObj);
+        return intObj;
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.typeconvertors;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
 import com.microrisc.simply.typeconvertors.PrimitiveConvertor;
 import java.nio.ByteBuffer;
@@ -97,4 +98,20 @@ public final class Uns16Convertor extends PrimitiveConvertor {
         logger.debug("toIQValue - end: {}", byteBuffer.getInt(0));
         return byteBuffer.getInt(0);
     }   
+    
+    @Override
+    public Object toObject(BytePacket iqValue) throws ValueConversionException {
+        logger.debug("toObject - start: iqValue={}", iqValue);
+        
+        if ( iqValue.length() != TYPE_SIZE ) {
+            throw new ValueConversionException(
+                "Argument length doesn't match with type size"
+            );
+        }
+        
+        Integer intObj = iqValue.get(0) | (iqValue.get(1) << 8);
+        
+        logger.debug("toObject - end: {}", intObj);
+        return intObj;
+    }
 }
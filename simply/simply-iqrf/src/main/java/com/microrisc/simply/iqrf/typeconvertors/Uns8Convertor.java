@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.typeconvertors;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.typeconvertors.PrimitiveConvertor;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
 import java.nio.ByteBuffer;
@@ -98,4 +99,20 @@ public final class Uns8Convertor extends PrimitiveConvertor {
         logger.debug("toObject - end: {}", shortObj);
         return shortObj;
     }   
+    
+    @Override
+    public Object toObject(BytePacket iqValue) throws ValueConversionException {
+        logger.debug("toObject - start: iqValue={}", iqValue);
+        
+        if ( iqValue.length() != TYPE_SIZE ) {
+            throw new ValueConversionException(
+                "Argument length doesn't match with type size"
+            );
+        }
+        
+        Short shortObj = iqValue.get(0);
+        
+        logger.debug("toObject - end: {}", shortObj);
+        return shortObj;
+    }
 }
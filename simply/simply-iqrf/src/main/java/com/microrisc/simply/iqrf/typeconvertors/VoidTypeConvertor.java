@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.iqrf.typeconvertors;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.iqrf.types.VoidType;
 import com.microrisc.simply.typeconvertors.PrimitiveConvertor;
 import com.microrisc.simply.typeconvertors.ValueConversionException;
@@ -83,4 +84,20 @@ public final class VoidTypeConvertor extends PrimitiveConvertor {
         logger.debug("toIQValue - end: {}", voidType);
         return voidType;
     }
+    
+    @Override
+    public Object toObject(BytePacket iqValue) throws ValueConversionException {
+        logger.debug("toObject - start: iqValue={}", iqValue);
+        
+        if ( iqValue.length() != TYPE_SIZE ) {
+            throw new ValueConversionException(
+                "Argument length doesn't match with type size"
+            );
+        }
+        
+        VoidType voidType = new VoidType();
+        
+        logger.debug("toObject - end: {}", voidType);
+        return voidType;
+    }
 }
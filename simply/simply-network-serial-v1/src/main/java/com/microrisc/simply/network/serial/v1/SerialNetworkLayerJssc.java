@@ -18,19 +18,21 @@ package com.microrisc.simply.network.serial.v1;
 
 import com.microrisc.hdlcframing.v1.HDLC_DataTransformer;
 import com.microrisc.hdlcframing.v1.HDLC_FormatException;
+import com.microrisc.hdlcframing.v1.HDLC_FrameDecoder;
+import com.microrisc.hdlcframing.v1.HDLC_ReceptionRing;
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.NetworkData;
 import com.microrisc.simply.NetworkLayerListener;
+import com.microrisc.simply.metrics.Counter;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.StandardMetrics;
 import com.microrisc.simply.network.AbstractNetworkConnectionInfo;
 import com.microrisc.simply.network.AbstractNetworkLayer;
 import com.microrisc.simply.network.BaseNetworkData;
 import com.microrisc.simply.network.NetworkConnectionStorage;
 import com.microrisc.simply.network.NetworkLayerException;
 import com.microrisc.simply.network.comport.BaseCOMPortConnectionInfo;
-import java.io.ByteArrayOutputStream;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import jssc.SerialPort;
 import jssc.SerialPortEvent;
 import jssc.SerialPortEventListener;
@@ -46,6 +48,10 @@ import org.slf4j.LoggerFactory;
  * HDLC packets and forwarder to user's registered network listener. All data 
  * designated to underlaying network are transformed to HDLC frames and 
  * send via {@code SerialPort.writeBytes} method.
+ * <p>
+ * Event thread of jssc library only writes received bytes into fixed ring.
+ * Listener caller thread decodes complete frames directly from the ring
+ * and passes them to the listener.
  * 
  * @author Rostislav Spinar
  */
@@ -59,7 +65,7 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
     /**
      * Registered network listener.
      */
-    private NetworkLayerListener networkListener = null;
+    private volatile NetworkLayerListener networkListener = null;
 
     /**
      * Connection info.
@@ -87,55 +93,46 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
     private int serialBaudrate = 0;
 
     /**
-     * Data received from Serial.
+     * Bytes received from Serial.
+     */
+    private HDLC_ReceptionRing receptionRing = null;
+    
+    /**
+     * Capacity of ring of received bytes.
+     */
+    public static final int RECEPTION_RING_CAPACITY = HDLC_ReceptionRing.CAPACITY_DEFAULT;
+    
+    /**
+     * Counter of received bytes dropped because of full ring.
      */
-    private Queue<byte[]> dataFromSerial = null;
+    private Counter droppedBytesCounter = null;
     
     /**
-     * Synchronization between socket reader thread and listener caller thread.
+     * Indicates, wheather new bytes has been written into the ring.
+     */
+    private boolean newDataReceived = false;
+    
+    /**
+     * Synchronization between serial reader and listener caller thread.
      */
     private final Object threadsSynchro = new Object();
     
     /**
-     * Reading data from Serial.
+     * Reading data from Serial. Runs on event thread of jssc library, only
+     * writes received bytes into the ring. No exception is thrown out of it.
      */
     private class SerialReader implements SerialPortEventListener {
-
-        // chunk delimiter
-        private static final byte CHUNK_SEPAR = 0x7E; 
-        
-        // remainder of last data read, which does not comprise a complete chunk
-        byte[] dataRemainder =  null;
-               
-        // reads data chunk from specified position from specified array
-        private byte[] readDataChunk(int startPos, byte[] arr) {
-            if ( arr[startPos] != CHUNK_SEPAR ) {
-                throw new IllegalStateException(
-                        "Bad format of input data. It must begin with " + CHUNK_SEPAR + " byte."
-                );
-            }
-            
-            ByteArrayOutputStream dataChunk = new ByteArrayOutputStream();
-            for ( int pos =  startPos; pos < arr.length; pos++ ) {
-                dataChunk.write(arr[pos] & 0xFF);
-                if ( arr[pos] == CHUNK_SEPAR ) {
-                    if ( pos != startPos ) {
-                        break;
-                    }
-                }
-            }
-            return dataChunk.toByteArray();
-        }
         
-        // writes specified data chunk into global storage
-        private void writeDataChunkIntoGlobalStorage(byte[] dataChunk) {
-            synchronized ( threadsSynchro ) {
-                dataFromSerial.add(dataChunk);
+        @Override
+        public void serialEvent(SerialPortEvent event) {
+            try {
+                processEvent(event);
+            } catch ( RuntimeException ex ) {
+                logger.error("Error while processing serial event: ", ex);
             }
         }
         
-        public void serialEvent(SerialPortEvent event) {
-            
+        private void processEvent(SerialPortEvent event) {
             // if the event is not reception of bytes, nothing to do
             if ( !event.isRXCHAR() ) {
                 return;
@@ -152,103 +149,59 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
             try {
                 buffer = serialPort.readBytes();
             } catch ( SerialPortException ex ) {
-                System.out.println("Reading data failed: " + ex);
+                logger.error("Reading data failed", ex);
                 return;
             }
             
-            byte[] allDataArr = null;
-            
-            // if there is data remainder, it is needed to add it for processing
-            if ( dataRemainder != null ) {
-                allDataArr = new byte[ dataRemainder.length + buffer.length];
-                System.arraycopy(dataRemainder, 0, allDataArr, 0, dataRemainder.length);
-                System.arraycopy(buffer, 0, allDataArr, dataRemainder.length, buffer.length);
-                dataRemainder = null;
-            } else {
-                allDataArr = new byte[buffer.length];
-                System.arraycopy(buffer, 0, allDataArr, 0, buffer.length);
-            }
-            
-            // list of data chunks - each chunk is embraced by CHUNK_SEPAR bytes
-            // with the exception of the last one - it can be without the last CHUNK_SEPAR
-            List<byte[]> dataChunks = new LinkedList<>();
-            
-            int chunkPos = 0;
-            while ( chunkPos < (allDataArr.length-1) ) {
-                byte[] dataChunk = readDataChunk(chunkPos, allDataArr);
-                dataChunks.add(dataChunk);
-                chunkPos += dataChunk.length; 
+            if ( buffer == null ) {
+                return;
             }
             
-            // write all data chunks into the shared storage, with the exception
-            // of the last one, if it is incomplete
-            boolean lastIsComplete = false;
-            for ( int chunkId = 0; chunkId < dataChunks.size(); chunkId++ ) {
-                byte[] dataChunk = dataChunks.get(chunkId);
-                
-                if ( chunkId != (dataChunks.size()-1) ) {
-                    writeDataChunkIntoGlobalStorage(dataChunk);
-                } else {
-                    if ( dataChunk[dataChunk.length-1] == CHUNK_SEPAR ) {
-                        writeDataChunkIntoGlobalStorage(dataChunk);
-                        lastIsComplete = true;
-                    }
-                }
+            int written = receptionRing.write(buffer, 0, buffer.length);
+            if ( written < buffer.length ) {
+                droppedBytesCounter.add(buffer.length - written);
+                logger.warn("Reception ring full, received bytes dropped: {}", buffer.length - written);
             }
             
-            if ( lastIsComplete ) {
-                logger.info("New data from serial interface: {}", dataFromSerial.toArray());
-                
+            if ( written > 0 ) {
                 synchronized ( threadsSynchro ) {
-                    dataChunks.clear();
+                    newDataReceived = true;
                     threadsSynchro.notify();
                 }
-            } else {
-                dataRemainder = dataChunks.get(dataChunks.size()-1);
-                dataChunks.clear();
             }
         }
     }
 
     /**
-     * Calling listener callback method - when new data has arrived from socket.
+     * Decodes frames from received bytes and calls listener callback method.
      */
-    private class ListenerCaller extends Thread {
-
-        // already consumed data from Serial
-        private Queue<byte[]> consumedData = new LinkedList<byte[]>();
-
-        // indicates, wheather new data are from Serial
-        private boolean areDataFromSerial() {
-            return !dataFromSerial.isEmpty();
-        }
-
-        // consume data from serial and adds them into buffer
-        private void consumeDataFromSerial() {
-            while ( !dataFromSerial.isEmpty() ) {
-                byte[] packetData = dataFromSerial.poll();
-                consumedData.add(packetData);
+    private class ListenerCaller extends Thread implements HDLC_FrameDecoder.FrameListener {
+        
+        // decoder of HDLC frames - keeps incomplete frame between decodings
+        private final HDLC_FrameDecoder frameDecoder = new HDLC_FrameDecoder(this);
+        
+        @Override
+        public void onFrame(byte[] frameData, int offset, int length) {
+            // decoder reuses its buffer, so frame data must be copied
+            BytePacket packet = BytePacket.copyOf(frameData, offset, length);
+            logger.info("New data from serial interface: {}", packet);
+            
+            NetworkLayerListener listener = networkListener;
+            if ( listener == null ) {
+                return;
+            }
+            
+            try {
+                String networkId = connectionStorage.getNetworkId(connectionInfo);
+                listener.onGetData( new BaseNetworkData(packet, networkId) );
+            } catch ( RuntimeException ex ) {
+                logger.error("Error while delivering received data: ", ex);
             }
-        }
-
-        /**
-         * Frees up used resources.
-         */
-        private void freeResources() {
-            consumedData.clear();
         }
         
-        /** 
-         * Converts specified byte array to its short representations.
-         * All negative values in the byte array will be converted to its 
-         * positive counterparts.
-         */
-        private short[] toShortArr(byte[] byteArr) {
-            short[] shortArr = new short[ byteArr.length ];
-            for ( int i = 0; i < byteArr.length; i++ ) {
-                shortArr[i] = (short) (byteArr[i] & 0xff);
-            } 
-            return shortArr;
+        @Override
+        public void onFrameError(HDLC_FormatException error) {
+            logger.error("Error while reading data from HDLC format: ", error);
         }
         
         @Override
@@ -256,42 +209,33 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
             while ( true ) {
                 if ( this.isInterrupted() ) {
                     logger.info("Serial caller thread interrupted");
-                    freeResources();
                     return;
                 }
 
-                // consuming new data from Serial
+                // waiting for new data from Serial
                 synchronized ( threadsSynchro ) {
-                    while ( !areDataFromSerial() ) {
+                    while ( !newDataReceived ) {
                         try {
                             threadsSynchro.wait();
                         } catch (InterruptedException ex) {
                             logger.warn("Serial caller thread interrupted while "
                                     + "waiting on data from Serial.");
-                            freeResources();
                             return;
                         }
                     }
-                    consumeDataFromSerial();
+                    newDataReceived = false;
                 }
 
-                // remove data from queue and put send it to listener
-                while ( !consumedData.isEmpty() ) {
-                    short[] packetData = toShortArr(consumedData.poll());
-                    logger.info("Converted data from Serial: {}", packetData);
-                    
-                    short[] userData = null;
-                    try {
-                        userData = HDLC_DataTransformer.getDataFromFrame(packetData);
-                    } catch ( HDLC_FormatException e ) {
-                        logger.error("Error while reading data from HDLC format: ", e);
-                        continue;
-                    }
-
-                    if ( networkListener != null ) {
-                        String networkId = connectionStorage.getNetworkId(connectionInfo);
-                        networkListener.onGetData( new BaseNetworkData(userData, networkId) );
+                // complete frames are decoded and passed to the listener
+                try {
+                    long discardedBefore = receptionRing.getDiscardedCount();
+                    receptionRing.decodeFrames(frameDecoder);
+                    if ( receptionRing.getDiscardedCount() != discardedBefore ) {
+                        logger.warn("Reception ring full of data without frame, data discarded");
                     }
+                } catch ( RuntimeException ex ) {
+                    logger.error("Error while decoding received data: ", ex);
+                    frameDecoder.reset();
                 }
             }
         }
@@ -375,6 +319,18 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
     public void start() throws NetworkLayerException {
         logger.debug("startReceivingData - start:");
         
+        // init ring of bytes comming from Serial
+        receptionRing = new HDLC_ReceptionRing(RECEPTION_RING_CAPACITY);
+        newDataReceived = false;
+        droppedBytesCounter = MetricsRegistry.getDefault().counter(
+                new MetricName(
+                    StandardMetrics.NETWORK_RECEPTION_DROPPED,
+                    StandardMetrics.TAG_NETWORK, 
+                    String.valueOf(connectionStorage.getNetworkId(connectionInfo)),
+                    StandardMetrics.TAG_TYPE, "ringFull"
+                )
+        );
+        
         serialPort = new SerialPort( portName );
         
         try {
@@ -393,10 +349,6 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
             throw new NetworkLayerException(ex);
         }
 
-        // init queue of data comming from Serial
-        //dataFromSerial = new LinkedList<byte[]>();
-        dataFromSerial = new ConcurrentLinkedDeque<>();
-
         // creating and starting threads
         createAndStartThreads( );
 
@@ -438,12 +390,8 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
         }
 
         // transforms request's data to Serial protocol format
-        short[] dataForSerial = HDLC_DataTransformer.transformToHLDCFormat(networkData.getData());
-        
-        byte[] buffer = new byte[dataForSerial.length];
-        for ( int index = 0; index < dataForSerial.length; index++ ) {
-            buffer[index] = (byte) dataForSerial[index];
-        }
+        byte[] data = networkData.getPacket().toByteArray();
+        byte[] buffer = HDLC_DataTransformer.encodeFrame(data, 0, data.length);
         
         try {  
             logger.info("Data will be sent to Serial...");
@@ -459,7 +407,6 @@ public final class SerialNetworkLayerJssc extends AbstractNetworkLayer {
         
         unregisterListener();
         terminateThreads();
-        dataFromSerial.clear();
         
         try {
             serialPort.closePort();
@@ -0,0 +1,242 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.network.simulation;
+
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
+
+/**
+ * Configuration of simulated IQMESH network.
+ * <p>
+ * Bonded nodes have addresses from 1 up to the number of nodes. Nodes are
+ * evenly divided into rings according to their addresses - nodes with lower
+ * addresses are nearer to the coordinator. Nodes in the first ring are
+ * 1 hop far from the coordinator, nodes in the last ring are maximal number
+ * of hops far from the coordinator.
+ *
+ * @author Michal Konopa
+ */
+public final class MeshConfiguration {
+    /** Default number of bonded nodes. */
+    public static final int NODES_COUNT_DEFAULT = 10;
+    
+    /** Default maximal number of hops. */
+    public static final int MAX_HOPS_DEFAULT = 2;
+    
+    /** Default time [in ms] of processing of a request by the coordinator. */
+    public static final long COORDINATOR_DELAY_DEFAULT = 10;
+    
+    
+    // number of bonded nodes
+    private final int nodesCount;
+    
+    // maximal number of hops
+    private final int maxHops;
+    
+    // time of processing of a request by the coordinator
+    private final long coordinatorDelay;
+    
+    // probability of loss of a packet
+    private final double lossRate;
+    
+    // probability of no response of a node
+    private final double timeoutRate;
+    
+    // period of sending of asynchronous messages
+    private final long asyncMessagePeriod;
+    
+    // seed of random generator
+    private final long randomSeed;
+    
+    
+    public static class Builder {
+        private int nodesCount = NODES_COUNT_DEFAULT;
+        private int maxHops = MAX_HOPS_DEFAULT;
+        private long coordinatorDelay = COORDINATOR_DELAY_DEFAULT;
+        private double lossRate = 0;
+        private double timeoutRate = 0;
+        private long asyncMessagePeriod = 0;
+        private long randomSeed = System.nanoTime();
+        
+        public Builder nodesCount(int nodesCount) {
+            this.nodesCount = nodesCount;
+            return this;
+        }
+        
+        public Builder maxHops(int maxHops) {
+            this.maxHops = maxHops;
+            return this;
+        }
+        
+        public Builder coordinatorDelay(long coordinatorDelay) {
+            this.coordinatorDelay = coordinatorDelay;
+            return this;
+        }
+        
+        public Builder lossRate(double lossRate) {
+            this.lossRate = lossRate;
+            return this;
+        }
+        
+        public Builder timeoutRate(double timeoutRate) {
+            this.timeoutRate = timeoutRate;
+            return this;
+        }
+        
+        public Builder asyncMessagePeriod(long asyncMessagePeriod) {
+            this.asyncMessagePeriod = asyncMessagePeriod;
+            return this;
+        }
+        
+        public Builder randomSeed(long randomSeed) {
+            this.randomSeed = randomSeed;
+            return this;
+        }
+        
+        public MeshConfiguration build() {
+            return new MeshConfiguration(this);
+        }
+    }
+    
+    private static int checkNodesCount(int nodesCount) {
+        int maxNodesCount = DPA_ProtocolProperties.NADR_Properties.IQMESH_NODE_ADDRESS_MAX;
+        if ( (nodesCount < 0) || (nodesCount > maxNodesCount) ) {
+            throw new IllegalArgumentException(
+                    "Number of nodes must be in [0, " + maxNodesCount + "] interval."
+            );
+        }
+        return nodesCount;
+    }
+    
+    private static int checkMaxHops(int maxHops) {
+        if ( maxHops < 1 ) {
+            throw new IllegalArgumentException("Maximal number of hops must be positive.");
+        }
+        return maxHops;
+    }
+    
+    private static long checkCoordinatorDelay(long coordinatorDelay) {
+        if ( coordinatorDelay < 0 ) {
+            throw new IllegalArgumentException("Coordinator delay must be nonnegative.");
+        }
+        return coordinatorDelay;
+    }
+    
+    private static double checkRate(double rate) {
+        if ( (rate < 0) || (rate > 1) ) {
+            throw new IllegalArgumentException("Rate must be in [0, 1] interval.");
+        }
+        return rate;
+    }
+    
+    private static long checkAsyncMessagePeriod(long asyncMessagePeriod) {
+        if ( asyncMessagePeriod < 0 ) {
+            throw new IllegalArgumentException(
+                    "Period of asynchronous messages must be nonnegative."
+            );
+        }
+        return asyncMessagePeriod;
+    }
+    
+    /**
+     * Creates configuration of simulated network.
+     */
+    private MeshConfiguration(Builder builder) {
+        this.nodesCount = checkNodesCount(builder.nodesCount);
+        this.maxHops = checkMaxHops(builder.maxHops);
+        this.coordinatorDelay = checkCoordinatorDelay(builder.coordinatorDelay);
+        this.lossRate = checkRate(builder.lossRate);
+        this.timeoutRate = checkRate(builder.timeoutRate);
+        this.asyncMessagePeriod = checkAsyncMessagePeriod(builder.asyncMessagePeriod);
+        this.randomSeed = builder.randomSeed;
+    }
+    
+    
+    /**
+     * @return number of bonded nodes
+     */
+    public int getNodesCount() {
+        return nodesCount;
+    }
+    
+    /**
+     * @return maximal number of hops between the coordinator and a node
+     */
+    public int getMaxHops() {
+        return maxHops;
+    }
+    
+    /**
+     * @return time [in ms] of processing of a request by the coordinator
+     */
+    public long getCoordinatorDelay() {
+        return coordinatorDelay;
+    }
+    
+    /**
+     * @return probability of loss of each confirmation or response
+     */
+    public double getLossRate() {
+        return lossRate;
+    }
+    
+    /**
+     * @return probability, that a node will not respond to a request
+     */
+    public double getTimeoutRate() {
+        return timeoutRate;
+    }
+    
+    /**
+     * @return period [in ms] of sending of asynchronous messages, {@code 0}
+     *         means, that no asynchronous messages are sent
+     */
+    public long getAsyncMessagePeriod() {
+        return asyncMessagePeriod;
+    }
+    
+    /**
+     * @return seed of random generator used for loss, timeouts and
+     *         asynchronous messages
+     */
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+    
+    /**
+     * Returns number of hops between the coordinator and specified node.
+     * @param nodeAddress address of the node
+     * @return number of hops
+     * @throws IllegalArgumentException if {@code nodeAddress} is not address
+     *         of bonded node
+     */
+    public int getHops(int nodeAddress) {
+        if ( !isBonded(nodeAddress) ) {
+            throw new IllegalArgumentException("Node not bonded: " + nodeAddress);
+        }
+        return 1 + ( (nodeAddress - 1) * maxHops ) / nodesCount;
+    }
+    
+    /**
+     * Indicates, whether the node with specified address is bonded.
+     * @param nodeAddress address of the node
+     * @return {@code true} if the node is bonded <br>
+     *         {@code false} otherwise
+     */
+    public boolean isBonded(int nodeAddress) {
+        return ( nodeAddress >= 1 ) && ( nodeAddress <= nodesCount );
+    }
+}
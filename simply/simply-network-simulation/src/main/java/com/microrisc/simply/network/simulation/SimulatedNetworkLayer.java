@@ -0,0 +1,461 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.network.simulation;
+
+import com.microrisc.simply.BytePacket;
+import com.microrisc.simply.NetworkData;
+import com.microrisc.simply.NetworkLayerListener;
+import com.microrisc.simply.iqrf.dpa.v210.DPA_ResponseCode;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties.NADR_Properties;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties.PNUM_Properties;
+import com.microrisc.simply.iqrf.dpa.v210.protocol.DPA_ProtocolProperties.Timing_Properties;
+import com.microrisc.simply.network.AbstractNetworkLayer;
+import com.microrisc.simply.network.BaseNetworkData;
+import com.microrisc.simply.network.NetworkConnectionStorage;
+import com.microrisc.simply.network.NetworkLayerException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Network layer, which simulates IQMESH networks - one for each network in
+ * the Network Connection Storage. Connection infos of the networks are not
+ * used.
+ * <p>
+ * Each simulated network consists of the coordinator and bonded nodes
+ * according to {@link MeshConfiguration}. Requests are answered this way: <br>
+ * - requests for the coordinator are answered by the response after the
+ *   coordinator delay <br>
+ * - requests for bonded nodes are answered by the confirmation after the
+ *   coordinator delay and by the response after the time of routing of the
+ *   request and of the response <br>
+ * - broadcast requests are answered by the confirmation only <br>
+ * - requests for nodes, which are not bonded, are not answered at all <br>
+ * Routing times are counted by the same formulas, which are used by the DPA
+ * protocol layer for waiting for responses.
+ * <p>
+ * Responses contain data set by {@link #setResponseData(int, int, byte[]) }.
+ * If no data is set for the peripheral and command, responses contain
+ * no data.
+ * <p>
+ * Asynchronous messages are simulated by responses of randomly chosen bonded
+ * nodes to Thermometer read command, which have no cause request. Asynchronous
+ * messages are sent only if no request is processed in the network, because
+ * the DPA protocol layer could take them for responses to the processed
+ * request.
+ *
+ * @author Michal Konopa
+ */
+public final class SimulatedNetworkLayer extends AbstractNetworkLayer {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedNetworkLayer.class);
+    
+    
+    // mask of PCMD of responses
+    private static final int RESPONSE_PCMD_MASK = 0x80;
+    
+    // length of confirmation data
+    private static final int CONFIRMATION_DATA_LENGTH = 5;
+    
+    // PCMD of Thermometer read command
+    private static final int THERMOMETER_READ = 0x00;
+    
+    // PCMD of LED get command
+    private static final int LED_GET = 0x02;
+    
+    // response data of Thermometer read command: 20 degrees of Celsius
+    private static final byte[] THERMOMETER_READ_DATA = { 20, 0x40, 0x01 };
+    
+    // time [in ms], for which a network is considered busy after all packets
+    // of a request are sent - covers waiting of the DPA protocol layer
+    private static final long BUSY_TIME_MARGIN = 1000;
+    
+    
+    /** Configuration of simulated networks. */
+    private final MeshConfiguration meshConfig;
+    
+    /** Random generator for loss, timeouts and asynchronous messages. */
+    private final Random random;
+    
+    /** Response data according to peripheral and command. */
+    private final Map<Integer, byte[]> responseDataMap = new ConcurrentHashMap<>();
+    
+    /** Executor of sending packets to the listener. */
+    private volatile ScheduledExecutorService scheduler = null;
+    
+    /** Registered network listener. */
+    private volatile NetworkLayerListener networkListener = null;
+    
+    /** Times, until which the networks process requests. */
+    private final Map<String, Long> busyUntilMap = new ConcurrentHashMap<>();
+    
+    
+    /**
+     * Sends packet to the registered listener.
+     */
+    private class PacketSender implements Runnable {
+        private final byte[] packet;
+        private final String networkId;
+        private final boolean lossable;
+        
+        PacketSender(byte[] packet, String networkId, boolean lossable) {
+            this.packet = packet;
+            this.networkId = networkId;
+            this.lossable = lossable;
+        }
+        
+        @Override
+        public void run() {
+            if ( lossable && isEventOccured(meshConfig.getLossRate()) ) {
+                logger.info("Packet lost: network={}", networkId);
+                return;
+            }
+            
+            NetworkLayerListener listener = networkListener;
+            if ( listener == null ) {
+                return;
+            }
+            
+            try {
+                listener.onGetData(new BaseNetworkData(BytePacket.wrap(packet), networkId));
+            } catch ( RuntimeException ex ) {
+                logger.error("Error in processing of packet by listener", ex);
+            }
+        }
+    }
+    
+    /**
+     * Sends asynchronous messages into specified network.
+     */
+    private class AsyncMessageSender implements Runnable {
+        private final String networkId;
+        
+        AsyncMessageSender(String networkId) {
+            this.networkId = networkId;
+        }
+        
+        @Override
+        public void run() {
+            Long busyUntil = busyUntilMap.get(networkId);
+            if ( (busyUntil != null) && (System.currentTimeMillis() < busyUntil) ) {
+                logger.debug("Network {} busy - asynchronous message not sent", networkId);
+                return;
+            }
+            
+            int nodeAddress = 1 + random.nextInt(meshConfig.getNodesCount());
+            byte[] message = new byte[
+                    DPA_ProtocolProperties.RESPONSE_DATA_START + THERMOMETER_READ_DATA.length
+            ];
+            message[DPA_ProtocolProperties.NADR_START] = (byte)nodeAddress;
+            message[DPA_ProtocolProperties.PNUM_START] = (byte)PNUM_Properties.THERMOMETER;
+            message[DPA_ProtocolProperties.PCMD_START] = (byte)(THERMOMETER_READ | RESPONSE_PCMD_MASK);
+            setHwProfile(message, DPA_ProtocolProperties.HWPID_Properties.DO_NOT_CHECK);
+            message[DPA_ProtocolProperties.RESPONSE_CODE_START]
+                    = (byte)DPA_ResponseCode.NO_ERROR.getCodeValue();
+            System.arraycopy(
+                    THERMOMETER_READ_DATA, 0, message, DPA_ProtocolProperties.RESPONSE_DATA_START,
+                    THERMOMETER_READ_DATA.length
+            );
+            
+            new PacketSender(message, networkId, false).run();
+        }
+    }
+    
+    
+    private static NetworkConnectionStorage checkStorage(NetworkConnectionStorage storage) {
+        if ( storage == null ) {
+            throw new IllegalArgumentException("Network Connection Storage cannot be null");
+        }
+        return storage;
+    }
+    
+    private static MeshConfiguration checkMeshConfiguration(MeshConfiguration meshConfig) {
+        if ( meshConfig == null ) {
+            throw new IllegalArgumentException("Mesh configuration cannot be null");
+        }
+        return meshConfig;
+    }
+    
+    private static void checkPeripheralNumber(int pnum) {
+        if ( (pnum < 0) || (pnum > 0xFF) ) {
+            throw new IllegalArgumentException("Peripheral number out of bounds: " + pnum);
+        }
+    }
+    
+    private static void checkCommand(int pcmd) {
+        if ( (pcmd < DPA_ProtocolProperties.PCMD_VALUE_MIN)
+                || (pcmd > DPA_ProtocolProperties.PCMD_VALUE_MAX)
+        ) {
+            throw new IllegalArgumentException("Command out of bounds: " + pcmd);
+        }
+    }
+    
+    private static byte[] checkResponseData(byte[] responseData) {
+        if ( responseData == null ) {
+            throw new IllegalArgumentException("Response data cannot be null");
+        }
+        if ( responseData.length + DPA_ProtocolProperties.RESPONSE_DATA_START
+                > DPA_ProtocolProperties.PDATA_START + DPA_ProtocolProperties.PDATA_MAX_LENGTH
+        ) {
+            throw new IllegalArgumentException("Response data too long: " + responseData.length);
+        }
+        return responseData;
+    }
+    
+    // returns key of response data
+    private static int getResponseDataKey(int pnum, int pcmd) {
+        return ( pnum << 8 ) | pcmd;
+    }
+    
+    // sets HW profile field of specified packet
+    private static void setHwProfile(byte[] packet, int hwpId) {
+        packet[DPA_ProtocolProperties.HW_PROFILE_START] = (byte)hwpId;
+        packet[DPA_ProtocolProperties.HW_PROFILE_START + 1] = (byte)(hwpId >> 8);
+    }
+    
+    // indicates, whether an event with specified probability has occured
+    private boolean isEventOccured(double probability) {
+        if ( probability == 0 ) {
+            return false;
+        }
+        return random.nextDouble() < probability;
+    }
+    
+    
+    /**
+     * Creates simulated network layer.
+     * @param connectionStorage storage of simulated networks
+     * @param meshConfig configuration of simulated networks
+     */
+    public SimulatedNetworkLayer(
+            NetworkConnectionStorage connectionStorage, MeshConfiguration meshConfig
+    ) {
+        super(checkStorage(connectionStorage));
+        this.meshConfig = checkMeshConfiguration(meshConfig);
+        this.random = new Random(meshConfig.getRandomSeed());
+        
+        setResponseData(PNUM_Properties.LEDR, LED_GET, new byte[] { 0x00 });
+        setResponseData(PNUM_Properties.LEDG, LED_GET, new byte[] { 0x00 });
+        setResponseData(PNUM_Properties.THERMOMETER, THERMOMETER_READ, THERMOMETER_READ_DATA);
+    }
+    
+    /**
+     * Sets data of responses to specified command of specified peripheral.
+     * @param pnum peripheral number
+     * @param pcmd command
+     * @param responseData response data
+     * @throws IllegalArgumentException if {@code pnum} or {@code pcmd} is out
+     *         of bounds or if {@code responseData} is {@code null} or too long
+     */
+    public void setResponseData(int pnum, int pcmd, byte[] responseData) {
+        checkPeripheralNumber(pnum);
+        checkCommand(pcmd);
+        checkResponseData(responseData);
+        responseDataMap.put(getResponseDataKey(pnum, pcmd), responseData.clone());
+    }
+    
+    /**
+     * @return configuration of simulated networks
+     */
+    public MeshConfiguration getMeshConfiguration() {
+        return meshConfig;
+    }
+    
+    @Override
+    public void registerListener(NetworkLayerListener listener) {
+        this.networkListener = listener;
+        logger.info("Listener registered");
+    }
+    
+    @Override
+    public void unregisterListener() {
+        networkListener = null;
+        logger.info("Listener unregistered");
+    }
+    
+    @Override
+    public void start() throws NetworkLayerException {
+        logger.debug("start - start:");
+        
+        scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SimulatedNetworkLayer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        
+        long period = meshConfig.getAsyncMessagePeriod();
+        if ( (period > 0) && (meshConfig.getNodesCount() > 0) ) {
+            for ( String networkId : connectionStorage.getAllNetworkConnectionInfo().keySet() ) {
+                scheduler.scheduleAtFixedRate(
+                        new AsyncMessageSender(networkId), period, period, TimeUnit.MILLISECONDS
+                );
+            }
+        }
+        
+        logger.info("Started: nodes={}, max hops={}",
+                meshConfig.getNodesCount(), meshConfig.getMaxHops()
+        );
+        logger.debug("start - end");
+    }
+    
+    // creates confirmation of specified request
+    private static byte[] createConfirmation(
+            byte[] request, int hops, long timeslotLength, int hopsResponse
+    ) {
+        byte[] confirmation = new byte[DPA_ProtocolProperties.PDATA_START + CONFIRMATION_DATA_LENGTH];
+        System.arraycopy(request, 0, confirmation, 0, DPA_ProtocolProperties.PDATA_START);
+        confirmation[DPA_ProtocolProperties.RESPONSE_CODE_START]
+                = (byte)DPA_ResponseCode.CONFIRMATION.getCodeValue();
+        confirmation[DPA_ProtocolProperties.DPA_VALUE_START] = 0;
+        confirmation[DPA_ProtocolProperties.RESPONSE_DATA_START] = (byte)hops;
+        confirmation[DPA_ProtocolProperties.RESPONSE_DATA_START + 1] = (byte)timeslotLength;
+        confirmation[DPA_ProtocolProperties.RESPONSE_DATA_START + 2] = (byte)hopsResponse;
+        return confirmation;
+    }
+    
+    // creates response to specified request
+    private byte[] createResponse(byte[] request) {
+        int pnum = request[DPA_ProtocolProperties.PNUM_START] & 0xFF;
+        int pcmd = request[DPA_ProtocolProperties.PCMD_START] & 0xFF;
+        
+        byte[] responseData = responseDataMap.get(getResponseDataKey(pnum, pcmd));
+        if ( responseData == null ) {
+            responseData = new byte[0];
+        }
+        
+        byte[] response = new byte[DPA_ProtocolProperties.RESPONSE_DATA_START + responseData.length];
+        System.arraycopy(request, 0, response, 0, DPA_ProtocolProperties.PDATA_START);
+        response[DPA_ProtocolProperties.PCMD_START] = (byte)(pcmd | RESPONSE_PCMD_MASK);
+        response[DPA_ProtocolProperties.RESPONSE_CODE_START]
+                = (byte)DPA_ResponseCode.NO_ERROR.getCodeValue();
+        response[DPA_ProtocolProperties.DPA_VALUE_START] = 0;
+        System.arraycopy(
+                responseData, 0, response, DPA_ProtocolProperties.RESPONSE_DATA_START,
+                responseData.length
+        );
+        return response;
+    }
+    
+    // schedules sending of specified packet
+    private void schedule(byte[] packet, String networkId, long delay) {
+        scheduler.schedule(new PacketSender(packet, networkId, true), delay, TimeUnit.MILLISECONDS);
+    }
+    
+    // marks specified network as busy for specified time
+    private void markBusy(String networkId, long processingTime) {
+        busyUntilMap.put(networkId, System.currentTimeMillis() + processingTime + BUSY_TIME_MARGIN);
+    }
+    
+    @Override
+    public void sendData(NetworkData networkData) throws NetworkLayerException {
+        logger.debug("sendData - start: networkData={}", networkData);
+        
+        String networkId = networkData.getNetworkId();
+        if ( connectionStorage.getNetworkConnectionInfo(networkId) == null ) {
+            throw new NetworkLayerException("No connection info for network: " + networkId);
+        }
+        
+        ScheduledExecutorService actualScheduler = scheduler;
+        if ( actualScheduler == null ) {
+            throw new NetworkLayerException("Network layer not started");
+        }
+        
+        byte[] request = networkData.getPacket().toByteArray();
+        if ( request.length < DPA_ProtocolProperties.PDATA_START ) {
+            throw new NetworkLayerException("Request too short: " + request.length);
+        }
+        
+        int nodeAddress = ( request[DPA_ProtocolProperties.NADR_START] & 0xFF )
+                | ( (request[DPA_ProtocolProperties.NADR_START + 1] & 0xFF) << 8 );
+        long coordinatorDelay = meshConfig.getCoordinatorDelay();
+        long requestTimeslot = Timing_Properties.countTimeslotLength(request.length);
+        
+        if ( (nodeAddress == NADR_Properties.IQMESH_COORDINATOR_ADDRESS)
+                || (nodeAddress == NADR_Properties.LOCAL_DEVICE_ADDRESS)
+        ) {
+            schedule(createResponse(request), networkId, coordinatorDelay);
+            markBusy(networkId, coordinatorDelay);
+        } else if ( nodeAddress == NADR_Properties.IQMESH_BROADCAST_ADDRESS ) {
+            schedule(
+                    createConfirmation(request, meshConfig.getMaxHops(), requestTimeslot, 0),
+                    networkId, coordinatorDelay
+            );
+            markBusy(
+                    networkId,
+                    coordinatorDelay + Timing_Properties.countRoutingTime(
+                            meshConfig.getMaxHops(), requestTimeslot
+                    )
+            );
+        } else if ( meshConfig.isBonded(nodeAddress) ) {
+            int hops = meshConfig.getHops(nodeAddress);
+            schedule(
+                    createConfirmation(request, hops, requestTimeslot, hops),
+                    networkId, coordinatorDelay
+            );
+            
+            byte[] response = createResponse(request);
+            long responseTimeslot = Timing_Properties.countTimeslotLength(response.length);
+            long routingTime = Timing_Properties.countRoutingTime(hops, requestTimeslot)
+                    + Timing_Properties.countRoutingTime(hops, responseTimeslot);
+            
+            if ( isEventOccured(meshConfig.getTimeoutRate()) ) {
+                logger.info("Node {} will not respond", nodeAddress);
+            } else {
+                schedule(response, networkId, coordinatorDelay + routingTime);
+            }
+            markBusy(networkId, coordinatorDelay + routingTime);
+        } else {
+            logger.info("Node {} not bonded - request will not be answered", nodeAddress);
+            markBusy(networkId, coordinatorDelay);
+        }
+        
+        logger.debug("sendData - end");
+    }
+    
+    @Override
+    public void destroy() {
+        logger.debug("destroy - start: ");
+        
+        networkListener = null;
+        if ( scheduler != null ) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch ( InterruptedException ex ) {
+                logger.warn("Waiting for termination of scheduler interrupted");
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        responseDataMap.clear();
+        busyUntilMap.clear();
+        connectionStorage = null;
+        
+        logger.info("Destroyed");
+        logger.debug("destroy - end");
+    }
+}
@@ -0,0 +1,96 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.network.simulation;
+
+import com.microrisc.simply.SimplyException;
+import com.microrisc.simply.network.AbstractNetworkLayerFactory;
+import com.microrisc.simply.network.NetworkConnectionStorage;
+import com.microrisc.simply.network.NetworkLayer;
+import org.apache.commons.configuration.Configuration;
+
+/**
+ * Factory for creation of network layers, which simulate IQMESH networks.
+ * <p>
+ * Configuration items: <br>
+ * - <b>networkLayer.type.simulated.nodes</b>: number of bonded nodes in each
+ *   network. If no such configuration key is found,
+ *   {@link MeshConfiguration#NODES_COUNT_DEFAULT} is used. <br>
+ * - <b>networkLayer.type.simulated.maxHops</b>: maximal number of hops between
+ *   the coordinator and a node. If no such configuration key is found,
+ *   {@link MeshConfiguration#MAX_HOPS_DEFAULT} is used. <br>
+ * - <b>networkLayer.type.simulated.coordinatorDelay</b>: time [in ms] of
+ *   processing of a request by the coordinator. If no such configuration key
+ *   is found, {@link MeshConfiguration#COORDINATOR_DELAY_DEFAULT} is used. <br>
+ * - <b>networkLayer.type.simulated.lossRate</b>: probability of loss of each
+ *   confirmation and response. Default is 0. <br>
+ * - <b>networkLayer.type.simulated.timeoutRate</b>: probability, that a node
+ *   will not respond to a request. Default is 0. <br>
+ * - <b>networkLayer.type.simulated.asyncMessagePeriod</b>: period [in ms] of
+ *   asynchronous messages in each network. Default is 0, which means, that no
+ *   asynchronous messages are sent. <br>
+ * - <b>networkLayer.type.simulated.randomSeed</b>: seed of random generator.
+ *   If no such configuration key is found, the seed is chosen according to
+ *   the actual time.
+ *
+ * @author Michal Konopa
+ */
+public class SimulatedNetworkLayerFactory
+extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
+    
+    /**
+     * @return configuration of simulated networks
+     */
+    private MeshConfiguration createMeshConfiguration(Configuration configProps) {
+        MeshConfiguration.Builder builder = new MeshConfiguration.Builder()
+                .nodesCount(configProps.getInt(
+                        "networkLayer.type.simulated.nodes",
+                        MeshConfiguration.NODES_COUNT_DEFAULT
+                ))
+                .maxHops(configProps.getInt(
+                        "networkLayer.type.simulated.maxHops",
+                        MeshConfiguration.MAX_HOPS_DEFAULT
+                ))
+                .coordinatorDelay(configProps.getLong(
+                        "networkLayer.type.simulated.coordinatorDelay",
+                        MeshConfiguration.COORDINATOR_DELAY_DEFAULT
+                ))
+                .lossRate(configProps.getDouble("networkLayer.type.simulated.lossRate", 0))
+                .timeoutRate(configProps.getDouble("networkLayer.type.simulated.timeoutRate", 0))
+                .asyncMessagePeriod(
+                        configProps.getLong("networkLayer.type.simulated.asyncMessagePeriod", 0)
+                );
+        
+        if ( configProps.containsKey("networkLayer.type.simulated.randomSeed") ) {
+            builder.randomSeed(configProps.getLong("networkLayer.type.simulated.randomSeed"));
+        }
+        return builder.build();
+    }
+    
+    @Override
+    public NetworkLayer getNetworkLayer(NetworkConnectionStorage connectionStorage,
+            Configuration configProps
+    ) throws Exception {
+        String networkLayerType = configProps.getString("networkLayer.type");
+        
+        // only for "simulated" layer type
+        if ( !networkLayerType.equals("simulated") ) {
+            throw new SimplyException("Network layer must be of 'simulated' type.");
+        }
+        
+        return new SimulatedNetworkLayer(connectionStorage, createMeshConfiguration(configProps));
+    }
+}
@@ -0,0 +1,48 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.simply.network.spi;
+
+/**
+ * Waiting for data ready on the side of TR module. Used by SPI reader thread
+ * of {@link SPINetworkLayer} between individual reading attempts.
+ * <p>
+ * All methods are called from the SPI reader thread only.
+ * 
+ * @author Michal Konopa
+ */
+public interface DataReadyWaiter {
+    /**
+     * Waits until TR module has possibly data ready to read. Returning from
+     * this method does not guarantee data to be ready - the SPI status is 
+     * always checked afterwards.
+     * @throws InterruptedException if the waiting thread has been interrupted
+     */
+    void waitForDataReady() throws InterruptedException;
+    
+    /**
+     * Informs this waiter about result of the last reading attempt.
+     * @param dataRead {@code true}, if some data has been read <br>
+     *                 {@code false}, if TR module has no data ready
+     */
+    void readingFinished(boolean dataRead);
+    
+    /**
+     * Frees up used resources.
+     */
+    void destroy();
+}
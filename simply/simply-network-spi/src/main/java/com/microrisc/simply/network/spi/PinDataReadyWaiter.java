@@ -0,0 +1,234 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.simply.network.spi;
+
+import com.microrisc.rpi.io.IO;
+import com.microrisc.rpi.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits for data ready signal of TR module wired to a GPIO pin. 
+ * <p>
+ * The {@code com.microrisc.rpi.io} library offers no edge notification, 
+ * so the level of the pin is sampled. Reading of the pin does not occupy SPI, 
+ * SPI status is checked only after the signal becomes active or after 
+ * maximal waiting time elapses - in case of missed signal.
+ * Like in {@link PollingDataReadyWaiter}, the pause between samples is doubled 
+ * after each sample with inactive signal, up to its maximum, and falls back 
+ * to its minimum as soon as some data has been read.
+ * If reading of the pin fails, the waiter behaves as a periodic poller with
+ * the period of maximal waiting time.
+ * 
+ * @author Michal Konopa
+ */
+public final class PinDataReadyWaiter implements DataReadyWaiter {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(PinDataReadyWaiter.class);
+    
+    /** Default minimal period of sampling of the pin [in ms]. */
+    public static final long MIN_SAMPLING_PERIOD_DEFAULT = 1;
+    
+    /** Default maximal period of sampling of the pin [in ms]. */
+    public static final long MAX_SAMPLING_PERIOD_DEFAULT = 10;
+    
+    /** Default maximal time of waiting for the signal [in ms]. */
+    public static final long MAX_WAITING_TIME_DEFAULT = 1000;
+    
+    
+    // IO access
+    private final IO io;
+    
+    // pin with data ready signal
+    private final IO.Port pin;
+    
+    // active level of data ready signal
+    private final IO.Level activeLevel;
+    
+    // minimal period of sampling [in ms]
+    private final long minSamplingPeriod;
+    
+    // maximal period of sampling [in ms]
+    private final long maxSamplingPeriod;
+    
+    // maximal time of waiting [in ms]
+    private final long maxWaitingTime;
+    
+    // current period of sampling [in ms]
+    private long samplingPeriod;
+    
+    // indicates, that the last reading has found no data
+    private boolean noDataRead = false;
+    
+    
+    private static IO checkIO(IO io) {
+        if ( io == null ) {
+            throw new IllegalArgumentException("IO cannot be null");
+        }
+        return io;
+    }
+    
+    private static IO.Port checkPin(IO.Port pin) {
+        if ( pin == null ) {
+            throw new IllegalArgumentException("Pin cannot be null");
+        }
+        return pin;
+    }
+    
+    private static IO.Level checkActiveLevel(IO.Level activeLevel) {
+        if ( activeLevel == null ) {
+            throw new IllegalArgumentException("Active level cannot be null");
+        }
+        return activeLevel;
+    }
+    
+    private static long checkMinSamplingPeriod(long minSamplingPeriod) {
+        if ( minSamplingPeriod <= 0 ) {
+            throw new IllegalArgumentException("Minimal sampling period must be positive");
+        }
+        return minSamplingPeriod;
+    }
+    
+    private static long checkMaxSamplingPeriod(
+            long maxSamplingPeriod, long minSamplingPeriod
+    ) {
+        if ( maxSamplingPeriod < minSamplingPeriod ) {
+            throw new IllegalArgumentException(
+                    "Maximal sampling period cannot be less than minimal sampling period"
+            );
+        }
+        return maxSamplingPeriod;
+    }
+    
+    private static long checkMaxWaitingTime(long maxWaitingTime, long maxSamplingPeriod) {
+        if ( maxWaitingTime < maxSamplingPeriod ) {
+            throw new IllegalArgumentException(
+                    "Maximal waiting time cannot be less than maximal sampling period"
+            );
+        }
+        return maxWaitingTime;
+    }
+    
+    /**
+     * Creates new waiter and sets specified pin as input.
+     * @param io IO access
+     * @param pin pin with data ready signal
+     * @param activeLevel level of the pin indicating data ready
+     * @param minSamplingPeriod minimal period of sampling of the pin [in ms]
+     * @param maxSamplingPeriod maximal period of sampling of the pin [in ms]
+     * @param maxWaitingTime maximal time of waiting for the signal [in ms]
+     * @throws IOException if setting of the pin direction failed
+     */
+    public PinDataReadyWaiter(
+            IO io, IO.Port pin, IO.Level activeLevel, long minSamplingPeriod, 
+            long maxSamplingPeriod, long maxWaitingTime
+    ) throws IOException {
+        this.io = checkIO(io);
+        this.pin = checkPin(pin);
+        this.activeLevel = checkActiveLevel(activeLevel);
+        this.minSamplingPeriod = checkMinSamplingPeriod(minSamplingPeriod);
+        this.maxSamplingPeriod = checkMaxSamplingPeriod(maxSamplingPeriod, minSamplingPeriod);
+        this.maxWaitingTime = checkMaxWaitingTime(maxWaitingTime, maxSamplingPeriod);
+        this.samplingPeriod = minSamplingPeriod;
+        io.set(pin, IO.Direction.INPUT);
+    }
+    
+    /**
+     * Creates new waiter with specified sampling periods and default maximal 
+     * waiting time.
+     * @param io IO access
+     * @param pin pin with data ready signal
+     * @param activeLevel level of the pin indicating data ready
+     * @param minSamplingPeriod minimal period of sampling of the pin [in ms]
+     * @param maxSamplingPeriod maximal period of sampling of the pin [in ms]
+     * @throws IOException if setting of the pin direction failed
+     */
+    public PinDataReadyWaiter(
+            IO io, IO.Port pin, IO.Level activeLevel, long minSamplingPeriod, 
+            long maxSamplingPeriod
+    ) throws IOException {
+        this(
+                io, pin, activeLevel, minSamplingPeriod, maxSamplingPeriod, 
+                MAX_WAITING_TIME_DEFAULT
+        );
+    }
+    
+    /**
+     * Creates new waiter with default sampling periods and maximal waiting time.
+     * @param io IO access
+     * @param pin pin with data ready signal
+     * @param activeLevel level of the pin indicating data ready
+     * @throws IOException if setting of the pin direction failed
+     */
+    public PinDataReadyWaiter(IO io, IO.Port pin, IO.Level activeLevel) 
+            throws IOException {
+        this(
+                io, pin, activeLevel, MIN_SAMPLING_PERIOD_DEFAULT, 
+                MAX_SAMPLING_PERIOD_DEFAULT, MAX_WAITING_TIME_DEFAULT
+        );
+    }
+    
+    // sleeps for current sampling period and prolongs it for the next sample
+    private long sleepAndBackOff() throws InterruptedException {
+        long slept = samplingPeriod;
+        Thread.sleep(slept);
+        
+        samplingPeriod *= 2;
+        if ( samplingPeriod > maxSamplingPeriod ) {
+            samplingPeriod = maxSamplingPeriod;
+        }
+        return slept;
+    }
+    
+    @Override
+    public void waitForDataReady() throws InterruptedException {
+        long waitingTime = 0;
+        
+        // active signal without data must not lead to busy checking of SPI status
+        if ( noDataRead ) {
+            waitingTime = sleepAndBackOff();
+        }
+        
+        while ( waitingTime < maxWaitingTime ) {
+            try {
+                if ( io.read(pin) == activeLevel.getIntValue() ) {
+                    return;
+                }
+            } catch ( IOException ex ) {
+                logger.error("Error while reading data ready pin: ", ex);
+                Thread.sleep(maxWaitingTime - waitingTime);
+                return;
+            }
+            
+            waitingTime += sleepAndBackOff();
+        }
+    }
+    
+    @Override
+    public void readingFinished(boolean dataRead) {
+        noDataRead = !dataRead;
+        if ( dataRead ) {
+            samplingPeriod = minSamplingPeriod;
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        io.destroy();
+    }
+}
@@ -0,0 +1,121 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.microrisc.simply.network.spi;
+
+/**
+ * Waits for data ready by sleeping between checks of SPI status. Length of 
+ * the pause is doubled after each check without data, up to its maximum, and 
+ * falls back to its minimum as soon as some data has been read. 
+ * <p>
+ * If minimal and maximal pauses are equal, the checks are periodic.
+ * 
+ * @author Michal Konopa
+ */
+public final class PollingDataReadyWaiter implements DataReadyWaiter {
+    /** Default minimal pause between checks [in ms]. */
+    public static final long MIN_PAUSE_DEFAULT = 1;
+    
+    /** Default maximal pause between checks [in ms]. */
+    public static final long MAX_PAUSE_DEFAULT = 10;
+    
+    
+    // minimal pause [in ms]
+    private final long minPause;
+    
+    // maximal pause [in ms]
+    private final long maxPause;
+    
+    // current pause [in ms]
+    private long pause;
+    
+    
+    private static long checkMinPause(long minPause) {
+        if ( minPause < 0 ) {
+            throw new IllegalArgumentException("Minimal pause cannot be negative");
+        }
+        return minPause;
+    }
+    
+    private static long checkMaxPause(long maxPause, long minPause) {
+        if ( maxPause < minPause ) {
+            throw new IllegalArgumentException(
+                    "Maximal pause cannot be less than minimal pause"
+            );
+        }
+        return maxPause;
+    }
+    
+    /**
+     * Creates new waiter with specified pauses.
+     * @param minPause minimal pause between checks [in ms]
+     * @param maxPause maximal pause between checks [in ms]
+     */
+    public PollingDataReadyWaiter(long minPause, long maxPause) {
+        this.minPause = checkMinPause(minPause);
+        this.maxPause = checkMaxPause(maxPause, minPause);
+        this.pause = minPause;
+    }
+    
+    /**
+     * Creates new waiter with default pauses.
+     */
+    public PollingDataReadyWaiter() {
+        this(MIN_PAUSE_DEFAULT, MAX_PAUSE_DEFAULT);
+    }
+    
+    @Override
+    public void waitForDataReady() throws InterruptedException {
+        if ( pause > 0 ) {
+            Thread.sleep(pause);
+        } else if ( Thread.interrupted() ) {
+            throw new InterruptedException();
+        }
+    }
+    
+    @Override
+    public void readingFinished(boolean dataRead) {
+        if ( dataRead ) {
+            pause = minPause;
+            return;
+        }
+        
+        pause = ( pause == 0 )? 1 : pause * 2;
+        if ( pause > maxPause ) {
+            pause = maxPause;
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        // nothing to free up
+    }
+    
+    /**
+     * @return minimal pause between checks [in ms]
+     */
+    public long getMinPause() {
+        return minPause;
+    }
+    
+    /**
+     * @return maximal pause between checks [in ms]
+     */
+    public long getMaxPause() {
+        return maxPause;
+    }
+}
@@ -19,6 +19,7 @@ package com.microrisc.simply.network.spi;
 import com.microrisc.rpi.spi.SPI_Exception;
 import com.microrisc.rpi.spi.iqrf.SPI_Master;
 import com.microrisc.rpi.spi.iqrf.SPI_Status;
+import com.microrisc.rpi.spi.iqrf.SPI_Transport;
 import com.microrisc.rpi.spi.iqrf.SimpleSPI_Master;
 import com.microrisc.simply.NetworkData;
 import com.microrisc.simply.NetworkLayerListener;
@@ -27,6 +28,7 @@ import com.microrisc.simply.network.AbstractNetworkLayer;
 import com.microrisc.simply.network.BaseNetworkData;
 import com.microrisc.simply.network.NetworkConnectionStorage;
 import com.microrisc.simply.network.NetworkLayerException;
+import java.nio.ByteBuffer;
 import java.util.LinkedList;
 import java.util.Queue;
 import org.slf4j.Logger;
@@ -98,6 +100,11 @@ public final class SPINetworkLayer extends AbstractNetworkLayer {
      */
     private int maxRecvPacketSize;
 
+    /**
+     * Waiting for data ready.
+     */
+    private final DataReadyWaiter dataReadyWaiter;
+
     /**
      * Reading data from SPI.
      */
@@ -105,10 +112,6 @@ public final class SPINetworkLayer extends AbstractNetworkLayer {
 
         @Override
         public void run() {
-            short[] buffer = new short[maxRecvPacketSize];
-            boolean newDataReceived = false;
-            int dataLen = 0;
-
             while ( true ) {
 
                 if ( this.isInterrupted() ) {
@@ -117,43 +120,71 @@ public final class SPINetworkLayer extends AbstractNetworkLayer {
                 }
 
                 try {
-                    synchronized ( spiSynchro ) {
-                        SPI_Status spiStatus = spiMaster.getSlaveStatus();
-                        //logger.info("Reading thread SPI status: {}", spiStatus.getValue());
-
-                        if ( spiStatus.isDataReady() ) {
-                            logger.info("Data ready!");
-                            if ( spiStatus.getValue() == 0x40 ) {
-                                dataLen = 64;
-                            } else {
-                                dataLen = spiStatus.getValue() - 0x40;
-                            }
-
-                            buffer = spiMaster.readData(dataLen);
-                            newDataReceived = true;
-                        }
-                    }
+                    dataReadyWaiter.waitForDataReady();
+                } catch ( InterruptedException ex ) {
+                    logger.warn("SPI reader thread interrupted while waiting on data ready.");
+                    return;
+                }
 
-                    // if new data has received add it into the queue
-                    if ( newDataReceived ) {
-                        logger.info("New data from SPI: {}", buffer);
+                short[] buffer = null;
+                try {
+                    buffer = readDataIfReady();
+                } catch ( SPI_Exception ex ) {
+                    logger.error("Error while receiving SPI interface: ", ex);
+                }
 
-                        synchronized ( threadsSynchro ) {
-                            dataFromSPI.add(buffer);
-                            threadsSynchro.notify();
-                        }
-                        newDataReceived = false;
-                    }
+                // if new data has received add it into the queue
+                if ( buffer != null ) {
+                    logger.info("New data from SPI: {}", buffer);
 
-                    Thread.sleep(10);
-                } catch (SPI_Exception ex) {
-                    logger.error("Error while receiving SPI interface: ", ex);
-                } catch (InterruptedException ex) {
-                    logger.warn("SPI reader thread interrupted while sleeping.");
-                    return;
+                    synchronized ( threadsSynchro ) {
+                        dataFromSPI.add(buffer);
+                        threadsSynchro.notify();
+                    }
                 }
+
+                dataReadyWaiter.readingFinished(buffer != null);
+            }
+        }
+    }
+
+    /**
+     * Buffer for reading data through {@code SPI_Transport}.
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(SPI_Status.MAX_DATA_LENGTH);
+
+    // reads status and, if data is ready, the data - in one SPI transaction
+    // returns null, if no data is ready
+    private short[] readDataIfReady() throws SPI_Exception {
+        synchronized ( spiSynchro ) {
+            if ( spiMaster instanceof SPI_Transport ) {
+                return readDataIfReady((SPI_Transport) spiMaster);
+            }
+
+            SPI_Status spiStatus = spiMaster.getSlaveStatus();
+            if ( !spiStatus.isDataReady() ) {
+                return null;
             }
+
+            logger.info("Data ready!");
+            return spiMaster.readData(spiStatus.getDataLength());
+        }
+    }
+
+    // reads data through transport into read buffer, without allocation of status
+    private short[] readDataIfReady(SPI_Transport spiTransport) throws SPI_Exception {
+        readBuffer.clear();
+        int dataLen = spiTransport.readIfReady(readBuffer);
+        if ( dataLen == 0 ) {
+            return null;
+        }
+
+        logger.info("Data ready!");
+        short[] data = new short[dataLen];
+        for ( int i = 0; i < dataLen; i++ ) {
+            data[i] = (short)(readBuffer.get(i) & 0xFF);
         }
+        return data;
     }
 
     /**
@@ -282,26 +313,76 @@ public final class SPINetworkLayer extends AbstractNetworkLayer {
         return portName;
     }
 
+    private static DataReadyWaiter checkDataReadyWaiter(DataReadyWaiter dataReadyWaiter) {
+        if ( dataReadyWaiter == null ) {
+            throw new IllegalArgumentException("Data ready waiter cannot be null");
+        }
+        return dataReadyWaiter;
+    }
+
+    private static SPI_Master checkSPIMaster(SPI_Master spiMaster) {
+        if ( spiMaster == null ) {
+            throw new IllegalArgumentException("SPI master cannot be null");
+        }
+        return spiMaster;
+    }
+
     /**
-     * Creates new SPI network layer object.
+     * Creates new SPI network layer object. Data ready is waited for by
+     * specified waiter.
      * @param connectionStorage storage of network SPI-port connections
      * @param portName SPI-port name for communication
+     * @param dataReadyWaiter waiting for data ready
      */
-    public SPINetworkLayer(NetworkConnectionStorage connectionStorage, String portName) {
+    public SPINetworkLayer(
+            NetworkConnectionStorage connectionStorage, String portName,
+            DataReadyWaiter dataReadyWaiter
+    ) {
         super(checkStorage(connectionStorage));
         this.portName = checkPortName(portName);
         this.connectionInfo = new BaseSPIPortConnectionInfo(portName);
+        this.dataReadyWaiter = checkDataReadyWaiter(dataReadyWaiter);
+    }
+
+    /**
+     * Creates new SPI network layer object, which communicates through specified
+     * SPI master instead of {@code SimpleSPI_Master} created at start. 
+     * The SPI master is destroyed together with this layer. If the SPI master
+     * is {@code SPI_Transport}, data is read into preallocated direct buffer.
+     * @param connectionStorage storage of network SPI-port connections
+     * @param portName SPI-port name for communication
+     * @param spiMaster SPI master to use
+     * @param dataReadyWaiter waiting for data ready
+     */
+    public SPINetworkLayer(
+            NetworkConnectionStorage connectionStorage, String portName,
+            SPI_Master spiMaster, DataReadyWaiter dataReadyWaiter
+    ) {
+        this(connectionStorage, portName, dataReadyWaiter);
+        this.spiMaster = checkSPIMaster(spiMaster);
+    }
+
+    /**
+     * Creates new SPI network layer object. Data ready is waited for by 
+     * {@link PollingDataReadyWaiter} with default pauses.
+     * @param connectionStorage storage of network SPI-port connections
+     * @param portName SPI-port name for communication
+     */
+    public SPINetworkLayer(NetworkConnectionStorage connectionStorage, String portName) {
+        this(connectionStorage, portName, new PollingDataReadyWaiter());
     }
 
     @Override
     public void start() throws NetworkLayerException {
         logger.debug("startReceivingData - start:");
 
-        try {
-            // initialization
-            spiMaster = new SimpleSPI_Master(portName);
-        } catch (SPI_Exception ex) {
-            throw new NetworkLayerException(ex);
+        if ( spiMaster == null ) {
+            try {
+                // initialization
+                spiMaster = new SimpleSPI_Master(portName);
+            } catch (SPI_Exception ex) {
+                throw new NetworkLayerException(ex);
+            }
         }
 
         // init queue of data comming from SPI
@@ -379,6 +460,7 @@ public final class SPINetworkLayer extends AbstractNetworkLayer {
         unregisterListener();
         terminateThreads();
         dataFromSPI.clear();
+        dataReadyWaiter.destroy();
         spiMaster.destroy();
         spiMaster = null;
         
@@ -16,6 +16,8 @@
 
 package com.microrisc.simply.network.spi;
 
+import com.microrisc.rpi.io.IO;
+import com.microrisc.rpi.io.SimpleIO;
 import com.microrisc.simply.SimplyException;
 import com.microrisc.simply.network.AbstractNetworkConnectionInfo;
 import com.microrisc.simply.network.AbstractNetworkLayerFactory;
@@ -42,6 +44,20 @@ import org.apache.commons.configuration.Configuration;
  * - if any of the preceding cases comes, then the SPI-port is obtained from some
  *   of the Connection Info records in the Network Connection Storage
  * 
+ * <p>
+ * Waiting for data ready is configured by key <b>networkLayer.type.spi.dataReady</b>: <br>
+ * - <b>polling</b> (default): SPI status is checked after pauses between 
+ *   <b>networkLayer.type.spi.dataReady.minPause</b> and 
+ *   <b>networkLayer.type.spi.dataReady.maxPause</b> [in ms], 
+ *   see {@link PollingDataReadyWaiter} <br>
+ * - <b>pin</b>: SPI status is checked after data ready signal on GPIO pin
+ *   <b>networkLayer.type.spi.dataReady.pin</b> becomes active, the active level is
+ *   specified by <b>networkLayer.type.spi.dataReady.pin.activeLevel</b>, 
+ *   the pin is sampled after pauses between 
+ *   <b>networkLayer.type.spi.dataReady.minPause</b> and 
+ *   <b>networkLayer.type.spi.dataReady.maxPause</b> [in ms], 
+ *   see {@link PinDataReadyWaiter}
+ * 
  * @author Rostislav Spinar
  */
 public class SPINetworkLayerFactory 
@@ -51,16 +67,65 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
     private class NetworkLayerParams {
         NetworkConnectionStorage connectionStorage;
         String portName;
+        DataReadyWaiter dataReadyWaiter;
         
-        NetworkLayerParams(NetworkConnectionStorage connectionStorage, String portName) { 
+        NetworkLayerParams(
+                NetworkConnectionStorage connectionStorage, String portName,
+                DataReadyWaiter dataReadyWaiter
+        ) { 
             this.connectionStorage = connectionStorage;
             this.portName = portName;
+            this.dataReadyWaiter = dataReadyWaiter;
         }
     }
     
     /** Denotes to use autoconfiguration to obtain COM-port name. */
     private static final String AUTOCONF = "auto";
     
+    // creates waiter for data ready according to configuration
+    private DataReadyWaiter createDataReadyWaiter(Configuration configProps) 
+            throws Exception {
+        String waiterType = configProps.getString("networkLayer.type.spi.dataReady", "polling");
+        switch ( waiterType ) {
+            case "polling":
+                return new PollingDataReadyWaiter(
+                        configProps.getLong(
+                                "networkLayer.type.spi.dataReady.minPause", 
+                                PollingDataReadyWaiter.MIN_PAUSE_DEFAULT
+                        ),
+                        configProps.getLong(
+                                "networkLayer.type.spi.dataReady.maxPause", 
+                                PollingDataReadyWaiter.MAX_PAUSE_DEFAULT
+                        )
+                );
+            case "pin":
+                String pinName = configProps.getString("networkLayer.type.spi.dataReady.pin");
+                if ( pinName == null ) {
+                    throw new SimplyException("Data ready pin not specified.");
+                }
+                IO.Port pin = IO.Port.valueOf(pinName);
+                IO.Level activeLevel = IO.Level.valueOf( 
+                        configProps.getString(
+                                "networkLayer.type.spi.dataReady.pin.activeLevel", 
+                                IO.Level.HIGH.name()
+                        )
+                );
+                return new PinDataReadyWaiter(
+                        new SimpleIO(), pin, activeLevel, 
+                        configProps.getLong(
+                                "networkLayer.type.spi.dataReady.minPause", 
+                                PinDataReadyWaiter.MIN_SAMPLING_PERIOD_DEFAULT
+                        ),
+                        configProps.getLong(
+                                "networkLayer.type.spi.dataReady.maxPause", 
+                                PinDataReadyWaiter.MAX_SAMPLING_PERIOD_DEFAULT
+                        )
+                );
+            default:
+                throw new SimplyException("Unsupported type of data ready waiting: " + waiterType);
+        }
+    }
+    
     // checks Connection Storage if it is suitable for autoconfiguration and if
     // so, returns serial-port number
     private String getAutoconfiguredPortName( NetworkConnectionStorage connStorage ) {
@@ -99,9 +164,10 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
      */
     private NetworkLayerParams createNetworkLayerParams(
             NetworkConnectionStorage connectionStorage, Configuration configProps
-    ) {
+    ) throws Exception {
         String portName = configProps.getString("networkLayer.type.spi.port", AUTOCONF);
-        return new NetworkLayerParams(connectionStorage, portName);
+        DataReadyWaiter dataReadyWaiter = createDataReadyWaiter(configProps);
+        return new NetworkLayerParams(connectionStorage, portName, dataReadyWaiter);
     }
     
     /**
@@ -119,7 +185,8 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
         
         return new SPINetworkLayer(
                         networkParams.connectionStorage,
-                        portName
+                        portName,
+                        networkParams.dataReadyWaiter
         );
     }
     
@@ -0,0 +1,123 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.network.udp;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct byte buffers of the same capacity.
+ * <p>
+ * Allocation of direct buffers is expensive, so buffers returned into the pool
+ * are reused. If the pool is empty, new buffer is allocated. At most specified
+ * number of free buffers is kept in the pool, surplus buffers are left to
+ * the garbage collector.
+ * <p>
+ * The pool is thread safe.
+ *
+ * @author Michal Konopa
+ */
+final class DirectBufferPool {
+    /** Capacity of buffers. */
+    private final int bufferCapacity;
+    
+    /** Maximal number of free buffers kept in the pool. */
+    private final int maxFreeBuffers;
+    
+    /** Free buffers. */
+    private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+    
+    /** Number of free buffers. */
+    private final AtomicInteger freeBuffersCount = new AtomicInteger(0);
+    
+    
+    private static int checkBufferCapacity(int bufferCapacity) {
+        if ( bufferCapacity <= 0 ) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        return bufferCapacity;
+    }
+    
+    private static int checkMaxFreeBuffers(int maxFreeBuffers) {
+        if ( maxFreeBuffers < 0 ) {
+            throw new IllegalArgumentException(
+                    "Maximal number of free buffers cannot be negative"
+            );
+        }
+        return maxFreeBuffers;
+    }
+    
+    
+    /**
+     * Creates new pool.
+     * @param bufferCapacity capacity of buffers
+     * @param maxFreeBuffers maximal number of free buffers kept in the pool
+     */
+    DirectBufferPool(int bufferCapacity, int maxFreeBuffers) {
+        this.bufferCapacity = checkBufferCapacity(bufferCapacity);
+        this.maxFreeBuffers = checkMaxFreeBuffers(maxFreeBuffers);
+    }
+    
+    /**
+     * Returns capacity of buffers of this pool.
+     * @return capacity of buffers
+     */
+    int getBufferCapacity() {
+        return bufferCapacity;
+    }
+    
+    /**
+     * Returns cleared buffer.
+     * @return cleared buffer
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if ( buffer == null ) {
+            return ByteBuffer.allocateDirect(bufferCapacity);
+        }
+        freeBuffersCount.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+    
+    /**
+     * Returns specified buffer into the pool. Buffers of different capacity
+     * or non-direct buffers are ignored.
+     * @param buffer buffer to return
+     */
+    void release(ByteBuffer buffer) {
+        if ( (buffer == null) || !buffer.isDirect() || (buffer.capacity() != bufferCapacity) ) {
+            return;
+        }
+        if ( freeBuffersCount.incrementAndGet() > maxFreeBuffers ) {
+            freeBuffersCount.decrementAndGet();
+            return;
+        }
+        freeBuffers.offer(buffer);
+    }
+    
+    /**
+     * Removes all free buffers from the pool.
+     */
+    void clear() {
+        while ( freeBuffers.poll() != null ) {
+            freeBuffersCount.decrementAndGet();
+        }
+    }
+}
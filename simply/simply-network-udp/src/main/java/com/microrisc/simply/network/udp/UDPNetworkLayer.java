@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.network.udp;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.network.udp.gweth.GWETH_DataTransformer;
 import com.microrisc.simply.NetworkData;
 import com.microrisc.simply.NetworkLayerListener;
@@ -91,7 +92,7 @@ public final class UDPNetworkLayer extends AbstractNetworkLayer  {
     
     
     /** Data received from socket. */
-    private Queue<short[]> dataFromSocket = null;
+    private Queue<BytePacket> dataFromSocket = null;
     
     /** Synchronization between socket reader thread and listener caller thread. */
     private final Object threadSynchro = new Object();
@@ -102,13 +103,11 @@ public final class UDPNetworkLayer extends AbstractNetworkLayer  {
      */
     private class SocketReader extends Thread {
         // extracts data from specified packet and returns it
-        private short[] extractDataFromSocket(DatagramPacket packet) {
-            byte[] packetData = packet.getData();
-            short[] extractedData = new short[packet.getLength()];
-            
-            for (int item = 0; item < packet.getLength(); item++) {
-                extractedData[item] = (short)(packetData[item] & 0xFF);
-            }
+        private BytePacket extractDataFromSocket(DatagramPacket packet) {
+            // receive buffer is reused, so the data must be copied once
+            BytePacket extractedData = BytePacket.copyOf(
+                    packet.getData(), packet.getOffset(), packet.getLength()
+            );
             return extractedData;
         }
         
@@ -139,7 +138,7 @@ public final class UDPNetworkLayer extends AbstractNetworkLayer  {
                 // if new data has received, extract it from the packet and 
                 // add it into queue
                 if ( newDataReceived ) {
-                    short[] extractedData = extractDataFromSocket(recvPacket); 
+                    BytePacket extractedData = extractDataFromSocket(recvPacket); 
                     logger.info("New data from socket: {}", extractedData);
                     
                     synchronized ( threadSynchro ) {
@@ -166,7 +165,7 @@ public final class UDPNetworkLayer extends AbstractNetworkLayer  {
      */
     private class ListenerCaller extends Thread {
         // already consumed data from socket
-        private Queue<short[]> consumedData = new LinkedList<>();
+        private Queue<BytePacket> consumedData = new LinkedList<>();
         
         // indicates, wheather new data are in socket
         private boolean areDataInSocket() {
@@ -179,7 +178,7 @@ public final class UDPNetworkLayer extends AbstractNetworkLayer  {
         // consume data from socket and adds them into buffer
         private void consumeDataFromSocket() {
             while ( !dataFromSocket.isEmpty() ) {
-                short[] packetData = dataFromSocket.poll();
+                BytePacket packetData = dataFromSocket.poll();
                 consumedData.add(packetData);
             }
         }
@@ -215,14 +214,14 @@ public final class UDPNetworkLayer extends AbstractNetworkLayer  {
                  
                 // remove data from queue and put send it to listener
                 while ( !consumedData.isEmpty() ) {
-                    short[] packetData = consumedData.poll();
+                    BytePacket packetData = consumedData.poll();
                     
                     if ( networkListener == null ) {
                         continue;
                     }
                     
                     boolean isAsync = false;
-                    short[] userData = null;
+                    BytePacket userData = null;
 
                     try {
                         isAsync = GWETH_DataTransformer.isAsynchronousMessage(packetData);
@@ -436,12 +435,7 @@ public final class UDPNetworkLayer extends AbstractNetworkLayer  {
         }
         
         // transforms request's data to protocol format defined by GW
-        short[] dataForGW = GWETH_DataTransformer.transformRequestData(networkData.getData());
-        
-        byte[] buf = new byte[dataForGW.length];
-        for (int item = 0; item < dataForGW.length; item++) {
-            buf[item] = (byte)(dataForGW[item] & 0xFF);
-        }
+        byte[] buf = GWETH_DataTransformer.transformRequestData(networkData.getPacket());
         
         try {
             DatagramPacket packet = new DatagramPacket(buf, buf.length, targetAddress, remotePort);
@@ -39,6 +39,15 @@ import org.apache.commons.configuration.Configuration;
  * <b>networkLayer.type.udp.version</b>. If no such key is present in configuration
  * properties, version of "01" is assumed.
  * 
+ * <p>
+ * Transport used by the network layer is specified by configuration key:
+ * <b>networkLayer.type.udp.transport</b>. Value of "socket" ( default ) creates
+ * one of the network layers above, which are built on blocking datagram socket.
+ * Value of "nio" creates {@link UDPNetworkLayerNio}, which serves arbitrary
+ * number of UDP networks from one I/O thread. For "nio" transport, remote address 
+ * and remote port are used only for the check of configuration, because the
+ * address of each network is taken from network connection storage.
+ * 
  * @author Michal Konopa
  */
 public class UDPNetworkLayerFactory 
@@ -49,7 +58,8 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
      */
     private enum NetworkLayerType {
         CLIENT_SINGLE,
-        CLIENT_MULTI
+        CLIENT_MULTI,
+        CLIENT_NIO
     }
     
     // network layer parameters
@@ -119,13 +129,21 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
         String remoteAddress = configuration.getString("networkLayer.type.udp.remoteaddress", "");
         int remotePort = configuration.getInt("networkLayer.type.udp.remoteport", -1);
         
+        // if not set, "socket" is default
+        String transport = configuration.getString("networkLayer.type.udp.transport", "socket");
+        if ( !transport.equals("socket") && !transport.equals("nio") ) {
+            throw new Exception("Unsupported transport: " + transport);
+        }
+        
         if (remoteAddress.equals("")) {
             if (remotePort == -1) {
-                return NetworkLayerType.CLIENT_MULTI;
+                return ( transport.equals("nio") )? 
+                        NetworkLayerType.CLIENT_NIO : NetworkLayerType.CLIENT_MULTI;
             }
         } else {
             if (remotePort != -1) {
-                return NetworkLayerType.CLIENT_SINGLE;
+                return ( transport.equals("nio") )? 
+                        NetworkLayerType.CLIENT_NIO : NetworkLayerType.CLIENT_SINGLE;
             }
         }
         
@@ -173,6 +191,24 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
         );
     }
     
+    private UDPNetworkLayerNio createClientNioNetworkLayer(
+            NetworkConnectionStorage connectionStorage, Configuration configuration
+    ) throws Exception {
+        NetworkLayerParams networkParams = createNetworkLayerParams(connectionStorage, configuration); 
+        // if not set, "01" is default
+        String version = configuration.getString("networkLayer.type.udp.version", "01");
+        if ( !version.equals("01") ) {
+            throw new Exception("Unsupported network layer version: " + version);
+        }
+        
+        return new UDPNetworkLayerNio(
+                        networkParams.connectionStorage,
+                        networkParams.localAddress,
+                        networkParams.localPort,
+                        networkParams.maxRecvPacketSize
+        );
+    }
+    
     @Override
     public NetworkLayer getNetworkLayer(NetworkConnectionStorage connectionStorage, 
             Configuration configuration) throws Exception {
@@ -182,6 +218,8 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
                 return createClientSingleNetworkLayer(connectionStorage, configuration);
             case CLIENT_MULTI:
                 return createClientMultiNetworkLayer(connectionStorage, configuration);
+            case CLIENT_NIO:
+                return createClientNioNetworkLayer(connectionStorage, configuration);
         }
         
         throw new Exception("Unsupported network layer type: " + networkLayerType);
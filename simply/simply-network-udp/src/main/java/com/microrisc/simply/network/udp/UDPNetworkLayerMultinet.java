@@ -16,6 +16,7 @@
 
 package com.microrisc.simply.network.udp;
 
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.network.udp.gweth.GWETH_DataTransformer;
 import com.microrisc.simply.NetworkData;
 import com.microrisc.simply.NetworkLayerListener;
@@ -84,9 +85,9 @@ public final class UDPNetworkLayerMultinet extends AbstractNetworkLayer {
      */
     private class PacketData {
         BaseUDPConnectionInfo connInfo;
-        short[] data;
+        BytePacket data;
         
-        PacketData(BaseUDPConnectionInfo connInfo, short[] data) {
+        PacketData(BaseUDPConnectionInfo connInfo, BytePacket data) {
             this.connInfo = connInfo;
             this.data = data; 
         }
@@ -113,12 +114,10 @@ public final class UDPNetworkLayerMultinet extends AbstractNetworkLayer {
     private class SocketReader extends Thread {
         // extracts data from specified packet and returns it
         private PacketData extractDataFromSocket(DatagramPacket packet) {
-            byte[] packetData = packet.getData();
-            short[] extractedData = new short[packet.getLength()];
-            
-            for (int item = 0; item < packet.getLength(); item++) {
-                extractedData[item] = (short)(packetData[item] & 0xFF);
-            }
+            // receive buffer is reused, so the data must be copied once
+            BytePacket extractedData = BytePacket.copyOf(
+                    packet.getData(), packet.getOffset(), packet.getLength()
+            );
             
             BaseUDPConnectionInfo connInfo = new BaseUDPConnectionInfo(
                     packet.getAddress(), packet.getPort()
@@ -228,7 +227,7 @@ public final class UDPNetworkLayerMultinet extends AbstractNetworkLayer {
                     }
                     
                     boolean isAsync = false;
-                    short[] userData = null;
+                    BytePacket userData = null;
                     
                     try {
                         isAsync = GWETH_DataTransformer.isAsynchronousMessage(packetData.data);
@@ -432,13 +431,7 @@ public final class UDPNetworkLayerMultinet extends AbstractNetworkLayer {
         UDPConnectionInfo udpInfo = (UDPConnectionInfo) connInfo;
         
         // transforms request's data to protocol format defined by GW
-        short[] dataForGW = GWETH_DataTransformer.transformRequestData(networkData.getData());
-        
-        // conversion data to bytes
-        byte[] buf = new byte[dataForGW.length];
-        for (int item = 0; item < dataForGW.length; item++) {
-            buf[item] = (byte)(dataForGW[item] & 0xFF);
-        }
+        byte[] buf = GWETH_DataTransformer.transformRequestData(networkData.getPacket());
         
         DatagramPacket packet = new DatagramPacket(buf, buf.length, 
                     udpInfo.getAddress(), udpInfo.getPort()
@@ -0,0 +1,456 @@
+/* 
+ * Copyright 2014 MICRORISC s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microrisc.simply.network.udp;
+
+import com.microrisc.simply.BytePacket;
+import com.microrisc.simply.NetworkData;
+import com.microrisc.simply.NetworkLayerListener;
+import com.microrisc.simply.network.AbstractNetworkConnectionInfo;
+import com.microrisc.simply.network.AbstractNetworkLayer;
+import com.microrisc.simply.network.BaseNetworkData;
+import com.microrisc.simply.network.NetworkConnectionStorage;
+import com.microrisc.simply.network.NetworkLayerException;
+import com.microrisc.simply.network.udp.gweth.GWETH_DataTransformer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.LinkedList;
+import java.util.Queue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements network layer built on non-blocking UDP communication. The layer
+ * acts as a UDP client. This network layer is specialized to only usage with
+ * GW-ETH-01 gateway.
+ * <p>
+ * Working with multiple UDP networks is supported. All gateways are served
+ * by one datagram channel and one I/O thread, which waits on a selector.
+ * Received datagrams are passed to the registered listener directly from
+ * the I/O thread, without any intermediate queue.
+ * <p>
+ * Sending doesn't share any lock with reception. Data are sent directly from
+ * the calling thread. Only if the socket send buffer is full, data are queued
+ * and sent by the I/O thread as soon as the channel becomes writable.
+ * Buffers used for sending and reception are direct and they are taken from
+ * a pool.
+ *
+ * @author Michal Konopa
+ */
+public final class UDPNetworkLayerNio extends AbstractNetworkLayer {
+    /** Logger. */
+    private static final Logger logger = LoggerFactory.getLogger(UDPNetworkLayerNio.class);
+    
+    /** Registered network listener. */
+    private volatile NetworkLayerListener networkListener = null;
+    
+    /** Local IP address to bind. */
+    private InetAddress localAddress = null;
+    
+    /** Local port number. */
+    private int localPort = -1;
+    
+    /** Channel for communication with gateways. */
+    private DatagramChannel channel = null;
+    
+    /** Selector, which the I/O thread waits on. */
+    private Selector selector = null;
+    
+    /** Selection key of the channel. */
+    private SelectionKey selectionKey = null;
+    
+    
+    /** Default maximal size of received packets [in bytes]. */
+    public static int MAX_RECEIVED_PACKET_SIZE = 500;
+    
+    /** Maximal number of datagrams received during one wake up of the I/O thread. */
+    private static final int MAX_DATAGRAMS_PER_SELECT = 64;
+    
+    /** Maximal number of free buffers kept in the pool. */
+    private static final int MAX_FREE_BUFFERS = 16;
+    
+    /** Maximal size of received packets [in bytes]. */
+    private final int maxRecvPacketSize;
+    
+    /** Pool of buffers for sending and reception. */
+    private final DirectBufferPool bufferPool;
+    
+    
+    /**
+     * Data waiting for sending.
+     */
+    private static class PendingSend {
+        ByteBuffer data;
+        InetSocketAddress target;
+        
+        PendingSend(ByteBuffer data, InetSocketAddress target) {
+            this.data = data;
+            this.target = target;
+        }
+    }
+    
+    /** Data waiting for the channel to become writable. */
+    private final Queue<PendingSend> pendingSends = new LinkedList<>();
+    
+    /** Synchronization of sending. */
+    private final Object sendSynchro = new Object();
+    
+    /** Indicates, wheather the I/O thread should run. */
+    private volatile boolean running = false;
+    
+    
+    /**
+     * Receives data from the channel, sends queued data and calls the listener.
+     */
+    private class IOThread extends Thread {
+        // buffer for received datagrams
+        private final ByteBuffer recvBuffer = bufferPool.acquire();
+        
+        // sets interest in writability of the channel according to pending sends
+        private void updateInterestOps() {
+            boolean writeNeeded;
+            synchronized ( sendSynchro ) {
+                writeNeeded = !pendingSends.isEmpty();
+            }
+            
+            int interestOps = ( writeNeeded )?
+                    (SelectionKey.OP_READ | SelectionKey.OP_WRITE) : SelectionKey.OP_READ;
+            if ( selectionKey.interestOps() != interestOps ) {
+                selectionKey.interestOps(interestOps);
+            }
+        }
+        
+        // receives all datagrams available in the channel
+        private void receiveDatagrams() throws IOException {
+            for ( int datagram = 0; datagram < MAX_DATAGRAMS_PER_SELECT; datagram++ ) {
+                recvBuffer.clear();
+                SocketAddress sender = channel.receive(recvBuffer);
+                if ( sender == null ) {
+                    return;
+                }
+                recvBuffer.flip();
+                
+                // receive buffer is reused, so the data must be copied once
+                byte[] data = new byte[recvBuffer.remaining()];
+                recvBuffer.get(data);
+                
+                processDatagram((InetSocketAddress) sender, BytePacket.wrap(data));
+            }
+        }
+        
+        // passes data of specified datagram to the listener
+        private void processDatagram(InetSocketAddress sender, BytePacket data) {
+            NetworkLayerListener listener = networkListener;
+            if ( listener == null ) {
+                return;
+            }
+            
+            BytePacket userData = null;
+            try {
+                if ( !GWETH_DataTransformer.isAsynchronousMessage(data) ) {
+                    return;
+                }
+                userData = GWETH_DataTransformer.getDataFromMessage(data);
+            } catch ( Exception e ) {
+                logger.error("Error while getting data from message: " + e.getMessage());
+                return;
+            }
+            
+            BaseUDPConnectionInfo connInfo = new BaseUDPConnectionInfo(
+                    sender.getAddress(), sender.getPort()
+            );
+            String networkId = connectionStorage.getNetworkId(connInfo);
+            if ( networkId == null ) {
+                // if no info about network ID is available, set null
+                logger.warn("No network found for connection: {}", connInfo);
+            }
+            
+            // the thread serves all gateways, so it must survive listener's failure
+            try {
+                listener.onGetData(new BaseNetworkData(userData, networkId));
+            } catch ( RuntimeException e ) {
+                logger.error("Error while processing received data", e);
+            }
+        }
+        
+        // sends queued data until the socket send buffer becomes full
+        private void sendPendingData() throws IOException {
+            synchronized ( sendSynchro ) {
+                while ( !pendingSends.isEmpty() ) {
+                    PendingSend pendingSend = pendingSends.peek();
+                    if ( channel.send(pendingSend.data, pendingSend.target) == 0 ) {
+                        return;
+                    }
+                    pendingSends.poll();
+                    bufferPool.release(pendingSend.data);
+                }
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while ( running ) {
+                    updateInterestOps();
+                    selector.select();
+                    if ( !running ) {
+                        break;
+                    }
+                    
+                    if ( selector.selectedKeys().remove(selectionKey) ) {
+                        if ( selectionKey.isReadable() ) {
+                            receiveDatagrams();
+                        }
+                        if ( selectionKey.isWritable() ) {
+                            sendPendingData();
+                        }
+                    }
+                }
+            } catch ( ClosedSelectorException ex ) {
+                logger.debug("Selector closed");
+            } catch ( IOException ex ) {
+                logger.error("Error while communicating through channel", ex);
+            } finally {
+                bufferPool.release(recvBuffer);
+            }
+            logger.info("I/O thread stopped");
+        }
+    }
+    
+    
+    // I/O thread
+    private Thread ioThread = null;
+    
+    // terminates I/O thread
+    private void terminateIOThread() {
+        logger.debug("terminateIOThread - start:");
+        
+        // termination signal to I/O thread
+        running = false;
+        selector.wakeup();
+        
+        // Waiting for thread to terminate. Cancelling worker thread has higher
+        // priority than main thread interruption.
+        while ( ioThread.isAlive() ) {
+            try {
+                ioThread.join();
+            } catch ( InterruptedException e ) {
+                // restoring interrupt status
+                Thread.currentThread().interrupt();
+                logger.warn("Termination - UDP NIO Network Layer interrupted");
+            }
+        }
+        
+        logger.info("UDP NIO Network Layer stopped.");
+        logger.debug("terminateIOThread - end");
+    }
+    
+    /** Frees up used resources. */
+    private void freeResources() {
+        synchronized ( sendSynchro ) {
+            pendingSends.clear();
+        }
+        bufferPool.clear();
+        channel = null;
+        selector = null;
+        selectionKey = null;
+        connectionStorage = null;
+    }
+    
+    // returns target address of specified network
+    private InetSocketAddress getTargetAddress(String networkId)
+            throws NetworkLayerException {
+        AbstractNetworkConnectionInfo connInfo
+                = connectionStorage.getNetworkConnectionInfo(networkId);
+        
+        // no connection info
+        if ( connInfo == null ) {
+            throw new NetworkLayerException("No connection info for network: " + networkId);
+        }
+        
+        // bad type of connection info
+        if ( !(connInfo instanceof UDPConnectionInfo) ) {
+            throw new NetworkLayerException("Bad format of connection info "
+                    + "for network: " + networkId);
+        }
+        
+        UDPConnectionInfo udpInfo = (UDPConnectionInfo) connInfo;
+        return new InetSocketAddress(udpInfo.getAddress(), udpInfo.getPort());
+    }
+    
+    // returns buffer filled with specified data and ready for sending
+    private ByteBuffer createSendBuffer(byte[] data) {
+        if ( data.length > bufferPool.getBufferCapacity() ) {
+            return ByteBuffer.wrap(data);
+        }
+        ByteBuffer buffer = bufferPool.acquire();
+        buffer.put(data);
+        buffer.flip();
+        return buffer;
+    }
+    
+    private static NetworkConnectionStorage checkStorage(NetworkConnectionStorage storage) {
+        if ( storage == null ) {
+            throw new IllegalArgumentException("Network Connection Storage cannot "
+                    + "be less null");
+        }
+        return storage;
+    }
+    
+    private static int checkMaxRecvPacketSize(int maxRecvPacketSize) {
+        if ( maxRecvPacketSize <= 0 ) {
+            throw new IllegalArgumentException("Maximal size of received packet "
+                    + "cannot be less then or equal to 0");
+        }
+        return maxRecvPacketSize;
+    }
+    
+    
+    /**
+     * Creates new UDP NIO client network layer object.
+     * @param connectionStorage storage of network UDP connections
+     * @param localHostName local host name, or {@code null} for the loopback address
+     * @param localPort local port number
+     * @param maxRecvPacketSize maximal size of received packets [in bytes].
+     */
+    public UDPNetworkLayerNio(
+            NetworkConnectionStorage connectionStorage,
+            String localHostName,
+            int localPort,
+            int maxRecvPacketSize
+     ) {
+        super(checkStorage(connectionStorage));
+        try {
+            this.localAddress = InetAddress.getByName(localHostName);
+        } catch ( UnknownHostException ex ) {
+            throw new IllegalArgumentException("Hostname not valid: " + ex.getMessage());
+        }
+        this.localPort = localPort;
+        
+        this.maxRecvPacketSize = checkMaxRecvPacketSize(maxRecvPacketSize);
+        this.bufferPool = new DirectBufferPool(this.maxRecvPacketSize, MAX_FREE_BUFFERS);
+    }
+    
+    /**
+     * Creates new UDP NIO client network layer object. Maximal received packet
+     * size is limited to {@code MAX_RECEIVED_PACKET_SIZE}.
+     * @param connectionStorage storage of network UDP connections
+     * @param localHostName local host name, or {@code null} for the loopback address
+     * @param localPort local port number
+     */
+    public UDPNetworkLayerNio(
+            NetworkConnectionStorage connectionStorage,
+            String localHostName,
+            int localPort
+    ) {
+        this(connectionStorage, localHostName, localPort, MAX_RECEIVED_PACKET_SIZE);
+    }
+    
+    @Override
+    public void registerListener(NetworkLayerListener listener) {
+        this.networkListener = listener;
+        logger.info("Listener registered");
+    }
+    
+    @Override
+    public void unregisterListener() {
+        networkListener = null;
+        logger.info("Listener unregistered");
+    }
+    
+    @Override
+    public void start() throws NetworkLayerException {
+        logger.debug("startReceivingData - start:");
+        
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(localAddress, localPort));
+            selector = Selector.open();
+            selectionKey = channel.register(selector, SelectionKey.OP_READ);
+        } catch ( IOException ex ) {
+            throw new NetworkLayerException(ex);
+        }
+        
+        running = true;
+        ioThread = new IOThread();
+        ioThread.start();
+        
+        logger.info("Receiving data started");
+        logger.debug("startReceivingData - end");
+    }
+    
+    @Override
+    public void sendData(NetworkData networkData) throws NetworkLayerException {
+        logger.debug("sendData - start: networkData={}", networkData);
+        
+        InetSocketAddress target = getTargetAddress(networkData.getNetworkId());
+        
+        // transforms request's data to protocol format defined by GW
+        ByteBuffer buffer = createSendBuffer(
+                GWETH_DataTransformer.transformRequestData(networkData.getPacket())
+        );
+        
+        try {
+            synchronized ( sendSynchro ) {
+                // data must not overtake data already waiting in the queue
+                if ( pendingSends.isEmpty() && (channel.send(buffer, target) > 0) ) {
+                    bufferPool.release(buffer);
+                } else {
+                    pendingSends.add(new PendingSend(buffer, target));
+                    selector.wakeup();
+                }
+            }
+        } catch ( IOException ex ) {
+            bufferPool.release(buffer);
+            logger.error("Sending data to channel failed: " + ex.getMessage());
+            throw new NetworkLayerException(ex);
+        }
+        
+        logger.debug("sendData - end");
+    }
+    
+    @Override
+    public void destroy() {
+        logger.debug("destroy - start: ");
+        
+        unregisterListener();
+        terminateIOThread();
+        
+        try {
+            selector.close();
+        } catch ( IOException ex ) {
+            logger.error("Error while closing selector", ex);
+        }
+        try {
+            channel.close();
+        } catch ( IOException ex ) {
+            logger.error("Error while closing channel", ex);
+        }
+        freeResources();
+        
+        logger.info("Destroyed");
+        logger.debug("destroy - end");
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.microrisc.simply.network.udp.gweth;
 
+import com.microrisc.simply.BytePacket;
+
 /**
  * Transformation of Simply data to and from GW-ETH-01 protocol. 
  * <p>
@@ -54,44 +56,44 @@ public class GWETH_DataTransformer {
     
     
     /** Returns value of data length fields in specified message. */
-    private static int getDataSizeField(short[] data) {
-        return data[DLEN_L_POS] + (data[DLEN_H_POS] << 8);   
+    private static int getDataSizeField(BytePacket data) {
+        return data.get(DLEN_L_POS) + (data.get(DLEN_H_POS) << 8);   
     }
     
     /** Returns value CRC of fields in specified message. */
-    private static int getCRCField(short[] data) {
-        return data[data.length - 1] + (data[data.length - 2] << 8);
+    private static int getCRCField(BytePacket data) {
+        return data.get(data.length() - 1) + (data.get(data.length() - 2) << 8);
     }
     
     /** Checks specified request to be sent to GW. */
-    private static void checkRequest(short[] dataToTransform) {
-        if (dataToTransform.length > MAX_DATA_LENGTH) {
+    private static void checkRequest(BytePacket dataToTransform) {
+        if (dataToTransform.length() > MAX_DATA_LENGTH) {
             throw new IllegalArgumentException("Maximal size of data to transform "
                     + " cannot be greather then" + MAX_DATA_LENGTH);
         }
     }
     
     /** Checks data length of specified mesage. */
-    private static void checkMessageLength(short[] messageFromGW) {
-        if (messageFromGW.length < (HEADER_SIZE + CRC_SIZE)) {
+    private static void checkMessageLength(BytePacket messageFromGW) {
+        if (messageFromGW.length() < (HEADER_SIZE + CRC_SIZE)) {
             throw new IllegalArgumentException("Size of GW message must be at minimal"
                     + (HEADER_SIZE + CRC_SIZE) + " bytes long.");
         }
         
-        if (messageFromGW.length > (HEADER_SIZE + MAX_DATA_LENGTH + CRC_SIZE)) {
+        if (messageFromGW.length() > (HEADER_SIZE + MAX_DATA_LENGTH + CRC_SIZE)) {
             throw new IllegalArgumentException("Size of GW message cannot be greather"
                     + "then " + (HEADER_SIZE + MAX_DATA_LENGTH + CRC_SIZE) + " bytes long.");
         }
         
         int dataSize = getDataSizeField(messageFromGW);
-        if (dataSize != (messageFromGW.length - (HEADER_SIZE + CRC_SIZE)) ) {
+        if (dataSize != (messageFromGW.length() - (HEADER_SIZE + CRC_SIZE)) ) {
             throw new IllegalArgumentException("Message size mismatch: " + dataSize + ". "
-                    + " It should be: " + (messageFromGW.length - (HEADER_SIZE + CRC_SIZE)));
+                    + " It should be: " + (messageFromGW.length() - (HEADER_SIZE + CRC_SIZE)));
         }
     }
     
     /** Checks CRC of specified message. */
-    private static void checkMessageCRC(short[] messageFromGW) {
+    private static void checkMessageCRC(BytePacket messageFromGW) {
         int crc = getCRCField(messageFromGW);
 
         int crcCalculated = calculateCRC_microrisc(messageFromGW, 0, 
@@ -106,29 +108,29 @@ public class GWETH_DataTransformer {
     }
     
     /** Checks GW identification of specified message. */
-    private static void checkMessageGWIdentification(short[] messageFromGW) {
-        if (messageFromGW[GW_ADR_POS] != GW_ADR_VALUE) {
+    private static void checkMessageGWIdentification(BytePacket messageFromGW) {
+        if (messageFromGW.get(GW_ADR_POS) != GW_ADR_VALUE) {
             throw new IllegalArgumentException("GW identification mismatch: " + 
-                    messageFromGW[GW_ADR_POS]);
+                    messageFromGW.get(GW_ADR_POS));
         }
     }
     
     /** Checks GW identification of specified message. */
-    private static void checkMessageAsynchronity(short[] messageFromGW) {
-        if ( messageFromGW[SUBCMD_POS] != SUBCMD_ASYNC_VALUE ) {
+    private static void checkMessageAsynchronity(BytePacket messageFromGW) {
+        if ( messageFromGW.get(SUBCMD_POS) != SUBCMD_ASYNC_VALUE ) {
             throw new IllegalArgumentException("GW asynchronity identification mismatch: " + 
-                    messageFromGW[SUBCMD_POS]);
+                    messageFromGW.get(SUBCMD_POS));
         }
     }
     
     /** Checks message from GW. */
-    private static void checkMessageFromGW(short[] messageFromGW) {
+    private static void checkMessageFromGW(BytePacket messageFromGW) {
         checkMessageLength(messageFromGW);
         checkMessageCRC(messageFromGW);
         checkMessageGWIdentification(messageFromGW);
         
         // if the message has indication of asynchronity, check it
-        if (messageFromGW[CMD_POS] == CMD_ASYNC_VALUE) {
+        if (messageFromGW.get(CMD_POS) == CMD_ASYNC_VALUE) {
             checkMessageAsynchronity(messageFromGW);
         }
     }
@@ -161,10 +163,10 @@ public class GWETH_DataTransformer {
      * Calculates CRC on specified data.
      * Taken from the Microrisc implementation.
      */
-    private static int calculateCRC_microrisc(short[] data, int firstIndex, int byteCount) {
-        int crcDbyte = data[firstIndex];
+    private static int calculateCRC_microrisc(BytePacket data, int firstIndex, int byteCount) {
+        int crcDbyte = data.get(firstIndex);
         crcDbyte <<= 8;
-        crcDbyte |= data[firstIndex + 1];
+        crcDbyte |= data.get(firstIndex + 1);
         
         int currentData = firstIndex + 2;
         short temp = 0;
@@ -174,7 +176,7 @@ public class GWETH_DataTransformer {
                 if(( crcDbyte & 0x8000 ) == 0x0000) {
                     crcDbyte <<= 1;
                     temp = (short)(0x01 << (7 - bitCounter));
-                    if( (data[currentData] & temp) == temp) {
+                    if( (data.get(currentData) & temp) == temp) {
                         crcDbyte |= 0x0001;
                     } else { 
                         crcDbyte &= 0xFFFE;
@@ -184,7 +186,7 @@ public class GWETH_DataTransformer {
                 
                 crcDbyte <<= 1;
                 temp = (short)(0x01 << (7 - bitCounter));
-                if((data[currentData] & temp) == temp) {
+                if((data.get(currentData) & temp) == temp) {
                     crcDbyte |= 0x0001;
                 } else {
                     crcDbyte &= 0xFFFE;
@@ -212,36 +214,59 @@ public class GWETH_DataTransformer {
      * @param data request data to transform
      * @return transformed data - message for GW
      */
-    public static short[] transformRequestData(short[] data) {
+    public static byte[] transformRequestData(BytePacket data) {
         checkRequest(data);
-        short[] transformedData = new short[HEADER_SIZE + data.length + CRC_SIZE];
+        byte[] transformedData = new byte[HEADER_SIZE + data.length() + CRC_SIZE];
          
         transformedData[GW_ADR_POS] = GW_ADR_VALUE;
         transformedData[CMD_POS] = CMD_WRITE_VALUE;
         transformedData[SUBCMD_POS] = SUBCMD_WRITE_VALUE;
         
-        System.arraycopy(data, 0, transformedData, HEADER_SIZE, data.length);
+        data.copyTo(transformedData, HEADER_SIZE);
         
-        transformedData[DLEN_H_POS] = (short)((data.length & 0xFF00) >> 8);
-        transformedData[DLEN_L_POS] = (short)(data.length & 0xFF);
+        transformedData[DLEN_H_POS] = (byte)((data.length() & 0xFF00) >> 8);
+        transformedData[DLEN_L_POS] = (byte)(data.length() & 0xFF);
         
-        int crc = calculateCRC_microrisc(transformedData, 0, HEADER_SIZE + data.length);
+        int crc = calculateCRC_microrisc(
+                BytePacket.wrap(transformedData), 0, HEADER_SIZE + data.length()
+        );
         
-        transformedData[HEADER_SIZE + data.length] = (short)((crc & 0xFF00) >> 8);
-        transformedData[HEADER_SIZE + data.length+1] = (short)(crc & 0xFF);
+        transformedData[HEADER_SIZE + data.length()] = (byte)((crc & 0xFF00) >> 8);
+        transformedData[HEADER_SIZE + data.length() + 1] = (byte)(crc & 0xFF);
         
         return transformedData;
     }
     
+    /**
+     * Transform specified Simply request data into GW message format.
+     * @param data request data to transform
+     * @return transformed data - message for GW
+     */
+    public static short[] transformRequestData(short[] data) {
+        return BytePacket.wrap(
+                transformRequestData(BytePacket.fromShortArray(data))
+        ).toShortArray();
+    }
+    
     /**
      * Returns {@code true} if the specified message is asynchrounous message.
      * @param message message to check for asynchronity
      * @return {@code true} if the specified message is asynchrounous message <br>
      *         {@code false} otherwise
      */
-    public static boolean isAsynchronousMessage(short[] message) {
+    public static boolean isAsynchronousMessage(BytePacket message) {
         checkMessageFromGW(message);
-        return (message[CMD_POS] == CMD_ASYNC_VALUE);
+        return (message.get(CMD_POS) == CMD_ASYNC_VALUE);
+    }
+    
+    /**
+     * Returns {@code true} if the specified message is asynchrounous message.
+     * @param message message to check for asynchronity
+     * @return {@code true} if the specified message is asynchrounous message <br>
+     *         {@code false} otherwise
+     */
+    public static boolean isAsynchronousMessage(short[] message) {
+        return isAsynchronousMessage(BytePacket.fromShortArray(message));
     } 
     
     /**
@@ -252,8 +277,20 @@ public class GWETH_DataTransformer {
      *         {@code false} otherwise
      */
     public static boolean hasAnswerIndication(short[] message) {
-        checkMessageFromGW(message);
-        return ((message[CMD_POS] & CMD_ANSWER_INDICATION) == CMD_ANSWER_INDICATION);  
+        BytePacket messagePacket = BytePacket.fromShortArray(message);
+        checkMessageFromGW(messagePacket);
+        return ((messagePacket.get(CMD_POS) & CMD_ANSWER_INDICATION) == CMD_ANSWER_INDICATION);  
+    }
+    
+    /**
+     * Returns DATA part of specified GW message. The part is a view of the
+     * message, i.e. data are not copied.
+     * @param messageFromGW source message from GW
+     * @return DATA part of specified GW message
+     */
+    public static BytePacket getDataFromMessage(BytePacket messageFromGW) {
+        checkMessageFromGW(messageFromGW);
+        return messageFromGW.slice(HEADER_SIZE, getDataSizeField(messageFromGW));
     }
     
     /**
@@ -262,15 +299,6 @@ public class GWETH_DataTransformer {
      * @return DATA part of specified GW message
      */
     public static short[] getDataFromMessage(short[] messageFromGW) {
-        checkMessageFromGW(messageFromGW);
-        
-        int dataSize = getDataSizeField(messageFromGW);
-        if (dataSize == 0) {
-            return new short[0];
-        }
-        
-        short[] data = new short[dataSize];
-        System.arraycopy(messageFromGW, HEADER_SIZE, data, 0, dataSize);
-        return data;
+        return getDataFromMessage(BytePacket.fromShortArray(messageFromGW)).toShortArray();
     }
 }
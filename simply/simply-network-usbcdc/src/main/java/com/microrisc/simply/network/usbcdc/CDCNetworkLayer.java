@@ -16,17 +16,26 @@
 
 package com.microrisc.simply.network.usbcdc;
 
-import com.microrisc.cdc.J_AsyncMsgListener;
+import com.microrisc.cdc.J_AsyncBufferListener;
 import com.microrisc.cdc.J_CDCImpl;
 import com.microrisc.cdc.J_CDCImplException;
+import com.microrisc.simply.BytePacket;
 import com.microrisc.simply.NetworkData;
 import com.microrisc.simply.NetworkLayerListener;
+import com.microrisc.simply.metrics.Counter;
+import com.microrisc.simply.metrics.Gauge;
+import com.microrisc.simply.metrics.MetricName;
+import com.microrisc.simply.metrics.MetricsRegistry;
+import com.microrisc.simply.metrics.StandardMetrics;
 import com.microrisc.simply.network.AbstractNetworkConnectionInfo;
 import com.microrisc.simply.network.AbstractNetworkLayer;
 import com.microrisc.simply.network.BaseNetworkData;
 import com.microrisc.simply.network.NetworkConnectionStorage;
 import com.microrisc.simply.network.NetworkLayerException;
 import com.microrisc.simply.network.comport.BaseCOMPortConnectionInfo;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,11 +46,17 @@ import org.slf4j.LoggerFactory;
  * object. All data comming from CDC interface is forwarder to user's registered 
  * network listener. All data designated to underlaying network are forwarded to 
  * J_CDCImpl's {@code J_CDCImpl} method.
+ * <p>
+ * Reception thread of CDC library only copies received data into one of 
+ * preallocated messages and puts it into bounded queue. The listener is called 
+ * from separate delivery thread, so the reception never blocks on processing 
+ * of data. If all preallocated messages are in the queue, received data is 
+ * dropped and counted.
  * 
  * @author Michal Konopa
  */
 public final class CDCNetworkLayer 
-extends AbstractNetworkLayer implements J_AsyncMsgListener {
+extends AbstractNetworkLayer implements J_AsyncBufferListener {
     /** Logger. */
     private static final Logger logger = LoggerFactory.getLogger(CDCNetworkLayer.class);
     
@@ -53,14 +68,170 @@ extends AbstractNetworkLayer implements J_AsyncMsgListener {
     private J_CDCImpl cdcImpl = null;
     
     /** Registered network listener. */
-    private NetworkLayerListener networkListener = null;
+    private volatile NetworkLayerListener networkListener = null;
     
     /** COM-port connection info. */
     private BaseCOMPortConnectionInfo connectionInfo=  null;
     
     
+    /** Default capacity of queue of received messages. */
+    public static final int DEFAULT_RECEPTION_QUEUE_CAPACITY = 64;
+    
+    /** Value of type tag for messages dropped because of full queue. */
+    private static final String DROP_TYPE_QUEUE_FULL = "queueFull";
+    
+    /** Value of type tag for messages dropped because of their length. */
+    private static final String DROP_TYPE_OVERSIZED = "oversized";
+    
+    /**
+     * Received message. 
+     */
+    private static final class ReceivedMessage {
+        // data of the message
+        final byte[] data = new byte[J_CDCImpl.MAX_MESSAGE_LENGTH];
+        
+        // length of the data, -1 for erroneous message
+        int length = 0;
+    }
+    
+    /** Free messages, ready to receive data. */
+    private final BlockingQueue<ReceivedMessage> freeMessages;
+    
+    /** Messages waiting for delivery to the listener. */
+    private final BlockingQueue<ReceivedMessage> receivedMessages;
+    
+    /** Counter of messages dropped because of full queue. */
+    private Counter queueFullDropsCounter = null;
+    
+    /** Counter of messages dropped because of their length. */
+    private Counter oversizedDropsCounter = null;
+    
+    /** Name of metric of queue depth. */
+    private MetricName queueDepthMetricName = null;
+    
+    /** Depth of queue of received messages. */
+    private final Gauge queueDepthGauge = new Gauge() {
+        @Override
+        public long getValue() {
+            return receivedMessages.size();
+        }
+    };
+    
+    /** Delivery thread. */
+    private Thread deliveryThread = null;
+    
+    /** Buffer for sending data. */
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(J_CDCImpl.MAX_MESSAGE_LENGTH);
+    
+    
+    /**
+     * Delivers received messages to the listener.
+     */
+    private class DeliveryThread extends Thread {
+        
+        DeliveryThread() {
+            super("CDCNetworkLayer-delivery");
+        }
+        
+        @Override
+        public void run() {
+            while ( true ) {
+                if ( this.isInterrupted() ) {
+                    logger.info("Delivery thread interrupted");
+                    return;
+                }
+                
+                ReceivedMessage message = null;
+                try {
+                    message = receivedMessages.take();
+                } catch ( InterruptedException ex ) {
+                    logger.info("Delivery thread interrupted while waiting on messages");
+                    return;
+                }
+                
+                BaseNetworkData networkData = createNetworkData(message);
+                freeMessages.offer(message);
+                
+                NetworkLayerListener listener = networkListener;
+                if ( listener == null ) {
+                    continue;
+                }
+                
+                try {
+                    listener.onGetData(networkData);
+                } catch ( Exception ex ) {
+                    logger.error("Error while delivering received data: ", ex);
+                }
+            }
+        }
+    }
+    
+    // creates network data from specified message
+    private BaseNetworkData createNetworkData(ReceivedMessage message) {
+        String networkId = connectionStorage.getNetworkId(connectionInfo);
+        if ( message.length < 0 ) {
+            return new BaseNetworkData((short[]) null, networkId);
+        }
+        return new BaseNetworkData(
+                BytePacket.copyOf(message.data, 0, message.length), networkId
+        );
+    }
+    
+    // registers metrics of reception
+    private void registerMetrics() {
+        String networkId = connectionStorage.getNetworkId(connectionInfo);
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        
+        queueFullDropsCounter = registry.counter(
+                new MetricName(
+                    StandardMetrics.NETWORK_RECEPTION_DROPPED,
+                    StandardMetrics.TAG_NETWORK, String.valueOf(networkId),
+                    StandardMetrics.TAG_TYPE, DROP_TYPE_QUEUE_FULL
+                )
+        );
+        oversizedDropsCounter = registry.counter(
+                new MetricName(
+                    StandardMetrics.NETWORK_RECEPTION_DROPPED,
+                    StandardMetrics.TAG_NETWORK, String.valueOf(networkId),
+                    StandardMetrics.TAG_TYPE, DROP_TYPE_OVERSIZED
+                )
+        );
+        queueDepthMetricName = new MetricName(
+                StandardMetrics.NETWORK_RECEPTION_QUEUE_DEPTH,
+                StandardMetrics.TAG_NETWORK, String.valueOf(networkId)
+        );
+        registry.gauge(queueDepthMetricName, queueDepthGauge);
+    }
+    
+    // terminates delivery thread
+    private void terminateDeliveryThread() {
+        if ( deliveryThread == null ) {
+            return;
+        }
+        
+        deliveryThread.interrupt();
+        
+        // Waiting for thread to terminate. Cancelling worker thread has higher 
+        // priority than main thread interruption. 
+        while ( deliveryThread.isAlive() ) {
+            try {
+                deliveryThread.join();
+            } catch ( InterruptedException e ) {
+                // restoring interrupt status
+                Thread.currentThread().interrupt();
+                logger.warn("Termination - CDC Network Layer interrupted");
+            }
+        }
+        deliveryThread = null;
+    }
+    
     /** Frees up used resources. */
     private void freeResources() {
+        if ( queueDepthMetricName != null ) {
+            MetricsRegistry.getDefault().remove(queueDepthMetricName, queueDepthGauge);
+        }
+        receivedMessages.clear();
+        freeMessages.clear();
         cdcImpl = null;
         connectionStorage = null;
     }
@@ -84,23 +255,53 @@ extends AbstractNetworkLayer implements J_AsyncMsgListener {
         return portName;
     } 
     
+    private static int checkReceptionQueueCapacity(int capacity) {
+        if ( capacity <= 0 ) {
+            throw new IllegalArgumentException("Reception queue capacity must be positive");
+        }
+        return capacity;
+    }
+    
     
     /**
      * Creates CDC network layer object. 
      * @param connectionStorage storage of network COM-port connections
      * @param portName COM-port name for communication
+     * @param receptionQueueCapacity maximal number of received messages 
+     *        waiting for delivery to the listener
      * @throws com.microrisc.cdc.J_CDCImplException if some exception has occured
      *         during creating of CDC network layer 
      */
-    public CDCNetworkLayer(NetworkConnectionStorage connectionStorage, String portName) 
-            throws J_CDCImplException, Exception 
+    public CDCNetworkLayer(
+            NetworkConnectionStorage connectionStorage, String portName,
+            int receptionQueueCapacity
+    ) throws J_CDCImplException, Exception 
     {
         super(checkStorage(connectionStorage));
         this.portName = checkPortName(portName);
+        checkReceptionQueueCapacity(receptionQueueCapacity);
+        this.freeMessages = new ArrayBlockingQueue<>(receptionQueueCapacity);
+        this.receivedMessages = new ArrayBlockingQueue<>(receptionQueueCapacity);
+        for ( int i = 0; i < receptionQueueCapacity; i++ ) {
+            freeMessages.add(new ReceivedMessage());
+        }
         this.cdcImpl = new J_CDCImpl(portName);
         this.connectionInfo = new BaseCOMPortConnectionInfo(portName);
     }
     
+    /**
+     * Creates CDC network layer object with default capacity of reception queue. 
+     * @param connectionStorage storage of network COM-port connections
+     * @param portName COM-port name for communication
+     * @throws com.microrisc.cdc.J_CDCImplException if some exception has occured
+     *         during creating of CDC network layer 
+     */
+    public CDCNetworkLayer(NetworkConnectionStorage connectionStorage, String portName) 
+            throws J_CDCImplException, Exception 
+    {
+        this(connectionStorage, portName, DEFAULT_RECEPTION_QUEUE_CAPACITY);
+    }
+    
    
     @Override
     public void registerListener(NetworkLayerListener listener) {
@@ -138,6 +339,11 @@ extends AbstractNetworkLayer implements J_AsyncMsgListener {
             throw new NetworkLayerException(ex);
         }
         */
+        registerMetrics();
+        
+        deliveryThread = new DeliveryThread();
+        deliveryThread.start();
+        
         // register this as a listener of asynchronous messages from network interface
         this.cdcImpl.registerAsyncListener(this);
         
@@ -168,10 +374,20 @@ extends AbstractNetworkLayer implements J_AsyncMsgListener {
             );
         }
         
+        BytePacket packet = networkData.getPacket();
+        if ( packet.length() > sendBuffer.capacity() ) {
+            throw new NetworkLayerException("Data too long: " + packet.length());
+        }
+        
         try {
             // doesn't care about network ID - sends all data to COM-port set
             // in the constructor
-            cdcImpl.sendData(networkData.getData());
+            synchronized ( sendBuffer ) {
+                sendBuffer.clear();
+                sendBuffer.put(packet.asByteBuffer());
+                sendBuffer.flip();
+                cdcImpl.sendData(sendBuffer);
+            }
         } catch ( Exception ex ) {
             throw new NetworkLayerException(ex);
         }
@@ -184,6 +400,7 @@ extends AbstractNetworkLayer implements J_AsyncMsgListener {
         logger.debug("destroy - start: ");
         
         cdcImpl.unregisterAsyncListener();
+        terminateDeliveryThread();
         freeResources();
         
         logger.info("Destroyed");
@@ -191,12 +408,46 @@ extends AbstractNetworkLayer implements J_AsyncMsgListener {
     }
     
     @Override
-    public void onGetMessage(short[] data) {
+    public void onGetMessage(ByteBuffer data) {
         logger.debug("onGetMessage - start: data={}", data);
         
-        String networkId = connectionStorage.getNetworkId(connectionInfo);
-        networkListener.onGetData(new BaseNetworkData(data, networkId));
+        if ( (data != null) && (data.remaining() > J_CDCImpl.MAX_MESSAGE_LENGTH) ) {
+            oversizedDropsCounter.inc();
+            logger.warn("Received data too long, dropped: {}", data.remaining());
+            return;
+        }
+        
+        ReceivedMessage message = freeMessages.poll();
+        if ( message == null ) {
+            queueFullDropsCounter.inc();
+            logger.warn("Reception queue full, received data dropped");
+            return;
+        }
+        
+        if ( data == null ) {
+            message.length = -1;
+        } else {
+            message.length = data.remaining();
+            data.get(message.data, 0, message.length);
+        }
+        receivedMessages.offer(message);
         
         logger.debug("onGetMessage - end");
     }
+    
+    /**
+     * Returns number of received messages dropped because of full reception
+     * queue or because of their length.
+     * @return number of dropped received messages
+     */
+    public long getDroppedMessagesCount() {
+        long count = 0;
+        if ( queueFullDropsCounter != null ) {
+            count += queueFullDropsCounter.getCount();
+        }
+        if ( oversizedDropsCounter != null ) {
+            count += oversizedDropsCounter.getCount();
+        }
+        return count;
+    }
 }
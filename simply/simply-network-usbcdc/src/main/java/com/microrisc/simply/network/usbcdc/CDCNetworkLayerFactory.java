@@ -30,7 +30,10 @@ import org.apache.commons.configuration.Configuration;
  * <p>
  * Configuration items: <br>
  * - <b>networkLayer.type.cdc.port</b>: COM-port to use. If no such configuration
- * key is found, "auto"( which means autoconfiguration ) is used as default.
+ * key is found, "auto"( which means autoconfiguration ) is used as default. <br>
+ * - <b>networkLayer.type.cdc.receptionQueueCapacity</b>: maximal number of 
+ * received messages waiting for delivery to the listener. If no such configuration
+ * key is found, {@link CDCNetworkLayer#DEFAULT_RECEPTION_QUEUE_CAPACITY} is used.
  * 
  * <p>
  * <b>Autoconfiguration</b> is the process, during which a COM-port to use is deduced
@@ -54,10 +57,15 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
     private static class NetworkLayerParams {
         NetworkConnectionStorage connectionStorage;
         String portName;
+        int receptionQueueCapacity;
         
-        NetworkLayerParams(NetworkConnectionStorage connectionStorage, String portName) { 
+        NetworkLayerParams(
+                NetworkConnectionStorage connectionStorage, String portName,
+                int receptionQueueCapacity
+        ) { 
             this.connectionStorage = connectionStorage;
             this.portName = portName;
+            this.receptionQueueCapacity = receptionQueueCapacity;
         }
     }
     
@@ -72,7 +80,11 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
             NetworkConnectionStorage connectionStorage, Configuration configProps
     ) {
         String portName = configProps.getString("networkLayer.type.cdc.port", AUTOCONF);
-        return new NetworkLayerParams(connectionStorage, portName);
+        int receptionQueueCapacity = configProps.getInt(
+                "networkLayer.type.cdc.receptionQueueCapacity", 
+                CDCNetworkLayer.DEFAULT_RECEPTION_QUEUE_CAPACITY
+        );
+        return new NetworkLayerParams(connectionStorage, portName, receptionQueueCapacity);
     }
     
     // checks Connection Storage if it is suitable for autoconfiguration and if
@@ -120,7 +132,8 @@ extends AbstractNetworkLayerFactory<Configuration, NetworkLayer> {
         
         return new CDCNetworkLayer(
                         networkParams.connectionStorage,
-                        portName
+                        portName,
+                        networkParams.receptionQueueCapacity
         );
     }
     